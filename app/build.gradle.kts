@@ -8,6 +8,10 @@ plugins {
     jacoco
 }
 
+// -PisolatedTileProcess=true runs the Quick Settings tile and its dialog in a process of their
+// own, which SystemUI can bind without starting the rest of the app.
+val isolatedTileProcess = providers.gradleProperty("isolatedTileProcess").orNull == "true"
+
 android {
     namespace = "com.monkopedia.quickcalc"
     compileSdk = 36
@@ -19,6 +23,9 @@ android {
         versionCode = 1
         versionName = "1.0.0"
         testInstrumentationRunner = "androidx.test.runner.AndroidJUnitRunner"
+        // Naming the app's own process keeps the tile in it.
+        manifestPlaceholders["tileProcess"] = if (isolatedTileProcess) ":tile" else applicationId!!
+        buildConfigField("boolean", "ISOLATED_TILE_PROCESS", "$isolatedTileProcess")
     }
 
     signingConfigs {
@@ -71,6 +78,17 @@ android {
     }
 }
 
+composeCompiler {
+    // Engine types from :core are immutable but are compiled without the Compose compiler.
+    stabilityConfigurationFiles.add(layout.projectDirectory.file("compose-stability.conf"))
+    // -PcomposeCompilerReports=true writes which composables skip, and why, to
+    // build/compose_compiler.
+    if (providers.gradleProperty("composeCompilerReports").orNull == "true") {
+        reportsDestination.set(layout.buildDirectory.dir("compose_compiler"))
+        metricsDestination.set(layout.buildDirectory.dir("compose_compiler"))
+    }
+}
+
 tasks.withType<KotlinCompile>().configureEach {
     compilerOptions {
         jvmTarget.set(JvmTarget.JVM_17)
@@ -80,7 +98,7 @@ tasks.withType<KotlinCompile>().configureEach {
 }
 
 dependencies {
-    implementation(files("libs/arity-2.1.2.jar"))
+    implementation(project(":core"))
     implementation(libs.androidx.annotation)
     implementation(libs.androidx.viewpager)
     implementation(platform(libs.androidx.compose.bom))
@@ -89,6 +107,7 @@ dependencies {
     implementation(libs.androidx.compose.foundation)
     implementation(libs.androidx.compose.material3)
     implementation(libs.androidx.datastore.preferences)
+    implementation(libs.androidx.tracing)
 
     testImplementation(libs.junit4)
     testImplementation(libs.androidx.test.core)
@@ -147,9 +166,7 @@ tasks.register<JavaExec>("detektCheck") {
         "--max-issues",
         "999",
         "--input",
-        "src/main/java/com/monkopedia/quickcalc/CalculatorExpressionBuilder.kt," +
-            "src/main/java/com/monkopedia/quickcalc/CalculatorExpressionEvaluator.kt," +
-            "src/main/java/com/monkopedia/quickcalc/CalculatorExpressionTokenizer.kt",
+        "src/main/java",
         "--base-path",
         projectDir.absolutePath
     )
@@ -182,20 +199,19 @@ tasks.withType<Test>().configureEach {
 }
 
 val nonUiCoverageClassPatterns = listOf(
-    "com/monkopedia/quickcalc/CalculatorExpressionBuilder.class",
     "com/monkopedia/quickcalc/CalculatorExpressionEvaluator.class",
     "com/monkopedia/quickcalc/CalculatorExpressionTokenizer.class"
 )
 
-val nonUiClassDirectories = layout.buildDirectory
-    .dir("intermediates/javac/debug/compileDebugJavaWithJavac/classes")
-    .map { classesDir ->
-        fileTree(classesDir) {
-            include(nonUiCoverageClassPatterns)
-        }
-    }
+// The evaluator and tokenizer live in :core but are exercised by this module's tests.
+val nonUiClassDirectories = files(
+    layout.buildDirectory.dir("intermediates/javac/debug/compileDebugJavaWithJavac/classes"),
+    project(":core").layout.buildDirectory.dir("classes/kotlin/main")
+).asFileTree.matching {
+    include(nonUiCoverageClassPatterns)
+}
 
-val nonUiSourceDirectories = files("src/main/java")
+val nonUiSourceDirectories = files("src/main/java", "../core/src/main/java")
 
 val nonUiExecutionData = files(
     layout.buildDirectory.file("jacoco/testDebugUnitTest.exec"),
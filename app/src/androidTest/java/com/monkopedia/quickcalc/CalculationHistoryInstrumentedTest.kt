@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.content.ComponentName
+import android.content.Context
+import android.os.Build
+import android.os.ParcelFileDescriptor
+import android.os.SystemClock
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.test.platform.app.InstrumentationRegistry
+import kotlinx.coroutines.runBlocking
+import kotlinx.coroutines.withContext
+import org.junit.After
+import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Checks that a calculation made in the tile's dialog reaches the history this process reads.
+ *
+ * Run it with `-PisolatedTileProcess=true` as well, where the dialog runs in the tile's own
+ * process and the two share the tape through its lock file.
+ */
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class CalculationHistoryInstrumentedTest {
+
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+    private val tileComponent =
+        ComponentName(context, CalculatorTileService::class.java).flattenToShortString()
+
+    @Before
+    fun setUp() {
+        // The tile's trace events are only logged in debuggable builds.
+        assumeTrue(BuildConfig.DEBUG)
+        assumeTrue(
+            "Clicking tiles from the shell needs Android 10",
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+        )
+        shell("cmd statusbar add-tile $tileComponent")
+    }
+
+    @After
+    fun tearDown() {
+        shell("cmd statusbar remove-tile $tileComponent")
+        shell("cmd statusbar collapse")
+    }
+
+    @Test
+    fun calculationsInTheTileReachTheMainProcess() {
+        val addend = 100 + SystemClock.uptimeMillis() % 900
+        val expected = CalculationHistoryLog.Entry("$addend+1", "${addend + 1}")
+        val history = runBlocking {
+            withContext(CalculationHistory.dispatcher) { CalculationHistory.log(context) }
+        }
+
+        shell("logcat -c")
+        shell("cmd statusbar click-tile $tileComponent")
+        awaitTraceEvent("dialog_onShow")
+        // Give the calculator a moment to take focus before typing into it.
+        SystemClock.sleep(SETTLE_MS)
+        shell("input text ${expected.formula}")
+        shell("input keyevent KEYCODE_ENTER")
+        shell("input keyevent KEYCODE_BACK")
+        awaitTraceEvent("dialog_onDismiss")
+
+        val deadline = SystemClock.elapsedRealtime() + TIMEOUT_MS
+        while (newestEntry(history) != expected) {
+            assertTrue(
+                "$expected did not reach the main process; newest is ${newestEntry(history)}",
+                SystemClock.elapsedRealtime() < deadline
+            )
+            SystemClock.sleep(POLL_INTERVAL_MS)
+        }
+    }
+
+    private fun newestEntry(history: CalculationHistoryLog): CalculationHistoryLog.Entry? =
+        runBlocking {
+            withContext(CalculationHistory.dispatcher) {
+                history.refresh()
+                history.revision.value.size.takeIf { it > 0 }?.let { history.read(it - 1) }
+            }
+        }
+
+    /** Waits for the tile service to log [event]. */
+    private fun awaitTraceEvent(event: String) {
+        val pattern = Regex("TRACE event=$event t=")
+        val deadline = SystemClock.elapsedRealtime() + TIMEOUT_MS
+        while (!pattern.containsMatchIn(shell("logcat -d -s CalculatorTileService:I"))) {
+            assertTrue("The tile did not log $event", SystemClock.elapsedRealtime() < deadline)
+            SystemClock.sleep(POLL_INTERVAL_MS)
+        }
+    }
+
+    private fun shell(command: String): String {
+        val output = InstrumentationRegistry.getInstrumentation()
+            .uiAutomation
+            .executeShellCommand(command)
+        return ParcelFileDescriptor.AutoCloseInputStream(output).bufferedReader().use {
+            it.readText()
+        }
+    }
+
+    private companion object {
+        const val TIMEOUT_MS = 10_000L
+        const val POLL_INTERVAL_MS = 50L
+        const val SETTLE_MS = 500L
+    }
+}
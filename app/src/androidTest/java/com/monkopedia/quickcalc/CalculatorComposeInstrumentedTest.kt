@@ -19,23 +19,30 @@ package com.monkopedia.quickcalc
 import android.content.ClipboardManager
 import android.content.pm.ActivityInfo
 import android.view.KeyEvent
+import androidx.compose.ui.geometry.Offset
 import androidx.compose.ui.semantics.SemanticsActions
 import androidx.compose.ui.semantics.SemanticsProperties
 import androidx.compose.ui.test.assertCountEquals
 import androidx.compose.ui.test.assertIsDisplayed
 import androidx.compose.ui.test.assertTextContains
+import androidx.compose.ui.test.click
+import androidx.compose.ui.test.getUnclippedBoundsInRoot
 import androidx.compose.ui.test.hasClickAction
 import androidx.compose.ui.test.hasTestTag
 import androidx.compose.ui.test.junit4.createAndroidComposeRule
 import androidx.compose.ui.test.onAllNodesWithTag
 import androidx.compose.ui.test.onAllNodesWithText
+import androidx.compose.ui.test.onNodeWithContentDescription
 import androidx.compose.ui.test.onNodeWithTag
 import androidx.compose.ui.test.performClick
+import androidx.compose.ui.test.performScrollToIndex
 import androidx.compose.ui.test.performTouchInput
 import androidx.compose.ui.test.swipeLeft
 import androidx.compose.ui.unit.dp
 import androidx.test.ext.junit.runners.AndroidJUnit4
 import androidx.test.filters.LargeTest
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
 import org.junit.Assert.assertTrue
 import org.junit.Rule
 import org.junit.Test
@@ -72,6 +79,20 @@ class CalculatorComposeInstrumentedTest {
         composeRule.onNodeWithTag(TEST_TAG_RESULT).assertTextContains("3")
     }
 
+    @Test
+    fun tappingTheFormulaMovesWhereInputGoes() {
+        tap(TEST_TAG_DIGIT_1, TEST_TAG_ADD, TEST_TAG_DIGIT_2)
+
+        // The formula is aligned to the end, so a quarter of the way in is before all of it.
+        composeRule.onNodeWithTag(TEST_TAG_FORMULA).performTouchInput {
+            click(Offset(width / 4f, height / 2f))
+        }
+        tap(TEST_TAG_DIGIT_3)
+
+        composeRule.onNodeWithTag(TEST_TAG_FORMULA).assertTextContains("31+2")
+        composeRule.onNodeWithTag(TEST_TAG_RESULT).assertTextContains("33")
+    }
+
     @Test
     fun ctrlClipboardShortcutsPasteAndCopyFormulaText() {
         val clipboard = composeRule.activity.getSystemService(ClipboardManager::class.java)
@@ -152,6 +173,30 @@ class CalculatorComposeInstrumentedTest {
         composeRule.onNodeWithTag(TEST_TAG_DIGIT_1).assertIsDisplayed()
     }
 
+    @Test
+    fun historyLeavesTheAdvancedPadItsSize() {
+        val history = CalculationHistory.log(composeRule.activity)
+        runBlocking(CalculationHistory.dispatcher) { history.clear() }
+        composeRule.onNodeWithTag(TEST_TAG_PAD_PAGER).performTouchInput {
+            swipeLeft()
+        }
+        composeRule.waitForIdle()
+        val emptyBounds = composeRule.onNodeWithTag(TEST_TAG_ADVANCED_PAD)
+            .getUnclippedBoundsInRoot()
+
+        runBlocking(CalculationHistory.dispatcher) { history.append("1+2", "3") }
+        composeRule.waitForIdle()
+
+        assertEquals(
+            emptyBounds,
+            composeRule.onNodeWithTag(TEST_TAG_ADVANCED_PAD).getUnclippedBoundsInRoot()
+        )
+        composeRule.onNodeWithTag(TEST_TAG_HISTORY_TAPE).performScrollToIndex(1)
+        composeRule.onNodeWithContentDescription(
+            composeRule.activity.getString(R.string.desc_history_entry, "1+2", "3")
+        ).assertIsDisplayed()
+    }
+
     @Test
     fun landscapeShowsAdvancedPadWithoutPagerSwipe() {
         composeRule.activity.requestedOrientation = ActivityInfo.SCREEN_ORIENTATION_LANDSCAPE
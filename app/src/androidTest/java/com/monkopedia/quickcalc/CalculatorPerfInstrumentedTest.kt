@@ -17,6 +17,14 @@
 package com.monkopedia.quickcalc
 
 import android.os.SystemClock
+import androidx.compose.ui.text.AnnotatedString
+import androidx.compose.ui.text.TextMeasurer
+import androidx.compose.ui.text.TextStyle
+import androidx.compose.ui.text.font.FontWeight
+import androidx.compose.ui.text.font.createFontFamilyResolver
+import androidx.compose.ui.unit.Density
+import androidx.compose.ui.unit.LayoutDirection
+import androidx.compose.ui.unit.sp
 import androidx.test.core.app.ActivityScenario
 import androidx.test.core.app.ApplicationProvider
 import androidx.test.ext.junit.runners.AndroidJUnit4
@@ -83,4 +91,197 @@ class CalculatorPerfInstrumentedTest {
             averageMicros < 5_000.0
         )
     }
+
+    @Test
+    fun preciseDigitsPerMillisecondIsWithinBudget() {
+        val context = ApplicationProvider.getApplicationContext<android.content.Context>()
+        val evaluator = CalculatorExpressionEvaluator(
+            CalculatorExpressionTokenizer(context),
+            CalculatorEvaluationMode.PRECISE
+        )
+        val expression = "√2+π/ln(3)"
+        val scrollRequests = 40
+
+        val startNanos = SystemClock.elapsedRealtimeNanos()
+        var result = evaluator.evaluate(expression)
+        repeat(scrollRequests) {
+            result = evaluator.evaluateWithMoreDigits(expression)
+        }
+        val elapsedNanos = SystemClock.elapsedRealtimeNanos() - startNanos
+
+        val digits = (result as EvaluationResult.Success).result.count { it.isDigit() }
+        val digitsPerMs = digits / (elapsedNanos / 1_000_000.0)
+        assertTrue("Only reached $digits digits", digits > 400)
+        assertTrue(
+            "Precise evaluation too slow: ${"%.2f".format(digitsPerMs)} digits/ms",
+            digitsPerMs > 5.0
+        )
+    }
+
+    @Test
+    fun rationalAddChainIsWithinBudget() {
+        val terms = 400
+        val startNanos = SystemClock.elapsedRealtimeNanos()
+        var sum = BigRational.ZERO
+        for (i in 1..terms) {
+            sum += BigRational.ONE / BigRational.valueOf(i.toLong())
+        }
+        val display = sum.toDisplayString(12)
+        val elapsedMillis = (SystemClock.elapsedRealtimeNanos() - startNanos) / 1_000_000.0
+
+        assertEquals("6.56992969118", display)
+        assertTrue(
+            "Rational add chain exceeded budget: ${"%.2f".format(elapsedMillis)} ms",
+            elapsedMillis < 500.0
+        )
+    }
+
+    @Test
+    fun rationalMultiplyChainIsWithinBudget() {
+        val terms = 400
+        val startNanos = SystemClock.elapsedRealtimeNanos()
+        var product = BigRational.ONE
+        for (i in 1..terms) {
+            product *= BigRational.valueOf(i + 1L) / BigRational.valueOf(i.toLong())
+        }
+        val display = product.toDisplayString(12)
+        val elapsedMillis = (SystemClock.elapsedRealtimeNanos() - startNanos) / 1_000_000.0
+
+        assertEquals("${terms + 1}", display)
+        assertTrue(
+            "Rational multiply chain exceeded budget: ${"%.2f".format(elapsedMillis)} ms",
+            elapsedMillis < 100.0
+        )
+    }
+
+    @Test
+    fun midExpressionEditsInLongFormulaAreWithinBudget() {
+        val context = ApplicationProvider.getApplicationContext<android.content.Context>()
+        val evaluator = CalculatorExpressionEvaluator(CalculatorExpressionTokenizer(context))
+        var expression = List(600) { "(${it % 9 + 1}.5*${it % 7 + 2})" }.joinToString("+")
+        assertTrue(expression.length in 4_500..5_000)
+        evaluator.evaluate(expression)
+        val iterations = 200
+        var errorCount = 0
+
+        val startNanos = SystemClock.elapsedRealtimeNanos()
+        repeat(iterations) { index ->
+            // Type a digit into a group somewhere in the middle of the formula.
+            val position = expression.indexOf('.', expression.length / 4 + index * 7) + 1
+            expression = expression.substring(0, position) + "3" + expression.substring(position)
+            if (evaluator.evaluate(expression) !is EvaluationResult.Success) {
+                errorCount++
+            }
+        }
+        val averageMicros =
+            (SystemClock.elapsedRealtimeNanos() - startNanos).toDouble() / iterations / 1_000.0
+
+        assertEquals(0, errorCount)
+        assertTrue(
+            "Mid-expression edit exceeded budget: ${"%.2f".format(averageMicros)} µs",
+            averageMicros < 1_000.0
+        )
+    }
+
+    @Test
+    fun undoHistoryMemoryAfterTenThousandEditsIsWithinBudget() {
+        val context = ApplicationProvider.getApplicationContext<android.content.Context>()
+        val reducer = CalculatorUiReducer(context)
+        val runtime = Runtime.getRuntime()
+        val tokens = listOf("1", "2", "+", "3", "×", "4", "−", "5", "(", "6", ")", "÷", "7")
+        var state = CalculatorUiState()
+
+        runtime.gc()
+        val baselineBytes = runtime.totalMemory() - runtime.freeMemory()
+        repeat(10_000) { index ->
+            val event = if (index % 7 == 6) {
+                CalculatorUiEvent.Delete
+            } else {
+                CalculatorUiEvent.Append(tokens[index % tokens.size])
+            }
+            state = reducer.reduce(state, event)
+        }
+        runtime.gc()
+        val retainedKiB = (runtime.totalMemory() - runtime.freeMemory() - baselineBytes) / 1024.0
+
+        assertTrue(state.history.undoDepth > 0)
+        assertTrue(
+            "Undo history after 10k edits retained ${"%.1f".format(retainedKiB)} KiB",
+            retainedKiB < 4_096.0
+        )
+    }
+
+    @Test
+    fun historyRecallOverHundredThousandEntriesIsWithinBudget() {
+        val index = CalculationHistoryIndex { it }
+        repeat(100_000) { entry ->
+            index.add(CalculationHistoryLog.Entry("$entry*7+${entry % 13}", "${entry * 7}"))
+        }
+        val prefixes = List(1_000) { "${(it * 97) % 100_000}*" }
+        prefixes.take(100).forEach { index.search(it, 3) }
+
+        val startNanos = SystemClock.elapsedRealtimeNanos()
+        prefixes.forEach { index.search(it, 3) }
+        val averageMicros =
+            (SystemClock.elapsedRealtimeNanos() - startNanos).toDouble() / prefixes.size / 1_000.0
+
+        assertTrue(
+            "History recall exceeded budget: ${"%.2f".format(averageMicros)} µs",
+            averageMicros < 50.0
+        )
+    }
+
+    @Test
+    fun repeatedReducerCreationReusesCachedEngine() {
+        val context = ApplicationProvider.getApplicationContext<android.content.Context>()
+        CalculatorUiReducer(context)
+        val iterations = 200
+
+        val startNanos = SystemClock.elapsedRealtimeNanos()
+        repeat(iterations) {
+            CalculatorUiReducer(context)
+        }
+        val averageMicros =
+            (SystemClock.elapsedRealtimeNanos() - startNanos).toDouble() / iterations / 1_000.0
+
+        assertTrue(
+            "Reducer creation exceeded budget: ${"%.2f".format(averageMicros)} µs",
+            averageMicros < 50.0
+        )
+    }
+
+    @Test
+    fun formulaAutosizeWhileTypingLongFormulaIsWithinBudget() {
+        val context = ApplicationProvider.getApplicationContext<android.content.Context>()
+        val textMeasurer = TextMeasurer(
+            createFontFamilyResolver(context),
+            Density(context),
+            LayoutDirection.Ltr
+        )
+        val fitter = FormulaTextFitter(minSizeSp = 36, maxSizeSp = 64, stepSizeSp = 8) { text, sp ->
+            textMeasurer.measure(
+                text = AnnotatedString(text),
+                style = TextStyle(fontSize = sp.sp, fontWeight = FontWeight.Light),
+                maxLines = 1
+            ).size.width.toFloat()
+        }
+        val tokens = listOf("1", "2", "×", "sin(", "3", "4", ")", "+", "5", ".", "6", "−")
+        val keystrokes = 400
+        val maxWidthPx = 1_000f
+        fitter.fit("12×sin(34)", maxWidthPx)
+
+        var text = ""
+        val startNanos = SystemClock.elapsedRealtimeNanos()
+        repeat(keystrokes) { index ->
+            text += tokens[index % tokens.size]
+            fitter.fit(text, maxWidthPx)
+        }
+        val averageMicros =
+            (SystemClock.elapsedRealtimeNanos() - startNanos).toDouble() / keystrokes / 1_000.0
+
+        assertTrue(
+            "Formula autosize exceeded budget: ${"%.2f".format(averageMicros)} µs",
+            averageMicros < 2_000.0
+        )
+    }
 }
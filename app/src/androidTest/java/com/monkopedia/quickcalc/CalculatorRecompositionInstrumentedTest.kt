@@ -0,0 +1,196 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.CompositionLocalProvider
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableStateOf
+import androidx.compose.runtime.setValue
+import androidx.compose.ui.test.junit4.createComposeRule
+import androidx.compose.ui.test.onNodeWithTag
+import androidx.compose.ui.test.performClick
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Guards against the display's ripple and copied-indicator animations recomposing the screen on
+ * every frame, which should only redraw it, against keystrokes recomposing the pad, and against
+ * keystrokes measuring the result transition that only Equals needs.
+ */
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class CalculatorRecompositionInstrumentedTest {
+
+    @get:Rule
+    val composeRule = createComposeRule()
+
+    private val recompositions = HashMap<String, Int>()
+    private var state by mutableStateOf(CalculatorUiState(CalculatorFormula.of("12"), "12"))
+
+    private fun setCountingContent(content: @Composable () -> Unit) {
+        composeRule.setContent {
+            CompositionLocalProvider(
+                LocalRecompositionCounter provides { name ->
+                    recompositions[name] = (recompositions[name] ?: 0) + 1
+                },
+                content = content
+            )
+        }
+        composeRule.waitForIdle()
+    }
+
+    private fun showScreen() {
+        setCountingContent {
+            CalculatorScreen(
+                state = state,
+                onEvent = {},
+                enableDisplayClipboardGestures = true
+            )
+        }
+    }
+
+    @Test
+    fun clearRippleDoesNotRecomposeEveryFrame() {
+        showScreen()
+        assertFewRecompositionsOver(frames = 45) {
+            composeRule.runOnIdle { state = CalculatorUiState() }
+        }
+    }
+
+    @Test
+    fun copyRippleAndIndicatorDoNotRecomposeEveryFrame() {
+        showScreen()
+        assertFewRecompositionsOver(frames = 90) {
+            composeRule.onNodeWithTag(TEST_TAG_DISPLAY).performClick()
+        }
+    }
+
+    @Test
+    fun typingDoesNotRecomposeThePad() {
+        setCountingContent { CalculatorComposeRoute() }
+        composeRule.onNodeWithTag(TEST_TAG_DIGIT_1).performClick()
+        composeRule.runOnIdle { recompositions.clear() }
+
+        listOf(
+            TEST_TAG_DIGIT_2,
+            TEST_TAG_ADD,
+            TEST_TAG_DIGIT_3,
+            TEST_TAG_MULTIPLY,
+            TEST_TAG_DIGIT_4,
+            TEST_TAG_DELETE,
+            TEST_TAG_DECIMAL,
+            TEST_TAG_DIGIT_5
+        ).forEach { tag -> composeRule.onNodeWithTag(tag).performClick() }
+        composeRule.waitForIdle()
+
+        assertTrue(
+            "Keystrokes did not reach the display",
+            (recompositions["DisplayPanel"] ?: 0) > 0
+        )
+        for (name in PAD_COMPOSABLES) {
+            assertEquals("$name recomposed while typing", 0, recompositions[name] ?: 0)
+        }
+    }
+
+    @Test
+    fun typingMeasuresTheResultTransitionOnceThePreviewSettles() {
+        setCountingContent { CalculatorComposeRoute() }
+        composeRule.onNodeWithTag(TEST_TAG_DIGIT_1).performClick()
+        composeRule.onNodeWithTag(TEST_TAG_ADD).performClick()
+
+        composeRule.mainClock.autoAdvance = false
+        try {
+            composeRule.runOnIdle { recompositions.clear() }
+            // Each key changes the preview result, faster than it settles.
+            listOf(
+                TEST_TAG_DIGIT_2,
+                TEST_TAG_DIGIT_3,
+                TEST_TAG_DIGIT_4,
+                TEST_TAG_DIGIT_5,
+                TEST_TAG_DIGIT_6,
+                TEST_TAG_DIGIT_7
+            ).forEach { tag ->
+                composeRule.onNodeWithTag(tag).performClick()
+                composeRule.mainClock.advanceTimeBy(KEYSTROKE_INTERVAL_MS)
+            }
+            assertEquals(
+                "Keystrokes measured the result transition",
+                0,
+                recompositions[RESULT_TRANSITION_MEASUREMENT] ?: 0
+            )
+
+            composeRule.mainClock.advanceTimeBy(SETTLE_MS)
+            composeRule.waitForIdle()
+            assertEquals(1, recompositions[RESULT_TRANSITION_MEASUREMENT] ?: 0)
+
+            composeRule.onNodeWithTag(TEST_TAG_EQUALS).performClick()
+            composeRule.mainClock.advanceTimeBy(SETTLE_MS + TRANSITION_MS)
+            composeRule.waitForIdle()
+        } finally {
+            composeRule.mainClock.autoAdvance = true
+        }
+
+        assertEquals(
+            "The transition measured again instead of using the settled preview's metrics",
+            1,
+            recompositions[RESULT_TRANSITION_MEASUREMENT] ?: 0
+        )
+    }
+
+    /** Starts an animation with [start] and runs it for [frames] frames. */
+    private fun assertFewRecompositionsOver(frames: Int, start: () -> Unit) {
+        composeRule.mainClock.autoAdvance = false
+        try {
+            composeRule.runOnIdle { recompositions.clear() }
+            start()
+            repeat(frames) { composeRule.mainClock.advanceTimeByFrame() }
+            composeRule.waitForIdle()
+        } finally {
+            composeRule.mainClock.autoAdvance = true
+        }
+
+        // Starting and ending the animations changes a few states; the frames between must not.
+        for (name in listOf("CalculatorScreen", "DisplayPanel")) {
+            val count = recompositions[name] ?: 0
+            assertTrue(
+                "$name recomposed $count times over $frames animation frames",
+                count <= MAX_RECOMPOSITIONS
+            )
+        }
+    }
+
+    private companion object {
+        const val MAX_RECOMPOSITIONS = 8
+        const val KEYSTROKE_INTERVAL_MS = 50L
+        const val SETTLE_MS = 1_000L
+        const val TRANSITION_MS = 1_000L
+
+        val PAD_COMPOSABLES = listOf(
+            "NumericPad",
+            "OperatorPadOneColumn",
+            "OperatorPadTwoColumn",
+            "AdvancedPad",
+            "CalculatorPadButton"
+        )
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.content.Context
+import android.os.SystemClock
+import android.util.Log
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableStateOf
+import androidx.compose.runtime.setValue
+import androidx.compose.ui.test.junit4.createComposeRule
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.test.platform.app.InstrumentationRegistry
+import java.io.File
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Replays recorded sessions headlessly and through the UI and reports per-event latency.
+ *
+ * Sessions come from the trace passed as the `sessionTrace` instrumentation argument, e.g.
+ * `-Pandroid.testInstrumentationRunnerArguments.sessionTrace=/data/local/tmp/sessions.trace`,
+ * then from the traces the app on the device recorded, and otherwise a typed session.
+ */
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class CalculatorSessionReplayInstrumentedTest {
+
+    @get:Rule
+    val composeRule = createComposeRule()
+
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+
+    @Test
+    fun headlessReplayLatencyIsWithinBudget() {
+        val sessions = sessions()
+        val replay = CalculatorSessionReplay(
+            reducerFor = { mode -> CalculatorUiReducer(context, mode) },
+            clock = SystemClock::elapsedRealtimeNanos
+        )
+
+        val report = replay.replay(sessions)
+
+        Log.i(TAG, "Headless replay: ${report.latency}")
+        report.latencyByEvent.forEach { (event, latency) -> Log.i(TAG, "  $event: $latency") }
+        // The same session always ends in the same state.
+        assertEquals(report.finalStates, replay.replay(sessions).finalStates)
+        val p90Micros = report.latency.p90 / 1_000.0
+        assertTrue(
+            "Headless replay p90 exceeded budget: ${"%.2f".format(p90Micros)} µs",
+            p90Micros < 2_000.0
+        )
+    }
+
+    @Test
+    fun uiReplayFrameLatencyIsWithinBudget() {
+        var state by mutableStateOf(CalculatorUiState())
+        composeRule.setContent {
+            CalculatorScreen(state = state, onEvent = {})
+        }
+        composeRule.waitForIdle()
+        composeRule.mainClock.autoAdvance = false
+        val latencies = ArrayList<Long>()
+
+        for (session in sessions()) {
+            val reducer = CalculatorUiReducer(context, session.evaluationMode)
+            composeRule.runOnIdle { state = session.initialState }
+            composeRule.mainClock.advanceTimeByFrame()
+            for (recorded in session.events) {
+                // Reduce, then compose, lay out and draw the frame showing the result.
+                val start = SystemClock.elapsedRealtimeNanos()
+                composeRule.runOnIdle { state = reducer.reduce(state, recorded.event) }
+                composeRule.mainClock.advanceTimeByFrame()
+                latencies += SystemClock.elapsedRealtimeNanos() - start
+            }
+        }
+        composeRule.mainClock.autoAdvance = true
+
+        val latency = LatencyPercentiles.of(latencies.toLongArray())
+        Log.i(TAG, "UI replay: $latency")
+        val p90Millis = latency.p90 / 1_000_000.0
+        assertTrue(
+            "UI replay p90 exceeded budget: ${"%.2f".format(p90Millis)} ms",
+            p90Millis < 50.0
+        )
+    }
+
+    private fun sessions(): List<CalculatorSession> {
+        val tracePath = InstrumentationRegistry.getArguments().getString(TRACE_ARGUMENT)
+        if (tracePath != null) {
+            return CalculatorSessionTrace.read(File(tracePath).readBytes()).also {
+                assertTrue("No sessions in $tracePath", it.isNotEmpty())
+            }
+        }
+        return CalculatorSessionTraces.read(context).ifEmpty { listOf(typedSession()) }
+    }
+
+    /** Typing a few calculations in turn, for devices with no recorded sessions. */
+    private fun typedSession(): CalculatorSession {
+        val recorder = CalculatorSessionRecorder(
+            CalculatorEvaluationMode.STANDARD,
+            CalculatorUiState()
+        )
+        val tokens = listOf("1", "2", "×", "(", "3", "+", "4", ")", "−", "5", "÷", "6")
+        repeat(20) {
+            tokens.forEach { recorder.record(CalculatorUiEvent.Append(it)) }
+            recorder.record(CalculatorUiEvent.Delete)
+            recorder.record(CalculatorUiEvent.Append("7"))
+            recorder.record(CalculatorUiEvent.Equals)
+            recorder.record(CalculatorUiEvent.Clear)
+        }
+        return CalculatorSessionTrace.read(recorder.drain()).single()
+    }
+
+    private companion object {
+        const val TAG = "SessionReplay"
+        const val TRACE_ARGUMENT = "sessionTrace"
+    }
+}
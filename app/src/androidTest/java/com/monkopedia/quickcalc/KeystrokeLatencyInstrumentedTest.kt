@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.content.Context
+import android.util.Log
+import androidx.compose.ui.test.junit4.createComposeRule
+import androidx.compose.ui.test.onNodeWithTag
+import androidx.compose.ui.test.performClick
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import kotlinx.coroutines.runBlocking
+import org.junit.After
+import org.junit.Assert.assertTrue
+import org.junit.Before
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Types on the pad and checks how long each key takes to reach the screen, as the diagnostics
+ * histogram measures it: from the button's click to the frame that draws the new formula.
+ */
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class KeystrokeLatencyInstrumentedTest {
+
+    @get:Rule
+    val composeRule = createComposeRule()
+
+    private val repository =
+        TileSettingsRepository(ApplicationProvider.getApplicationContext<Context>())
+
+    @Before
+    fun setUp() {
+        // The application mirrors the saved setting into PerformanceDiagnostics, so save it.
+        runBlocking { repository.setDiagnosticsEnabled(true) }
+        composeRule.waitUntil(timeoutMillis = 5_000) { PerformanceDiagnostics.enabled }
+        PerformanceDiagnostics.clear()
+    }
+
+    @After
+    fun tearDown() {
+        runBlocking { repository.setDiagnosticsEnabled(false) }
+        PerformanceDiagnostics.clear()
+    }
+
+    @Test
+    fun keystrokeToFrameP95IsWithinBudget() {
+        composeRule.setContent { CalculatorComposeRoute() }
+        composeRule.waitForIdle()
+        val keys = listOf(
+            TEST_TAG_DIGIT_1,
+            TEST_TAG_DIGIT_2,
+            TEST_TAG_ADD,
+            TEST_TAG_DIGIT_3,
+            TEST_TAG_DIGIT_4,
+            TEST_TAG_MULTIPLY,
+            TEST_TAG_DIGIT_5,
+            TEST_TAG_SUBTRACT,
+            TEST_TAG_DIGIT_6,
+            TEST_TAG_DELETE,
+            TEST_TAG_DELETE
+        )
+
+        var typed = 0L
+        repeat(ROUNDS) {
+            for (key in keys) {
+                composeRule.onNodeWithTag(key).performClick()
+                typed++
+                // Like a person typing, wait for each key to show before pressing the next.
+                composeRule.waitUntil(timeoutMillis = 5_000) { keystrokeHistogram().total >= typed }
+            }
+        }
+
+        val histogram = keystrokeHistogram()
+        Log.i(TAG, "Keystroke to frame: $histogram")
+        val p95Nanos = histogram.percentileUpperBoundNanos(95.0)
+        assertTrue(
+            "Keystroke to frame p95 exceeded budget: ≤${p95Nanos / 1_000_000} ms, $histogram",
+            p95Nanos <= P95_BUDGET_NANOS
+        )
+    }
+
+    private fun keystrokeHistogram() =
+        PerformanceDiagnostics.snapshot().histogram(DiagnosticMetric.KEYSTROKE_TO_FRAME)
+
+    private companion object {
+        const val TAG = "KeystrokeLatency"
+        const val ROUNDS = 10
+
+        /** Three frames at 60 Hz, one of the histogram's bucket bounds. */
+        const val P95_BUDGET_NANOS = 50_000_000L
+    }
+}
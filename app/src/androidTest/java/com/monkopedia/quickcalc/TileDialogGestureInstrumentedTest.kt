@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.os.SystemClock
+import android.util.Log
+import androidx.compose.foundation.layout.Box
+import androidx.compose.runtime.CompositionLocalProvider
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableStateOf
+import androidx.compose.runtime.setValue
+import androidx.compose.ui.geometry.Offset
+import androidx.compose.ui.platform.testTag
+import androidx.compose.ui.test.junit4.createComposeRule
+import androidx.compose.ui.test.onNodeWithTag
+import androidx.compose.ui.test.performTouchInput
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Rule
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/** Times the frames of a pinch on the tile's dynamic dialog and checks drags stick. */
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class TileDialogGestureInstrumentedTest {
+
+    @get:Rule
+    val composeRule = createComposeRule()
+
+    private val recompositions = HashMap<String, Int>()
+    private val settledTransforms = ArrayList<DynamicTransform>()
+
+    @Test
+    fun pinchFrameLatencyIsWithinBudget() {
+        composeRule.setContent {
+            CompositionLocalProvider(
+                LocalRecompositionCounter provides { name ->
+                    recompositions[name] = (recompositions[name] ?: 0) + 1
+                }
+            ) {
+                TileCalculatorDialogLayout(
+                    settings = TileSettings(sizeMode = TileSizeMode.DYNAMIC),
+                    onDynamicTransformSettled = { settledTransforms += it },
+                    onAnyUserInteraction = null,
+                    onRequestDismiss = null
+                ) { modifier ->
+                    Box(modifier.testTag(PANEL_TAG))
+                }
+            }
+        }
+        composeRule.waitForIdle()
+        composeRule.mainClock.autoAdvance = false
+        val panel = composeRule.onNodeWithTag(PANEL_TAG)
+        panel.performTouchInput {
+            down(0, center - Offset(START_SPREAD_PX, 0f))
+            down(1, center + Offset(START_SPREAD_PX, 0f))
+        }
+        composeRule.mainClock.advanceTimeByFrame()
+        composeRule.runOnIdle { recompositions.clear() }
+        val latencies = ArrayList<Long>()
+
+        for (step in 1..PINCH_STEPS) {
+            // Move both fingers in one event, then produce the frame that shows it.
+            val start = SystemClock.elapsedRealtimeNanos()
+            panel.performTouchInput {
+                val spread = START_SPREAD_PX + step * STEP_SPREAD_PX
+                updatePointerTo(0, center - Offset(spread, 0f))
+                updatePointerTo(1, center + Offset(spread, 0f))
+                move()
+            }
+            composeRule.mainClock.advanceTimeByFrame()
+            latencies += SystemClock.elapsedRealtimeNanos() - start
+        }
+        val recomposedDuringPinch = recompositions["TileCalculatorDialogLayout"] ?: 0
+        panel.performTouchInput {
+            up(0)
+            up(1)
+        }
+        composeRule.mainClock.autoAdvance = true
+        composeRule.waitForIdle()
+
+        val latency = LatencyPercentiles.of(latencies.toLongArray())
+        Log.i(TAG, "Pinch frames: $latency")
+        assertEquals("Dialog layout recomposed during the pinch", 0, recomposedDuringPinch)
+        assertEquals(1, settledTransforms.size)
+        assertTrue(settledTransforms.single().scale > DEFAULT_DYNAMIC_SCALE)
+        val p90Millis = latency.p90 / 1_000_000.0
+        assertTrue(
+            "Pinch frame p90 exceeded budget: ${"%.2f".format(p90Millis)} ms",
+            p90Millis < 16.0
+        )
+    }
+
+    @Test
+    fun aDragSurvivesRecomposingWithTheStalePersistedTransform() {
+        // Rotating recomposes the dialog with the settings as last persisted, which lag the drag
+        // until the autosave lands.
+        var settings by mutableStateOf(TileSettings(sizeMode = TileSizeMode.DYNAMIC))
+        composeRule.setContent {
+            TileCalculatorDialogLayout(
+                settings = settings,
+                onDynamicTransformSettled = { settledTransforms += it },
+                onAnyUserInteraction = null,
+                onRequestDismiss = null
+            ) { modifier ->
+                Box(modifier.testTag(PANEL_TAG))
+            }
+        }
+        val panel = composeRule.onNodeWithTag(PANEL_TAG)
+        panel.performTouchInput { swipe(center, center + Offset(DRAG_PX, 0f)) }
+        composeRule.waitForIdle()
+        val dragged = settledTransforms.single()
+        assertTrue(dragged.offsetXFraction > 0f)
+
+        settings = settings.copy(staticSizeFraction = settings.staticSizeFraction - 0.05f)
+        composeRule.waitForIdle()
+        panel.performTouchInput { swipe(center, center + Offset(0f, DRAG_PX)) }
+        composeRule.waitForIdle()
+
+        assertEquals(2, settledTransforms.size)
+        assertEquals(dragged.offsetXFraction, settledTransforms.last().offsetXFraction, 0.0001f)
+    }
+
+    private companion object {
+        const val TAG = "TileDialogGesture"
+        const val PANEL_TAG = "tile_dialog_panel"
+        const val PINCH_STEPS = 60
+        const val START_SPREAD_PX = 40f
+        const val STEP_SPREAD_PX = 2f
+        const val DRAG_PX = 40f
+    }
+}
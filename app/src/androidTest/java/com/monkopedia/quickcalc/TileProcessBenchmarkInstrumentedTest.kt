@@ -0,0 +1,164 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.app.ActivityManager
+import android.content.ComponentName
+import android.content.Context
+import android.os.Build
+import android.os.ParcelFileDescriptor
+import android.os.Process
+import android.os.SystemClock
+import android.util.Log
+import androidx.test.core.app.ApplicationProvider
+import androidx.test.ext.junit.runners.AndroidJUnit4
+import androidx.test.filters.LargeTest
+import androidx.test.platform.app.InstrumentationRegistry
+import org.junit.After
+import org.junit.Assert.assertTrue
+import org.junit.Assume.assumeTrue
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+
+/**
+ * Measures what opening the tile costs in the process it runs in: the time from SystemUI
+ * clicking the tile to its dialog showing, and the memory of that process once it has.
+ *
+ * Run it as usual and again with `-PisolatedTileProcess=true` to compare the shared process
+ * with the tile's own; each run logs its figures under the kind of process it measured. The
+ * isolated build also checks its tile process against the app's main one. The shared build's
+ * tile runs in this test's already started process, so only the isolated build starts it cold.
+ */
+@RunWith(AndroidJUnit4::class)
+@LargeTest
+class TileProcessBenchmarkInstrumentedTest {
+
+    private val context = ApplicationProvider.getApplicationContext<Context>()
+    private val tileComponent =
+        ComponentName(context, CalculatorTileService::class.java).flattenToShortString()
+    private val tileProcessName =
+        context.packageName + if (TileProcess.isIsolated) TileProcess.NAME_SUFFIX else ""
+    private val processKind = if (TileProcess.isIsolated) "isolated" else "shared"
+
+    @Before
+    fun setUp() {
+        // The tile's trace events are only logged in debuggable builds.
+        assumeTrue(BuildConfig.DEBUG)
+        assumeTrue(
+            "Clicking tiles from the shell needs Android 10",
+            Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+        )
+        shell("cmd statusbar add-tile $tileComponent")
+    }
+
+    @After
+    fun tearDown() {
+        shell("cmd statusbar remove-tile $tileComponent")
+        shell("cmd statusbar collapse")
+    }
+
+    @Test
+    fun tileOpenTimeAndMemoryAreWithinBudget() {
+        val openNanos = LongArray(ITERATIONS)
+        var tilePssKiB = 0L
+        for (iteration in 0 until ITERATIONS) {
+            if (TileProcess.isIsolated) {
+                stopTileProcess()
+            }
+            shell("logcat -c")
+            val startNanos = SystemClock.elapsedRealtimeNanos()
+            shell("cmd statusbar click-tile $tileComponent")
+            openNanos[iteration] = awaitTraceEvent("dialog_onShow") - startNanos
+            tilePssKiB = maxOf(tilePssKiB, pssKiB(tileProcessName))
+            shell("input keyevent KEYCODE_BACK")
+            awaitTraceEvent("dialog_onDismiss")
+        }
+
+        val open = LatencyPercentiles.of(openNanos)
+        Log.i(TAG, "$processKind tile process: click to dialog $open, PSS $tilePssKiB KiB")
+        val openP50Millis = open.p50 / 1_000_000.0
+        assertTrue(
+            "Tile open p50 exceeded budget: ${"%.1f".format(openP50Millis)} ms",
+            openP50Millis < 2_000.0
+        )
+        if (TileProcess.isIsolated) {
+            val mainPssKiB = pssKiB(context.packageName)
+            Log.i(TAG, "main process: PSS $mainPssKiB KiB")
+            assertTrue(
+                "Tile process ($tilePssKiB KiB) is not leaner than main ($mainPssKiB KiB)",
+                tilePssKiB < mainPssKiB
+            )
+        }
+    }
+
+    /** Kills the tile's process so that the next click binds the tile from a cold start. */
+    private fun stopTileProcess() {
+        val pid = pidOf(tileProcessName) ?: return
+        Process.killProcess(pid)
+        val deadline = SystemClock.elapsedRealtime() + TIMEOUT_MS
+        while (pidOf(tileProcessName) != null) {
+            assertTrue("$tileProcessName did not stop", SystemClock.elapsedRealtime() < deadline)
+            SystemClock.sleep(POLL_INTERVAL_MS)
+        }
+    }
+
+    /** Waits for the tile service to log [event] and returns when it did. */
+    private fun awaitTraceEvent(event: String): Long {
+        val pattern = Regex("TRACE event=$event t=(\\d+)")
+        val deadline = SystemClock.elapsedRealtime() + TIMEOUT_MS
+        while (true) {
+            val logged = pattern.find(shell("logcat -d -s CalculatorTileService:I"))
+            if (logged != null) {
+                return logged.groupValues[1].toLong()
+            }
+            assertTrue("The tile did not log $event", SystemClock.elapsedRealtime() < deadline)
+            SystemClock.sleep(POLL_INTERVAL_MS)
+        }
+    }
+
+    private fun pidOf(processName: String): Int? =
+        context.getSystemService(ActivityManager::class.java)
+            .runningAppProcesses
+            ?.firstOrNull { it.processName == processName }
+            ?.pid
+
+    /** [processName]'s total PSS as `dumpsys meminfo` reports it, or 0 if it is not running. */
+    private fun pssKiB(processName: String): Long {
+        val pid = pidOf(processName) ?: return 0L
+        val meminfo = shell("dumpsys meminfo $pid")
+        val total = Regex("TOTAL PSS:\\s+(\\d+)").find(meminfo)
+            ?: Regex("^\\s*TOTAL\\s+(\\d+)", RegexOption.MULTILINE).find(meminfo)
+        return total?.groupValues?.get(1)?.toLong() ?: 0L
+    }
+
+    private fun shell(command: String): String {
+        val output = InstrumentationRegistry.getInstrumentation()
+            .uiAutomation
+            .executeShellCommand(command)
+        return ParcelFileDescriptor.AutoCloseInputStream(output).bufferedReader().use {
+            it.readText()
+        }
+    }
+
+    private companion object {
+        const val TAG = "TileProcessBenchmark"
+        const val ITERATIONS = 5
+        const val TIMEOUT_MS = 10_000L
+        const val POLL_INTERVAL_MS = 50L
+    }
+}
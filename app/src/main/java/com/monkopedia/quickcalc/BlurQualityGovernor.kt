@@ -0,0 +1,135 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+/** The blur radii the background modes use, largest first. */
+internal val DIALOG_BLUR_RADIUS_STEPS_PX: List<Int> =
+    TileDialogBackgroundMode.entries
+        .map(::dialogWindowBackgroundBlurRadiusPx)
+        .filter { it > 0 }
+        .distinct()
+        .sortedDescending()
+
+/**
+ * Decides how much background blur the tile dialog can afford from how long its frames take.
+ *
+ * Frames are judged in windows of [windowFrames], after skipping the first [warmUpFrames] that
+ * show the dialog. When more than [jankFraction] of a window's frames miss their deadline while
+ * the background is blurred, [capPx] drops to the next smaller radius the background modes use,
+ * or to no blur, and a fresh window judges the lower radius on its own. The cap only goes down
+ * within a session; callers persist it so later sessions on the same device start from it, and
+ * raise it again through [DialogBlurCap] once enough sessions ran [sessionWasClean].
+ */
+internal class BlurQualityGovernor(
+    initialCapPx: Int,
+    private val windowFrames: Int = DEFAULT_WINDOW_FRAMES,
+    private val jankFraction: Float = DEFAULT_JANK_FRACTION,
+    private val warmUpFrames: Int = DEFAULT_WARM_UP_FRAMES
+) {
+    init {
+        require(windowFrames > 0) { "windowFrames must be positive: $windowFrames" }
+    }
+
+    var capPx: Int = initialCapPx.coerceAtLeast(0)
+        private set
+
+    private var framesToSkip = warmUpFrames
+    private var frames = 0
+    private var jankyFrames = 0
+
+    @Volatile private var sessionFrames = 0
+
+    @Volatile private var lowered = false
+
+    /**
+     * Whether this session lasted long enough to judge a full window and never lowered the cap.
+     * Frames without blur count towards its length, so that a cap of no blur can recover too.
+     */
+    val sessionWasClean: Boolean
+        get() = !lowered && sessionFrames >= warmUpFrames + windowFrames
+
+    /**
+     * Records a frame that took [durationNanos] against a [deadlineNanos] budget while the
+     * background was blurred by [blurRadiusPx]. Returns the new cap if this frame lowered it.
+     */
+    fun onFrame(durationNanos: Long, deadlineNanos: Long, blurRadiusPx: Int): Int? {
+        sessionFrames++
+        // Without blur there is nothing to give up, so slow frames are some other cost's.
+        if (blurRadiusPx <= 0) {
+            return null
+        }
+        if (framesToSkip > 0) {
+            framesToSkip--
+            return null
+        }
+        frames++
+        if (durationNanos > deadlineNanos) {
+            jankyFrames++
+        }
+        if (frames < windowFrames) {
+            return null
+        }
+        val tooJanky = jankyFrames > windowFrames * jankFraction
+        frames = 0
+        jankyFrames = 0
+        if (!tooJanky) {
+            return null
+        }
+        capPx = DIALOG_BLUR_RADIUS_STEPS_PX.firstOrNull { it < blurRadiusPx } ?: 0
+        lowered = true
+        // The first frames at the new radius still carry the old one's cost.
+        framesToSkip = warmUpFrames
+        return capPx
+    }
+
+    private companion object {
+        const val DEFAULT_WINDOW_FRAMES = 60
+        const val DEFAULT_JANK_FRACTION = 0.25f
+        const val DEFAULT_WARM_UP_FRAMES = 12
+    }
+}
+
+/**
+ * The saved blur cap and how many clean sessions have run under it since it last changed.
+ *
+ * A cap is only a guess from one session's frames, which may have been slow for reasons that have
+ * nothing to do with the blur. So after [RECOVERY_SESSIONS] clean sessions the cap is raised one
+ * step to probe the next larger radius; if that one misses its deadlines too, the governor lowers
+ * it again.
+ */
+internal data class DialogBlurCap(val capPx: Int, val cleanSessions: Int = 0) {
+
+    val isCapped: Boolean
+        get() = capPx != UNCAPPED_DIALOG_BLUR_RADIUS_PX
+
+    /** The cap after one more clean session under this one. */
+    fun afterCleanSession(): DialogBlurCap {
+        if (!isCapped) {
+            return this
+        }
+        if (cleanSessions + 1 < RECOVERY_SESSIONS) {
+            return copy(cleanSessions = cleanSessions + 1)
+        }
+        val raisedCapPx = DIALOG_BLUR_RADIUS_STEPS_PX.lastOrNull { it > capPx }
+            ?: UNCAPPED_DIALOG_BLUR_RADIUS_PX
+        return DialogBlurCap(raisedCapPx)
+    }
+
+    companion object {
+        const val RECOVERY_SESSIONS = 3
+    }
+}
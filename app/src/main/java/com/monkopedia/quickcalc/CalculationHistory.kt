@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.content.Context
+import android.util.Log
+import java.io.File
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+
+/** The application's [CalculationHistoryLog], kept in its files directory. */
+internal object CalculationHistory {
+    private const val TAG = "CalculationHistory"
+    private const val DIRECTORY_NAME = "calculation_history"
+
+    /** Runs work on the shared tape one piece at a time, in the order it was dispatched. */
+    val dispatcher: CoroutineDispatcher = Dispatchers.IO.limitedParallelism(1)
+
+    /** Outlives any one screen, so a calculation made as the tile closes is still written. */
+    private val recordScope = CoroutineScope(SupervisorJob() + dispatcher)
+
+    @Volatile
+    private var sharedLog: CalculationHistoryLog? = null
+    private var sharedDirectory: File? = null
+
+    /**
+     * The application's tape, opened on first use and otherwise caught up with what other
+     * processes, e.g. an isolated tile's, have written to it. Does file I/O on the calling thread.
+     * A different application, e.g. in the next test, gets its own tape.
+     */
+    fun log(context: Context): CalculationHistoryLog {
+        val directory = File((context.applicationContext ?: context).filesDir, DIRECTORY_NAME)
+        return synchronized(this) {
+            sharedLog?.takeIf { sharedDirectory == directory }?.also { it.refresh() }
+                ?: CalculationHistoryLog(directory).also {
+                    sharedLog?.close()
+                    sharedLog = it
+                    sharedDirectory = directory
+                }
+        }
+    }
+
+    /** Appends a calculation to the application's tape without waiting for the write. */
+    fun record(context: Context, formula: String, result: String) {
+        val application = context.applicationContext ?: context
+        recordScope.launch {
+            runCatching {
+                val log = log(application)
+                log.append(formula, result)
+                CalculationHistorySearch.onRecorded(log, application)
+            }.onFailure { throwable ->
+                Log.w(TAG, "Unable to record calculation", throwable)
+            }
+        }
+    }
+}
+
+/**
+ * The application's [CalculationHistoryIndex], built from its [CalculationHistoryLog] the first
+ * time it is searched and kept up to date as calculations are recorded.
+ *
+ * The index is only touched on [CalculationHistory.dispatcher], which also orders it with the
+ * writes to the tape.
+ */
+internal object CalculationHistorySearch {
+    /** Entries read from the tape at a time while indexing it. */
+    private const val READ_PAGE_SIZE = 1024
+
+    private var index: CalculationHistoryIndex? = null
+    private var indexedLog: CalculationHistoryLog? = null
+    private var indexedGeneration = 0L
+
+    /** Up to [limit] recorded calculations that complete [typed], newest first. */
+    suspend fun suggestions(
+        context: Context,
+        typed: String,
+        limit: Int
+    ): List<CalculationHistorySuggestion> =
+        withContext(CalculationHistory.dispatcher) {
+            val log = CalculationHistory.log(context)
+            val index = upToDate(log, context)
+            index.search(typed, limit).map { match ->
+                CalculationHistorySuggestion(log.read(match.position), match.matchesResult)
+            }
+        }
+
+    /** Indexes the entries [log] gained since the last search, if it has been searched. */
+    fun onRecorded(log: CalculationHistoryLog, context: Context) {
+        if (index != null) {
+            upToDate(log, context)
+        }
+    }
+
+    private fun upToDate(log: CalculationHistoryLog, context: Context): CalculationHistoryIndex {
+        val generation = log.revision.value.generation
+        var current = index
+        if (current == null || indexedLog !== log || indexedGeneration != generation) {
+            // Compaction renumbers the entries, so a new generation is indexed afresh.
+            val tokenizer = CalculatorEngineRegistry.tokenizer(context)
+            current = CalculationHistoryIndex(tokenizer::getNormalizedExpression)
+            index = current
+            indexedLog = log
+            indexedGeneration = generation
+        }
+        val count = log.entryCount
+        while (current.size < count) {
+            val to = minOf(current.size + READ_PAGE_SIZE, count)
+            log.read(current.size, to).forEach(current::add)
+        }
+        return current
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.app.Application
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.map
+import kotlinx.coroutines.launch
+
+class CalculatorApplication : Application() {
+
+    private val applicationScope = CoroutineScope(SupervisorJob() + Dispatchers.Default)
+
+    override fun onCreate() {
+        super.onCreate()
+        CalculatorTrace.tracer = SystemCalculatorTracer
+        // The tile's own process starts lean, so that SystemUI binding the tile stays cheap; the
+        // tile warms the engines up when it is first opened instead. Diagnostics, which settings
+        // show only for this process, are left off there too.
+        if (TileProcess.isCurrent) {
+            return
+        }
+        CalculatorWarmUp.schedule(this)
+        applicationScope.launch {
+            TileSettingsRepository(this@CalculatorApplication).settingsFlow
+                .map { it.diagnosticsEnabled }
+                .distinctUntilChanged()
+                .collect { PerformanceDiagnostics.enabled = it }
+        }
+    }
+}
@@ -16,8 +16,10 @@
 
 package com.monkopedia.quickcalc
 
+import androidx.compose.runtime.Immutable
 import androidx.compose.ui.graphics.Color
 
+@Immutable
 data class CalculatorColorPalette(
     val accentColor: Color,
     val errorColor: Color,
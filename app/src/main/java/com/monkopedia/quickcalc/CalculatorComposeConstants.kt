@@ -23,6 +23,8 @@ internal const val ADVANCED_PEEK_WIDTH_MULTIPLIER = 1f
 const val TEST_TAG_PAD_PAGER = "pad_pager"
 const val TEST_TAG_ADVANCED_PAD = "pad_advanced"
 const val TEST_TAG_DRAWER_SCRIM = "drawer_scrim"
+const val TEST_TAG_HISTORY_TAPE = "history_tape"
+const val TEST_TAG_RECALL_SUGGESTIONS = "recall_suggestions"
 
 const val TEST_TAG_DISPLAY = "display"
 const val TEST_TAG_FORMULA = "formula"
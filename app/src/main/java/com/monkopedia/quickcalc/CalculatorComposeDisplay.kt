@@ -27,16 +27,23 @@ import androidx.compose.animation.core.FastOutSlowInEasing
 import androidx.compose.animation.core.animateFloatAsState
 import androidx.compose.animation.core.tween
 import androidx.compose.foundation.Canvas
+import androidx.compose.foundation.shape.RoundedCornerShape
 import androidx.compose.foundation.background
+import androidx.compose.foundation.clickable
 import androidx.compose.foundation.combinedClickable
+import androidx.compose.foundation.horizontalScroll
 import androidx.compose.foundation.layout.Box
 import androidx.compose.foundation.layout.BoxWithConstraints
 import androidx.compose.foundation.layout.Column
+import androidx.compose.foundation.layout.Row
 import androidx.compose.foundation.layout.fillMaxSize
 import androidx.compose.foundation.layout.fillMaxWidth
 import androidx.compose.foundation.layout.height
 import androidx.compose.foundation.layout.padding
 import androidx.compose.foundation.layout.size
+import androidx.compose.foundation.layout.width
+import androidx.compose.foundation.layout.widthIn
+import androidx.compose.foundation.rememberScrollState
 import androidx.compose.material3.Icon
 import androidx.compose.material3.Text
 import androidx.compose.runtime.Composable
@@ -44,13 +51,17 @@ import androidx.compose.runtime.LaunchedEffect
 import androidx.compose.runtime.getValue
 import androidx.compose.runtime.mutableStateOf
 import androidx.compose.runtime.remember
+import androidx.compose.runtime.rememberUpdatedState
 import androidx.compose.runtime.setValue
+import androidx.compose.runtime.snapshotFlow
 import androidx.compose.runtime.withFrameNanos
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.draw.clipToBounds
+import androidx.compose.ui.draw.drawBehind
 import androidx.compose.ui.geometry.Offset
 import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.graphics.ColorFilter
 import androidx.compose.ui.graphics.drawscope.clipRect
 import androidx.compose.ui.graphics.graphicsLayer
 import androidx.compose.ui.graphics.lerp
@@ -59,8 +70,12 @@ import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.platform.LocalDensity
 import androidx.compose.ui.platform.testTag
 import androidx.compose.ui.res.painterResource
+import androidx.compose.ui.res.stringResource
+import androidx.compose.ui.semantics.contentDescription
+import androidx.compose.ui.semantics.semantics
 import androidx.compose.ui.text.AnnotatedString
 import androidx.compose.ui.text.PlatformTextStyle
+import androidx.compose.ui.text.TextLayoutResult
 import androidx.compose.ui.text.TextStyle
 import androidx.compose.ui.text.font.FontFamily
 import androidx.compose.ui.text.font.FontWeight
@@ -72,10 +87,19 @@ import androidx.compose.ui.unit.TextUnit
 import androidx.compose.ui.unit.dp
 import androidx.compose.ui.unit.sp
 import kotlin.math.hypot
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.flow.filter
 
 private val LEGACY_ACCELERATE_DECELERATE_EASING = CubicBezierEasing(0.42f, 0f, 0.58f, 1f)
 private const val RESULT_ANIMATION_FALLBACK_DURATION_MS = 420
 
+/** How long the preview result must stay unchanged before its transition is measured. */
+private const val PREVIEW_SETTLE_MS = 200L
+
+/** The name [LocalRecompositionCounter] is told each time a result transition is measured. */
+internal const val RESULT_TRANSITION_MEASUREMENT = "ResultTransitionMeasurement"
+
 @Composable
 internal fun DisplayPanel(
     state: CalculatorUiState,
@@ -91,13 +115,18 @@ internal fun DisplayPanel(
     onDisplayLongClick: (() -> Unit)?,
     showCopiedIndicator: Boolean,
     clearRevealColor: Color?,
-    clearRevealProgress: Float,
-    clearRevealAlpha: Float,
+    clearRevealProgress: () -> Float,
+    clearRevealAlpha: () -> Float,
     copyRevealColor: Color,
-    copyRevealProgress: Float,
-    copyRevealAlpha: Float,
-    copyIndicatorAlpha: Float
+    copyRevealProgress: () -> Float,
+    copyRevealAlpha: () -> Float,
+    copyIndicatorAlpha: () -> Float,
+    onResultScrolledToEnd: (() -> Unit)? = null,
+    onFormulaCursorMove: ((Int) -> Unit)? = null,
+    recallSuggestions: List<CalculationHistorySuggestion> = emptyList(),
+    onRecallSuggestionClick: ((CalculationHistorySuggestion) -> Unit)? = null
 ) {
+    CountRecompositions("DisplayPanel")
     val context = LocalContext.current
     val density = LocalDensity.current
     val resultInsets = legacyTrimmedInsets(style.resultInsets, style.resultSizeSp.sp)
@@ -120,6 +149,11 @@ internal fun DisplayPanel(
         mutableStateOf(settledResultVisualTextForState(state))
     }
     val transitionProgress = remember { Animatable(1f) }
+    val measurementCounter = LocalRecompositionCounter.current
+    val transitionMetricsCache = remember(measurementCounter) {
+        ResultTransitionMetricsCache { measurementCounter?.invoke(RESULT_TRANSITION_MEASUREMENT) }
+    }
+    val formulaFitter = rememberFormulaTextFitter(style)
     val frameTransition = activeTransition ?: resolveDisplayResultTransition(previousUiState, state)
     val settledTransition =
         if (frameTransition == null && state.phase == CalculatorUiPhase.RESULT) {
@@ -192,6 +226,25 @@ internal fun DisplayPanel(
                 .clipToBounds()
         ) {
             val displayWidthPx = with(density) { maxWidth.toPx().coerceAtLeast(0f) }
+            fun transitionMetricsKey(movingResultText: String) = ResultTransitionMetricsKey(
+                movingResultText = movingResultText,
+                style = style,
+                displayWidthPx = displayWidthPx,
+                formulaRowHeightPx = formulaRowHeightPx,
+                resultRowHeightPx = resultRowHeightPx,
+                density = density
+            )
+            if (state.phase == CalculatorUiPhase.INPUT && state.resultText.isNotBlank()) {
+                // Equals moves the preview result up into the formula row. Measure for that once
+                // the preview has stayed put for a moment, so that typing does not pay for a
+                // layout only Equals needs, and the transition starts from cached metrics
+                // instead of laying text out in its first frame.
+                val previewKey = transitionMetricsKey(state.resultText.orDisplayText())
+                LaunchedEffect(previewKey) {
+                    delay(PREVIEW_SETTLE_MS)
+                    transitionMetricsCache.getOrCompute(previewKey, formulaFitter)
+                }
+            }
             val transition = renderTransition
             if (transition == null) {
                 DisplayStaticRows(
@@ -201,16 +254,15 @@ internal fun DisplayPanel(
                     resultColor = resultColor,
                     resultInsets = resultInsets,
                     formulaRowHeightPx = formulaRowHeightPx,
-                    animateFormulaAutosize = animateFormulaAutosize
+                    animateFormulaAutosize = animateFormulaAutosize,
+                    onResultScrolledToEnd = onResultScrolledToEnd,
+                    onFormulaCursorMove = onFormulaCursorMove
                 )
             } else {
-                val transitionMetrics = rememberLegacyResultTransitionMetrics(
-                    transition = transition,
-                    style = style,
-                    displayWidthPx = displayWidthPx,
-                    formulaRowHeightPx = formulaRowHeightPx,
-                    resultRowHeightPx = resultRowHeightPx
-                )
+                val transitionMetricsKey = transitionMetricsKey(transition.movingResultText)
+                val transitionMetrics = remember(transitionMetricsKey) {
+                    transitionMetricsCache.getOrCompute(transitionMetricsKey, formulaFitter)
+                }
                 DisplayResultTransitionRows(
                     transition = transition,
                     progress =
@@ -228,8 +280,14 @@ internal fun DisplayPanel(
                     resultRowHeightDp = resultRowHeightDp
                 )
             }
-            if (clearRevealColor != null && clearRevealAlpha > 0f) {
+            // The ripples and the copied indicator read their animations while drawing, so
+            // animation frames redraw the display without recomposing it.
+            if (clearRevealColor != null) {
                 Canvas(modifier = Modifier.fillMaxSize()) {
+                    val alpha = clearRevealAlpha()
+                    if (alpha <= 0f) {
+                        return@Canvas
+                    }
                     val revealCenter = Offset(
                         x = size.width - 24.dp.toPx(),
                         y = size.height + 24.dp.toPx()
@@ -242,56 +300,64 @@ internal fun DisplayPanel(
                         bottom = size.height
                     ) {
                         drawCircle(
-                            color = clearRevealColor.copy(alpha = clearRevealAlpha),
-                            radius = maxRadius * clearRevealProgress,
+                            color = clearRevealColor.copy(alpha = alpha),
+                            radius = maxRadius * clearRevealProgress(),
                             center = revealCenter
                         )
                     }
                 }
             }
-            if (copyRevealAlpha > 0f) {
-                Canvas(modifier = Modifier.fillMaxSize()) {
-                    val revealCenter = Offset(
-                        x = 24.dp.toPx(),
-                        y = 24.dp.toPx()
+            Canvas(modifier = Modifier.fillMaxSize()) {
+                val alpha = copyRevealAlpha()
+                if (alpha <= 0f) {
+                    return@Canvas
+                }
+                val revealCenter = Offset(
+                    x = 24.dp.toPx(),
+                    y = 24.dp.toPx()
+                )
+                val maxRadius = localMaxDistanceToRect(revealCenter, size.width, size.height)
+                clipRect(
+                    left = 0f,
+                    top = 0f,
+                    right = size.width,
+                    bottom = size.height
+                ) {
+                    drawCircle(
+                        color = copyRevealColor.copy(alpha = alpha),
+                        radius = maxRadius * copyRevealProgress(),
+                        center = revealCenter
                     )
-                    val maxRadius = localMaxDistanceToRect(revealCenter, size.width, size.height)
-                    clipRect(
-                        left = 0f,
-                        top = 0f,
-                        right = size.width,
-                        bottom = size.height
-                    ) {
-                        drawCircle(
-                            color = copyRevealColor.copy(alpha = copyRevealAlpha),
-                            radius = maxRadius * copyRevealProgress,
-                            center = revealCenter
-                        )
-                    }
                 }
             }
             if (showCopiedIndicator) {
-                val revealAlpha = copyRevealAlpha.coerceIn(0f, 1f)
-                val rawTintFraction =
-                    ((1f - revealAlpha) * copyRevealProgress.coerceIn(0f, 1f))
-                        .coerceIn(0f, 1f)
-                val tintFraction =
-                    rawTintFraction * rawTintFraction * (3f - (2f * rawTintFraction))
-                val copyIndicatorColor =
-                    lerp(
-                        start = Color.Black,
-                        stop = copyRevealColor,
-                        fraction = tintFraction
-                    )
-                Icon(
-                    painter = painterResource(R.drawable.ic_copy_24),
-                    contentDescription = null,
-                    tint = copyIndicatorColor,
+                val copyIcon = painterResource(R.drawable.ic_copy_24)
+                Box(
                     modifier = Modifier
                         .align(Alignment.TopStart)
                         .padding(start = 12.dp, top = 8.dp)
                         .size(22.dp)
-                        .graphicsLayer { alpha = copyIndicatorAlpha.coerceIn(0f, 1f) }
+                        .graphicsLayer { alpha = copyIndicatorAlpha().coerceIn(0f, 1f) }
+                        .drawBehind {
+                            val tint = copyIndicatorColor(
+                                copyRevealColor = copyRevealColor,
+                                copyRevealProgress = copyRevealProgress(),
+                                copyRevealAlpha = copyRevealAlpha()
+                            )
+                            with(copyIcon) { draw(size, colorFilter = ColorFilter.tint(tint)) }
+                        }
+                )
+            }
+            if (recallSuggestions.isNotEmpty() && onRecallSuggestionClick != null &&
+                state.phase == CalculatorUiPhase.INPUT
+            ) {
+                RecallSuggestionRow(
+                    suggestions = recallSuggestions,
+                    textColor = formulaColor,
+                    onClick = onRecallSuggestionClick,
+                    modifier = Modifier
+                        .align(Alignment.BottomStart)
+                        .padding(start = 8.dp, bottom = 6.dp)
                 )
             }
             if (showDrawerShortcutButton && onDrawerShortcutClick != null) {
@@ -328,6 +394,60 @@ internal fun DisplayPanel(
     }
 }
 
+/** Recorded calculations that complete the formula; choosing one replaces the formula. */
+@Composable
+private fun RecallSuggestionRow(
+    suggestions: List<CalculationHistorySuggestion>,
+    textColor: Color,
+    onClick: (CalculationHistorySuggestion) -> Unit,
+    modifier: Modifier = Modifier
+) {
+    Row(modifier = modifier.testTag(TEST_TAG_RECALL_SUGGESTIONS)) {
+        suggestions.forEachIndexed { index, suggestion ->
+            if (index > 0) {
+                Box(modifier = Modifier.width(6.dp))
+            }
+            val description = stringResource(
+                R.string.desc_history_entry,
+                suggestion.entry.formula,
+                suggestion.entry.result
+            )
+            Text(
+                text = suggestion.recalledText,
+                color = textColor,
+                fontSize = 14.sp,
+                maxLines = 1,
+                overflow = TextOverflow.Ellipsis,
+                modifier = Modifier
+                    .widthIn(max = 120.dp)
+                    .background(textColor.copy(alpha = 0.08f), RoundedCornerShape(12.dp))
+                    .clickable { onClick(suggestion) }
+                    .semantics { contentDescription = description }
+                    .padding(horizontal = 10.dp, vertical = 4.dp)
+            )
+        }
+    }
+}
+
+/** Fades the copied indicator from black into the copy ripple's color as the ripple clears. */
+private fun copyIndicatorColor(
+    copyRevealColor: Color,
+    copyRevealProgress: Float,
+    copyRevealAlpha: Float
+): Color {
+    val revealAlpha = copyRevealAlpha.coerceIn(0f, 1f)
+    val rawTintFraction =
+        ((1f - revealAlpha) * copyRevealProgress.coerceIn(0f, 1f))
+            .coerceIn(0f, 1f)
+    val tintFraction =
+        rawTintFraction * rawTintFraction * (3f - (2f * rawTintFraction))
+    return lerp(
+        start = Color.Black,
+        stop = copyRevealColor,
+        fraction = tintFraction
+    )
+}
+
 private fun localMaxDistanceToRect(source: Offset, width: Float, height: Float): Float {
     val topLeft = localDistance(source, Offset(0f, 0f))
     val topRight = localDistance(source, Offset(width, 0f))
@@ -347,15 +467,20 @@ private fun DisplayStaticRows(
     resultColor: Color,
     resultInsets: EdgeInsets,
     formulaRowHeightPx: Float,
-    animateFormulaAutosize: Boolean
+    animateFormulaAutosize: Boolean,
+    onResultScrolledToEnd: (() -> Unit)?,
+    onFormulaCursorMove: ((Int) -> Unit)?
 ) {
+    val editable = state.phase == CalculatorUiPhase.INPUT && !state.formula.isEmpty()
     AutoSizeFormulaText(
         text = state.formulaText.orDisplayText(),
         style = style,
         color = formulaColor,
         tag = TEST_TAG_FORMULA,
         animateSizeChanges = state.phase == CalculatorUiPhase.INPUT && animateFormulaAutosize,
-        modifier = Modifier.fillMaxWidth()
+        modifier = Modifier.fillMaxWidth(),
+        cursor = state.formula.cursor,
+        onCursorMove = onFormulaCursorMove.takeIf { editable }
     )
 
     val showsVisibleResult = state.phase != CalculatorUiPhase.RESULT
@@ -367,7 +492,8 @@ private fun DisplayStaticRows(
         tag = TEST_TAG_RESULT,
         modifier = Modifier
             .fillMaxWidth()
-            .graphicsLayer { translationY = formulaRowHeightPx }
+            .graphicsLayer { translationY = formulaRowHeightPx },
+        onScrolledToEnd = onResultScrolledToEnd.takeIf { showsVisibleResult }
     )
 }
 
@@ -425,65 +551,77 @@ private fun DisplayResultTransitionRows(
     }
 }
 
-@Composable
-private fun rememberLegacyResultTransitionMetrics(
-    transition: DisplayResultTransition,
-    style: DisplayStyleSpec,
-    displayWidthPx: Float,
-    formulaRowHeightPx: Float,
-    resultRowHeightPx: Float
-): LegacyResultTransitionMetrics {
-    val density = LocalDensity.current
-    val textMeasurer = rememberTextMeasurer()
+/** The geometry a result transition's metrics depend on. */
+private data class ResultTransitionMetricsKey(
+    val movingResultText: String,
+    val style: DisplayStyleSpec,
+    val displayWidthPx: Float,
+    val formulaRowHeightPx: Float,
+    val resultRowHeightPx: Float,
+    val density: Density
+)
 
-    return remember(
-        transition,
-        style,
-        displayWidthPx,
-        formulaRowHeightPx,
-        resultRowHeightPx,
-        density
-    ) {
-        val maxFormulaSize = style.formulaMaxSizeSp.sp
-        val baseFormulaInsetsPx =
-            legacyTrimmedInsetsPx(style.formulaInsets, maxFormulaSize, density)
-        val formulaAvailableWidthPx =
-            (displayWidthPx - baseFormulaInsetsPx.start - baseFormulaInsetsPx.end)
-                .coerceAtLeast(0f)
-
-        val targetFormulaSizeSp = computeFittingTextSizeSp(
-            text = transition.movingResultText,
-            minSizeSp = style.formulaMinSizeSp,
-            maxSizeSp = style.formulaMaxSizeSp,
-            stepSizeSp = style.formulaStepSizeSp,
-            maxWidthPx = formulaAvailableWidthPx
-        ) { candidateSp ->
-            textMeasurer.measure(
-                text = AnnotatedString(transition.movingResultText),
-                style = legacyDisplayTextStyle(candidateSp.sp),
-                maxLines = 1
-            ).size.width.toFloat()
+/**
+ * The metrics of the last few result transitions computed, so that a transition computed ahead of
+ * time from the preview result starts without measuring any text.
+ */
+private class ResultTransitionMetricsCache(private val onCompute: () -> Unit) {
+    private val metrics = LinkedHashMap<ResultTransitionMetricsKey, LegacyResultTransitionMetrics>()
+
+    fun getOrCompute(
+        key: ResultTransitionMetricsKey,
+        formulaFitter: FormulaTextFitter
+    ): LegacyResultTransitionMetrics {
+        // Re-inserting keeps the most recently used metrics last and the eldest first.
+        val cached = metrics.remove(key)
+        val result = cached ?: computeResultTransitionMetrics(key, formulaFitter).also {
+            onCompute()
+        }
+        metrics[key] = result
+        if (metrics.size > MAX_ENTRIES) {
+            metrics.remove(metrics.keys.first())
         }
+        return result
+    }
 
-        val resultInsetsPx =
-            legacyTrimmedInsetsPx(style.resultInsets, style.resultSizeSp.sp, density)
-        val formulaInsetsPx =
-            legacyTrimmedInsetsPx(style.formulaInsets, targetFormulaSizeSp.sp, density)
-
-        computeLegacyResultTransitionMetrics(
-            resultTextSizePx = with(density) { style.resultSizeSp.sp.toPx() },
-            targetFormulaTextSizePx = with(density) { targetFormulaSizeSp.sp.toPx() },
-            resultViewWidthPx = displayWidthPx,
-            resultViewHeightPx = resultRowHeightPx,
-            resultPaddingEndPx = resultInsetsPx.end,
-            resultPaddingBottomPx = resultInsetsPx.bottom,
-            formulaPaddingBottomPx = formulaInsetsPx.bottom,
-            formulaBottomPx = formulaRowHeightPx,
-            resultBottomPx = formulaRowHeightPx + resultRowHeightPx
-        )
+    private companion object {
+        const val MAX_ENTRIES = 4
     }
 }
 
+private fun computeResultTransitionMetrics(
+    key: ResultTransitionMetricsKey,
+    formulaFitter: FormulaTextFitter
+): LegacyResultTransitionMetrics {
+    val style = key.style
+    val density = key.density
+    val maxFormulaSize = style.formulaMaxSizeSp.sp
+    val baseFormulaInsetsPx =
+        legacyTrimmedInsetsPx(style.formulaInsets, maxFormulaSize, density)
+    val formulaAvailableWidthPx =
+        (key.displayWidthPx - baseFormulaInsetsPx.start - baseFormulaInsetsPx.end)
+            .coerceAtLeast(0f)
+
+    val targetFormulaSizeSp = formulaFitter.fit(key.movingResultText, formulaAvailableWidthPx)
+
+    val resultInsetsPx =
+        legacyTrimmedInsetsPx(style.resultInsets, style.resultSizeSp.sp, density)
+    val formulaInsetsPx =
+        legacyTrimmedInsetsPx(style.formulaInsets, targetFormulaSizeSp.sp, density)
+
+    return computeLegacyResultTransitionMetrics(
+        resultTextSizePx = with(density) { style.resultSizeSp.sp.toPx() },
+        targetFormulaTextSizePx = with(density) { targetFormulaSizeSp.sp.toPx() },
+        resultViewWidthPx = key.displayWidthPx,
+        resultViewHeightPx = key.resultRowHeightPx,
+        resultPaddingEndPx = resultInsetsPx.end,
+        resultPaddingBottomPx = resultInsetsPx.bottom,
+        formulaPaddingBottomPx = formulaInsetsPx.bottom,
+        formulaBottomPx = key.formulaRowHeightPx,
+        resultBottomPx = key.formulaRowHeightPx + key.resultRowHeightPx
+    )
+}
+
 @Composable
 private fun ResultRowText(
     text: String,
@@ -491,30 +629,58 @@ private fun ResultRowText(
     style: DisplayStyleSpec,
     resultInsets: EdgeInsets,
     tag: String?,
-    modifier: Modifier = Modifier
+    modifier: Modifier = Modifier,
+    onScrolledToEnd: (() -> Unit)? = null
 ) {
-    Text(
-        text = text,
-        modifier = modifier
-            .padding(
-                top = resultInsets.top,
-                bottom = resultInsets.bottom,
-                start = resultInsets.start,
-                end = resultInsets.end
-            )
-            .then(
-                if (tag != null) {
-                    Modifier.testTag(tag)
-                } else {
-                    Modifier
-                }
-            ),
-        color = color,
-        style = legacyDisplayTextStyle(style.resultSizeSp.sp),
-        textAlign = TextAlign.End,
-        maxLines = 1,
-        overflow = TextOverflow.Ellipsis
+    val paddedModifier = modifier.padding(
+        top = resultInsets.top,
+        bottom = resultInsets.bottom,
+        start = resultInsets.start,
+        end = resultInsets.end
     )
+    val tagModifier =
+        if (tag != null) {
+            Modifier.testTag(tag)
+        } else {
+            Modifier
+        }
+    if (onScrolledToEnd == null) {
+        Text(
+            text = text,
+            modifier = paddedModifier.then(tagModifier),
+            color = color,
+            style = legacyDisplayTextStyle(style.resultSizeSp.sp),
+            textAlign = TextAlign.End,
+            maxLines = 1,
+            overflow = TextOverflow.Ellipsis
+        )
+        return
+    }
+
+    // Scrollable variant used by the precise evaluation mode: dragging the row to its end
+    // (including dragging a row that already fits) asks for more digits.
+    val scrollState = rememberScrollState()
+    val currentOnScrolledToEnd by rememberUpdatedState(onScrolledToEnd)
+    LaunchedEffect(scrollState) {
+        snapshotFlow { scrollState.isScrollInProgress && scrollState.value >= scrollState.maxValue }
+            .distinctUntilChanged()
+            .filter { it }
+            .collect { currentOnScrolledToEnd() }
+    }
+    BoxWithConstraints(modifier = paddedModifier) {
+        Text(
+            text = text,
+            modifier = Modifier
+                .horizontalScroll(scrollState)
+                .widthIn(min = maxWidth)
+                .then(tagModifier),
+            color = color,
+            style = legacyDisplayTextStyle(style.resultSizeSp.sp),
+            textAlign = TextAlign.End,
+            maxLines = 1,
+            softWrap = false
+        )
+    }
 }
 
 @Composable
@@ -524,7 +690,9 @@ private fun AutoSizeFormulaText(
     color: Color,
     tag: String?,
     animateSizeChanges: Boolean,
-    modifier: Modifier = Modifier
+    modifier: Modifier = Modifier,
+    cursor: Int = text.length,
+    onCursorMove: ((Int) -> Unit)? = null
 ) {
     val maxFormulaSizeSp = style.formulaMaxSizeSp.sp
     val baseFormulaInsets = legacyTrimmedInsets(style.formulaInsets, maxFormulaSizeSp)
@@ -540,28 +708,29 @@ private fun AutoSizeFormulaText(
                 end = baseFormulaInsets.end
             )
     ) {
-        val textMeasurer = rememberTextMeasurer()
-        val availableWidthPx = with(density) { maxWidth.toPx().coerceAtLeast(0f) }
-        val targetTextSize = remember(
-            text,
-            availableWidthPx,
-            style.formulaMinSizeSp,
-            style.formulaMaxSizeSp,
-            style.formulaStepSizeSp
-        ) {
-            computeFittingTextSizeSp(
+        val tagModifier = if (tag != null) Modifier.testTag(tag) else Modifier
+        if (text.length > LONG_FORMULA_LENGTH) {
+            // Nothing this long fits above the minimum size, so skip fitting and lay out only
+            // the part of the line in view.
+            val minFormulaSizeSp = style.formulaMinSizeSp.sp
+            val formulaInsets = legacyTrimmedInsets(style.formulaInsets, minFormulaSizeSp)
+            LongFormulaText(
                 text = text,
-                minSizeSp = style.formulaMinSizeSp,
-                maxSizeSp = style.formulaMaxSizeSp,
-                stepSizeSp = style.formulaStepSizeSp,
-                maxWidthPx = availableWidthPx
-            ) { candidateSp ->
-                textMeasurer.measure(
-                    text = AnnotatedString(text),
-                    style = legacyDisplayTextStyle(candidateSp.sp),
-                    maxLines = 1
-                ).size.width.toFloat()
-            }
+                cursor = cursor,
+                color = color,
+                textStyle = legacyDisplayTextStyle(minFormulaSizeSp),
+                modifier = Modifier
+                    .fillMaxWidth()
+                    .padding(top = formulaInsets.top, bottom = formulaInsets.bottom)
+                    .then(tagModifier),
+                onCursorMove = onCursorMove
+            )
+            return@BoxWithConstraints
+        }
+        val formulaFitter = rememberFormulaTextFitter(style)
+        val availableWidthPx = with(density) { maxWidth.toPx().coerceAtLeast(0f) }
+        val targetTextSize = remember(text, availableWidthPx, formulaFitter) {
+            formulaFitter.fit(text, availableWidthPx)
         }
 
         val animatedSize =
@@ -575,6 +744,7 @@ private fun AutoSizeFormulaText(
                 targetTextSize
             }
         val formulaInsets = legacyTrimmedInsets(style.formulaInsets, animatedSize.sp)
+        var layout by remember { mutableStateOf<TextLayoutResult?>(null) }
 
         Text(
             text = text,
@@ -583,49 +753,45 @@ private fun AutoSizeFormulaText(
             textAlign = TextAlign.End,
             maxLines = 1,
             overflow = TextOverflow.Ellipsis,
+            onTextLayout = { layout = it },
             modifier = Modifier
                 .fillMaxWidth()
                 .padding(
                     top = formulaInsets.top,
                     bottom = formulaInsets.bottom
                 )
-                .then(
-                    if (tag != null) {
-                        Modifier.testTag(tag)
-                    } else {
-                        Modifier
-                    }
+                .formulaCursor(
+                    layout = { layout },
+                    cursor = cursor.takeIf { onCursorMove != null && it < text.length },
+                    color = color,
+                    onTap = onCursorMove
                 )
+                .then(tagModifier)
         )
     }
 }
 
-private fun computeFittingTextSizeSp(
-    text: String,
-    minSizeSp: Int,
-    maxSizeSp: Int,
-    stepSizeSp: Int,
-    maxWidthPx: Float,
-    measureWidthPx: (Float) -> Float
-): Float {
-    if (text.isBlank()) {
-        return maxSizeSp.toFloat()
-    }
-    if (maxWidthPx <= 0f || minSizeSp >= maxSizeSp || stepSizeSp <= 0) {
-        return maxSizeSp.toFloat()
-    }
-
-    var bestSize = minSizeSp.toFloat()
-    var current = minSizeSp.toFloat()
-    while (current <= maxSizeSp.toFloat()) {
-        if (measureWidthPx(current) <= maxWidthPx) {
-            bestSize = current
-            current += stepSizeSp
-        } else {
-            break
+@Composable
+private fun rememberFormulaTextFitter(style: DisplayStyleSpec): FormulaTextFitter {
+    val textMeasurer = rememberTextMeasurer()
+    return remember(
+        textMeasurer,
+        style.formulaMinSizeSp,
+        style.formulaMaxSizeSp,
+        style.formulaStepSizeSp
+    ) {
+        FormulaTextFitter(
+            minSizeSp = style.formulaMinSizeSp,
+            maxSizeSp = style.formulaMaxSizeSp,
+            stepSizeSp = style.formulaStepSizeSp
+        ) { text, sizeSp ->
+            textMeasurer.measure(
+                text = AnnotatedString(text),
+                style = legacyDisplayTextStyle(sizeSp.sp),
+                maxLines = 1
+            ).size.width.toFloat()
         }
     }
-    return bestSize.coerceIn(minSizeSp.toFloat(), maxSizeSp.toFloat())
 }
 
 private data class PxInsets(val start: Float, val end: Float, val top: Float, val bottom: Float)
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+/**
+ * Picks the largest formula text size, from [minSizeSp] up to [maxSizeSp] in steps of
+ * [stepSizeSp], that fits a line of a given width.
+ *
+ * Rather than laying the text out at every candidate size, the fitter takes the text's width at
+ * [maxSizeSp], scales it to estimate the width at each smaller size, and lays the text out only at
+ * the estimated size to confirm it, plus once more at the next size up when that estimate is too
+ * close to call. Widths at [maxSizeSp] are kept for the most recent [cacheSize] texts, so typing
+ * a token at the end of the formula only measures that token before the confirming layout.
+ *
+ * @param measureWidthPx the width of a single line of text at a size in sp.
+ */
+internal class FormulaTextFitter(
+    private val minSizeSp: Int,
+    private val maxSizeSp: Int,
+    private val stepSizeSp: Int,
+    private val cacheSize: Int = DEFAULT_CACHE_SIZE,
+    private val measureWidthPx: (text: String, sizeSp: Float) -> Float
+) {
+    private val referenceWidths =
+        object : LinkedHashMap<String, Float>(cacheSize, 0.75f, true) {
+            override fun removeEldestEntry(eldest: MutableMap.MutableEntry<String, Float>) =
+                size > cacheSize
+        }
+
+    /** The text size in sp to show [text] in on a line [maxWidthPx] wide. */
+    fun fit(text: String, maxWidthPx: Float): Float {
+        if (text.isBlank() || maxWidthPx <= 0f || minSizeSp >= maxSizeSp || stepSizeSp <= 0) {
+            return maxSizeSp.toFloat()
+        }
+        val widthPerSp = referenceWidthPx(text) / maxSizeSp
+        if (widthPerSp <= 0f) {
+            return maxSizeSp.toFloat()
+        }
+
+        var size = largestCandidateAtMost(maxWidthPx / widthPerSp)
+        val measuredWidthPx = measureWidthPx(text, size.toFloat())
+        // Re-anchor the cached width on the full layout, so that summing suffix widths, which
+        // leaves out kerning across the joins, does not drift over a long run of typing.
+        referenceWidths[text] = measuredWidthPx * maxSizeSp / size
+        if (measuredWidthPx <= maxWidthPx) {
+            // Glyph advances do not scale quite linearly, so check the next size up when the
+            // estimate only just ruled it out.
+            val next = size + stepSizeSp
+            if (next <= maxSizeSp &&
+                widthPerSp * next <= maxWidthPx * (1f + ESTIMATE_TOLERANCE) &&
+                measureWidthPx(text, next.toFloat()) <= maxWidthPx
+            ) {
+                size = next
+            }
+            return size.toFloat()
+        }
+        while (size > minSizeSp) {
+            size -= stepSizeSp
+            if (size <= minSizeSp || measureWidthPx(text, size.toFloat()) <= maxWidthPx) {
+                break
+            }
+        }
+        return size.coerceAtLeast(minSizeSp).toFloat()
+    }
+
+    /** The largest candidate size no larger than [sizeSp], or [minSizeSp] if none is. */
+    private fun largestCandidateAtMost(sizeSp: Float): Int {
+        if (sizeSp < minSizeSp) {
+            return minSizeSp
+        }
+        val steps = ((minOf(sizeSp, maxSizeSp.toFloat()) - minSizeSp) / stepSizeSp).toInt()
+        return minSizeSp + steps * stepSizeSp
+    }
+
+    /**
+     * The width of [text] at [maxSizeSp]. A text that extends one seen recently by a short
+     * suffix, as typing does, is measured as that text's width plus the suffix's.
+     */
+    private fun referenceWidthPx(text: String): Float {
+        referenceWidths[text]?.let { return it }
+        val reference = maxSizeSp.toFloat()
+        var width: Float? = null
+        for (suffixLength in 1..minOf(MAX_SUFFIX_LENGTH, text.length - 1)) {
+            val prefixWidth = referenceWidths[text.substring(0, text.length - suffixLength)]
+            if (prefixWidth != null) {
+                val suffix = text.substring(text.length - suffixLength)
+                width = prefixWidth + measureWidthPx(suffix, reference)
+                break
+            }
+        }
+        return (width ?: measureWidthPx(text, reference)).also { referenceWidths[text] = it }
+    }
+
+    private companion object {
+        const val DEFAULT_CACHE_SIZE = 64
+
+        /** Longest token a single key appends, e.g. "sin(". */
+        const val MAX_SUFFIX_LENGTH = 4
+
+        const val ESTIMATE_TOLERANCE = 0.02f
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+@file:Suppress("ktlint:standard:function-naming")
+
+package com.monkopedia.quickcalc
+
+import androidx.compose.foundation.clickable
+import androidx.compose.foundation.layout.Arrangement
+import androidx.compose.foundation.layout.Box
+import androidx.compose.foundation.layout.Column
+import androidx.compose.foundation.layout.fillMaxWidth
+import androidx.compose.foundation.layout.height
+import androidx.compose.foundation.layout.padding
+import androidx.compose.foundation.lazy.LazyColumn
+import androidx.compose.foundation.lazy.LazyItemScope
+import androidx.compose.foundation.lazy.LazyListState
+import androidx.compose.foundation.lazy.rememberLazyListState
+import androidx.compose.material3.Text
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.LaunchedEffect
+import androidx.compose.runtime.collectAsState
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableStateMapOf
+import androidx.compose.runtime.produceState
+import androidx.compose.runtime.remember
+import androidx.compose.runtime.snapshotFlow
+import androidx.compose.runtime.snapshots.SnapshotStateMap
+import androidx.compose.ui.Alignment
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.platform.testTag
+import androidx.compose.ui.res.colorResource
+import androidx.compose.ui.res.stringResource
+import androidx.compose.ui.semantics.contentDescription
+import androidx.compose.ui.semantics.semantics
+import androidx.compose.ui.text.style.TextAlign
+import androidx.compose.ui.text.style.TextOverflow
+import androidx.compose.ui.unit.TextUnit
+import androidx.compose.ui.unit.dp
+import androidx.compose.ui.unit.sp
+import kotlinx.coroutines.flow.distinctUntilChanged
+import kotlinx.coroutines.withContext
+
+/** Entries read from the tape at a time. */
+private const val HISTORY_PAGE_SIZE = 50
+
+/** Pages kept on either side of the visible ones; pages further away are dropped. */
+private const val HISTORY_RETAINED_PAGES = 2
+
+/** Key of the item the tape scrolls down from. */
+private const val HISTORY_HEADER_KEY = -1
+
+/**
+ * The advanced pad of the drawer, with the calculation history beneath it. The pad fills the
+ * drawer whether or not there is any history; scrolling up from it reveals the tape. Selecting an
+ * entry appends its result to the formula.
+ */
+@Composable
+internal fun AdvancedDrawer(
+    onEvent: (CalculatorUiEvent) -> Unit,
+    enabled: Boolean,
+    gridStyle: GridStyleSpec,
+    textSize: TextUnit,
+    columns: Int,
+    modifier: Modifier = Modifier
+) {
+    val context = LocalContext.current
+    val history by produceState<CalculationHistoryLog?>(null) {
+        value = withContext(CalculationHistory.dispatcher) {
+            CalculationHistory.log(context)
+        }
+    }
+    val tape = history
+    CalculationHistoryTape(
+        history = tape,
+        revision = tape?.revision?.collectAsState()?.value,
+        enabled = enabled,
+        onEntrySelected = { entry -> onEvent(CalculatorUiEvent.Append(entry.result)) },
+        modifier = modifier.testTag(TEST_TAG_HISTORY_TAPE)
+    ) {
+        AdvancedPad(
+            onEvent = onEvent,
+            enabled = enabled,
+            gridStyle = gridStyle,
+            textSize = textSize,
+            columns = columns,
+            modifier = Modifier
+                .fillParentMaxSize()
+                .testTag(TEST_TAG_ADVANCED_PAD)
+        )
+    }
+}
+
+/**
+ * [header] filling the view, followed by the entries of [history], newest first, read a page at
+ * a time as they scroll into view. Only the pages around the visible entries are held; the rest
+ * show as placeholders until read.
+ */
+@Composable
+private fun CalculationHistoryTape(
+    history: CalculationHistoryLog?,
+    revision: CalculationHistoryLog.Revision?,
+    enabled: Boolean,
+    onEntrySelected: (CalculationHistoryLog.Entry) -> Unit,
+    modifier: Modifier = Modifier,
+    header: @Composable LazyItemScope.() -> Unit
+) {
+    val listState = rememberLazyListState()
+    val size = revision?.size ?: 0
+    // Pages are numbered from the oldest entry, so appending leaves all but the last unchanged.
+    val pages = remember(history, revision?.generation) {
+        mutableStateMapOf<Int, List<CalculationHistoryLog.Entry>>()
+    }
+    if (history != null && revision != null) {
+        LaunchedEffect(history, revision) {
+            pages.keys.filter { pages[it]!!.size < HISTORY_PAGE_SIZE }.forEach(pages::remove)
+            snapshotFlow { visiblePages(listState, revision.size) }
+                .distinctUntilChanged()
+                .collect { visible -> loadPages(history, revision.size, visible, pages) }
+        }
+    }
+
+    LazyColumn(state = listState, modifier = modifier) {
+        item(key = HISTORY_HEADER_KEY, content = header)
+        items(
+            count = size,
+            key = { position -> size - 1 - position }
+        ) { position ->
+            val index = size - 1 - position
+            val entry = pages[index / HISTORY_PAGE_SIZE]?.getOrNull(index % HISTORY_PAGE_SIZE)
+            CalculationHistoryRow(entry, enabled, onEntrySelected)
+        }
+    }
+}
+
+@Composable
+private fun CalculationHistoryRow(
+    entry: CalculationHistoryLog.Entry?,
+    enabled: Boolean,
+    onEntrySelected: (CalculationHistoryLog.Entry) -> Unit
+) {
+    val rowModifier = Modifier
+        .fillMaxWidth()
+        .height(56.dp)
+    if (entry == null) {
+        Box(modifier = rowModifier)
+        return
+    }
+    val description = stringResource(R.string.desc_history_entry, entry.formula, entry.result)
+    val textColor = colorResource(R.color.pad_button_advanced_text_color)
+    Column(
+        modifier = rowModifier
+            .clickable(enabled = enabled) { onEntrySelected(entry) }
+            .semantics { contentDescription = description }
+            .padding(horizontal = 16.dp, vertical = 6.dp),
+        verticalArrangement = Arrangement.Center,
+        horizontalAlignment = Alignment.End
+    ) {
+        Text(
+            text = entry.formula,
+            color = textColor,
+            fontSize = 14.sp,
+            maxLines = 1,
+            overflow = TextOverflow.Ellipsis,
+            textAlign = TextAlign.End
+        )
+        Text(
+            text = entry.result,
+            color = textColor,
+            fontSize = 20.sp,
+            maxLines = 1,
+            overflow = TextOverflow.Ellipsis,
+            textAlign = TextAlign.End
+        )
+    }
+}
+
+/**
+ * The pages holding the visible entries, or the newest page if none are visible yet, so that it
+ * is ready when the tape is scrolled into view.
+ */
+private fun visiblePages(listState: LazyListState, size: Int): IntRange {
+    if (size == 0) {
+        return IntRange.EMPTY
+    }
+    // Entries follow the header, so item 1 is the newest.
+    val visible = listState.layoutInfo.visibleItemsInfo.filter { it.index > 0 }
+    if (visible.isEmpty()) {
+        return pageOf(size - 1)..pageOf(size - 1)
+    }
+    // Positions count from the newest entry, so the last visible one is the oldest.
+    val oldest = size - visible.last().index
+    val newest = size - visible.first().index
+    return pageOf(oldest.coerceAtLeast(0))..pageOf(newest.coerceAtLeast(0))
+}
+
+private fun pageOf(index: Int): Int = index / HISTORY_PAGE_SIZE
+
+private suspend fun loadPages(
+    history: CalculationHistoryLog,
+    size: Int,
+    visible: IntRange,
+    pages: SnapshotStateMap<Int, List<CalculationHistoryLog.Entry>>
+) {
+    if (visible.isEmpty()) {
+        return
+    }
+    val lastPage = pageOf(size - 1)
+    val wanted = (visible.first - 1).coerceAtLeast(0)..(visible.last + 1).coerceAtMost(lastPage)
+    val retained = wanted.first - HISTORY_RETAINED_PAGES..wanted.last + HISTORY_RETAINED_PAGES
+    pages.keys.filter { it !in retained }.forEach(pages::remove)
+    // Read the newest pages first; they are the ones scrolled towards from the top.
+    for (page in wanted.reversed()) {
+        if (page in pages) {
+            continue
+        }
+        val from = page * HISTORY_PAGE_SIZE
+        val to = minOf(from + HISTORY_PAGE_SIZE, size)
+        pages[page] = withContext(CalculationHistory.dispatcher) {
+            // The tape may have been compacted since; its next revision will reload.
+            if (to <= history.entryCount) history.read(from, to) else emptyList()
+        }
+    }
+}
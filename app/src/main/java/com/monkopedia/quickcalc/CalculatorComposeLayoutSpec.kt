@@ -17,6 +17,7 @@
 package com.monkopedia.quickcalc
 
 import android.content.res.Configuration
+import androidx.compose.runtime.Immutable
 import androidx.compose.ui.unit.Dp
 import androidx.compose.ui.unit.TextUnit
 import androidx.compose.ui.unit.dp
@@ -34,10 +35,13 @@ internal enum class ComposeLayoutMode {
     TABLET_PORTRAIT_SPLIT
 }
 
+@Immutable
 internal data class EdgeInsets(val start: Dp, val end: Dp, val top: Dp, val bottom: Dp)
 
+@Immutable
 internal data class GridStyleSpec(val insets: EdgeInsets, val rowGap: Dp, val columnGap: Dp)
 
+@Immutable
 internal data class DisplayStyleSpec(
     val formulaInsets: EdgeInsets,
     val resultInsets: EdgeInsets,
@@ -47,6 +51,7 @@ internal data class DisplayStyleSpec(
     val resultSizeSp: Int
 )
 
+@Immutable
 internal data class LayoutStyleSpec(
     val mode: ComposeLayoutMode,
     val display: DisplayStyleSpec,
@@ -0,0 +1,185 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+@file:Suppress("ktlint:standard:function-naming")
+
+package com.monkopedia.quickcalc
+
+import androidx.compose.foundation.gestures.detectTapGestures
+import androidx.compose.foundation.lazy.LazyRow
+import androidx.compose.foundation.lazy.rememberLazyListState
+import androidx.compose.material3.Text
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.LaunchedEffect
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableStateOf
+import androidx.compose.runtime.remember
+import androidx.compose.runtime.setValue
+import androidx.compose.ui.Alignment
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.draw.drawWithContent
+import androidx.compose.ui.geometry.Offset
+import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.input.pointer.pointerInput
+import androidx.compose.ui.text.TextLayoutResult
+import androidx.compose.ui.text.TextStyle
+import androidx.compose.ui.unit.dp
+
+/** Formulas longer than this are shown a chunk at a time by [LongFormulaText]. */
+internal const val LONG_FORMULA_LENGTH = 256
+
+/** Characters per chunk [LongFormulaText] shapes separately. */
+internal const val LONG_FORMULA_CHUNK_LENGTH = 128
+
+/**
+ * The offsets [text] is split into chunks at, starting with 0 and ending with its length. Chunks
+ * are [chunkLength] characters long, or one longer where that would split a surrogate pair.
+ *
+ * Offsets are counted from the start, so editing the end of a formula leaves the chunks before
+ * the edit as they were.
+ */
+internal fun formulaChunkBoundaries(
+    text: CharSequence,
+    chunkLength: Int = LONG_FORMULA_CHUNK_LENGTH
+): IntArray {
+    require(chunkLength > 1) { "chunkLength must be at least 2: $chunkLength" }
+    val boundaries = ArrayList<Int>(text.length / chunkLength + 2)
+    boundaries += 0
+    var boundary = chunkLength
+    while (boundary < text.length) {
+        if (text[boundary - 1].isHighSurrogate() && text[boundary].isLowSurrogate()) {
+            boundary++
+        }
+        if (boundary < text.length) {
+            boundaries += boundary
+        }
+        boundary += chunkLength
+    }
+    if (text.isNotEmpty()) {
+        boundaries += text.length
+    }
+    return boundaries.toIntArray()
+}
+
+/**
+ * Shows a formula too long to fit as a horizontally scrolling line of chunks. Only the chunks in
+ * view are composed, shaped and drawn, so the cost of a change does not grow with the formula.
+ *
+ * The line starts scrolled to its end, and follows [cursor] when it moves into another chunk.
+ * With [onCursorMove] set, tapping a chunk moves the cursor there; see [formulaCursor].
+ */
+@Composable
+internal fun LongFormulaText(
+    text: String,
+    cursor: Int,
+    color: Color,
+    textStyle: TextStyle,
+    modifier: Modifier = Modifier,
+    onCursorMove: ((Int) -> Unit)? = null
+) {
+    val boundaries = remember(text) { formulaChunkBoundaries(text) }
+    val chunkCount = boundaries.size - 1
+    val listState = rememberLazyListState()
+    // Items run from the last chunk backwards, so that item 0 sits at the end of the line. Each
+    // is keyed by where its chunk starts, which edits after it leave alone.
+    val cursorChunk = chunkContaining(boundaries, cursor)
+    val cursorChunkStart = boundaries[cursorChunk]
+    LaunchedEffect(cursorChunkStart) {
+        val visible = listState.layoutInfo.visibleItemsInfo
+        if (visible.none { it.key == cursorChunkStart }) {
+            listState.scrollToItem(chunkCount - 1 - cursorChunk)
+        }
+    }
+
+    LazyRow(
+        state = listState,
+        reverseLayout = true,
+        verticalAlignment = Alignment.CenterVertically,
+        modifier = modifier
+    ) {
+        items(
+            count = chunkCount,
+            key = { item -> boundaries[chunkCount - 1 - item] }
+        ) { item ->
+            val chunk = chunkCount - 1 - item
+            val chunkStart = boundaries[chunk]
+            var layout by remember { mutableStateOf<TextLayoutResult?>(null) }
+            Text(
+                text = text.substring(chunkStart, boundaries[chunk + 1]),
+                color = color,
+                style = textStyle,
+                maxLines = 1,
+                softWrap = false,
+                onTextLayout = { layout = it },
+                modifier = Modifier.formulaCursor(
+                    layout = { layout },
+                    cursor = (cursor - chunkStart).takeIf {
+                        chunk == cursorChunk && onCursorMove != null && cursor < text.length
+                    },
+                    color = color,
+                    onTap = onCursorMove,
+                    textStart = chunkStart
+                )
+            )
+        }
+    }
+}
+
+/**
+ * Draws a caret at [cursor] in the text [layout] returns, and reports the offset in the formula
+ * of each tap on the text to [onTap]. The text starts [textStart] characters into the formula.
+ *
+ * A null [cursor] draws no caret, as at the end of the formula, where input goes anyway.
+ */
+internal fun Modifier.formulaCursor(
+    layout: () -> TextLayoutResult?,
+    cursor: Int?,
+    color: Color,
+    onTap: ((Int) -> Unit)?,
+    textStart: Int = 0
+): Modifier {
+    val tappable = if (onTap == null) {
+        this
+    } else {
+        pointerInput(onTap, textStart) {
+            detectTapGestures { position ->
+                layout()?.let { onTap(textStart + it.getOffsetForPosition(position)) }
+            }
+        }
+    }
+    if (cursor == null) {
+        return tappable
+    }
+    return tappable.drawWithContent {
+        drawContent()
+        val caret = layout()?.getCursorRect(cursor) ?: return@drawWithContent
+        drawLine(
+            color = color,
+            start = Offset(caret.left, caret.top),
+            end = Offset(caret.left, caret.bottom),
+            strokeWidth = FORMULA_CARET_WIDTH.toPx()
+        )
+    }
+}
+
+private val FORMULA_CARET_WIDTH = 2.dp
+
+/** The index of the chunk [offset] falls in; an offset at the very end is in the last chunk. */
+private fun chunkContaining(boundaries: IntArray, offset: Int): Int {
+    val found = boundaries.binarySearch(offset)
+    val chunk = if (found >= 0) found else -found - 2
+    return chunk.coerceIn(0, boundaries.size - 2)
+}
@@ -18,15 +18,18 @@
 
 package com.monkopedia.quickcalc
 
+import androidx.compose.foundation.IndicationNodeFactory
 import androidx.compose.foundation.combinedClickable
 import androidx.compose.foundation.interaction.MutableInteractionSource
 import androidx.compose.foundation.layout.Box
 import androidx.compose.material3.Text
 import androidx.compose.material3.ripple
 import androidx.compose.runtime.Composable
+import androidx.compose.runtime.Immutable
 import androidx.compose.runtime.remember
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
+import androidx.compose.ui.graphics.Color
 import androidx.compose.ui.res.colorResource
 import androidx.compose.ui.semantics.contentDescription
 import androidx.compose.ui.semantics.semantics
@@ -40,33 +43,20 @@ internal fun CalculatorPadButton(
     contentDescription: String,
     modifier: Modifier = Modifier,
     textSize: TextUnit,
-    textColorRes: Int,
-    rippleColorRes: Int = R.color.pad_button_ripple_color,
+    colors: PadButtonColors,
     enabled: Boolean,
     onClick: () -> Unit,
     onLongClick: (() -> Unit)? = null
 ) {
+    CountRecompositions("CalculatorPadButton")
     val interactionSource = remember { MutableInteractionSource() }
     val clickModifier = if (!enabled) {
         modifier
-    } else if (onLongClick == null) {
-        modifier
-            .combinedClickable(
-                interactionSource = interactionSource,
-                indication = ripple(
-                    bounded = false,
-                    color = colorResource(rippleColorRes)
-                ),
-                onClick = onClick
-            )
     } else {
         modifier
             .combinedClickable(
                 interactionSource = interactionSource,
-                indication = ripple(
-                    bounded = false,
-                    color = colorResource(rippleColorRes)
-                ),
+                indication = colors.ripple,
                 onClick = onClick,
                 onLongClick = onLongClick
             )
@@ -81,7 +71,7 @@ internal fun CalculatorPadButton(
     ) {
         Text(
             text = label,
-            color = colorResource(textColorRes),
+            color = colors.textColor,
             fontSize = textSize,
             fontWeight = FontWeight.Light,
             textAlign = TextAlign.Center
@@ -89,6 +79,23 @@ internal fun CalculatorPadButton(
     }
 }
 
+/** The text color and ripple of a pad's buttons, resolved once for the whole pad. */
+@Immutable
+internal class PadButtonColors(val textColor: Color, val ripple: IndicationNodeFactory)
+
+@Composable
+internal fun rememberPadButtonColors(
+    textColorRes: Int = R.color.pad_button_text_color,
+    rippleColorRes: Int = R.color.pad_button_ripple_color
+): PadButtonColors {
+    val textColor = colorResource(textColorRes)
+    val rippleColor = colorResource(rippleColorRes)
+    return remember(textColor, rippleColor) {
+        PadButtonColors(textColor, ripple(bounded = false, color = rippleColor))
+    }
+}
+
+@Immutable
 internal data class PadButtonSpec(
     val label: String,
     val tag: String,
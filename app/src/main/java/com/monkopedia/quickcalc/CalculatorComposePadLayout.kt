@@ -51,7 +51,7 @@ import kotlinx.coroutines.launch
 
 @Composable
 internal fun PhonePortraitPagerPad(
-    state: CalculatorUiState,
+    showsClearButton: Boolean,
     onEvent: (CalculatorUiEvent) -> Unit,
     initialPadPage: Int,
     padPageOverride: Int?,
@@ -144,7 +144,7 @@ internal fun PhonePortraitPagerPad(
                                         .clipToBounds()
                                 )
                                 OperatorPadOneColumn(
-                                    state = state,
+                                    showsClearButton = showsClearButton,
                                     onEvent = onEvent,
                                     enabled = isSettledOnPage(pagerState, 0),
                                     gridStyle = style.operatorOneGrid,
@@ -170,7 +170,7 @@ internal fun PhonePortraitPagerPad(
                     }
 
                     1 -> {
-                        AdvancedPad(
+                        AdvancedDrawer(
                             onEvent = onEvent,
                             enabled = isSettledOnPage(pagerState, 1),
                             gridStyle = style.advancedGrid,
@@ -182,7 +182,6 @@ internal fun PhonePortraitPagerPad(
                                 .fillMaxWidth(ADVANCED_PAGE_WIDTH_FRACTION)
                                 .background(advancedPadBackground)
                                 .clipToBounds()
-                                .testTag(TEST_TAG_ADVANCED_PAD)
                         )
                     }
                 }
@@ -211,7 +210,7 @@ internal fun PhonePortraitPagerPad(
 
 @Composable
 internal fun LandscapeSplitPad(
-    state: CalculatorUiState,
+    showsClearButton: Boolean,
     onEvent: (CalculatorUiEvent) -> Unit,
     style: LayoutStyleSpec,
     numericPadBackground: Color,
@@ -232,7 +231,7 @@ internal fun LandscapeSplitPad(
                 .clipToBounds()
         )
         OperatorPadTwoColumn(
-            state = state,
+            showsClearButton = showsClearButton,
             onEvent = onEvent,
             enabled = true,
             gridStyle = style.operatorTwoGrid,
@@ -262,7 +261,7 @@ internal fun LandscapeSplitPad(
 
 @Composable
 internal fun TabletPortraitSplitPad(
-    state: CalculatorUiState,
+    showsClearButton: Boolean,
     onEvent: (CalculatorUiEvent) -> Unit,
     style: LayoutStyleSpec,
     numericPadBackground: Color,
@@ -302,7 +301,7 @@ internal fun TabletPortraitSplitPad(
                     .clipToBounds()
             )
             OperatorPadTwoColumn(
-                state = state,
+                showsClearButton = showsClearButton,
                 onEvent = onEvent,
                 enabled = true,
                 gridStyle = style.operatorTwoGrid,
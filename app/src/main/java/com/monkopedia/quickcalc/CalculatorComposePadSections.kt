@@ -18,6 +18,7 @@
 
 package com.monkopedia.quickcalc
 
+import android.content.res.Resources
 import android.os.Build
 import androidx.compose.foundation.layout.Arrangement
 import androidx.compose.foundation.layout.Column
@@ -45,6 +46,7 @@ internal fun NumericPad(
     showEquals: Boolean,
     modifier: Modifier = Modifier
 ) {
+    CountRecompositions("NumericPad")
     val context = LocalContext.current
     val composeConfiguration = LocalConfiguration.current
     val symbols = remember(context, composeConfiguration) {
@@ -74,41 +76,52 @@ internal fun NumericPad(
         }
     }
     val decimalDescription = stringResource(R.string.desc_dec_point)
+    val equalsLabel = stringResource(R.string.eq)
+    val equalsDescription = stringResource(R.string.desc_eq)
+    val colors = rememberPadButtonColors()
 
-    val lastSlot: PadButtonSpec? =
-        if (showEquals) {
-            PadButtonSpec(
-                stringResource(R.string.eq),
-                TEST_TAG_EQUALS,
-                stringResource(R.string.desc_eq),
-                CalculatorUiEvent.Equals
-            )
-        } else {
-            null
-        }
-
-    val numericButtons = listOf(
-        listOf(
-            PadButtonSpec(digits[7], TEST_TAG_DIGIT_7),
-            PadButtonSpec(digits[8], TEST_TAG_DIGIT_8),
-            PadButtonSpec(digits[9], TEST_TAG_DIGIT_9)
-        ),
-        listOf(
-            PadButtonSpec(digits[4], TEST_TAG_DIGIT_4),
-            PadButtonSpec(digits[5], TEST_TAG_DIGIT_5),
-            PadButtonSpec(digits[6], TEST_TAG_DIGIT_6)
-        ),
-        listOf(
-            PadButtonSpec(digits[1], TEST_TAG_DIGIT_1),
-            PadButtonSpec(digits[2], TEST_TAG_DIGIT_2),
-            PadButtonSpec(digits[3], TEST_TAG_DIGIT_3)
-        ),
+    val numericButtons = remember(
+        digits,
+        decimalSeparator,
+        decimalDescription,
+        equalsLabel,
+        equalsDescription,
+        showEquals
+    ) {
+        val lastSlot: PadButtonSpec? =
+            if (showEquals) {
+                PadButtonSpec(
+                    equalsLabel,
+                    TEST_TAG_EQUALS,
+                    equalsDescription,
+                    CalculatorUiEvent.Equals
+                )
+            } else {
+                null
+            }
         listOf(
-            PadButtonSpec(decimalSeparator, TEST_TAG_DECIMAL, decimalDescription),
-            PadButtonSpec(digits[0], TEST_TAG_DIGIT_0),
-            lastSlot
+            listOf(
+                PadButtonSpec(digits[7], TEST_TAG_DIGIT_7),
+                PadButtonSpec(digits[8], TEST_TAG_DIGIT_8),
+                PadButtonSpec(digits[9], TEST_TAG_DIGIT_9)
+            ),
+            listOf(
+                PadButtonSpec(digits[4], TEST_TAG_DIGIT_4),
+                PadButtonSpec(digits[5], TEST_TAG_DIGIT_5),
+                PadButtonSpec(digits[6], TEST_TAG_DIGIT_6)
+            ),
+            listOf(
+                PadButtonSpec(digits[1], TEST_TAG_DIGIT_1),
+                PadButtonSpec(digits[2], TEST_TAG_DIGIT_2),
+                PadButtonSpec(digits[3], TEST_TAG_DIGIT_3)
+            ),
+            listOf(
+                PadButtonSpec(decimalSeparator, TEST_TAG_DECIMAL, decimalDescription),
+                PadButtonSpec(digits[0], TEST_TAG_DIGIT_0),
+                lastSlot
+            )
         )
-    )
+    }
 
     Column(
         modifier = modifier.padding(
@@ -140,11 +153,9 @@ internal fun NumericPad(
                                 .fillMaxSize()
                                 .testTag(spec.tag),
                             textSize = textSize,
-                            textColorRes = R.color.pad_button_text_color,
+                            colors = colors,
                             enabled = enabled,
-                            onClick = {
-                                onEvent(spec.event ?: CalculatorUiEvent.Append(spec.label))
-                            }
+                            onClick = rememberPadClick(spec, onEvent)
                         )
                     }
                 }
@@ -155,7 +166,7 @@ internal fun NumericPad(
 
 @Composable
 internal fun OperatorPadOneColumn(
-    state: CalculatorUiState,
+    showsClearButton: Boolean,
     onEvent: (CalculatorUiEvent) -> Unit,
     enabled: Boolean,
     gridStyle: GridStyleSpec,
@@ -163,20 +174,9 @@ internal fun OperatorPadOneColumn(
     topLabelTextSize: TextUnit,
     modifier: Modifier = Modifier
 ) {
-    val deleteLabel = stringResource(R.string.del)
-    val clearLabel = stringResource(R.string.clr)
-    val divideSymbol = stringResource(R.string.op_div)
-    val multiplySymbol = stringResource(R.string.op_mul)
-    val subtractSymbol = stringResource(R.string.op_sub)
-    val addSymbol = stringResource(R.string.op_add)
-
-    val topLabel = if (state.showsClearButton) clearLabel else deleteLabel
-    val topDescription =
-        if (state.showsClearButton) {
-            stringResource(R.string.desc_clr)
-        } else {
-            stringResource(R.string.desc_del)
-        }
+    CountRecompositions("OperatorPadOneColumn")
+    val operators = rememberOperatorSpecs()
+    val colors = rememberPadButtonColors()
 
     Column(
         modifier = modifier.padding(
@@ -187,85 +187,36 @@ internal fun OperatorPadOneColumn(
         ),
         verticalArrangement = Arrangement.spacedBy(gridStyle.rowGap)
     ) {
-        CalculatorPadButton(
-            label = topLabel.uppercase(Locale.getDefault()),
-            contentDescription = topDescription,
-            modifier = Modifier
-                .weight(1f)
-                .fillMaxSize()
-                .testTag(if (state.showsClearButton) TEST_TAG_CLEAR else TEST_TAG_DELETE),
-            textSize = topLabelTextSize,
-            textColorRes = R.color.pad_button_text_color,
-            enabled = enabled,
-            onClick = {
-                onEvent(
-                    if (state.showsClearButton) {
-                        CalculatorUiEvent.Clear
-                    } else {
-                        CalculatorUiEvent.Delete
-                    }
-                )
-            },
-            onLongClick = {
-                if (!state.showsClearButton) {
-                    onEvent(CalculatorUiEvent.Clear)
-                }
-            }
-        )
-        CalculatorPadButton(
-            label = divideSymbol,
-            contentDescription = stringResource(R.string.desc_op_div),
-            modifier = Modifier
-                .weight(1f)
-                .fillMaxSize()
-                .testTag(TEST_TAG_DIVIDE),
-            textSize = operatorTextSize,
-            textColorRes = R.color.pad_button_text_color,
-            enabled = enabled,
-            onClick = { onEvent(CalculatorUiEvent.Append(divideSymbol)) }
-        )
-        CalculatorPadButton(
-            label = multiplySymbol,
-            contentDescription = stringResource(R.string.desc_op_mul),
-            modifier = Modifier
-                .weight(1f)
-                .fillMaxSize()
-                .testTag(TEST_TAG_MULTIPLY),
-            textSize = operatorTextSize,
-            textColorRes = R.color.pad_button_text_color,
+        DeleteOrClearButton(
+            showsClearButton = showsClearButton,
+            onEvent = onEvent,
             enabled = enabled,
-            onClick = { onEvent(CalculatorUiEvent.Append(multiplySymbol)) }
-        )
-        CalculatorPadButton(
-            label = subtractSymbol,
-            contentDescription = stringResource(R.string.desc_op_sub),
-            modifier = Modifier
-                .weight(1f)
-                .fillMaxSize()
-                .testTag(TEST_TAG_SUBTRACT),
-            textSize = operatorTextSize,
-            textColorRes = R.color.pad_button_text_color,
-            enabled = enabled,
-            onClick = { onEvent(CalculatorUiEvent.Append(subtractSymbol)) }
-        )
-        CalculatorPadButton(
-            label = addSymbol,
-            contentDescription = stringResource(R.string.desc_op_add),
+            textSize = topLabelTextSize,
+            colors = colors,
             modifier = Modifier
                 .weight(1f)
                 .fillMaxSize()
-                .testTag(TEST_TAG_ADD),
-            textSize = operatorTextSize,
-            textColorRes = R.color.pad_button_text_color,
-            enabled = enabled,
-            onClick = { onEvent(CalculatorUiEvent.Append(addSymbol)) }
         )
+        operators.forEach { spec ->
+            CalculatorPadButton(
+                label = spec.label,
+                contentDescription = spec.contentDescription,
+                modifier = Modifier
+                    .weight(1f)
+                    .fillMaxSize()
+                    .testTag(spec.tag),
+                textSize = operatorTextSize,
+                colors = colors,
+                enabled = enabled,
+                onClick = rememberPadClick(spec, onEvent)
+            )
+        }
     }
 }
 
 @Composable
 internal fun OperatorPadTwoColumn(
-    state: CalculatorUiState,
+    showsClearButton: Boolean,
     onEvent: (CalculatorUiEvent) -> Unit,
     enabled: Boolean,
     gridStyle: GridStyleSpec,
@@ -273,68 +224,17 @@ internal fun OperatorPadTwoColumn(
     topLabelTextSize: TextUnit,
     modifier: Modifier = Modifier
 ) {
-    val deleteLabel = stringResource(R.string.del)
-    val clearLabel = stringResource(R.string.clr)
-    val divideSymbol = stringResource(R.string.op_div)
-    val multiplySymbol = stringResource(R.string.op_mul)
-    val subtractSymbol = stringResource(R.string.op_sub)
-    val addSymbol = stringResource(R.string.op_add)
-
-    val topLabel = if (state.showsClearButton) clearLabel else deleteLabel
-    val topDescription =
-        if (state.showsClearButton) {
-            stringResource(R.string.desc_clr)
-        } else {
-            stringResource(R.string.desc_del)
-        }
-
-    val rows = listOf(
-        listOf(
-            PadButtonSpec(
-                divideSymbol,
-                TEST_TAG_DIVIDE,
-                stringResource(R.string.desc_op_div),
-                CalculatorUiEvent.Append(divideSymbol)
-            ),
-            PadButtonSpec(
-                topLabel.uppercase(Locale.getDefault()),
-                if (state.showsClearButton) TEST_TAG_CLEAR else TEST_TAG_DELETE,
-                topDescription
-            )
-        ),
-        listOf(
-            PadButtonSpec(
-                multiplySymbol,
-                TEST_TAG_MULTIPLY,
-                stringResource(R.string.desc_op_mul),
-                CalculatorUiEvent.Append(multiplySymbol)
-            ),
-            null
-        ),
-        listOf(
-            PadButtonSpec(
-                subtractSymbol,
-                TEST_TAG_SUBTRACT,
-                stringResource(R.string.desc_op_sub),
-                CalculatorUiEvent.Append(subtractSymbol)
-            ),
-            null
-        ),
-        listOf(
-            PadButtonSpec(
-                addSymbol,
-                TEST_TAG_ADD,
-                stringResource(R.string.desc_op_add),
-                CalculatorUiEvent.Append(addSymbol)
-            ),
-            PadButtonSpec(
-                stringResource(R.string.eq),
-                TEST_TAG_EQUALS,
-                stringResource(R.string.desc_eq),
-                CalculatorUiEvent.Equals
-            )
-        )
-    )
+    CountRecompositions("OperatorPadTwoColumn")
+    val operators = rememberOperatorSpecs()
+    val colors = rememberPadButtonColors()
+    val equalsLabel = stringResource(R.string.eq)
+    val equalsDescription = stringResource(R.string.desc_eq)
+    val equals = remember(equalsLabel, equalsDescription) {
+        PadButtonSpec(equalsLabel, TEST_TAG_EQUALS, equalsDescription, CalculatorUiEvent.Equals)
+    }
+    // Divide, multiply, subtract and add down the first column; delete or clear at the top of
+    // the second and equals at its bottom.
+    val secondColumn = listOf(null, null, equals)
 
     Column(
         modifier = modifier.padding(
@@ -345,49 +245,45 @@ internal fun OperatorPadTwoColumn(
         ),
         verticalArrangement = Arrangement.spacedBy(gridStyle.rowGap)
     ) {
-        rows.forEach { rowSpecs ->
+        operators.forEachIndexed { row, operator ->
             Row(
                 modifier = Modifier.weight(1f),
                 horizontalArrangement = Arrangement.spacedBy(gridStyle.columnGap)
             ) {
-                rowSpecs.forEach { spec ->
+                val buttonModifier = Modifier
+                    .weight(1f)
+                    .fillMaxSize()
+                CalculatorPadButton(
+                    label = operator.label,
+                    contentDescription = operator.contentDescription,
+                    modifier = buttonModifier.testTag(operator.tag),
+                    textSize = operatorTextSize,
+                    colors = colors,
+                    enabled = enabled,
+                    onClick = rememberPadClick(operator, onEvent)
+                )
+                if (row == 0) {
+                    DeleteOrClearButton(
+                        showsClearButton = showsClearButton,
+                        onEvent = onEvent,
+                        enabled = enabled,
+                        textSize = topLabelTextSize,
+                        colors = colors,
+                        modifier = buttonModifier
+                    )
+                } else {
+                    val spec = secondColumn[row - 1]
                     if (spec == null) {
-                        Spacer(
-                            modifier = Modifier
-                                .weight(1f)
-                                .fillMaxSize()
-                        )
+                        Spacer(modifier = buttonModifier)
                     } else {
-                        val isTopLabel =
-                            spec.tag == TEST_TAG_DELETE || spec.tag == TEST_TAG_CLEAR
                         CalculatorPadButton(
                             label = spec.label,
                             contentDescription = spec.contentDescription,
-                            modifier = Modifier
-                                .weight(1f)
-                                .fillMaxSize()
-                                .testTag(spec.tag),
-                            textSize = if (isTopLabel) topLabelTextSize else operatorTextSize,
-                            textColorRes = R.color.pad_button_text_color,
+                            modifier = buttonModifier.testTag(spec.tag),
+                            textSize = operatorTextSize,
+                            colors = colors,
                             enabled = enabled,
-                            onClick = {
-                                if (isTopLabel) {
-                                    onEvent(
-                                        if (state.showsClearButton) {
-                                            CalculatorUiEvent.Clear
-                                        } else {
-                                            CalculatorUiEvent.Delete
-                                        }
-                                    )
-                                } else {
-                                    onEvent(spec.event ?: CalculatorUiEvent.Append(spec.label))
-                                }
-                            },
-                            onLongClick = {
-                                if (spec.tag == TEST_TAG_DELETE) {
-                                    onEvent(CalculatorUiEvent.Clear)
-                                }
-                            }
+                            onClick = rememberPadClick(spec, onEvent)
                         )
                     }
                 }
@@ -396,6 +292,102 @@ internal fun OperatorPadTwoColumn(
     }
 }
 
+/** Divide, multiply, subtract and add, in the order the operator pads list them. */
+@Composable
+private fun rememberOperatorSpecs(): List<PadButtonSpec> {
+    val divideSymbol = stringResource(R.string.op_div)
+    val multiplySymbol = stringResource(R.string.op_mul)
+    val subtractSymbol = stringResource(R.string.op_sub)
+    val addSymbol = stringResource(R.string.op_add)
+    val divideDescription = stringResource(R.string.desc_op_div)
+    val multiplyDescription = stringResource(R.string.desc_op_mul)
+    val subtractDescription = stringResource(R.string.desc_op_sub)
+    val addDescription = stringResource(R.string.desc_op_add)
+    return remember(
+        divideSymbol,
+        multiplySymbol,
+        subtractSymbol,
+        addSymbol,
+        divideDescription,
+        multiplyDescription,
+        subtractDescription,
+        addDescription
+    ) {
+        listOf(
+            PadButtonSpec(divideSymbol, TEST_TAG_DIVIDE, divideDescription),
+            PadButtonSpec(multiplySymbol, TEST_TAG_MULTIPLY, multiplyDescription),
+            PadButtonSpec(subtractSymbol, TEST_TAG_SUBTRACT, subtractDescription),
+            PadButtonSpec(addSymbol, TEST_TAG_ADD, addDescription)
+        )
+    }
+}
+
+/** Deletes a character, clearing the formula on a long press, or clears a result or error. */
+@Composable
+private fun DeleteOrClearButton(
+    showsClearButton: Boolean,
+    onEvent: (CalculatorUiEvent) -> Unit,
+    enabled: Boolean,
+    textSize: TextUnit,
+    colors: PadButtonColors,
+    modifier: Modifier = Modifier
+) {
+    val label =
+        if (showsClearButton) {
+            stringResource(R.string.clr)
+        } else {
+            stringResource(R.string.del)
+        }
+    val description =
+        if (showsClearButton) {
+            stringResource(R.string.desc_clr)
+        } else {
+            stringResource(R.string.desc_del)
+        }
+    val keystrokeLatency = LocalKeystrokeLatencyTracker.current
+    CalculatorPadButton(
+        label = label.uppercase(Locale.getDefault()),
+        contentDescription = description,
+        modifier = modifier.testTag(if (showsClearButton) TEST_TAG_CLEAR else TEST_TAG_DELETE),
+        textSize = textSize,
+        colors = colors,
+        enabled = enabled,
+        onClick = remember(showsClearButton, onEvent, keystrokeLatency) {
+            {
+                keystrokeLatency.keystroke {
+                    onEvent(
+                        if (showsClearButton) {
+                            CalculatorUiEvent.Clear
+                        } else {
+                            CalculatorUiEvent.Delete
+                        }
+                    )
+                }
+            }
+        },
+        onLongClick = remember(showsClearButton, onEvent, keystrokeLatency) {
+            {
+                if (!showsClearButton) {
+                    keystrokeLatency.keystroke { onEvent(CalculatorUiEvent.Clear) }
+                }
+            }
+        }
+    )
+}
+
+/** The click handler for the button [spec] describes, kept across recompositions. */
+@Composable
+private fun rememberPadClick(
+    spec: PadButtonSpec,
+    onEvent: (CalculatorUiEvent) -> Unit
+): () -> Unit {
+    val event = spec.event ?: CalculatorUiEvent.Append(spec.label)
+    val keystrokeLatency = LocalKeystrokeLatencyTracker.current
+    return remember(event, onEvent, keystrokeLatency) {
+        { keystrokeLatency.keystroke { onEvent(event) } }
+    }
+}
+
 @Composable
 internal fun AdvancedPad(
     onEvent: (CalculatorUiEvent) -> Unit,
@@ -405,99 +397,22 @@ internal fun AdvancedPad(
     columns: Int,
     modifier: Modifier = Modifier
 ) {
-    val sinSymbol = stringResource(R.string.fun_sin)
-    val cosSymbol = stringResource(R.string.fun_cos)
-    val tanSymbol = stringResource(R.string.fun_tan)
-    val lnSymbol = stringResource(R.string.fun_ln)
-    val logSymbol = stringResource(R.string.fun_log)
-    val factorialSymbol = stringResource(R.string.op_fact)
-    val piSymbol = stringResource(R.string.const_pi)
-    val eSymbol = stringResource(R.string.const_e)
-    val powerSymbol = stringResource(R.string.op_pow)
-    val leftParenthesis = stringResource(R.string.lparen)
-    val rightParenthesis = stringResource(R.string.rparen)
-    val squareRootSymbol = stringResource(R.string.op_sqrt)
-
-    val buttonSpecs = listOf(
-        PadButtonSpec(
-            sinSymbol,
-            TEST_TAG_FUN_SIN,
-            stringResource(R.string.desc_fun_sin),
-            CalculatorUiEvent.Append(sinSymbol, appendLeftParenthesis = true)
-        ),
-        PadButtonSpec(
-            cosSymbol,
-            TEST_TAG_FUN_COS,
-            stringResource(R.string.desc_fun_cos),
-            CalculatorUiEvent.Append(cosSymbol, appendLeftParenthesis = true)
-        ),
-        PadButtonSpec(
-            tanSymbol,
-            TEST_TAG_FUN_TAN,
-            stringResource(R.string.desc_fun_tan),
-            CalculatorUiEvent.Append(tanSymbol, appendLeftParenthesis = true)
-        ),
-        PadButtonSpec(
-            lnSymbol,
-            TEST_TAG_FUN_LN,
-            stringResource(R.string.desc_fun_ln),
-            CalculatorUiEvent.Append(lnSymbol, appendLeftParenthesis = true)
-        ),
-        PadButtonSpec(
-            logSymbol,
-            TEST_TAG_FUN_LOG,
-            stringResource(R.string.desc_fun_log),
-            CalculatorUiEvent.Append(logSymbol, appendLeftParenthesis = true)
-        ),
-        PadButtonSpec(
-            factorialSymbol,
-            TEST_TAG_OP_FACT,
-            stringResource(R.string.desc_op_fact),
-            CalculatorUiEvent.Append(factorialSymbol)
-        ),
-        PadButtonSpec(
-            piSymbol,
-            TEST_TAG_CONST_PI,
-            stringResource(R.string.desc_const_pi),
-            CalculatorUiEvent.Append(piSymbol)
-        ),
-        PadButtonSpec(
-            eSymbol,
-            TEST_TAG_CONST_E,
-            stringResource(R.string.desc_const_e),
-            CalculatorUiEvent.Append(eSymbol)
-        ),
-        PadButtonSpec(
-            powerSymbol,
-            TEST_TAG_OP_POWER,
-            stringResource(R.string.desc_op_pow),
-            CalculatorUiEvent.Append(powerSymbol)
-        ),
-        PadButtonSpec(
-            leftParenthesis,
-            TEST_TAG_LEFT_PAREN,
-            stringResource(R.string.desc_lparen),
-            CalculatorUiEvent.Append(leftParenthesis)
-        ),
-        PadButtonSpec(
-            rightParenthesis,
-            TEST_TAG_RIGHT_PAREN,
-            stringResource(R.string.desc_rparen),
-            CalculatorUiEvent.Append(rightParenthesis)
-        ),
-        PadButtonSpec(
-            squareRootSymbol,
-            TEST_TAG_OP_SQRT,
-            stringResource(R.string.desc_op_sqrt),
-            CalculatorUiEvent.Append(squareRootSymbol)
-        )
+    CountRecompositions("AdvancedPad")
+    val resources = LocalContext.current.resources
+    val configuration = LocalConfiguration.current
+    val buttonSpecs = remember(resources, configuration) { advancedButtonSpecs(resources) }
+    val colors = rememberPadButtonColors(
+        textColorRes = R.color.pad_button_advanced_text_color,
+        rippleColorRes = R.color.pad_button_advanced_ripple_color
     )
 
     val rowCount = (buttonSpecs.size + columns - 1) / columns
-    val rows = List(rowCount) { row ->
-        List(columns) { column ->
-            val index = row * columns + column
-            buttonSpecs.getOrNull(index)
+    val rows = remember(buttonSpecs, columns) {
+        List(rowCount) { row ->
+            List(columns) { column ->
+                val index = row * columns + column
+                buttonSpecs.getOrNull(index)
+            }
         }
     }
 
@@ -531,12 +446,9 @@ internal fun AdvancedPad(
                                 .fillMaxSize()
                                 .testTag(spec.tag),
                             textSize = textSize,
-                            textColorRes = R.color.pad_button_advanced_text_color,
-                            rippleColorRes = R.color.pad_button_advanced_ripple_color,
+                            colors = colors,
                             enabled = enabled,
-                            onClick = {
-                                onEvent(spec.event ?: CalculatorUiEvent.Append(spec.label))
-                            }
+                            onClick = rememberPadClick(spec, onEvent)
                         )
                     }
                 }
@@ -544,3 +456,38 @@ internal fun AdvancedPad(
         }
     }
 }
+
+private fun advancedButtonSpecs(resources: Resources): List<PadButtonSpec> {
+    fun function(symbolRes: Int, tag: String, descriptionRes: Int): PadButtonSpec {
+        val symbol = resources.getString(symbolRes)
+        return PadButtonSpec(
+            symbol,
+            tag,
+            resources.getString(descriptionRes),
+            CalculatorUiEvent.Append(symbol, appendLeftParenthesis = true)
+        )
+    }
+    fun token(symbolRes: Int, tag: String, descriptionRes: Int): PadButtonSpec {
+        val symbol = resources.getString(symbolRes)
+        return PadButtonSpec(
+            symbol,
+            tag,
+            resources.getString(descriptionRes),
+            CalculatorUiEvent.Append(symbol)
+        )
+    }
+    return listOf(
+        function(R.string.fun_sin, TEST_TAG_FUN_SIN, R.string.desc_fun_sin),
+        function(R.string.fun_cos, TEST_TAG_FUN_COS, R.string.desc_fun_cos),
+        function(R.string.fun_tan, TEST_TAG_FUN_TAN, R.string.desc_fun_tan),
+        function(R.string.fun_ln, TEST_TAG_FUN_LN, R.string.desc_fun_ln),
+        function(R.string.fun_log, TEST_TAG_FUN_LOG, R.string.desc_fun_log),
+        token(R.string.op_fact, TEST_TAG_OP_FACT, R.string.desc_op_fact),
+        token(R.string.const_pi, TEST_TAG_CONST_PI, R.string.desc_const_pi),
+        token(R.string.const_e, TEST_TAG_CONST_E, R.string.desc_const_e),
+        token(R.string.op_pow, TEST_TAG_OP_POWER, R.string.desc_op_pow),
+        token(R.string.lparen, TEST_TAG_LEFT_PAREN, R.string.desc_lparen),
+        token(R.string.rparen, TEST_TAG_RIGHT_PAREN, R.string.desc_rparen),
+        token(R.string.op_sqrt, TEST_TAG_OP_SQRT, R.string.desc_op_sqrt)
+    )
+}
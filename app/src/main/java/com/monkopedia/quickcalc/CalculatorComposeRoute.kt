@@ -30,15 +30,21 @@ import androidx.compose.foundation.layout.Box
 import androidx.compose.foundation.layout.Column
 import androidx.compose.foundation.layout.fillMaxSize
 import androidx.compose.runtime.Composable
+import androidx.compose.runtime.CompositionLocalProvider
+import androidx.compose.runtime.DisposableEffect
 import androidx.compose.runtime.LaunchedEffect
+import androidx.compose.runtime.NonRestartableComposable
 import androidx.compose.runtime.SideEffect
+import androidx.compose.runtime.derivedStateOf
 import androidx.compose.runtime.getValue
 import androidx.compose.runtime.mutableStateOf
 import androidx.compose.runtime.remember
+import androidx.compose.runtime.rememberCoroutineScope
 import androidx.compose.runtime.saveable.Saver
 import androidx.compose.runtime.saveable.mapSaver
 import androidx.compose.runtime.saveable.rememberSaveable
 import androidx.compose.runtime.setValue
+import androidx.compose.runtime.staticCompositionLocalOf
 import androidx.compose.ui.Modifier
 import androidx.compose.ui.focus.FocusRequester
 import androidx.compose.ui.focus.focusRequester
@@ -55,6 +61,7 @@ import androidx.compose.ui.platform.LocalConfiguration
 import androidx.compose.ui.platform.LocalContext
 import androidx.compose.ui.res.colorResource
 import androidx.compose.ui.text.AnnotatedString
+import java.io.IOException
 import kotlinx.coroutines.delay
 import kotlinx.coroutines.launch
 
@@ -71,11 +78,17 @@ fun CalculatorComposeRoute(
     padPageOverride: Int? = null,
     onPadPageOverrideConsumed: (() -> Unit)? = null,
     onRequestPadPage: ((Int) -> Unit)? = null,
-    onCalculatorStateChange: ((CalculatorUiState) -> Unit)? = null
+    onCalculatorStateChange: ((CalculatorUiState) -> Unit)? = null,
+    evaluationMode: CalculatorEvaluationMode = CalculatorEvaluationMode.STANDARD,
+    recordSession: Boolean = false
 ) {
     val context = LocalContext.current
-    val reducer = remember {
-        CalculatorUiReducer(context.applicationContext)
+    val reducer = remember(evaluationMode) {
+        CalculatorUiReducer(
+            context.applicationContext,
+            evaluationMode,
+            evaluationTimer = PerformanceDiagnostics.evaluationTimer
+        )
     }
     var uiState by rememberSaveable(
         initialFormula,
@@ -91,21 +104,88 @@ fun CalculatorComposeRoute(
         )
     }
 
-    CalculatorScreen(
-        state = uiState,
-        onEvent = { event ->
-            uiState = reducer.reduce(uiState, event)
-        },
-        initialPadPage = initialPadPage,
-        colorPalette = colorPalette,
-        enableDisplayClipboardGestures = enableDisplayClipboardGestures,
-        showDrawerShortcutButton = showDrawerShortcutButton,
-        padPageOverride = padPageOverride,
-        onPadPageOverrideConsumed = onPadPageOverrideConsumed,
-        onRequestPadPage = onRequestPadPage,
-        onCalculatorStateChange = onCalculatorStateChange,
-        modifier = modifier
-    )
+    // Recording starts from the state the session opened with and is saved when it closes.
+    val sessionRecorder = remember(recordSession, evaluationMode) {
+        if (recordSession) CalculatorSessionRecorder(evaluationMode, uiState) else null
+    }
+    DisposableEffect(sessionRecorder) {
+        onDispose {
+            sessionRecorder?.let { CalculatorSessionTraces.save(context, it) }
+        }
+    }
+
+    val keystrokeLatency = remember { KeystrokeLatencyTracker() }
+
+    // More result digits can take many frames to compute, so they are refined in the background
+    // and shown if the formula is still the same once they are ready.
+    val resultRefiner = remember(evaluationMode) {
+        CalculatorResultRefiner(context.applicationContext, evaluationMode)
+    }
+    val refinementScope = rememberCoroutineScope()
+
+    // One handler for the whole session, so the pad's buttons skip recomposing as state changes.
+    // Keyed like uiState, so that it updates the state that replaces it.
+    val onEvent: (CalculatorUiEvent) -> Unit = remember(
+        reducer,
+        resultRefiner,
+        sessionRecorder,
+        context,
+        initialFormula,
+        evaluateInitialExpression,
+        initialUiState
+    ) {
+        { event ->
+            sessionRecorder?.record(event)
+            if (event == CalculatorUiEvent.RequestMoreResultDigits) {
+                val requested = uiState
+                refinementScope.launch {
+                    resultRefiner.refine(requested)?.let { uiState = it.applyTo(uiState) }
+                }
+            } else {
+                val previous = uiState
+                uiState = reducer.reduce(previous, event)
+                keystrokeLatency.onReduced(previous, uiState)
+                if (event == CalculatorUiEvent.Equals &&
+                    previous.phase == CalculatorUiPhase.INPUT &&
+                    uiState.phase == CalculatorUiPhase.RESULT
+                ) {
+                    CalculationHistory.record(context, previous.formulaText, uiState.resultText)
+                }
+            }
+        }
+    }
+
+    CompositionLocalProvider(LocalKeystrokeLatencyTracker provides keystrokeLatency) {
+        CalculatorScreen(
+            state = uiState,
+            onEvent = onEvent,
+            initialPadPage = initialPadPage,
+            colorPalette = colorPalette,
+            enableDisplayClipboardGestures = enableDisplayClipboardGestures,
+            showDrawerShortcutButton = showDrawerShortcutButton,
+            padPageOverride = padPageOverride,
+            onPadPageOverrideConsumed = onPadPageOverrideConsumed,
+            onRequestPadPage = onRequestPadPage,
+            onCalculatorStateChange = onCalculatorStateChange,
+            enableResultDigitScrolling = evaluationMode == CalculatorEvaluationMode.PRECISE,
+            modifier = modifier.recordKeystrokesDrawn(keystrokeLatency, uiState)
+        )
+    }
+}
+
+/**
+ * Told the name of each screen composable as it recomposes, for tests that check animations do
+ * not recompose the screen every frame, and of work such as [RESULT_TRANSITION_MEASUREMENT] that
+ * should not run per keystroke. Unset outside of tests.
+ */
+internal val LocalRecompositionCounter = staticCompositionLocalOf<((String) -> Unit)?> { null }
+
+/** Reports a composition of the calling composable named [name] to [LocalRecompositionCounter]. */
+@Composable
+@NonRestartableComposable
+internal fun CountRecompositions(name: String) {
+    val counter = LocalRecompositionCounter.current ?: return
+    SideEffect { counter(name) }
 }
 
 @Composable
@@ -120,8 +200,10 @@ fun CalculatorScreen(
     onPadPageOverrideConsumed: (() -> Unit)? = null,
     onRequestPadPage: ((Int) -> Unit)? = null,
     onCalculatorStateChange: ((CalculatorUiState) -> Unit)? = null,
+    enableResultDigitScrolling: Boolean = false,
     modifier: Modifier = Modifier
 ) {
+    CountRecompositions("CalculatorScreen")
     val defaultAccentColor = colorResource(R.color.calculator_accent_color)
     val defaultErrorColor = colorResource(R.color.calculator_error_color)
     val defaultPalette = CalculatorColorPalette(
@@ -142,7 +224,11 @@ fun CalculatorScreen(
         errorColor = palette.errorColor
     )
     val clipboardManager = LocalClipboardManager.current
+    val keystrokeLatency = LocalKeystrokeLatencyTracker.current
     val focusRequester = remember { FocusRequester() }
+    val onFormulaCursorMove = remember(onEvent) {
+        { position: Int -> onEvent(CalculatorUiEvent.MoveCursor(position)) }
+    }
 
     val configuration = LocalConfiguration.current
     val layoutSpec = remember(configuration) {
@@ -168,6 +254,31 @@ fun CalculatorScreen(
             palette.resultColor
         }
 
+    val context = LocalContext.current
+    var recallSuggestions by remember {
+        mutableStateOf(emptyList<CalculationHistorySuggestion>())
+    }
+    LaunchedEffect(state.formula, state.phase) {
+        val formula = state.formula
+        recallSuggestions =
+            if (state.phase == CalculatorUiPhase.INPUT &&
+                !formula.isEmpty() &&
+                formula.cursor == formula.length
+            ) {
+                try {
+                    CalculationHistorySearch.suggestions(
+                        context,
+                        formula.toString(),
+                        RECALL_SUGGESTION_LIMIT
+                    )
+                } catch (_: IOException) {
+                    emptyList()
+                }
+            } else {
+                emptyList()
+            }
+    }
+
     var previousState by remember { mutableStateOf(state) }
     var revealColor by remember { mutableStateOf<Color?>(null) }
     var isDrawerOpen by remember { mutableStateOf(initialPadPage > 0) }
@@ -177,6 +288,9 @@ fun CalculatorScreen(
     val copyRevealProgress = remember { Animatable(0f) }
     val copyRevealAlpha = remember { Animatable(0f) }
     val copyIndicatorAlpha = remember { Animatable(0f) }
+    val showCopiedIndicator by remember {
+        derivedStateOf { copyIndicatorAlpha.value > 0.01f }
+    }
     val copyRevealColor = remember(displayBackground) {
         if (displayBackground.luminance() > 0.5f) {
             Color(0xFFF9A825)
@@ -252,7 +366,8 @@ fun CalculatorScreen(
                     event = event,
                     state = state,
                     onEvent = onEvent,
-                    clipboardManager = clipboardManager
+                    clipboardManager = clipboardManager,
+                    keystrokeLatency = keystrokeLatency
                 )
             }
     ) {
@@ -285,20 +400,30 @@ fun CalculatorScreen(
                 } else {
                     null
                 },
-                showCopiedIndicator = copyIndicatorAlpha.value > 0.01f,
+                showCopiedIndicator = showCopiedIndicator,
                 clearRevealColor = revealColor,
-                clearRevealProgress = revealProgress.value,
-                clearRevealAlpha = revealAlpha.value,
+                clearRevealProgress = { revealProgress.value },
+                clearRevealAlpha = { revealAlpha.value },
                 copyRevealColor = copyRevealColor,
-                copyRevealProgress = copyRevealProgress.value,
-                copyRevealAlpha = copyRevealAlpha.value,
-                copyIndicatorAlpha = copyIndicatorAlpha.value
+                copyRevealProgress = { copyRevealProgress.value },
+                copyRevealAlpha = { copyRevealAlpha.value },
+                copyIndicatorAlpha = { copyIndicatorAlpha.value },
+                onResultScrolledToEnd = if (enableResultDigitScrolling) {
+                    { onEvent(CalculatorUiEvent.RequestMoreResultDigits) }
+                } else {
+                    null
+                },
+                onFormulaCursorMove = onFormulaCursorMove,
+                recallSuggestions = recallSuggestions,
+                onRecallSuggestionClick = { suggestion ->
+                    onEvent(CalculatorUiEvent.Recall(suggestion.recalledText))
+                }
             )
 
             when (layoutSpec.mode) {
                 ComposeLayoutMode.PHONE_PORTRAIT_PAGER -> {
                     PhonePortraitPagerPad(
-                        state = state,
+                        showsClearButton = state.showsClearButton,
                         onEvent = onEvent,
                         initialPadPage = initialPadPage,
                         padPageOverride = padPageOverride,
@@ -313,7 +438,7 @@ fun CalculatorScreen(
 
                 ComposeLayoutMode.LANDSCAPE_SPLIT -> {
                     LandscapeSplitPad(
-                        state = state,
+                        showsClearButton = state.showsClearButton,
                         onEvent = onEvent,
                         style = layoutSpec,
                         numericPadBackground = numericPadBackground,
@@ -324,7 +449,7 @@ fun CalculatorScreen(
 
                 ComposeLayoutMode.TABLET_PORTRAIT_SPLIT -> {
                     TabletPortraitSplitPad(
-                        state = state,
+                        showsClearButton = state.showsClearButton,
                         onEvent = onEvent,
                         style = layoutSpec,
                         numericPadBackground = numericPadBackground,
@@ -341,13 +466,23 @@ private fun handleHardwareKeyEvent(
     event: KeyEvent,
     state: CalculatorUiState,
     onEvent: (CalculatorUiEvent) -> Unit,
-    clipboardManager: ClipboardManager
+    clipboardManager: ClipboardManager,
+    keystrokeLatency: KeystrokeLatencyTracker
 ): Boolean {
     if (event.type != KeyEventType.KeyUp) {
         return false
     }
-    val nativeEvent = event.nativeKeyEvent
+    return keystrokeLatency.keystroke {
+        dispatchHardwareKey(event.nativeKeyEvent, state, onEvent, clipboardManager)
+    }
+}
 
+private fun dispatchHardwareKey(
+    nativeEvent: AndroidKeyEvent,
+    state: CalculatorUiState,
+    onEvent: (CalculatorUiEvent) -> Unit,
+    clipboardManager: ClipboardManager
+): Boolean {
     if (nativeEvent.isCtrlPressed) {
         when (nativeEvent.keyCode) {
             AndroidKeyEvent.KEYCODE_V,
@@ -361,6 +496,17 @@ private fun handleHardwareKeyEvent(
                 copyExpressionToClipboard(state, clipboardManager)
                 return true
             }
+
+            AndroidKeyEvent.KEYCODE_Z -> {
+                val redo = nativeEvent.isShiftPressed
+                onEvent(if (redo) CalculatorUiEvent.Redo else CalculatorUiEvent.Undo)
+                return true
+            }
+
+            AndroidKeyEvent.KEYCODE_Y -> {
+                onEvent(CalculatorUiEvent.Redo)
+                return true
+            }
         }
     }
 
@@ -449,19 +595,27 @@ private fun calculatorUiStateSaver(): Saver<CalculatorUiState, Any> = mapSaver(
     save = { state ->
         mapOf(
             KEY_FORMULA to state.formulaText,
+            KEY_CURSOR to state.formula.cursor,
             KEY_RESULT to state.resultText,
             KEY_PHASE to state.phase.name
         )
     },
     restore = { saved ->
         CalculatorUiState(
-            formulaText = saved[KEY_FORMULA] as String,
+            formula = CalculatorFormula.of(
+                saved[KEY_FORMULA] as String,
+                cursor = saved[KEY_CURSOR] as? Int ?: Int.MAX_VALUE
+            ),
             resultText = saved[KEY_RESULT] as String,
             phase = CalculatorUiPhase.valueOf(saved[KEY_PHASE] as String)
         )
     }
 )
 
+/** Recorded calculations offered while typing a formula they complete. */
+private const val RECALL_SUGGESTION_LIMIT = 3
+
 private const val KEY_FORMULA = "formula"
+private const val KEY_CURSOR = "cursor"
 private const val KEY_RESULT = "result"
 private const val KEY_PHASE = "phase"
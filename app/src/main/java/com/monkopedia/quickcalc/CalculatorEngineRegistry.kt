@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.content.ComponentCallbacks
+import android.content.Context
+import android.content.res.Configuration
+import java.util.Locale
+
+/**
+ * Process-wide cache of tokenizers and evaluators for the application's configuration.
+ *
+ * Building a [CalculatorExpressionTokenizer] reads a dozen resources and a
+ * [java.text.DecimalFormatSymbols], and every [CalculatorExpressionEvaluator] builds an arity
+ * symbol table. Screens are recreated often, e.g. each time the tile dialog opens, so both are
+ * cached per [calculatorDigitLocale] and reused until the configuration
+ * changes. Once the current locale is known, lookups touch no resources at all.
+ *
+ * Evaluators keep per-expression caches and are not thread-safe; they are meant to be used from
+ * the main thread, like the reducers that own them.
+ */
+internal object CalculatorEngineRegistry {
+    private var application: Context? = null
+    private var currentLocale: Locale? = null
+    private val tokenizers = HashMap<Locale, CalculatorExpressionTokenizer>()
+    private val evaluators =
+        HashMap<Pair<Locale, CalculatorEvaluationMode>, CalculatorExpressionEvaluator>()
+
+    private val configurationCallbacks = object : ComponentCallbacks {
+        override fun onConfigurationChanged(newConfig: Configuration) {
+            synchronized(this@CalculatorEngineRegistry) {
+                currentLocale = null
+            }
+        }
+
+        override fun onLowMemory() {
+            synchronized(this@CalculatorEngineRegistry) {
+                tokenizers.clear()
+                evaluators.clear()
+            }
+        }
+    }
+
+    @Synchronized
+    fun tokenizer(context: Context): CalculatorExpressionTokenizer {
+        val application = attach(context)
+        return tokenizer(application, locale(application))
+    }
+
+    /** Returns an evaluator for [mode] that has already evaluated an expression once. */
+    @Synchronized
+    fun evaluator(
+        context: Context,
+        mode: CalculatorEvaluationMode
+    ): CalculatorExpressionEvaluator {
+        val application = attach(context)
+        val locale = locale(application)
+        return evaluators.getOrPut(locale to mode) {
+            CalculatorExpressionEvaluator(tokenizer(application, locale), mode).also {
+                it.evaluate(WARM_UP_EXPRESSION)
+            }
+        }
+    }
+
+    /** Drops every cached instance, e.g. between tests that run with different applications. */
+    @Synchronized
+    fun clear() {
+        application?.unregisterComponentCallbacks(configurationCallbacks)
+        application = null
+        currentLocale = null
+        tokenizers.clear()
+        evaluators.clear()
+    }
+
+    private fun attach(context: Context): Context {
+        val application = context.applicationContext ?: context
+        if (application !== this.application) {
+            clear()
+            application.registerComponentCallbacks(configurationCallbacks)
+            this.application = application
+        }
+        return application
+    }
+
+    private fun tokenizer(application: Context, locale: Locale): CalculatorExpressionTokenizer =
+        tokenizers.getOrPut(locale) { CalculatorExpressionTokenizer(application) }
+
+    private fun locale(application: Context): Locale = currentLocale
+        ?: calculatorDigitLocale(application).also { currentLocale = it }
+
+    /** Exercises the tokenizer, parser and arity so their first real use is already warm. */
+    private const val WARM_UP_EXPRESSION = "1+2*3"
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.content.Context
+import android.content.res.Configuration
+import android.os.Build
+import androidx.annotation.StringRes
+import java.text.DecimalFormatSymbols
+import java.util.Locale
+
+/*
+ * Binds the engine of the core module, which knows nothing of Android, to the app's resources:
+ * the symbols it reads and writes come from the configured locale, and its errors are shown
+ * with the app's strings.
+ */
+
+/** A tokenizer for the symbols of [context]'s locale, see [calculatorSymbols]. */
+fun CalculatorExpressionTokenizer(context: Context): CalculatorExpressionTokenizer =
+    CalculatorExpressionTokenizer(calculatorSymbols(context))
+
+/** The digits and separator of [calculatorDigitLocale] and the operator spellings shown. */
+fun calculatorSymbols(context: Context): CalculatorSymbols {
+    val symbols = DecimalFormatSymbols(calculatorDigitLocale(context))
+    return CalculatorSymbols(
+        zeroDigit = symbols.zeroDigit,
+        decimalSeparator = symbols.decimalSeparator,
+        divide = context.getString(R.string.op_div),
+        multiply = context.getString(R.string.op_mul),
+        subtract = context.getString(R.string.op_sub),
+        cos = context.getString(R.string.fun_cos),
+        ln = context.getString(R.string.fun_ln),
+        log = context.getString(R.string.fun_log),
+        sin = context.getString(R.string.fun_sin),
+        tan = context.getString(R.string.fun_tan),
+        infinity = context.getString(R.string.inf)
+    )
+}
+
+/**
+ * The locale whose symbols the tokenizer uses for [context]: the configured locale, forced to
+ * Latin digits unless `use_localized_digits` is set. Tokenizers built for contexts with equal
+ * digit locales are interchangeable.
+ */
+fun calculatorDigitLocale(context: Context): Locale {
+    val locale = currentLocale(context.resources.configuration)
+    if (context.resources.getBoolean(R.bool.use_localized_digits)) {
+        return locale
+    }
+    return Locale.Builder()
+        .setLocale(locale)
+        .setUnicodeLocaleKeyword("nu", "latn")
+        .build()
+}
+
+private fun currentLocale(configuration: Configuration): Locale =
+    if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+        val locales = configuration.locales
+        if (!locales.isEmpty) locales[0] else Locale.getDefault()
+    } else {
+        @Suppress("DEPRECATION")
+        configuration.locale
+    }
+
+/** The message shown for this error. */
+@get:StringRes
+val CalculatorError.stringResourceId: Int
+    get() = when (this) {
+        CalculatorError.SYNTAX -> R.string.error_syntax
+        CalculatorError.NAN -> R.string.error_nan
+        CalculatorError.TOO_COMPLEX -> R.string.error_too_complex
+    }
+
+@get:StringRes
+val EvaluationResult.Error.errorResourceId: Int
+    get() = error.stringResourceId
+
+/**
+ * A reducer evaluating in [evaluationMode] with the application's cached engine, showing errors
+ * with the app's strings.
+ */
+fun CalculatorUiReducer(
+    context: Context,
+    evaluationMode: CalculatorEvaluationMode = CalculatorEvaluationMode.STANDARD,
+    maxHistoryBytes: Long = CalculatorUiReducer.DEFAULT_MAX_HISTORY_BYTES,
+    evaluationTimer: CalculatorEvaluationTimer? = null
+): CalculatorUiReducer {
+    val application = context.applicationContext ?: context
+    return CalculatorUiReducer(
+        evaluator = CalculatorEngineRegistry.evaluator(context, evaluationMode),
+        tokenizer = CalculatorEngineRegistry.tokenizer(context),
+        errorText = { error -> application.getString(error.stringResourceId) },
+        maxHistoryBytes = maxHistoryBytes,
+        evaluationTimer = evaluationTimer
+    )
+}
+
+/**
+ * A refiner extending previews in [evaluationMode] with an evaluator of its own, since the cached
+ * engines belong to the main thread.
+ */
+fun CalculatorResultRefiner(
+    context: Context,
+    evaluationMode: CalculatorEvaluationMode
+): CalculatorResultRefiner {
+    val tokenizer = CalculatorEngineRegistry.tokenizer(context)
+    return CalculatorResultRefiner(
+        createEvaluator = { CalculatorExpressionEvaluator(tokenizer, evaluationMode) }
+    )
+}
+
+fun interface EvaluateCallback {
+    fun onEvaluate(expr: String, result: String?, errorResourceId: Int)
+}
+
+fun CalculatorExpressionEvaluator.evaluate(expression: CharSequence, callback: EvaluateCallback) {
+    evaluate(expression.toString(), callback)
+}
+
+fun CalculatorExpressionEvaluator.evaluate(expression: String, callback: EvaluateCallback) {
+    when (val result = evaluate(expression)) {
+        is EvaluationResult.Empty ->
+            callback.onEvaluate(result.normalizedExpression, null, INVALID_RES_ID)
+        is EvaluationResult.Success ->
+            callback.onEvaluate(result.normalizedExpression, result.result, INVALID_RES_ID)
+        is EvaluationResult.Error ->
+            callback.onEvaluate(result.normalizedExpression, null, result.errorResourceId)
+        is EvaluationResult.TooComplex ->
+            callback.onEvaluate(
+                result.normalizedExpression,
+                null,
+                CalculatorError.TOO_COMPLEX.stringResourceId
+            )
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.content.Context
+import android.util.Log
+import java.io.File
+import java.io.FileOutputStream
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.launch
+
+/**
+ * The sessions recorded while [TileSettings.recordSessions] is on, kept in the app's files
+ * directory for [CalculatorSessionReplay] to replay, e.g. after pulling them off a device with
+ * `adb shell run-as com.monkopedia.quickcalc cat files/session_traces/sessions.trace`.
+ *
+ * A session is written once it ends, in one append. Once the trace outgrows [MAX_TRACE_BYTES] it
+ * replaces the previous one, so at most twice that is kept.
+ */
+internal object CalculatorSessionTraces {
+    private const val TAG = "CalculatorSessionTraces"
+    private const val DIRECTORY_NAME = "session_traces"
+    private const val TRACE_FILE_NAME = "sessions.trace"
+    private const val PREVIOUS_TRACE_FILE_NAME = "sessions.previous.trace"
+
+    /** Some hundred thousand keystrokes. */
+    private const val MAX_TRACE_BYTES = 1L * 1024 * 1024
+
+    /** Writes sessions one at a time, in the order they ended, off the main thread. */
+    private val writeScope = CoroutineScope(SupervisorJob() + Dispatchers.IO.limitedParallelism(1))
+
+    /** Appends the session [recorder] recorded to the trace without waiting for the write. */
+    fun save(context: Context, recorder: CalculatorSessionRecorder) {
+        val directory = directory(context)
+        val bytes = recorder.drain()
+        writeScope.launch {
+            runCatching {
+                directory.mkdirs()
+                val trace = File(directory, TRACE_FILE_NAME)
+                if (trace.length() + bytes.size > MAX_TRACE_BYTES) {
+                    trace.renameTo(File(directory, PREVIOUS_TRACE_FILE_NAME))
+                }
+                FileOutputStream(trace, true).use { it.write(bytes) }
+            }.onFailure { throwable ->
+                Log.w(TAG, "Unable to record calculator session", throwable)
+            }
+        }
+    }
+
+    /** The recorded sessions, oldest first. Does file I/O on the calling thread. */
+    fun read(context: Context): List<CalculatorSession> {
+        val directory = directory(context)
+        return listOf(PREVIOUS_TRACE_FILE_NAME, TRACE_FILE_NAME)
+            .map { File(directory, it) }
+            .filter { it.isFile }
+            .flatMap { CalculatorSessionTrace.read(it.readBytes()) }
+    }
+
+    private fun directory(context: Context): File =
+        File((context.applicationContext ?: context).filesDir, DIRECTORY_NAME)
+}
@@ -45,11 +45,14 @@ import androidx.compose.foundation.layout.width
 import androidx.compose.foundation.shape.RoundedCornerShape
 import androidx.compose.material3.Surface
 import androidx.compose.runtime.Composable
+import androidx.compose.runtime.LaunchedEffect
+import androidx.compose.runtime.Stable
 import androidx.compose.runtime.collectAsState
 import androidx.compose.runtime.getValue
 import androidx.compose.runtime.mutableFloatStateOf
 import androidx.compose.runtime.mutableStateOf
 import androidx.compose.runtime.remember
+import androidx.compose.runtime.rememberUpdatedState
 import androidx.compose.runtime.setValue
 import androidx.compose.ui.Alignment
 import androidx.compose.ui.Modifier
@@ -111,6 +114,9 @@ class CalculatorTileService : TileService() {
     private var cachedSettings: TileSettings = TileSettings()
     private var lastPriorityRefreshElapsedRealtimeMs: Long = 0L
     private var inactivityCloseJob: Job? = null
+    private var dialogOpenStartNanos = 0L
+    private var dialogOpenTraceCookie = 0
+    private var dialogVisibleTraceCookie = 0
 
     override fun onCreate() {
         super.onCreate()
@@ -122,7 +128,8 @@ class CalculatorTileService : TileService() {
             settingsRepository.settingsFlow.collect { settings ->
                 val backgroundChanged =
                     cachedSettings.dialogBackgroundMode != settings.dialogBackgroundMode ||
-                        cachedSettings.themeMode != settings.themeMode
+                        cachedSettings.themeMode != settings.themeMode ||
+                        cachedSettings.dialogBlurRadiusCapPx != settings.dialogBlurRadiusCapPx
                 val timeoutChanged =
                     cachedSettings.dialogInactivityTimeoutSeconds !=
                         settings.dialogInactivityTimeoutSeconds
@@ -160,14 +167,22 @@ class CalculatorTileService : TileService() {
             trace("onClick_ignored_dialog_showing")
             return
         }
-        runCatching {
-            showCalculatorDialog()
-            refreshPriorityShortService(force = true)
-            trace("onClick_showDialog_requested")
-        }.onFailure { throwable ->
-            Log.w(TAG, "Unable to show Quick Settings calculator dialog", throwable)
-            CalculatorTilePriorityService.stop(this)
-            trace("onClick_failure")
+        CalculatorTrace.section(CalculatorTrace.TILE_CLICK) {
+            // A no-op once scheduled, which start-up does unless the tile has its own process.
+            CalculatorWarmUp.schedule(this)
+            runCatching {
+                dialogOpenStartNanos = PerformanceDiagnostics.start()
+                dialogOpenTraceCookie = CalculatorTrace.beginAsync(CalculatorTrace.TILE_OPEN)
+                CalculatorTrace.section(CalculatorTrace.SHOW_DIALOG) { showCalculatorDialog() }
+                refreshPriorityShortService(force = true)
+                trace("onClick_showDialog_requested")
+            }.onFailure { throwable ->
+                Log.w(TAG, "Unable to show Quick Settings calculator dialog", throwable)
+                CalculatorTrace.endAsync(CalculatorTrace.TILE_OPEN, dialogOpenTraceCookie)
+                dialogOpenTraceCookie = 0
+                CalculatorTilePriorityService.stop(this)
+                trace("onClick_failure")
+            }
         }
     }
 
@@ -199,10 +214,8 @@ class CalculatorTileService : TileService() {
                         }
                     TileCalculatorDialogLayout(
                         settings = settings,
-                        onDynamicTransformChange = { scale, xFraction, yFraction ->
-                            latestDynamicTransform = DynamicTransform(scale, xFraction, yFraction)
-                        },
-                        onDynamicTransformSettled = {
+                        onDynamicTransformSettled = { transform ->
+                            latestDynamicTransform = transform
                             autosaveManager.schedule()
                             recordUserInteraction()
                         },
@@ -225,7 +238,9 @@ class CalculatorTileService : TileService() {
                                 latestCalculatorState = state
                                 autosaveManager.schedule()
                                 recordUserInteraction()
-                            }
+                            },
+                            evaluationMode = settings.evaluationMode,
+                            recordSession = settings.recordSessions
                         )
                     }
                 }
@@ -240,8 +255,14 @@ class CalculatorTileService : TileService() {
                     ViewGroup.LayoutParams.MATCH_PARENT
                 )
             )
-            setOnShowListener { onDialogShown(this) }
-            setOnDismissListener { onDialogDismissed(this) }
+            setOnShowListener {
+                CalculatorTrace.section(CalculatorTrace.DIALOG_SHOWN) { onDialogShown(this) }
+            }
+            setOnDismissListener {
+                CalculatorTrace.section(CalculatorTrace.DIALOG_DISMISSED) {
+                    onDialogDismissed(this)
+                }
+            }
         }
         windowEffects.applyBackgroundEffect(dialog, cachedSettings, force = true)
         activeDialog = dialog
@@ -262,6 +283,11 @@ class CalculatorTileService : TileService() {
 
     private fun onDialogShown(dialog: ComponentDialog) {
         trace("dialog_onShow")
+        PerformanceDiagnostics.recordSince(DiagnosticMetric.TILE_OPEN, dialogOpenStartNanos)
+        dialogOpenStartNanos = 0L
+        CalculatorTrace.endAsync(CalculatorTrace.TILE_OPEN, dialogOpenTraceCookie)
+        dialogOpenTraceCookie = 0
+        dialogVisibleTraceCookie = CalculatorTrace.beginAsync(CalculatorTrace.DIALOG_VISIBLE)
         dialog.window?.setLayout(
             ViewGroup.LayoutParams.MATCH_PARENT,
             ViewGroup.LayoutParams.MATCH_PARENT
@@ -282,12 +308,33 @@ class CalculatorTileService : TileService() {
             }
         }, 90L)
         windowEffects.startStabilizer(dialog, cachedSettings)
+        windowEffects.startBlurGovernor(dialog, cachedSettings) { capPx ->
+            serviceScope.launch(Dispatchers.IO) {
+                runCatching {
+                    settingsRepository.setDialogBlurRadiusCapPx(capPx)
+                }.onFailure { throwable ->
+                    Log.w(TAG, "Failed to persist dialog blur radius cap", throwable)
+                }
+            }
+        }
         scheduleInactivityAutoClose()
     }
 
     private fun onDialogDismissed(dialog: ComponentDialog) {
         trace("dialog_onDismiss")
+        CalculatorTrace.endAsync(CalculatorTrace.DIALOG_VISIBLE, dialogVisibleTraceCookie)
+        dialogVisibleTraceCookie = 0
         windowEffects.stopStabilizer(dialog)
+        val blurSessionClean = windowEffects.stopBlurGovernor(dialog)
+        if (blurSessionClean && DialogBlurCap(cachedSettings.dialogBlurRadiusCapPx).isCapped) {
+            serviceScope.launch(Dispatchers.IO) {
+                runCatching {
+                    settingsRepository.recordCleanDialogBlurSession()
+                }.onFailure { throwable ->
+                    Log.w(TAG, "Failed to persist dialog blur session", throwable)
+                }
+            }
+        }
         windowEffects.removeFocusBlurHook(dialog)
         if (activeDialog === dialog) {
             activeDialog = null
@@ -369,28 +416,74 @@ internal fun applyDynamicGestureDelta(
     baseFraction: Float,
     containerWidthPx: Float,
     containerHeightPx: Float
-): DynamicTransform {
-    val newScale = (current.scale * zoomDelta).coerceIn(MIN_DIALOG_SCALE, MAX_DIALOG_SCALE)
-    val panXFraction = if (containerWidthPx == 0f) 0f else panXPx / containerWidthPx
-    val panYFraction = if (containerHeightPx == 0f) 0f else panYPx / containerHeightPx
-    val newMaxX = dynamicMaxOffsetFraction(baseFraction, newScale)
-    val newMaxY = dynamicMaxOffsetFraction(baseFraction, newScale)
-    return DynamicTransform(
-        scale = newScale,
-        offsetXFraction = (current.offsetXFraction + panXFraction).coerceIn(-newMaxX, newMaxX),
-        offsetYFraction = (current.offsetYFraction + panYFraction).coerceIn(-newMaxY, newMaxY)
+): DynamicTransform = DynamicTransformState(current).run {
+    applyGestureDelta(
+        zoomDelta,
+        panXPx,
+        panYPx,
+        baseFraction,
+        containerWidthPx,
+        containerHeightPx
     )
+    toTransform()
 }
 
+/**
+ * The dynamic dialog's scale and offsets while it is dragged and pinched. Gestures update the
+ * fields in place, and only the dialog's graphics layer reads them, so moving the dialog redraws
+ * it without recomposing or allocating per pointer event.
+ */
+@Stable
+internal class DynamicTransformState(initial: DynamicTransform) {
+    var scale by mutableFloatStateOf(initial.scale)
+        private set
+    var offsetXFraction by mutableFloatStateOf(initial.offsetXFraction)
+        private set
+    var offsetYFraction by mutableFloatStateOf(initial.offsetYFraction)
+        private set
+
+    fun applyGestureDelta(
+        zoomDelta: Float,
+        panXPx: Float,
+        panYPx: Float,
+        baseFraction: Float,
+        containerWidthPx: Float,
+        containerHeightPx: Float
+    ) {
+        val newScale = (scale * zoomDelta).coerceIn(MIN_DIALOG_SCALE, MAX_DIALOG_SCALE)
+        val panXFraction = if (containerWidthPx == 0f) 0f else panXPx / containerWidthPx
+        val panYFraction = if (containerHeightPx == 0f) 0f else panYPx / containerHeightPx
+        val newMax = dynamicMaxOffsetFraction(baseFraction, newScale)
+        scale = newScale
+        offsetXFraction = (offsetXFraction + panXFraction).coerceIn(-newMax, newMax)
+        offsetYFraction = (offsetYFraction + panYFraction).coerceIn(-newMax, newMax)
+    }
+
+    /** Brings the scale and offsets back within bounds for a panel of [baseFraction]. */
+    fun coerceIn(baseFraction: Float) {
+        scale = scale.coerceIn(MIN_DIALOG_SCALE, MAX_DIALOG_SCALE)
+        val max = dynamicMaxOffsetFraction(baseFraction, scale)
+        offsetXFraction = offsetXFraction.coerceIn(-max, max)
+        offsetYFraction = offsetYFraction.coerceIn(-max, max)
+    }
+
+    fun toTransform(): DynamicTransform =
+        DynamicTransform(scale, offsetXFraction, offsetYFraction)
+}
+
+/**
+ * The tile's calculator dialog, sized by [settings]. In dynamic size mode it can be dragged and
+ * pinched, and [onDynamicTransformSettled] reports where it ended up once each gesture lifts.
+ */
 @Composable
-private fun TileCalculatorDialogLayout(
+internal fun TileCalculatorDialogLayout(
     settings: TileSettings,
-    onDynamicTransformChange: (scale: Float, xFraction: Float, yFraction: Float) -> Unit,
-    onDynamicTransformSettled: (() -> Unit)?,
+    onDynamicTransformSettled: ((DynamicTransform) -> Unit)?,
     onAnyUserInteraction: (() -> Unit)?,
     onRequestDismiss: (() -> Unit)?,
     content: @Composable (Modifier) -> Unit
 ) {
+    CountRecompositions("TileCalculatorDialogLayout")
     BoxWithConstraints(modifier = Modifier.fillMaxSize()) {
         val density = LocalDensity.current
         val containerWidthPx = with(density) { maxWidth.toPx() }
@@ -403,38 +496,22 @@ private fun TileCalculatorDialogLayout(
         val panelHeight = maxHeight * baseFraction
 
         if (settings.sizeMode == TileSizeMode.DYNAMIC) {
-            var scale by remember(settings.dynamicScale) {
-                mutableFloatStateOf(
-                    settings.dynamicScale.coerceIn(MIN_DIALOG_SCALE, MAX_DIALOG_SCALE)
-                )
-            }
-            var offsetXFraction by remember(settings.dynamicOffsetXFraction) {
-                mutableFloatStateOf(settings.dynamicOffsetXFraction)
-            }
-            var offsetYFraction by remember(settings.dynamicOffsetYFraction) {
-                mutableFloatStateOf(settings.dynamicOffsetYFraction)
-            }
-
-            val maxOffsetXFraction = dynamicMaxOffsetFraction(baseFraction, scale)
-            val maxOffsetYFraction = dynamicMaxOffsetFraction(baseFraction, scale)
-            offsetXFraction = offsetXFraction.coerceIn(-maxOffsetXFraction, maxOffsetXFraction)
-            offsetYFraction = offsetYFraction.coerceIn(-maxOffsetYFraction, maxOffsetYFraction)
-            val applyPanAndScale = { zoomDelta: Float, panXPx: Float, panYPx: Float ->
-                val updated =
-                    applyDynamicGestureDelta(
-                        current = DynamicTransform(scale, offsetXFraction, offsetYFraction),
-                        zoomDelta = zoomDelta,
-                        panXPx = panXPx,
-                        panYPx = panYPx,
-                        baseFraction = baseFraction,
-                        containerWidthPx = containerWidthPx,
-                        containerHeightPx = containerHeightPx
+            // The persisted transform only seeds the state: it lags the gestures until the
+            // autosave lands, so resetting to it on a configuration change would undo the last
+            // drag.
+            val transform = remember {
+                DynamicTransformState(
+                    DynamicTransform(
+                        scale = settings.dynamicScale,
+                        offsetXFraction = settings.dynamicOffsetXFraction,
+                        offsetYFraction = settings.dynamicOffsetYFraction
                     )
-                scale = updated.scale
-                offsetXFraction = updated.offsetXFraction
-                offsetYFraction = updated.offsetYFraction
-                onDynamicTransformChange(scale, offsetXFraction, offsetYFraction)
+                ).apply { coerceIn(baseFraction) }
+            }
+            LaunchedEffect(transform, baseFraction) {
+                transform.coerceIn(baseFraction)
             }
+            val currentOnTransformSettled by rememberUpdatedState(onDynamicTransformSettled)
             val outsideDismissModifier =
                 if (onRequestDismiss != null) {
                     Modifier.clickable(
@@ -480,7 +557,12 @@ private fun TileCalculatorDialogLayout(
                     modifier = Modifier
                         .width(panelWidth)
                         .height(panelHeight)
-                        .pointerInput(baseFraction, containerWidthPx, containerHeightPx) {
+                        .pointerInput(
+                            transform,
+                            baseFraction,
+                            containerWidthPx,
+                            containerHeightPx
+                        ) {
                             awaitEachGesture {
                                 var didTransform = false
                                 while (true) {
@@ -502,21 +584,28 @@ private fun TileCalculatorDialogLayout(
                                             1f
                                         }
                                     if (pan.x != 0f || pan.y != 0f || zoom != 1f) {
-                                        applyPanAndScale(zoom, pan.x, pan.y)
+                                        transform.applyGestureDelta(
+                                            zoomDelta = zoom,
+                                            panXPx = pan.x,
+                                            panYPx = pan.y,
+                                            baseFraction = baseFraction,
+                                            containerWidthPx = containerWidthPx,
+                                            containerHeightPx = containerHeightPx
+                                        )
                                         didTransform = true
                                         activeChanges.forEach { it.consume() }
                                     }
                                 }
                                 if (didTransform) {
-                                    onDynamicTransformSettled?.invoke()
+                                    currentOnTransformSettled?.invoke(transform.toTransform())
                                 }
                             }
                         }
                         .graphicsLayer {
-                            scaleX = scale
-                            scaleY = scale
-                            translationX = containerWidthPx * offsetXFraction
-                            translationY = containerHeightPx * offsetYFraction
+                            scaleX = transform.scale
+                            scaleY = transform.scale
+                            translationX = containerWidthPx * transform.offsetXFraction
+                            translationY = containerHeightPx * transform.offsetYFraction
                         }
                         .then(consumePanelTapModifier)
                 ) {
@@ -0,0 +1,111 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.content.Context
+import android.os.Looper
+import android.os.PowerManager
+import android.os.Process
+import android.os.SystemClock
+import android.util.Log
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+
+/**
+ * Loads and exercises the evaluation engines off the main thread at process start.
+ *
+ * The first arity `Symbols` and `eval` load and verify dozens of classes, which would otherwise
+ * happen on the thread handling the first keystroke. Once the main thread first goes idle, a
+ * low-priority thread runs [CORPUS] through an evaluator for every [CalculatorEvaluationMode]
+ * so that class loading, verification and the precise constants are done before the user types.
+ * The warm-up uses its own evaluators and never touches the main thread's instances.
+ */
+internal object CalculatorWarmUp {
+    private const val TAG = "CalculatorWarmUp"
+    private const val THREAD_NAME = "calculator-warm-up"
+
+    /** Expressions covering every operator, function and result format of the engines. */
+    private val CORPUS = listOf(
+        "1+2",
+        "12.5*3-4/7",
+        "2^10",
+        "(1+2)(3+4)",
+        "√2",
+        "sin(π/6)+cos(0)+tan(1)",
+        "ln(e)+log(100)",
+        "5!",
+        "50%",
+        "1/3",
+        "1E10*3",
+        "-1/0",
+        "2^0.5"
+    )
+
+    private val mutableDurationMillis = MutableStateFlow<Long?>(null)
+
+    /** How long the last warm-up took, or null until one has completed. */
+    val durationMillis: StateFlow<Long?> = mutableDurationMillis.asStateFlow()
+
+    @Volatile
+    private var scheduled = false
+
+    /**
+     * Starts the warm-up once the main thread is idle, unless battery saver is on. Returns whether
+     * a warm-up was scheduled.
+     */
+    fun schedule(context: Context): Boolean {
+        val application = context.applicationContext ?: context
+        val powerManager = application.getSystemService(PowerManager::class.java)
+        if (powerManager?.isPowerSaveMode == true) {
+            Log.i(TAG, "Skipping warm-up in battery saver")
+            return false
+        }
+        if (scheduled) {
+            return false
+        }
+        scheduled = true
+        Looper.getMainLooper().queue.addIdleHandler {
+            Thread({
+                Process.setThreadPriority(Process.THREAD_PRIORITY_LOWEST)
+                warmUp(application)
+            }, THREAD_NAME).apply {
+                isDaemon = true
+                start()
+            }
+            false
+        }
+        return true
+    }
+
+    /** Runs the corpus on the calling thread and publishes the elapsed time. */
+    fun warmUp(context: Context): Long {
+        val startNanos = SystemClock.elapsedRealtimeNanos()
+        val tokenizer = CalculatorExpressionTokenizer(context)
+        for (mode in CalculatorEvaluationMode.entries) {
+            val evaluator = CalculatorExpressionEvaluator(tokenizer, mode)
+            for (expression in CORPUS) {
+                evaluator.evaluate(tokenizer.getLocalizedExpression(expression))
+            }
+            evaluator.evaluateWithMoreDigits(CORPUS.last())
+        }
+        val elapsedMillis = (SystemClock.elapsedRealtimeNanos() - startNanos) / 1_000_000
+        mutableDurationMillis.value = elapsedMillis
+        Log.i(TAG, "Warm-up finished in $elapsedMillis ms")
+        return elapsedMillis
+    }
+}
@@ -20,8 +20,12 @@ import android.content.Context
 import android.content.res.Configuration
 import android.graphics.drawable.ColorDrawable
 import android.os.Build
+import android.os.Handler
+import android.os.HandlerThread
 import android.util.Log
+import android.view.FrameMetrics
 import android.view.ViewTreeObserver
+import android.view.Window
 import android.view.WindowManager
 import androidx.activity.ComponentDialog
 import androidx.annotation.RequiresApi
@@ -39,19 +43,40 @@ internal class DialogWindowEffects(private val context: Context) {
     private var dialogWindowStabilizer: Runnable? = null
     private var dialogWindowFocusChangeListener:
         ViewTreeObserver.OnWindowFocusChangeListener? = null
+    private var frameMetricsListener: Window.OnFrameMetricsAvailableListener? = null
+    private var frameMetricsThread: HandlerThread? = null
+    private var blurGovernor: BlurQualityGovernor? = null
+
+    /** The blur cap the governor lowered to during this dialog, on top of the saved one. */
+    private var sessionBlurRadiusCapPx = UNCAPPED_DIALOG_BLUR_RADIUS_PX
+
+    /** The blur radius last applied, read by the governor on the frame metrics thread. */
+    @Volatile private var appliedBlurRadiusPx = 0
 
     fun applyBackgroundEffect(
         dialog: ComponentDialog?,
         settings: TileSettings,
         force: Boolean = false,
         log: Boolean = true
+    ) = CalculatorTrace.section(CalculatorTrace.APPLY_WINDOW_EFFECT) {
+        applyBackgroundEffectNow(dialog, settings, force, log)
+    }
+
+    private fun applyBackgroundEffectNow(
+        dialog: ComponentDialog?,
+        settings: TileSettings,
+        force: Boolean,
+        log: Boolean
     ) {
         val window = dialog?.window ?: return
         val blurSupported = isDialogBlurSupported(context)
         val mode = settings.dialogBackgroundMode
         val darkTheme = isDialogDarkTheme(settings, isSystemDark = isSystemNightMode())
         val overlayColor = dialogWindowOverlayColorArgb(mode, darkTheme)
-        val blurRadius = dialogWindowBackgroundBlurRadiusPx(mode)
+        val blurRadius = dialogWindowBackgroundBlurRadiusPx(
+            mode,
+            capPx = minOf(settings.dialogBlurRadiusCapPx, sessionBlurRadiusCapPx)
+        )
         val signature = "$mode|$darkTheme|$overlayColor|$blurRadius|$blurSupported"
         if (!force && signature == lastAppliedBackgroundSignature) {
             return
@@ -59,6 +84,7 @@ internal class DialogWindowEffects(private val context: Context) {
         lastAppliedBackgroundSignature = signature
         window.setBackgroundDrawable(ColorDrawable(overlayColor))
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S) {
+            appliedBlurRadiusPx = 0
             if (log && BuildConfig.DEBUG) {
                 Log.i(
                     TAG,
@@ -82,6 +108,7 @@ internal class DialogWindowEffects(private val context: Context) {
         }
         window.attributes = attributes
         window.setBackgroundBlurRadius(blurRadius)
+        appliedBlurRadiusPx = if (blurSupported) blurRadius else 0
         // Force a frame after blur attribute changes so the blur shows immediately.
         window.decorView.postInvalidateOnAnimation()
         val blurBehindEnabled =
@@ -123,6 +150,68 @@ internal class DialogWindowEffects(private val context: Context) {
         dialogWindowStabilizer = null
     }
 
+    /**
+     * Watches the dialog's frame durations, counting them for [PerformanceDiagnostics], and
+     * lowers the background blur when the device cannot keep up with it, see
+     * [BlurQualityGovernor]. [onCapLowered] receives each lowered cap on the main thread so that
+     * it can be saved for later sessions, and [stopBlurGovernor] tells whether the session ran
+     * clean so that a saved cap can be raised again.
+     */
+    fun startBlurGovernor(
+        dialog: ComponentDialog,
+        settings: TileSettings,
+        onCapLowered: (capPx: Int) -> Unit
+    ) {
+        stopBlurGovernor(dialog)
+        // Window blur and the frame deadline metric both arrived in S.
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S) {
+            return
+        }
+        val window = dialog.window ?: return
+        val governor = BlurQualityGovernor(settings.dialogBlurRadiusCapPx)
+        blurGovernor = governor
+        val thread = HandlerThread(FRAME_METRICS_THREAD_NAME).apply { start() }
+        val listener = Window.OnFrameMetricsAvailableListener { _, frameMetrics, _ ->
+            val durationNanos = frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION)
+            val deadlineNanos = frameMetrics.getMetric(FrameMetrics.DEADLINE)
+            PerformanceDiagnostics.recordFrame(janky = durationNanos > deadlineNanos)
+            val loweredCapPx = governor.onFrame(
+                durationNanos = durationNanos,
+                deadlineNanos = deadlineNanos,
+                blurRadiusPx = appliedBlurRadiusPx
+            ) ?: return@OnFrameMetricsAvailableListener
+            window.decorView.post {
+                if (frameMetricsListener == null || !dialog.isShowing) {
+                    return@post
+                }
+                if (BuildConfig.DEBUG) {
+                    Log.i(TAG, "blurGovernor lowered blur radius cap to $loweredCapPx")
+                }
+                sessionBlurRadiusCapPx = loweredCapPx
+                applyBackgroundEffect(dialog, settings, force = true)
+                onCapLowered(loweredCapPx)
+            }
+        }
+        frameMetricsThread = thread
+        frameMetricsListener = listener
+        window.addOnFrameMetricsAvailableListener(listener, Handler(thread.looper))
+    }
+
+    /** Stops watching frames, returning whether the session ran clean, see [DialogBlurCap]. */
+    fun stopBlurGovernor(dialog: ComponentDialog?): Boolean {
+        val listener = frameMetricsListener
+        if (listener != null && Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            runCatching { dialog?.window?.removeOnFrameMetricsAvailableListener(listener) }
+        }
+        frameMetricsListener = null
+        frameMetricsThread?.quitSafely()
+        frameMetricsThread = null
+        sessionBlurRadiusCapPx = UNCAPPED_DIALOG_BLUR_RADIUS_PX
+        val sessionWasClean = blurGovernor?.sessionWasClean == true
+        blurGovernor = null
+        return sessionWasClean
+    }
+
     fun registerCrossWindowBlurListener(onChanged: () -> Unit) {
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.S || blurEnabledListener != null) {
             return
@@ -188,5 +277,6 @@ internal class DialogWindowEffects(private val context: Context) {
 
     private companion object {
         private const val TAG = "DialogWindowEffects"
+        private const val FRAME_METRICS_THREAD_NAME = "DialogBlurGovernor"
     }
 }
@@ -0,0 +1,220 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.os.SystemClock
+import androidx.compose.runtime.staticCompositionLocalOf
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.draw.drawWithContent
+import java.util.concurrent.atomic.AtomicLong
+
+/** What [PerformanceDiagnostics] times. */
+internal enum class DiagnosticMetric(val reportName: String) {
+    /** From a key press to the frame that first draws its formula or result. */
+    KEYSTROKE_TO_FRAME("keystroke_to_frame"),
+
+    /** Evaluating the formula after a key press, without the rest of reducing it. */
+    EVALUATION("evaluation"),
+
+    /** Writing the tile dialog's state and position to settings. */
+    AUTOSAVE_WRITE("autosave_write"),
+
+    /** From tapping the tile to its dialog showing. */
+    TILE_OPEN("tile_open")
+}
+
+/**
+ * Recent latencies and frame counts for the diagnostics section of the settings screen, kept
+ * while [TileSettings.diagnosticsEnabled] is on.
+ *
+ * Each metric keeps its last [SAMPLES_PER_METRIC] samples in a [LatencyRingBuffer], and every
+ * sample since the last [clear] in a [LatencyHistogram]. While
+ * collection is off, [start] returns 0 without reading the clock and everything else returns at
+ * its first check, so call sites cost a volatile read.
+ */
+internal object PerformanceDiagnostics {
+    private const val SAMPLES_PER_METRIC = 512
+
+    @Volatile
+    var enabled: Boolean = false
+
+    private val latencies = Array(DiagnosticMetric.entries.size) {
+        LatencyRingBuffer(SAMPLES_PER_METRIC)
+    }
+    private val histograms = Array(DiagnosticMetric.entries.size) { LatencyHistogram() }
+    private val frames = AtomicLong()
+    private val jankyFrames = AtomicLong()
+
+    /** A start time to pass to [recordSince], or 0 while collection is off. */
+    fun start(): Long = if (enabled) SystemClock.elapsedRealtimeNanos() else 0L
+
+    /** Records the time since [startNanos], unless [start] returned it while collection was off. */
+    fun recordSince(metric: DiagnosticMetric, startNanos: Long) {
+        if (startNanos == 0L || !enabled) {
+            return
+        }
+        val nanos = SystemClock.elapsedRealtimeNanos() - startNanos
+        latencies[metric.ordinal].record(nanos)
+        histograms[metric.ordinal].record(nanos)
+    }
+
+    fun recordFrame(janky: Boolean) {
+        if (!enabled) {
+            return
+        }
+        frames.incrementAndGet()
+        if (janky) {
+            jankyFrames.incrementAndGet()
+        }
+    }
+
+    fun snapshot(): DiagnosticsSnapshot = DiagnosticsSnapshot(
+        samples = DiagnosticMetric.entries.associateWith { latencies[it.ordinal].snapshot() },
+        histograms = DiagnosticMetric.entries.associateWith {
+            histograms[it.ordinal].snapshot()
+        },
+        frames = frames.get(),
+        jankyFrames = jankyFrames.get()
+    )
+
+    /** Times [DiagnosticMetric.EVALUATION] for the reducer of the calculator's route. */
+    val evaluationTimer: CalculatorEvaluationTimer = object : CalculatorEvaluationTimer {
+        override fun start(): Long = PerformanceDiagnostics.start()
+
+        override fun onEvaluated(startNanos: Long) =
+            recordSince(DiagnosticMetric.EVALUATION, startNanos)
+    }
+
+    fun clear() {
+        latencies.forEach(LatencyRingBuffer::clear)
+        histograms.forEach(LatencyHistogram::clear)
+        frames.set(0)
+        jankyFrames.set(0)
+    }
+}
+
+/** The samples [PerformanceDiagnostics] held at one point, oldest first, and its histograms. */
+internal class DiagnosticsSnapshot(
+    val samples: Map<DiagnosticMetric, LongArray>,
+    val histograms: Map<DiagnosticMetric, LatencyHistogram.Snapshot>,
+    val frames: Long,
+    val jankyFrames: Long
+) {
+    fun percentiles(metric: DiagnosticMetric): LatencyPercentiles =
+        LatencyPercentiles.of(samples[metric] ?: LongArray(0))
+
+    fun histogram(metric: DiagnosticMetric): LatencyHistogram.Snapshot =
+        histograms[metric] ?: LatencyHistogram().snapshot()
+
+    /**
+     * Writes the snapshot as text: summary and histogram lines per metric and a line for frames,
+     * then every sample as `metric,nanos` for further analysis.
+     */
+    fun writeReport(out: Appendable) {
+        for (metric in DiagnosticMetric.entries) {
+            out.append("# ${metric.reportName} ${percentiles(metric)}\n")
+            out.append("# ${metric.reportName} histogram ${histogram(metric)}\n")
+        }
+        out.append("# frames n=$frames janky=$jankyFrames\n")
+        out.append("metric,nanos\n")
+        for (metric in DiagnosticMetric.entries) {
+            samples[metric]?.forEach { out.append("${metric.reportName},$it\n") }
+        }
+    }
+}
+
+/**
+ * Times [DiagnosticMetric.KEYSTROKE_TO_FRAME]: from a pad button or hardware key being handled
+ * to the frame that first draws the formula or result it changed.
+ *
+ * Input handlers run inside [keystroke], which stamps the time; the route reports each state the
+ * keystroke reduces to with [onReduced], and the screen reports each state it draws with
+ * [onDrawn]. Keystrokes that land before the next frame are all recorded against it. Drawn
+ * states are matched by [CalculatorUiState.sequence] rather than identity, since the background
+ * refiner or a recall may replace the awaited state before it is drawn. Everything runs on the
+ * main thread.
+ */
+internal class KeystrokeLatencyTracker {
+    private var keystrokeStartNanos = 0L
+    private val pendingStartNanos = LongArray(MAX_PENDING_KEYSTROKES)
+    private var pendingCount = 0
+    private var awaitedSequence = 0L
+
+    /** Runs [block], which handles a key press, so that the states it reduces to are timed. */
+    fun <T> keystroke(block: () -> T): T {
+        keystrokeStartNanos = PerformanceDiagnostics.start()
+        try {
+            return block()
+        } finally {
+            keystrokeStartNanos = 0L
+        }
+    }
+
+    /** Tells the tracker [next] replaced [previous], possibly because of a keystroke. */
+    fun onReduced(previous: CalculatorUiState, next: CalculatorUiState) {
+        val startNanos = keystrokeStartNanos
+        // A paste reduces many times per keystroke; time it once, to the first change.
+        keystrokeStartNanos = 0L
+        if (startNanos == 0L ||
+            (next.formulaText == previous.formulaText && next.resultText == previous.resultText)
+        ) {
+            // Nothing new to draw, so no frame would ever record it.
+            return
+        }
+        if (pendingCount < MAX_PENDING_KEYSTROKES) {
+            pendingStartNanos[pendingCount++] = startNanos
+        }
+        awaitedSequence = next.sequence
+    }
+
+    /**
+     * Records the pending keystrokes once [state], the latest they led to or one that replaced
+     * it, such as a refined result or a recalled formula, is drawn.
+     */
+    fun onDrawn(state: CalculatorUiState) {
+        if (pendingCount == 0 || state.sequence < awaitedSequence) {
+            return
+        }
+        for (i in 0 until pendingCount) {
+            PerformanceDiagnostics.recordSince(
+                DiagnosticMetric.KEYSTROKE_TO_FRAME,
+                pendingStartNanos[i]
+            )
+        }
+        pendingCount = 0
+    }
+
+    private companion object {
+        /** Keystrokes more than this ahead of the display are too backed up to time usefully. */
+        const val MAX_PENDING_KEYSTROKES = 16
+    }
+}
+
+/**
+ * The [KeystrokeLatencyTracker] of the route around the screen. Outside of a route, keystrokes
+ * are stamped but never reduced, so nothing is recorded.
+ */
+internal val LocalKeystrokeLatencyTracker = staticCompositionLocalOf { KeystrokeLatencyTracker() }
+
+/** Reports to [tracker] that [state] is drawn whenever this node draws it. */
+internal fun Modifier.recordKeystrokesDrawn(
+    tracker: KeystrokeLatencyTracker,
+    state: CalculatorUiState
+): Modifier = drawWithContent {
+    drawContent()
+    tracker.onDrawn(state)
+}
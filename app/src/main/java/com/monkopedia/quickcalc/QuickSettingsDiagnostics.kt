@@ -0,0 +1,244 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+@file:Suppress("ktlint:standard:function-naming")
+
+package com.monkopedia.quickcalc
+
+import android.net.Uri
+import androidx.activity.compose.rememberLauncherForActivityResult
+import androidx.activity.result.contract.ActivityResultContracts
+import androidx.compose.foundation.layout.Arrangement
+import androidx.compose.foundation.layout.Column
+import androidx.compose.foundation.layout.Row
+import androidx.compose.foundation.layout.Spacer
+import androidx.compose.foundation.layout.fillMaxWidth
+import androidx.compose.foundation.layout.height
+import androidx.compose.foundation.layout.width
+import androidx.compose.material3.FilledTonalButton
+import androidx.compose.material3.LinearProgressIndicator
+import androidx.compose.material3.MaterialTheme
+import androidx.compose.material3.Text
+import androidx.compose.runtime.Composable
+import androidx.compose.runtime.LaunchedEffect
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableStateOf
+import androidx.compose.runtime.remember
+import androidx.compose.runtime.rememberCoroutineScope
+import androidx.compose.runtime.setValue
+import androidx.compose.ui.Alignment
+import androidx.compose.ui.Modifier
+import androidx.compose.ui.platform.LocalContext
+import androidx.compose.ui.res.stringResource
+import androidx.compose.ui.text.font.FontWeight
+import androidx.compose.ui.unit.dp
+import java.io.IOException
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.withContext
+
+private const val DIAGNOSTICS_REFRESH_INTERVAL_MS = 1_000L
+private const val DIAGNOSTICS_EXPORT_FILE_NAME = "quickcalc-diagnostics.txt"
+
+/**
+ * The settings screen's diagnostics section: the switch for [PerformanceDiagnostics] and, while
+ * it collects, its latest figures and a button to export them to a file.
+ */
+@Composable
+internal fun DiagnosticsSectionCard(enabled: Boolean, onEnabledChanged: (Boolean) -> Unit) {
+    SettingsSectionCard(title = stringResource(R.string.settings_section_diagnostics)) {
+        SwitchRow(
+            text = stringResource(R.string.settings_diagnostics_enabled),
+            checked = enabled,
+            onCheckedChange = onEnabledChanged
+        )
+        if (enabled) {
+            Spacer(modifier = Modifier.height(8.dp))
+            DiagnosticsSummary()
+        }
+    }
+}
+
+@Composable
+private fun DiagnosticsSummary() {
+    val context = LocalContext.current
+    val coroutineScope = rememberCoroutineScope()
+    var snapshot by remember { mutableStateOf(PerformanceDiagnostics.snapshot()) }
+    var exportStatus by remember { mutableStateOf<String?>(null) }
+    LaunchedEffect(Unit) {
+        while (true) {
+            snapshot = PerformanceDiagnostics.snapshot()
+            delay(DIAGNOSTICS_REFRESH_INTERVAL_MS)
+        }
+    }
+    val exportLauncher = rememberLauncherForActivityResult(
+        ActivityResultContracts.CreateDocument("text/plain")
+    ) { uri: Uri? ->
+        if (uri == null) {
+            return@rememberLauncherForActivityResult
+        }
+        val exported = PerformanceDiagnostics.snapshot()
+        coroutineScope.launch {
+            val written = withContext(Dispatchers.IO) {
+                runCatching {
+                    val stream = context.contentResolver.openOutputStream(uri)
+                        ?: throw IOException("No stream for $uri")
+                    stream.bufferedWriter().use { exported.writeReport(it) }
+                }.isSuccess
+            }
+            exportStatus = context.getString(
+                if (written) {
+                    R.string.settings_diagnostics_export_done
+                } else {
+                    R.string.settings_diagnostics_export_failed
+                }
+            )
+        }
+    }
+
+    Column(verticalArrangement = Arrangement.spacedBy(8.dp)) {
+        for (metric in DiagnosticMetric.entries) {
+            DiagnosticsLatencyRow(
+                label = diagnosticMetricLabel(metric),
+                latency = snapshot.percentiles(metric)
+            )
+        }
+        DiagnosticsHistogram(snapshot.histogram(DiagnosticMetric.KEYSTROKE_TO_FRAME))
+        Text(
+            text = stringResource(
+                R.string.settings_diagnostics_jank,
+                snapshot.jankyFrames,
+                snapshot.frames
+            ),
+            style = MaterialTheme.typography.bodyMedium
+        )
+        Row(
+            modifier = Modifier.fillMaxWidth(),
+            horizontalArrangement = Arrangement.spacedBy(8.dp)
+        ) {
+            FilledTonalButton(
+                onClick = { exportLauncher.launch(DIAGNOSTICS_EXPORT_FILE_NAME) },
+                modifier = Modifier.weight(1f)
+            ) {
+                Text(text = stringResource(R.string.settings_diagnostics_export))
+            }
+            FilledTonalButton(
+                onClick = {
+                    PerformanceDiagnostics.clear()
+                    snapshot = PerformanceDiagnostics.snapshot()
+                },
+                modifier = Modifier.weight(1f)
+            ) {
+                Text(text = stringResource(R.string.settings_diagnostics_clear))
+            }
+        }
+        exportStatus?.let { status ->
+            Text(text = status, style = MaterialTheme.typography.bodySmall)
+        }
+    }
+}
+
+@Composable
+private fun DiagnosticsLatencyRow(label: String, latency: LatencyPercentiles) {
+    Column {
+        Text(
+            text = label,
+            style = MaterialTheme.typography.labelLarge,
+            fontWeight = FontWeight.Medium
+        )
+        Text(
+            text = if (latency.count == 0) {
+                stringResource(R.string.settings_diagnostics_no_samples)
+            } else {
+                stringResource(
+                    R.string.settings_diagnostics_latency,
+                    formatMillis(latency.p50),
+                    formatMillis(latency.p90),
+                    formatMillis(latency.p99),
+                    latency.count
+                )
+            },
+            style = MaterialTheme.typography.bodyMedium
+        )
+    }
+}
+
+/** The keystroke-to-frame histogram, a bar per bucket from the fastest to the slowest sample. */
+@Composable
+private fun DiagnosticsHistogram(histogram: LatencyHistogram.Snapshot) {
+    if (histogram.total == 0L) {
+        return
+    }
+    val buckets = (0 until histogram.bucketCount).filter { histogram.count(it) > 0 }
+    val maxCount = buckets.maxOf(histogram::count)
+    Column(verticalArrangement = Arrangement.spacedBy(4.dp)) {
+        Text(
+            text = stringResource(
+                R.string.settings_diagnostics_keystroke_histogram,
+                histogramBucketLabel(histogram, histogram.percentileBucket(95.0))
+            ),
+            style = MaterialTheme.typography.labelLarge,
+            fontWeight = FontWeight.Medium
+        )
+        for (bucket in buckets.first()..buckets.last()) {
+            val count = histogram.count(bucket)
+            Row(
+                verticalAlignment = Alignment.CenterVertically,
+                horizontalArrangement = Arrangement.spacedBy(8.dp)
+            ) {
+                Text(
+                    text = histogramBucketLabel(histogram, bucket),
+                    style = MaterialTheme.typography.bodySmall,
+                    modifier = Modifier.width(72.dp)
+                )
+                LinearProgressIndicator(
+                    progress = { count.toFloat() / maxCount },
+                    modifier = Modifier.weight(1f)
+                )
+                Text(text = "$count", style = MaterialTheme.typography.bodySmall)
+            }
+        }
+    }
+}
+
+@Composable
+private fun histogramBucketLabel(histogram: LatencyHistogram.Snapshot, bucket: Int): String =
+    if (bucket < histogram.bucketCount - 1) {
+        stringResource(
+            R.string.settings_diagnostics_histogram_bucket,
+            formatWholeMillis(histogram.upperBoundNanos(bucket))
+        )
+    } else {
+        stringResource(
+            R.string.settings_diagnostics_histogram_overflow,
+            formatWholeMillis(histogram.upperBoundNanos(bucket - 1))
+        )
+    }
+
+private fun formatWholeMillis(nanos: Long): String = "${nanos / 1_000_000L}"
+
+private fun formatMillis(nanos: Long): String = "%.2f".format(nanos / 1_000_000.0)
+
+@Composable
+private fun diagnosticMetricLabel(metric: DiagnosticMetric): String = when (metric) {
+    DiagnosticMetric.KEYSTROKE_TO_FRAME ->
+        stringResource(R.string.settings_diagnostics_keystroke_to_frame)
+    DiagnosticMetric.EVALUATION -> stringResource(R.string.settings_diagnostics_evaluation)
+    DiagnosticMetric.AUTOSAVE_WRITE ->
+        stringResource(R.string.settings_diagnostics_autosave_write)
+    DiagnosticMetric.TILE_OPEN -> stringResource(R.string.settings_diagnostics_tile_open)
+}
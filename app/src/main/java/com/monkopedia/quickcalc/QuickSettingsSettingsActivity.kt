@@ -104,6 +104,9 @@ class QuickSettingsSettingsActivity : ComponentActivity() {
                     onDialogBackgroundModeSelected = { mode ->
                         coroutineScope.launch { settingsRepository.setDialogBackgroundMode(mode) }
                     },
+                    onDialogBlurCapCleared = {
+                        coroutineScope.launch { settingsRepository.clearDialogBlurRadiusCap() }
+                    },
                     onSizeModeSelected = { mode ->
                         coroutineScope.launch { settingsRepository.setSizeMode(mode) }
                     },
@@ -122,6 +125,15 @@ class QuickSettingsSettingsActivity : ComponentActivity() {
                         coroutineScope.launch {
                             settingsRepository.setRememberCalculatorState(enabled)
                         }
+                    },
+                    onEvaluationModeSelected = { mode ->
+                        coroutineScope.launch { settingsRepository.setEvaluationMode(mode) }
+                    },
+                    onRecordSessionsChanged = { enabled ->
+                        coroutineScope.launch { settingsRepository.setRecordSessions(enabled) }
+                    },
+                    onDiagnosticsEnabledChanged = { enabled ->
+                        coroutineScope.launch { settingsRepository.setDiagnosticsEnabled(enabled) }
                     }
                 )
             }
@@ -180,11 +192,15 @@ private fun QuickSettingsSettingsScreen(
     onThemeModeSelected: (TileThemeMode) -> Unit,
     onAccentColorSelected: (Int) -> Unit,
     onDialogBackgroundModeSelected: (TileDialogBackgroundMode) -> Unit,
+    onDialogBlurCapCleared: () -> Unit,
     onSizeModeSelected: (TileSizeMode) -> Unit,
     onStaticAlignmentSelected: (TileStaticAlignment) -> Unit,
     onStaticSizeFractionChanged: (Float) -> Unit,
     onDialogInactivityTimeoutSecondsChanged: (Int) -> Unit,
-    onRememberCalculatorStateChanged: (Boolean) -> Unit
+    onRememberCalculatorStateChanged: (Boolean) -> Unit,
+    onEvaluationModeSelected: (CalculatorEvaluationMode) -> Unit,
+    onRecordSessionsChanged: (Boolean) -> Unit,
+    onDiagnosticsEnabledChanged: (Boolean) -> Unit
 ) {
     Scaffold(
         modifier = Modifier.fillMaxSize(),
@@ -290,6 +306,22 @@ private fun QuickSettingsSettingsScreen(
                                 optionLabel = { dialogBackgroundLabel(it) },
                                 onOptionSelected = onDialogBackgroundModeSelected
                             )
+                            val chosenBlurRadiusPx =
+                                dialogWindowBackgroundBlurRadiusPx(settings.dialogBackgroundMode)
+                            if (settings.dialogBlurRadiusCapPx < chosenBlurRadiusPx) {
+                                Spacer(modifier = Modifier.height(8.dp))
+                                Text(
+                                    text = stringResource(R.string.settings_bg_blur_capped),
+                                    style = MaterialTheme.typography.bodySmall
+                                )
+                                Spacer(modifier = Modifier.height(8.dp))
+                                FilledTonalButton(
+                                    onClick = onDialogBlurCapCleared,
+                                    modifier = Modifier.fillMaxWidth()
+                                ) {
+                                    Text(text = stringResource(R.string.settings_bg_blur_restore))
+                                }
+                            }
                         }
                     }
                 }
@@ -400,15 +432,45 @@ private fun QuickSettingsSettingsScreen(
                             checked = settings.rememberCalculatorState,
                             onCheckedChange = onRememberCalculatorStateChanged
                         )
+                        SwitchRow(
+                            text = stringResource(R.string.settings_record_sessions),
+                            checked = settings.recordSessions,
+                            onCheckedChange = onRecordSessionsChanged
+                        )
                     }
                 }
+                item {
+                    SettingsSectionCard(
+                        title = stringResource(R.string.settings_section_arithmetic)
+                    ) {
+                        ChoicePillRow(
+                            options = CalculatorEvaluationMode.entries,
+                            selectedOption = settings.evaluationMode,
+                            optionLabel = { evaluationModeLabel(it) },
+                            onOptionSelected = onEvaluationModeSelected
+                        )
+                        if (settings.evaluationMode == CalculatorEvaluationMode.PRECISE) {
+                            Spacer(modifier = Modifier.height(8.dp))
+                            Text(
+                                text = stringResource(R.string.settings_evaluation_precise_hint),
+                                style = MaterialTheme.typography.bodyMedium
+                            )
+                        }
+                    }
+                }
+                item {
+                    DiagnosticsSectionCard(
+                        enabled = settings.diagnosticsEnabled,
+                        onEnabledChanged = onDiagnosticsEnabledChanged
+                    )
+                }
             }
         }
     }
 }
 
 @Composable
-private fun SettingsSectionCard(title: String, content: @Composable ColumnScope.() -> Unit) {
+internal fun SettingsSectionCard(title: String, content: @Composable ColumnScope.() -> Unit) {
     Card(
         shape = RoundedCornerShape(22.dp),
         colors = CardDefaults.cardColors(
@@ -476,7 +538,7 @@ private fun <T> ChoicePillRow(
 }
 
 @Composable
-private fun SwitchRow(text: String, checked: Boolean, onCheckedChange: (Boolean) -> Unit) {
+internal fun SwitchRow(text: String, checked: Boolean, onCheckedChange: (Boolean) -> Unit) {
     Row(
         modifier = Modifier.fillMaxWidth(),
         horizontalArrangement = Arrangement.SpaceBetween,
@@ -645,6 +707,13 @@ private fun modeLabel(mode: TileThemeMode): String = when (mode) {
     TileThemeMode.DARK -> stringResource(R.string.settings_theme_dark)
 }
 
+@Composable
+private fun evaluationModeLabel(mode: CalculatorEvaluationMode): String = when (mode) {
+    CalculatorEvaluationMode.STANDARD -> stringResource(R.string.settings_evaluation_standard)
+    CalculatorEvaluationMode.PRECISE -> stringResource(R.string.settings_evaluation_precise)
+    CalculatorEvaluationMode.RATIONAL -> stringResource(R.string.settings_evaluation_rational)
+}
+
 @Composable
 private fun sizeModeLabel(mode: TileSizeMode): String = when (mode) {
     TileSizeMode.STATIC -> stringResource(R.string.settings_size_static)
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import androidx.tracing.Trace
+
+/**
+ * Records [CalculatorTrace] sections into the system trace, so that they show in Perfetto and
+ * Android Studio's profiler. Release builds are profileable, so they are traced too.
+ */
+internal object SystemCalculatorTracer : CalculatorTracer {
+    override val isEnabled: Boolean
+        get() = Trace.isEnabled()
+
+    override fun beginSection(name: String) = Trace.beginSection(name)
+
+    override fun endSection() = Trace.endSection()
+
+    override fun beginAsyncSection(name: String, cookie: Int) =
+        Trace.beginAsyncSection(name, cookie)
+
+    override fun endAsyncSection(name: String, cookie: Int) = Trace.endAsyncSection(name, cookie)
+}
@@ -78,6 +78,18 @@ internal class TileAutosaveManager(
     }
 
     private suspend fun persistSnapshot(snapshot: AutosaveSnapshot, force: Boolean = false) {
+        val startNanos = PerformanceDiagnostics.start()
+        // An async slice, since the write suspends and may resume on another thread.
+        val traceCookie = CalculatorTrace.beginAsync(CalculatorTrace.AUTOSAVE)
+        try {
+            persistSnapshotLocked(snapshot, force)
+        } finally {
+            CalculatorTrace.endAsync(CalculatorTrace.AUTOSAVE, traceCookie)
+            PerformanceDiagnostics.recordSince(DiagnosticMetric.AUTOSAVE_WRITE, startNanos)
+        }
+    }
+
+    private suspend fun persistSnapshotLocked(snapshot: AutosaveSnapshot, force: Boolean) {
         persistMutex.withLock {
             val transformSnapshot = snapshot.transform
             val calculatorStateSnapshot = snapshot.calculatorState
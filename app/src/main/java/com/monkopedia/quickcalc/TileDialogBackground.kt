@@ -50,3 +50,7 @@ fun dialogWindowBackgroundBlurRadiusPx(mode: TileDialogBackgroundMode): Int = wh
     TileDialogBackgroundMode.BLUR_HEAVY -> 132
     else -> 0
 }
+
+/** The blur radius [mode] shows, at most [capPx] on a device that cannot keep up with more. */
+fun dialogWindowBackgroundBlurRadiusPx(mode: TileDialogBackgroundMode, capPx: Int): Int =
+    minOf(dialogWindowBackgroundBlurRadiusPx(mode), capPx.coerceAtLeast(0))
@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.app.Application
+import android.os.Build
+import java.io.File
+
+/**
+ * Where the Quick Settings tile runs.
+ *
+ * Builds made with `-PisolatedTileProcess=true` run [CalculatorTileService], its dialog and
+ * [CalculatorTilePriorityService] in their own process. SystemUI binding the tile then starts only
+ * what the tile needs rather than the whole app, see [CalculatorApplication]. Other builds run
+ * everything in the app's one process.
+ */
+internal object TileProcess {
+    /** The suffix of the tile's process name in builds where it is isolated. */
+    const val NAME_SUFFIX = ":tile"
+
+    /** Whether this build runs the tile in a process of its own. */
+    val isIsolated: Boolean
+        get() = BuildConfig.ISOLATED_TILE_PROCESS
+
+    /** Whether the calling process is the tile's isolated process. */
+    val isCurrent: Boolean by lazy { isIsolated && currentProcessName().endsWith(NAME_SUFFIX) }
+
+    private fun currentProcessName(): String =
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+            Application.getProcessName()
+        } else {
+            File("/proc/self/cmdline").readText().substringBefore('\u0000')
+        }
+}
@@ -60,7 +60,16 @@ data class TileSettings(
     val dialogBackgroundMode: TileDialogBackgroundMode = TileDialogBackgroundMode.CLEAR,
     val dialogInactivityTimeoutSeconds: Int = DEFAULT_DIALOG_INACTIVITY_TIMEOUT_SECONDS,
     val rememberCalculatorState: Boolean = false,
-    val savedCalculatorState: CalculatorUiState = CalculatorUiState()
+    val savedCalculatorState: CalculatorUiState = CalculatorUiState(),
+    val evaluationMode: CalculatorEvaluationMode = CalculatorEvaluationMode.STANDARD,
+    /** Whether calculator sessions are recorded to a trace, see [CalculatorSessionTraces]. */
+    val recordSessions: Boolean = false,
+    /** The most background blur this device has kept up with, see [BlurQualityGovernor]. */
+    val dialogBlurRadiusCapPx: Int = UNCAPPED_DIALOG_BLUR_RADIUS_PX,
+    /** How many clean sessions ran under [dialogBlurRadiusCapPx], see [DialogBlurCap]. */
+    val dialogBlurCleanSessions: Int = 0,
+    /** Whether [PerformanceDiagnostics] collects latencies for the settings screen. */
+    val diagnosticsEnabled: Boolean = false
 )
 
 data class TileAccentOption(val labelResId: Int, val colorArgb: Int)
@@ -89,6 +98,7 @@ const val MIN_DIALOG_SCALE = 0.45f
 const val MAX_DIALOG_SCALE = 1.35f
 const val MIN_STATIC_SIZE_FRACTION = 0.55f
 const val MAX_STATIC_SIZE_FRACTION = 1.0f
+const val UNCAPPED_DIALOG_BLUR_RADIUS_PX = Int.MAX_VALUE
 
 fun normalizeDialogInactivityTimeoutSeconds(seconds: Int): Int =
     if (seconds <= DIALOG_INACTIVITY_TIMEOUT_OFF_SECONDS) {
@@ -18,24 +18,65 @@ package com.monkopedia.quickcalc
 
 import android.content.Context
 import androidx.datastore.core.DataStore
+import androidx.datastore.core.DataStoreFactory
+import androidx.datastore.core.createMultiProcessCoordinator
+import androidx.datastore.core.okio.OkioStorage
 import androidx.datastore.preferences.core.Preferences
+import androidx.datastore.preferences.core.PreferencesSerializer
 import androidx.datastore.preferences.core.booleanPreferencesKey
 import androidx.datastore.preferences.core.edit
 import androidx.datastore.preferences.core.floatPreferencesKey
 import androidx.datastore.preferences.core.intPreferencesKey
 import androidx.datastore.preferences.core.stringPreferencesKey
 import androidx.datastore.preferences.preferencesDataStore
+import androidx.datastore.preferences.preferencesDataStoreFile
+import kotlinx.coroutines.Dispatchers
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.first
 import kotlinx.coroutines.flow.map
+import okio.FileSystem
+import okio.Path.Companion.toPath
+
+private const val TILE_SETTINGS_NAME = "tile_settings"
 
 private val Context.tileSettingsDataStore: DataStore<Preferences> by preferencesDataStore(
-    name = "tile_settings"
+    name = TILE_SETTINGS_NAME
 )
 
+/**
+ * The settings store shared by the app's processes when the tile runs in its own, see
+ * [TileProcess]. It keeps the same file as [tileSettingsDataStore], but coordinates reads and
+ * writes across processes with a file lock, and sees the other process's writes.
+ */
+private object MultiProcessTileSettings {
+    @Volatile
+    private var dataStore: DataStore<Preferences>? = null
+
+    fun dataStore(context: Context): DataStore<Preferences> = dataStore ?: synchronized(this) {
+        dataStore ?: DataStoreFactory.create(
+            storage = OkioStorage(
+                fileSystem = FileSystem.SYSTEM,
+                serializer = PreferencesSerializer,
+                coordinatorProducer = { path, _ ->
+                    createMultiProcessCoordinator(Dispatchers.IO, path.toFile())
+                },
+                producePath = {
+                    context.preferencesDataStoreFile(TILE_SETTINGS_NAME).absolutePath.toPath()
+                }
+            )
+        ).also { dataStore = it }
+    }
+}
+
 class TileSettingsRepository(context: Context) {
 
-    private val dataStore = context.applicationContext.tileSettingsDataStore
+    private val dataStore = context.applicationContext.let {
+        if (TileProcess.isIsolated) {
+            MultiProcessTileSettings.dataStore(it)
+        } else {
+            it.tileSettingsDataStore
+        }
+    }
 
     val settingsFlow: Flow<TileSettings> = dataStore.data.map { preferences ->
         TileSettings(
@@ -82,7 +123,18 @@ class TileSettingsRepository(context: Context) {
                     ?.runCatching { CalculatorUiPhase.valueOf(this) }
                     ?.getOrNull()
                     ?: CalculatorUiPhase.INPUT
-            )
+            ),
+            evaluationMode =
+            preferences[KEY_EVALUATION_MODE]
+                ?.runCatching { CalculatorEvaluationMode.valueOf(this) }
+                ?.getOrNull()
+                ?: CalculatorEvaluationMode.STANDARD,
+            recordSessions = preferences[KEY_RECORD_SESSIONS] ?: false,
+            dialogBlurRadiusCapPx =
+            (preferences[KEY_DIALOG_BLUR_RADIUS_CAP_PX] ?: UNCAPPED_DIALOG_BLUR_RADIUS_PX)
+                .coerceAtLeast(0),
+            dialogBlurCleanSessions = preferences[KEY_DIALOG_BLUR_CLEAN_SESSIONS] ?: 0,
+            diagnosticsEnabled = preferences[KEY_DIAGNOSTICS_ENABLED] ?: false
         )
     }
 
@@ -130,6 +182,9 @@ class TileSettingsRepository(context: Context) {
     suspend fun setDialogBackgroundMode(mode: TileDialogBackgroundMode) {
         dataStore.edit { preferences ->
             preferences[KEY_DIALOG_BACKGROUND_MODE] = canonicalDialogBackgroundMode(mode).name
+            // A newly chosen blur gets judged afresh rather than under the old one's cap.
+            preferences.remove(KEY_DIALOG_BLUR_RADIUS_CAP_PX)
+            preferences.remove(KEY_DIALOG_BLUR_CLEAN_SESSIONS)
         }
     }
 
@@ -151,6 +206,56 @@ class TileSettingsRepository(context: Context) {
         }
     }
 
+    suspend fun setEvaluationMode(mode: CalculatorEvaluationMode) {
+        dataStore.edit { preferences ->
+            preferences[KEY_EVALUATION_MODE] = mode.name
+        }
+    }
+
+    suspend fun setRecordSessions(enabled: Boolean) {
+        dataStore.edit { preferences ->
+            preferences[KEY_RECORD_SESSIONS] = enabled
+        }
+    }
+
+    suspend fun setDiagnosticsEnabled(enabled: Boolean) {
+        dataStore.edit { preferences ->
+            preferences[KEY_DIAGNOSTICS_ENABLED] = enabled
+        }
+    }
+
+    suspend fun setDialogBlurRadiusCapPx(capPx: Int) {
+        dataStore.edit { preferences ->
+            preferences[KEY_DIALOG_BLUR_RADIUS_CAP_PX] = capPx.coerceAtLeast(0)
+            preferences.remove(KEY_DIALOG_BLUR_CLEAN_SESSIONS)
+        }
+    }
+
+    /** Counts a clean session under the saved blur cap, raising it after enough of them. */
+    suspend fun recordCleanDialogBlurSession() {
+        dataStore.edit { preferences ->
+            val capPx = preferences[KEY_DIALOG_BLUR_RADIUS_CAP_PX] ?: return@edit
+            val next = DialogBlurCap(
+                capPx = capPx,
+                cleanSessions = preferences[KEY_DIALOG_BLUR_CLEAN_SESSIONS] ?: 0
+            ).afterCleanSession()
+            if (next.isCapped) {
+                preferences[KEY_DIALOG_BLUR_RADIUS_CAP_PX] = next.capPx
+                preferences[KEY_DIALOG_BLUR_CLEAN_SESSIONS] = next.cleanSessions
+            } else {
+                preferences.remove(KEY_DIALOG_BLUR_RADIUS_CAP_PX)
+                preferences.remove(KEY_DIALOG_BLUR_CLEAN_SESSIONS)
+            }
+        }
+    }
+
+    suspend fun clearDialogBlurRadiusCap() {
+        dataStore.edit { preferences ->
+            preferences.remove(KEY_DIALOG_BLUR_RADIUS_CAP_PX)
+            preferences.remove(KEY_DIALOG_BLUR_CLEAN_SESSIONS)
+        }
+    }
+
     suspend fun saveCalculatorState(state: CalculatorUiState) {
         dataStore.edit { preferences ->
             preferences[KEY_SAVED_FORMULA] = state.formulaText
@@ -183,5 +288,10 @@ class TileSettingsRepository(context: Context) {
         val KEY_SAVED_FORMULA = stringPreferencesKey("saved_formula")
         val KEY_SAVED_RESULT = stringPreferencesKey("saved_result")
         val KEY_SAVED_PHASE = stringPreferencesKey("saved_phase")
+        val KEY_EVALUATION_MODE = stringPreferencesKey("evaluation_mode")
+        val KEY_RECORD_SESSIONS = booleanPreferencesKey("record_sessions")
+        val KEY_DIALOG_BLUR_RADIUS_CAP_PX = intPreferencesKey("dialog_blur_radius_cap_px")
+        val KEY_DIALOG_BLUR_CLEAN_SESSIONS = intPreferencesKey("dialog_blur_clean_sessions")
+        val KEY_DIAGNOSTICS_ENABLED = booleanPreferencesKey("diagnostics_enabled")
     }
 }
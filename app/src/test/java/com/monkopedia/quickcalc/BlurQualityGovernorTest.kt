@@ -0,0 +1,175 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class BlurQualityGovernorTest {
+
+    private val heavy = dialogWindowBackgroundBlurRadiusPx(TileDialogBackgroundMode.BLUR_HEAVY)
+    private val light = dialogWindowBackgroundBlurRadiusPx(TileDialogBackgroundMode.BLUR_LIGHT)
+    private val subtle = dialogWindowBackgroundBlurRadiusPx(TileDialogBackgroundMode.BLUR_SUBTLE)
+
+    private fun governor(initialCapPx: Int = UNCAPPED_DIALOG_BLUR_RADIUS_PX) =
+        BlurQualityGovernor(initialCapPx, windowFrames = 20, jankFraction = 0.25f, warmUpFrames = 5)
+
+    /**
+     * Feeds [frames] frames at [blurRadiusPx], every [jankEvery]th of which misses its deadline,
+     * and returns the caps the governor lowered to.
+     */
+    private fun BlurQualityGovernor.feed(
+        frames: Int,
+        blurRadiusPx: Int,
+        jankEvery: Int = 0
+    ): List<Int> = (1..frames).mapNotNull { frame ->
+        val janky = jankEvery > 0 && frame % jankEvery == 0
+        onFrame(
+            durationNanos = if (janky) 3 * FRAME_NANOS else FRAME_NANOS / 2,
+            deadlineNanos = FRAME_NANOS,
+            blurRadiusPx = blurRadiusPx
+        )
+    }
+
+    @Test
+    fun smoothFramesKeepTheBlur() {
+        val governor = governor()
+
+        assertEquals(emptyList<Int>(), governor.feed(frames = 500, blurRadiusPx = heavy))
+        assertEquals(UNCAPPED_DIALOG_BLUR_RADIUS_PX, governor.capPx)
+    }
+
+    @Test
+    fun occasionalJankBelowTheThresholdKeepsTheBlur() {
+        val governor = governor()
+
+        assertEquals(
+            emptyList<Int>(),
+            governor.feed(frames = 500, blurRadiusPx = heavy, jankEvery = 5)
+        )
+    }
+
+    @Test
+    fun sustainedJankStepsTheBlurDownOneLevelPerWindow() {
+        val governor = governor()
+
+        assertEquals(
+            listOf(light),
+            governor.feed(frames = 25, blurRadiusPx = heavy, jankEvery = 2)
+        )
+        assertEquals(light, governor.capPx)
+        assertEquals(
+            listOf(subtle),
+            governor.feed(frames = 25, blurRadiusPx = light, jankEvery = 2)
+        )
+        assertEquals(listOf(0), governor.feed(frames = 25, blurRadiusPx = subtle, jankEvery = 2))
+        assertEquals(0, governor.capPx)
+    }
+
+    @Test
+    fun warmUpFramesAreNotJudged() {
+        val governor = governor()
+
+        // Five janky warm-up frames, then a smooth window.
+        repeat(5) { assertNull(governor.onFrame(3 * FRAME_NANOS, FRAME_NANOS, heavy)) }
+        assertEquals(emptyList<Int>(), governor.feed(frames = 20, blurRadiusPx = heavy))
+    }
+
+    @Test
+    fun framesAfterLoweringTheCapAreJudgedAfresh() {
+        val governor = governor()
+        governor.feed(frames = 25, blurRadiusPx = heavy, jankEvery = 1)
+
+        // Smooth at the lower radius, once the frames still paying for the old one are skipped.
+        repeat(5) { governor.onFrame(3 * FRAME_NANOS, FRAME_NANOS, light) }
+        assertEquals(emptyList<Int>(), governor.feed(frames = 200, blurRadiusPx = light))
+        assertEquals(light, governor.capPx)
+    }
+
+    @Test
+    fun slowFramesWithoutBlurAreIgnored() {
+        val governor = governor(initialCapPx = light)
+
+        assertEquals(emptyList<Int>(), governor.feed(frames = 200, blurRadiusPx = 0, jankEvery = 1))
+        assertEquals(light, governor.capPx)
+    }
+
+    @Test
+    fun aSessionIsCleanOnceAFullWindowRanWithoutLowering() {
+        val governor = governor(initialCapPx = light)
+
+        governor.feed(frames = 24, blurRadiusPx = light)
+        assertFalse(governor.sessionWasClean)
+        governor.feed(frames = 1, blurRadiusPx = light)
+        assertTrue(governor.sessionWasClean)
+    }
+
+    @Test
+    fun aSessionThatLoweredTheCapIsNotClean() {
+        val governor = governor()
+
+        governor.feed(frames = 25, blurRadiusPx = heavy, jankEvery = 1)
+        governor.feed(frames = 200, blurRadiusPx = light)
+        assertFalse(governor.sessionWasClean)
+    }
+
+    @Test
+    fun unblurredSessionsCountAsClean() {
+        val governor = governor(initialCapPx = 0)
+
+        governor.feed(frames = 25, blurRadiusPx = 0, jankEvery = 1)
+        assertTrue(governor.sessionWasClean)
+    }
+
+    @Test
+    fun aCappedRadiusRecoversStepByStepAfterCleanSessions() {
+        var cap = DialogBlurCap(capPx = 0)
+        val raisedCaps = mutableListOf<Int>()
+        while (cap.isCapped) {
+            repeat(DialogBlurCap.RECOVERY_SESSIONS - 1) {
+                cap = cap.afterCleanSession()
+                assertEquals(raisedCaps.lastOrNull() ?: 0, cap.capPx)
+            }
+            cap = cap.afterCleanSession()
+            assertEquals(0, cap.cleanSessions)
+            raisedCaps += cap.capPx
+        }
+
+        assertEquals(listOf(subtle, light, heavy, UNCAPPED_DIALOG_BLUR_RADIUS_PX), raisedCaps)
+        assertEquals(cap, cap.afterCleanSession())
+    }
+
+    @Test
+    fun aRaisedCapIsLoweredAgainWhenItStillJanks() {
+        var cap = DialogBlurCap(capPx = light)
+        repeat(DialogBlurCap.RECOVERY_SESSIONS) { cap = cap.afterCleanSession() }
+        assertEquals(heavy, cap.capPx)
+
+        val governor = governor(initialCapPx = cap.capPx)
+        assertEquals(
+            listOf(light),
+            governor.feed(frames = 25, blurRadiusPx = heavy, jankEvery = 1)
+        )
+    }
+
+    private companion object {
+        const val FRAME_NANOS = 16_666_667L
+    }
+}
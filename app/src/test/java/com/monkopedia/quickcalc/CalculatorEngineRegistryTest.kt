@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.app.Application
+import androidx.test.core.app.ApplicationProvider
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotSame
+import org.junit.Assert.assertSame
+import org.junit.Before
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.RuntimeEnvironment
+import org.robolectric.annotation.Config
+
+@RunWith(RobolectricTestRunner::class)
+@Config(sdk = [34])
+class CalculatorEngineRegistryTest {
+
+    private lateinit var application: Application
+
+    @Before
+    fun setUp() {
+        application = ApplicationProvider.getApplicationContext()
+    }
+
+    @After
+    fun tearDown() {
+        CalculatorEngineRegistry.clear()
+    }
+
+    @Test
+    fun repeatedLookupsReuseInstances() {
+        val evaluator =
+            CalculatorEngineRegistry.evaluator(application, CalculatorEvaluationMode.STANDARD)
+
+        assertSame(
+            evaluator,
+            CalculatorEngineRegistry.evaluator(application, CalculatorEvaluationMode.STANDARD)
+        )
+        assertSame(
+            CalculatorEngineRegistry.tokenizer(application),
+            CalculatorEngineRegistry.tokenizer(application)
+        )
+        assertNotSame(
+            evaluator,
+            CalculatorEngineRegistry.evaluator(application, CalculatorEvaluationMode.PRECISE)
+        )
+    }
+
+    @Test
+    fun configurationChangeRebuildsForNewLocale() {
+        val english = CalculatorEngineRegistry.tokenizer(application)
+        assertEquals("1.5", english.getLocalizedExpression("1.5"))
+
+        RuntimeEnvironment.setQualifiers("fr")
+        application.onConfigurationChanged(application.resources.configuration)
+        val french = CalculatorEngineRegistry.tokenizer(application)
+
+        assertNotSame(english, french)
+        assertEquals("1,5", french.getLocalizedExpression("1.5"))
+    }
+
+    @Test
+    fun warmedEvaluatorsStillEvaluate() {
+        val evaluator =
+            CalculatorEngineRegistry.evaluator(application, CalculatorEvaluationMode.STANDARD)
+        val result = evaluator.evaluate("2*3")
+        assertEquals("6", (result as EvaluationResult.Success).result)
+    }
+}
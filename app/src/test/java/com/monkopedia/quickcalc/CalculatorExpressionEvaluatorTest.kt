@@ -76,6 +76,89 @@ class CalculatorExpressionEvaluatorTest {
         assertEquals(INVALID_RES_ID, result.errorResourceId)
     }
 
+    @Test
+    fun preciseModeShowsExactLargeIntegersWhenExtended() {
+        val precise = CalculatorExpressionEvaluator(
+            CalculatorExpressionTokenizer(context),
+            CalculatorEvaluationMode.PRECISE
+        )
+        val preview = precise.evaluate("2^70")
+        val extended = precise.evaluateWithMoreDigits("2^70")
+
+        assertEquals("1.18059162072E21", successText(preview))
+        assertEquals("1180591620717411303424", successText(extended))
+    }
+
+    @Test
+    fun preciseModeFallsBackToStandardForInfinity() {
+        val precise = CalculatorExpressionEvaluator(
+            CalculatorExpressionTokenizer(context),
+            CalculatorEvaluationMode.PRECISE
+        )
+        val result = precise.evaluate("1/0")
+        assertEquals(context.getString(R.string.inf), successText(result))
+    }
+
+    @Test
+    fun preciseModeMatchesStandardPercentages() {
+        val precise = CalculatorExpressionEvaluator(
+            CalculatorExpressionTokenizer(context),
+            CalculatorEvaluationMode.PRECISE
+        )
+        for (expression in PERCENT_EXPRESSIONS) {
+            val expected = evaluate(expression).result
+            assertEquals(expression, expected, successText(precise.evaluate(expression)))
+        }
+    }
+
+    @Test
+    fun rationalModeShowsExactFractions() {
+        val rational = CalculatorExpressionEvaluator(
+            CalculatorExpressionTokenizer(context),
+            CalculatorEvaluationMode.RATIONAL
+        )
+        val div = context.getString(R.string.op_div)
+        val sub = context.getString(R.string.op_sub)
+
+        assertEquals("1", successText(rational.evaluate("1/3*3")))
+        assertEquals("0.3", successText(rational.evaluate("0.1+0.2")))
+        assertEquals("1${div}3", successText(rational.evaluate("1/3")))
+        assertEquals("${sub}5${div}6", successText(rational.evaluate("-(1/2+1/3)")))
+    }
+
+    @Test
+    fun rationalModeFallsBackToStandardForIrrationalValues() {
+        val rational = CalculatorExpressionEvaluator(
+            CalculatorExpressionTokenizer(context),
+            CalculatorEvaluationMode.RATIONAL
+        )
+        assertEquals(evaluate("√2+1").result, successText(rational.evaluate("√2+1")))
+        assertEquals(context.getString(R.string.inf), successText(rational.evaluate("1/0")))
+    }
+
+    @Test
+    fun rationalModeMatchesStandardPercentages() {
+        val rational = CalculatorExpressionEvaluator(
+            CalculatorExpressionTokenizer(context),
+            CalculatorEvaluationMode.RATIONAL
+        )
+        for (expression in PERCENT_EXPRESSIONS) {
+            val expected = evaluate(expression).result
+            assertEquals(expression, expected, successText(rational.evaluate(expression)))
+        }
+    }
+
+    @Test
+    fun standardModeEvaluatesLongFormulasAsTheyAreEdited() {
+        val formula = List(500) { "(1+2)" }.joinToString("+")
+        assertEquals("1500", evaluate(formula).result)
+
+        // Editing inside the formula keeps evaluating it rather than reporting it too complex.
+        val edited = formula.replaceFirst("(1+2)", "(10+2)")
+        assertEquals("1509", evaluate(edited).result)
+        assertEquals("1508", evaluate(edited.replaceFirst("2", "1")).result)
+    }
+
     private fun evaluate(expression: String): EvaluationResult {
         val holder = EvaluationResult()
         evaluator.evaluate(expression) { expr, result, errorResourceId ->
@@ -86,9 +169,28 @@ class CalculatorExpressionEvaluatorTest {
         return holder
     }
 
+    private fun successText(result: com.monkopedia.quickcalc.EvaluationResult): String? =
+        (result as? com.monkopedia.quickcalc.EvaluationResult.Success)?.result
+
     private data class EvaluationResult(
         var expr: String = "",
         var result: String? = null,
         var errorResourceId: Int = INVALID_RES_ID
     )
+
+    private companion object {
+        /** Arity takes `a+b%` and `a-b%` as b percent of `a`, but `50*10%` is just 5. */
+        val PERCENT_EXPRESSIONS = listOf(
+            "50+10%",
+            "50-10%",
+            "50*10%",
+            "50/10%",
+            "50+(10%)",
+            "50+10%*2",
+            "1+2+10%",
+            "50+-10%",
+            "50+10%%",
+            "3!%"
+        )
+    }
 }
@@ -19,6 +19,7 @@ package com.monkopedia.quickcalc
 import android.content.Context
 import androidx.test.core.app.ApplicationProvider
 import java.util.Random
+import org.junit.Assert.assertEquals
 import org.junit.Assert.assertTrue
 import org.junit.Assert.fail
 import org.junit.Before
@@ -59,6 +60,63 @@ class CalculatorFuzzTest {
         }
     }
 
+    @Test
+    fun adversarialDepthAndSizeInputsFinishQuickly() {
+        val context: Context = ApplicationProvider.getApplicationContext()
+        val tooComplex = listOf(
+            "(".repeat(5_000) + "1",
+            "(".repeat(5_000) + "1" + ")".repeat(5_000),
+            "(".repeat(200) + "1",
+            List(200) { "(2" }.joinToString("+"),
+            List(200) { "2" }.joinToString("^"),
+            List(100) { "2^(1+" }.joinToString("") + "1",
+            "√".repeat(2_000) + "2",
+            "-".repeat(2_000) + "1",
+            "sin(".repeat(1_000) + "1",
+            List(5_000) { "1" }.joinToString("+"),
+            "1".repeat(5_000) + "*2"
+        )
+        val heavy = listOf(
+            "3" + "!".repeat(200),
+            "99999999!",
+            "9^9^9^9^9",
+            "(1+1/3)^99999",
+            "√".repeat(50) + "2",
+            List(150) { "1/${it + 1}" }.joinToString("+")
+        )
+        for (mode in CalculatorEvaluationMode.entries) {
+            val evaluator =
+                CalculatorExpressionEvaluator(CalculatorExpressionTokenizer(context), mode)
+            for (input in tooComplex + heavy) {
+                val label = "[${input.take(24)}...] in $mode"
+                val startNanos = System.nanoTime()
+                val result = try {
+                    evaluator.evaluate(input)
+                } catch (throwable: Throwable) {
+                    fail("Evaluator crashed for $label: $throwable")
+                    return
+                }
+                val elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000
+                assertTrue("Evaluating $label took $elapsedMillis ms", elapsedMillis < 2_000)
+                if (input in tooComplex) {
+                    assertTrue(
+                        "Expected $label to be too complex: $result",
+                        result is EvaluationResult.TooComplex
+                    )
+                }
+            }
+        }
+    }
+
+    @Test
+    fun tooComplexInputsReportTheirOwnError() {
+        var errorResourceId = INVALID_RES_ID
+        evaluator.evaluate("(".repeat(1_000) + "1") { _, _, resourceId ->
+            errorResourceId = resourceId
+        }
+        assertEquals(R.string.error_too_complex, errorResourceId)
+    }
+
     private fun randomInput(random: Random): String {
         val alphabet = "0123456789+-*/().,∞√^!e@#$%&abcdefghijklmnopqrstuvwxyz"
         val size = random.nextInt(48)
@@ -40,24 +40,6 @@ class CalculatorRegressionTest {
         evaluator = CalculatorExpressionEvaluator(tokenizer)
     }
 
-    @Test
-    fun duplicateTrailingOperatorIsCollapsed() {
-        val builder = CalculatorExpressionBuilder("1+", tokenizer, true)
-
-        builder.replace(builder.length, builder.length, "*", 0, 1)
-
-        assertEquals("1*", tokenizer.getNormalizedExpression(builder.toString()))
-    }
-
-    @Test
-    fun duplicateDecimalInSameNumberIsIgnored() {
-        val builder = CalculatorExpressionBuilder("12.3", tokenizer, true)
-
-        builder.replace(builder.length, builder.length, ".", 0, 1)
-
-        assertEquals("12.3", tokenizer.getNormalizedExpression(builder.toString()))
-    }
-
     @Test
     fun trailingOperatorReturnsTrimmedExpressionWithoutError() {
         val result = evaluate("99/")
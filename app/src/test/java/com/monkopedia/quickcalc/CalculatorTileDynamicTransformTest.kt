@@ -104,4 +104,18 @@ class CalculatorTileDynamicTransformTest {
         assertEquals(0.08f, updated.offsetXFraction, 0.0001f)
         assertEquals(-0.06f, updated.offsetYFraction, 0.0001f)
     }
+
+    @Test
+    fun dynamicTransformState_coerceInKeepsOffsetsWithinThePanelBounds() {
+        val state = DynamicTransformState(
+            DynamicTransform(scale = 100f, offsetXFraction = 0.1f, offsetYFraction = -5f)
+        )
+
+        state.coerceIn(baseFraction = 0.8f)
+
+        val expectedMax = dynamicMaxOffsetFraction(baseFraction = 0.8f, scale = MAX_DIALOG_SCALE)
+        assertEquals(MAX_DIALOG_SCALE, state.scale, 0.0001f)
+        assertEquals(0.1f, state.offsetXFraction, 0.0001f)
+        assertEquals(-expectedMax, state.offsetYFraction, 0.0001f)
+    }
 }
@@ -68,6 +68,16 @@ class CalculatorUiReducerTest {
         assertEquals(CalculatorUiPhase.ERROR, state.phase)
     }
 
+    @Test
+    fun equalsOnDeeplyNestedFormulaReportsTooComplex() {
+        val state = reducer.initialState(
+            initialFormula = "(".repeat(500) + "1",
+            evaluateAsResult = true
+        )
+        assertEquals(CalculatorUiPhase.ERROR, state.phase)
+        assertEquals(context.getString(R.string.error_too_complex), state.resultText)
+    }
+
     // --- Append ---
 
     @Test
@@ -151,6 +161,62 @@ class CalculatorUiReducerTest {
         assertEquals("", state.resultText)
     }
 
+    // --- Cursor ---
+
+    @Test
+    fun editsHappenAtTheCursor() {
+        var state = reducer.initialState("1+3", evaluateAsResult = false)
+        state = reducer.reduce(state, CalculatorUiEvent.MoveCursor(2))
+        state = reducer.reduce(state, CalculatorUiEvent.Append("2"))
+
+        assertEquals("1+23", state.formulaText)
+        assertEquals(3, state.formula.cursor)
+        assertEquals("24", state.resultText)
+
+        state = reducer.reduce(state, CalculatorUiEvent.MoveCursor(1))
+        state = reducer.reduce(state, CalculatorUiEvent.Delete)
+        assertEquals("+23", state.formulaText)
+        assertEquals(0, state.formula.cursor)
+    }
+
+    @Test
+    fun typedLettersAndMixedSpellingsEvaluateAsTheyRead() {
+        var state = CalculatorUiState()
+        for (token in listOf("s", "i", "n", "(", "0", ")", "+", "2", "*", "3")) {
+            state = reducer.reduce(state, CalculatorUiEvent.Append(token))
+        }
+        assertEquals("6", state.resultText)
+
+        state = reducer.reduce(state, CalculatorUiEvent.MoveCursor(8))
+        state = reducer.reduce(state, CalculatorUiEvent.Append("1"))
+        assertEquals("sin(0)+21*3", state.formulaText)
+        assertEquals("63", state.resultText)
+
+        state = reducer.reduce(state, CalculatorUiEvent.MoveCursor(2))
+        state = reducer.reduce(state, CalculatorUiEvent.Delete)
+        assertEquals("sn(0)+21*3", state.formulaText)
+        assertEquals("", state.resultText)
+    }
+
+    @Test
+    fun deleteAtStartOfFormulaReturnsSameState() {
+        val start = reducer.reduce(
+            reducer.initialState("12", evaluateAsResult = false),
+            CalculatorUiEvent.MoveCursor(0)
+        )
+        assertEquals(start, reducer.reduce(start, CalculatorUiEvent.Delete))
+    }
+
+    @Test
+    fun moveCursorIsIgnoredOutsideInput() {
+        val resultState = CalculatorUiState(
+            formulaText = "3",
+            resultText = "3",
+            phase = CalculatorUiPhase.RESULT
+        )
+        assertEquals(resultState, reducer.reduce(resultState, CalculatorUiEvent.MoveCursor(0)))
+    }
+
     // --- Clear ---
 
     @Test
@@ -259,6 +325,115 @@ class CalculatorUiReducerTest {
         assertEquals(error, state)
     }
 
+    // --- RequestMoreResultDigits ---
+
+    @Test
+    fun requestMoreResultDigitsExtendsPreciseResult() {
+        val preciseReducer = CalculatorUiReducer(context, CalculatorEvaluationMode.PRECISE)
+        val input = preciseReducer.initialState(initialFormula = "1/7", evaluateAsResult = false)
+        assertEquals("0.142857142857", input.resultText)
+
+        val state = preciseReducer.reduce(input, CalculatorUiEvent.RequestMoreResultDigits)
+        assertEquals("0.142857142857142857142857", state.resultText)
+        assertEquals(CalculatorUiPhase.INPUT, state.phase)
+    }
+
+    @Test
+    fun requestMoreResultDigitsIsNoOpInStandardMode() {
+        val input = reducer.initialState(initialFormula = "1/7", evaluateAsResult = false)
+        val state = reducer.reduce(input, CalculatorUiEvent.RequestMoreResultDigits)
+        assertEquals(input, state)
+    }
+
+    @Test
+    fun requestMoreResultDigitsIgnoredOutsideInputPhase() {
+        val preciseReducer = CalculatorUiReducer(context, CalculatorEvaluationMode.PRECISE)
+        val result = CalculatorUiState(
+            formulaText = "3",
+            resultText = "3",
+            phase = CalculatorUiPhase.RESULT
+        )
+        val state = preciseReducer.reduce(result, CalculatorUiEvent.RequestMoreResultDigits)
+        assertEquals(result, state)
+    }
+
+    // --- Undo ---
+
+    @Test
+    fun recallReplacesFormulaAndCanBeUndone() {
+        var state = reducer.initialState("12+", evaluateAsResult = false)
+        state = reducer.reduce(state, CalculatorUiEvent.Recall("12+30"))
+        assertEquals("12+30", state.formulaText)
+        assertEquals(5, state.formula.cursor)
+        assertEquals("42", state.resultText)
+
+        state = reducer.reduce(state, CalculatorUiEvent.Undo)
+        assertEquals("12+", state.formulaText)
+    }
+
+    @Test
+    fun undoRestoresPreviousFormulaAndPreview() {
+        var state = reducer.initialState("12+3", evaluateAsResult = false)
+        state = reducer.reduce(state, CalculatorUiEvent.Append("4"))
+        assertEquals("46", state.resultText)
+
+        state = reducer.reduce(state, CalculatorUiEvent.Undo)
+        assertEquals("12+3", state.formulaText)
+        assertEquals("15", state.resultText)
+        assertEquals(CalculatorUiPhase.INPUT, state.phase)
+
+        state = reducer.reduce(state, CalculatorUiEvent.Redo)
+        assertEquals("12+34", state.formulaText)
+        assertEquals("46", state.resultText)
+    }
+
+    @Test
+    fun undoBringsBackClearedFormulaAndResult() {
+        var state = reducer.initialState("6*7", evaluateAsResult = true)
+        state = reducer.reduce(state, CalculatorUiEvent.Clear)
+        assertEquals("", state.formulaText)
+
+        state = reducer.reduce(state, CalculatorUiEvent.Undo)
+        assertEquals("42", state.formulaText)
+        assertEquals(CalculatorUiPhase.RESULT, state.phase)
+    }
+
+    @Test
+    fun undoStepsBackOverEqualsAndCursorMoves() {
+        var state = reducer.initialState("1+2", evaluateAsResult = false)
+        state = reducer.reduce(state, CalculatorUiEvent.MoveCursor(1))
+        state = reducer.reduce(state, CalculatorUiEvent.Append("0"))
+        state = reducer.reduce(state, CalculatorUiEvent.Equals)
+        assertEquals("12", state.formulaText)
+
+        state = reducer.reduce(state, CalculatorUiEvent.Undo)
+        assertEquals("10+2", state.formulaText)
+        assertEquals(2, state.formula.cursor)
+        assertEquals(CalculatorUiPhase.INPUT, state.phase)
+
+        state = reducer.reduce(state, CalculatorUiEvent.Undo)
+        assertEquals("1+2", state.formulaText)
+        assertEquals(1, state.formula.cursor)
+    }
+
+    @Test
+    fun editAfterUndoDropsRedo() {
+        var state = reducer.initialState("1", evaluateAsResult = false)
+        state = reducer.reduce(state, CalculatorUiEvent.Append("2"))
+        state = reducer.reduce(state, CalculatorUiEvent.Undo)
+        state = reducer.reduce(state, CalculatorUiEvent.Append("3"))
+
+        assertEquals(state, reducer.reduce(state, CalculatorUiEvent.Redo))
+        assertEquals("13", state.formulaText)
+    }
+
+    @Test
+    fun undoWithoutHistoryReturnsSameState() {
+        val state = CalculatorUiState(formulaText = "5")
+        assertEquals(state, reducer.reduce(state, CalculatorUiEvent.Undo))
+        assertEquals(state, reducer.reduce(state, CalculatorUiEvent.Redo))
+    }
+
     // --- UiState derived properties ---
 
     @Test
@@ -0,0 +1,56 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import org.junit.Assert.assertArrayEquals
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class FormulaChunkBoundariesTest {
+
+    @Test
+    fun splitsIntoChunksFromTheStart() {
+        assertArrayEquals(intArrayOf(0, 4, 8, 10), formulaChunkBoundaries("1234567890", 4))
+        assertArrayEquals(intArrayOf(0, 4, 8), formulaChunkBoundaries("12345678", 4))
+        assertArrayEquals(intArrayOf(0, 3), formulaChunkBoundaries("123", 4))
+    }
+
+    @Test
+    fun appendingLeavesEarlierChunksAlone() {
+        val text = "1+2×3−4÷5".repeat(40)
+        val before = formulaChunkBoundaries(text)
+        val after = formulaChunkBoundaries(text + "6")
+
+        assertArrayEquals(before.copyOf(before.size - 1), after.copyOf(before.size - 1))
+        assertEquals(text.length + 1, after.last())
+    }
+
+    @Test
+    fun neverSplitsASurrogatePair() {
+        val pair = "𝜋"
+        val text = "123$pair" + "4567"
+
+        val boundaries = formulaChunkBoundaries(text, 4)
+
+        assertArrayEquals(intArrayOf(0, 5, 9), boundaries)
+    }
+
+    @Test
+    fun emptyTextHasNoChunks() {
+        assertArrayEquals(intArrayOf(0), formulaChunkBoundaries(""))
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class FormulaTextFitterTest {
+
+    /** Measurements made, as text to size. */
+    private val measured = ArrayList<Pair<String, Float>>()
+
+    /**
+     * Digits are narrower than operators and letters, and advances round up to whole pixels so
+     * that widths do not scale exactly linearly, as with real fonts.
+     */
+    private fun widthPx(text: String, sizeSp: Float): Float {
+        measured += text to sizeSp
+        val ems = text.sumOf { if (it.isDigit()) 0.55 else 0.7 }
+        return kotlin.math.ceil(ems * sizeSp * DENSITY).toFloat()
+    }
+
+    private fun fitter() = FormulaTextFitter(
+        minSizeSp = 36,
+        maxSizeSp = 64,
+        stepSizeSp = 8,
+        measureWidthPx = ::widthPx
+    )
+
+    /** The size the old linear scan picked: step up from the minimum while the text fits. */
+    private fun linearScanSize(text: String, maxWidthPx: Float): Float {
+        var best = 36
+        var size = 36
+        while (size <= 64 && widthPx(text, size.toFloat()) <= maxWidthPx) {
+            best = size
+            size += 8
+        }
+        return best.toFloat()
+    }
+
+    @Test
+    fun picksTheSameSizeAsALinearScan() {
+        val texts = listOf("7", "12+34", "sin(45)×2", "123456789", "1+2+3+4+5+6", "(√2)^10")
+        val fitter = fitter()
+        for (text in texts) {
+            for (maxWidthPx in listOf(100f, 400f, 720f, 1_000f, 2_000f)) {
+                assertEquals(
+                    "$text in $maxWidthPx px",
+                    linearScanSize(text, maxWidthPx),
+                    fitter.fit(text, maxWidthPx)
+                )
+            }
+        }
+    }
+
+    @Test
+    fun confirmsWithAtMostTwoFullLayouts() {
+        val fitter = fitter()
+        fitter.fit("1234567890+1234", 1_000f)
+        measured.clear()
+
+        fitter.fit("1234567890+1234", 800f)
+
+        assertTrue("Measured $measured", measured.size <= 2)
+        assertTrue(measured.none { it.second == 64f })
+    }
+
+    @Test
+    fun typingMeasuresOnlyTheAppendedToken() {
+        val fitter = fitter()
+        var text = ""
+        for (token in listOf("1", "2", "×", "sin(", "4", "5", ")", "−", "6")) {
+            text += token
+            measured.clear()
+
+            fitter.fit(text, 720f)
+
+            val referenceMeasurements = measured.filter { it.second == 64f }.map { it.first }
+            if (text != token) {
+                assertEquals(listOf(token), referenceMeasurements.take(1))
+            }
+            assertTrue("Measured $measured", measured.size <= 3)
+        }
+    }
+
+    @Test
+    fun returnsTheMaximumForBlankTextAndTheMinimumWhenNothingFits() {
+        val fitter = fitter()
+
+        assertEquals(64f, fitter.fit(" ", 10f))
+        assertEquals(64f, fitter.fit("123", 0f))
+        assertEquals(36f, fitter.fit("1".repeat(200), 500f))
+    }
+
+    private companion object {
+        const val DENSITY = 2.625f
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import android.app.Application
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import org.junit.runner.RunWith
+import org.robolectric.RobolectricTestRunner
+import org.robolectric.annotation.Config
+
+@RunWith(RobolectricTestRunner::class)
+// The app's Application applies the saved diagnostics setting, which would race these tests.
+@Config(sdk = [34], application = Application::class)
+class PerformanceDiagnosticsTest {
+
+    @After
+    fun tearDown() {
+        PerformanceDiagnostics.enabled = false
+        PerformanceDiagnostics.clear()
+    }
+
+    @Test
+    fun recordsNothingWhileDisabled() {
+        PerformanceDiagnostics.enabled = false
+
+        PerformanceDiagnostics.recordSince(
+            DiagnosticMetric.EVALUATION,
+            PerformanceDiagnostics.start()
+        )
+        PerformanceDiagnostics.recordFrame(janky = true)
+
+        val snapshot = PerformanceDiagnostics.snapshot()
+        assertEquals(0, snapshot.percentiles(DiagnosticMetric.EVALUATION).count)
+        assertEquals(0L, snapshot.frames)
+    }
+
+    @Test
+    fun ignoresStartsTakenWhileDisabled() {
+        val startNanos = PerformanceDiagnostics.start()
+        PerformanceDiagnostics.enabled = true
+
+        PerformanceDiagnostics.recordSince(DiagnosticMetric.TILE_OPEN, startNanos)
+
+        assertEquals(
+            0,
+            PerformanceDiagnostics.snapshot().percentiles(DiagnosticMetric.TILE_OPEN).count
+        )
+    }
+
+    @Test
+    fun reportSummarizesAndListsEverySample() {
+        PerformanceDiagnostics.enabled = true
+        repeat(3) {
+            PerformanceDiagnostics.recordSince(
+                DiagnosticMetric.EVALUATION,
+                PerformanceDiagnostics.start()
+            )
+        }
+        PerformanceDiagnostics.recordFrame(janky = false)
+        PerformanceDiagnostics.recordFrame(janky = true)
+
+        val report = StringBuilder().also {
+            PerformanceDiagnostics.snapshot().writeReport(it)
+        }.lines()
+
+        assertTrue(report.any { it.startsWith("# evaluation n=3 ") })
+        assertTrue(report.any { it.startsWith("# evaluation histogram ") })
+        assertTrue(report.contains("# frames n=2 janky=1"))
+        assertEquals(3, report.count { it.startsWith("evaluation,") })
+    }
+
+    @Test
+    fun keystrokesAreRecordedOnceTheirStateIsDrawn() {
+        PerformanceDiagnostics.enabled = true
+        val tracker = KeystrokeLatencyTracker()
+        val previous = CalculatorUiState()
+        val next = CalculatorUiState(CalculatorFormula.of("1"), "1", sequence = 1L)
+
+        tracker.keystroke { tracker.onReduced(previous, next) }
+        tracker.onDrawn(previous)
+        assertEquals(0L, keystrokeHistogram().total)
+
+        tracker.onDrawn(next)
+        tracker.onDrawn(next)
+        assertEquals(1L, keystrokeHistogram().total)
+        assertEquals(
+            1,
+            PerformanceDiagnostics.snapshot()
+                .percentiles(DiagnosticMetric.KEYSTROKE_TO_FRAME)
+                .count
+        )
+    }
+
+    @Test
+    fun keystrokesBeforeAFrameAreAllRecordedAgainstIt() {
+        PerformanceDiagnostics.enabled = true
+        val tracker = KeystrokeLatencyTracker()
+        val first = CalculatorUiState(CalculatorFormula.of("1"), "1", sequence = 1L)
+        val second = CalculatorUiState(CalculatorFormula.of("12"), "12", sequence = 2L)
+
+        tracker.keystroke { tracker.onReduced(CalculatorUiState(), first) }
+        tracker.keystroke { tracker.onReduced(first, second) }
+        tracker.onDrawn(second)
+
+        assertEquals(2L, keystrokeHistogram().total)
+    }
+
+    @Test
+    fun ignoresKeystrokesThatChangeNothingAndChangesWithoutKeystrokes() {
+        PerformanceDiagnostics.enabled = true
+        val tracker = KeystrokeLatencyTracker()
+        val state = CalculatorUiState(CalculatorFormula.of("1"), "1")
+        val moved = state.copy(formula = CalculatorFormula.of("1", cursor = 0))
+        val recalled = CalculatorUiState(CalculatorFormula.of("2"), "2")
+
+        tracker.keystroke { tracker.onReduced(state, moved) }
+        tracker.onReduced(moved, recalled)
+        tracker.onDrawn(moved)
+        tracker.onDrawn(recalled)
+
+        assertEquals(0L, keystrokeHistogram().total)
+    }
+
+    @Test
+    fun aKeystrokeIsRecordedWhenAStateReplacingItsOwnIsDrawn() {
+        PerformanceDiagnostics.enabled = true
+        val tracker = KeystrokeLatencyTracker()
+        val previous = CalculatorUiState(CalculatorFormula.of("1"), "1", sequence = 1L)
+        val next = CalculatorUiState(CalculatorFormula.of("1/3"), "0.33", sequence = 2L)
+        // The background refiner swaps in more digits before the keystroke's frame.
+        val refined = next.copy(resultText = "0.3333333333")
+
+        tracker.keystroke { tracker.onReduced(previous, next) }
+        tracker.onDrawn(previous)
+        assertEquals(0L, keystrokeHistogram().total)
+
+        tracker.onDrawn(refined)
+        assertEquals(1L, keystrokeHistogram().total)
+    }
+
+    @Test
+    fun aKeystrokeIsRecordedOnceWhenARecallReplacesItsState() {
+        PerformanceDiagnostics.enabled = true
+        val tracker = KeystrokeLatencyTracker()
+        val previous = CalculatorUiState(CalculatorFormula.of("1"), "1", sequence = 1L)
+        val next = CalculatorUiState(CalculatorFormula.of("12"), "12", sequence = 2L)
+        val recalled = CalculatorUiState(CalculatorFormula.of("7*6"), "42", sequence = 3L)
+
+        tracker.keystroke { tracker.onReduced(previous, next) }
+        tracker.onReduced(next, recalled)
+        tracker.onDrawn(recalled)
+        tracker.onDrawn(recalled)
+
+        assertEquals(1L, keystrokeHistogram().total)
+    }
+
+    private fun keystrokeHistogram() =
+        PerformanceDiagnostics.snapshot().histogram(DiagnosticMetric.KEYSTROKE_TO_FRAME)
+}
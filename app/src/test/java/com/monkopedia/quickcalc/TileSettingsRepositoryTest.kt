@@ -51,6 +51,12 @@ class TileSettingsRepositoryTest {
         assertEquals(TileSizeMode.DYNAMIC, repository.snapshot().sizeMode)
     }
 
+    @Test
+    fun setEvaluationMode_roundTrips() = runBlocking {
+        repository.setEvaluationMode(CalculatorEvaluationMode.PRECISE)
+        assertEquals(CalculatorEvaluationMode.PRECISE, repository.snapshot().evaluationMode)
+    }
+
     @Test
     fun setStaticAlignment_roundTrips() = runBlocking {
         repository.setStaticAlignment(TileStaticAlignment.TOP_END)
@@ -104,6 +110,56 @@ class TileSettingsRepositoryTest {
         assertEquals(-0.2f, settings.dynamicOffsetYFraction, 0.001f)
     }
 
+    @Test
+    fun setDialogBlurRadiusCapPx_roundTripsAndClampsNegative() = runBlocking {
+        repository.setDialogBlurRadiusCapPx(72)
+        assertEquals(72, repository.snapshot().dialogBlurRadiusCapPx)
+
+        repository.setDialogBlurRadiusCapPx(-1)
+        assertEquals(0, repository.snapshot().dialogBlurRadiusCapPx)
+    }
+
+    @Test
+    fun cleanDialogBlurSessions_raiseTheCapUntilItIsGone() = runBlocking {
+        repository.setDialogBlurRadiusCapPx(0)
+        repeat(DialogBlurCap.RECOVERY_SESSIONS) { repository.recordCleanDialogBlurSession() }
+        val subtle = dialogWindowBackgroundBlurRadiusPx(TileDialogBackgroundMode.BLUR_SUBTLE)
+        assertEquals(subtle, repository.snapshot().dialogBlurRadiusCapPx)
+        assertEquals(0, repository.snapshot().dialogBlurCleanSessions)
+
+        repeat(DialogBlurCap.RECOVERY_SESSIONS * 3) { repository.recordCleanDialogBlurSession() }
+        assertEquals(UNCAPPED_DIALOG_BLUR_RADIUS_PX, repository.snapshot().dialogBlurRadiusCapPx)
+    }
+
+    @Test
+    fun loweringTheDialogBlurCap_restartsTheCleanSessionCount() = runBlocking {
+        repository.setDialogBlurRadiusCapPx(72)
+        repository.recordCleanDialogBlurSession()
+        assertEquals(1, repository.snapshot().dialogBlurCleanSessions)
+
+        repository.setDialogBlurRadiusCapPx(12)
+        assertEquals(0, repository.snapshot().dialogBlurCleanSessions)
+    }
+
+    @Test
+    fun changingTheDialogBackground_clearsTheBlurCap() = runBlocking {
+        repository.setDialogBlurRadiusCapPx(12)
+        repository.recordCleanDialogBlurSession()
+
+        repository.setDialogBackgroundMode(TileDialogBackgroundMode.BLUR_LIGHT)
+        val settings = repository.snapshot()
+        assertEquals(UNCAPPED_DIALOG_BLUR_RADIUS_PX, settings.dialogBlurRadiusCapPx)
+        assertEquals(0, settings.dialogBlurCleanSessions)
+    }
+
+    @Test
+    fun clearDialogBlurRadiusCap_restoresTheChosenBlur() = runBlocking {
+        repository.setDialogBlurRadiusCapPx(0)
+
+        repository.clearDialogBlurRadiusCap()
+        assertEquals(UNCAPPED_DIALOG_BLUR_RADIUS_PX, repository.snapshot().dialogBlurRadiusCapPx)
+    }
+
     @Test
     fun setDialogInactivityTimeout_normalizes() = runBlocking {
         repository.setDialogInactivityTimeoutSeconds(5)
@@ -1,5 +1,9 @@
 plugins {
     base
+    alias(libs.plugins.android.application) apply false
+    alias(libs.plugins.kotlin.android) apply false
+    alias(libs.plugins.kotlin.compose) apply false
+    alias(libs.plugins.kotlin.jvm) apply false
 }
 
 fun compareSemanticVersions(actual: String, minimum: String): Int {
@@ -44,13 +48,20 @@ tasks.register("verifyMinimumDependencyVersions") {
             ?: error("Unable to read kotlinCompose version from gradle/libs.versions.toml")
         verifyMinimumVersion("Kotlin plugin version", kotlinVersion, "2.3.0")
 
-        val lockLines = file("app/gradle.lockfile").readLines()
-        fun lockedVersionFor(module: String, configuration: String): String {
+        fun lockedVersionFor(
+            module: String,
+            configuration: String,
+            lockfile: String = "app/gradle.lockfile"
+        ): String {
+            val lockLines = file(lockfile).takeIf { it.exists() }?.readLines() ?: error(
+                "Missing $lockfile; write it with " +
+                    "./gradlew :${lockfile.substringBefore('/')}:dependencies --write-locks"
+            )
             val lockLine = lockLines.firstOrNull { line ->
                 line.startsWith("$module:") &&
                     line.substringAfter("=").split(",").contains(configuration)
             } ?: error(
-                "Missing lockfile entry for $module in configuration $configuration"
+                "Missing $lockfile entry for $module in configuration $configuration"
             )
             return lockLine.substringAfter("$module:").substringBefore("=")
         }
@@ -65,6 +76,17 @@ tasks.register("verifyMinimumDependencyVersions") {
             "2.3.0"
         )
 
+        val coreKotlinStdlibVersion = lockedVersionFor(
+            module = "org.jetbrains.kotlin:kotlin-stdlib",
+            configuration = "runtimeClasspath",
+            lockfile = "core/gradle.lockfile"
+        )
+        verifyMinimumVersion(
+            "Kotlin stdlib (core runtimeClasspath)",
+            coreKotlinStdlibVersion,
+            "2.3.0"
+        )
+
         val composeUiVersion = lockedVersionFor(
             module = "androidx.compose.ui:ui",
             configuration = "debugRuntimeClasspath"
@@ -82,22 +104,27 @@ tasks.named("check") {
     dependsOn("verifyMinimumDependencyVersions")
     dependsOn(":app:ktlintCheck")
     dependsOn(":app:detektCheck")
+    dependsOn(":core:ktlintCheck")
+    dependsOn(":core:detektCheck")
 }
 
 tasks.register("ktlintCheck") {
     group = "verification"
     description = "Runs ktlint checks for all modules."
     dependsOn(":app:ktlintCheck")
+    dependsOn(":core:ktlintCheck")
 }
 
 tasks.register("ktlintFormat") {
     group = "formatting"
     description = "Formats Kotlin files for all modules."
     dependsOn(":app:ktlintFormat")
+    dependsOn(":core:ktlintFormat")
 }
 
 tasks.register("detektCheck") {
     group = "verification"
     description = "Runs detekt checks for all modules."
     dependsOn(":app:detektCheck")
+    dependsOn(":core:detektCheck")
 }
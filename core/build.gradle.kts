@@ -0,0 +1,81 @@
+import org.jetbrains.kotlin.gradle.dsl.JvmTarget
+import org.jetbrains.kotlin.gradle.tasks.KotlinCompile
+
+plugins {
+    alias(libs.plugins.kotlin.jvm)
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_17
+    targetCompatibility = JavaVersion.VERSION_17
+}
+
+tasks.withType<KotlinCompile>().configureEach {
+    compilerOptions {
+        jvmTarget.set(JvmTarget.JVM_17)
+        allWarningsAsErrors.set(true)
+        freeCompilerArgs.add("-Xjsr305=strict")
+    }
+}
+
+dependencies {
+    implementation(files("libs/arity-2.1.2.jar"))
+    api(libs.kotlinx.coroutines.core)
+
+    testImplementation(libs.junit4)
+}
+
+val ktlint by configurations.creating
+val detekt by configurations.creating
+
+dependencies {
+    ktlint(libs.ktlint.cli)
+    detekt(libs.detekt.cli)
+}
+
+tasks.register<JavaExec>("ktlintCheck") {
+    group = "verification"
+    description = "Runs ktlint checks for core module Kotlin sources."
+    classpath = ktlint
+    mainClass.set("com.pinterest.ktlint.Main")
+    args(
+        "--relative",
+        "src/**/*.kt",
+        "build.gradle.kts"
+    )
+}
+
+tasks.register<JavaExec>("ktlintFormat") {
+    group = "formatting"
+    description = "Formats core module Kotlin sources with ktlint."
+    classpath = ktlint
+    mainClass.set("com.pinterest.ktlint.Main")
+    args(
+        "-F",
+        "--relative",
+        "src/**/*.kt",
+        "build.gradle.kts"
+    )
+}
+
+tasks.register<JavaExec>("detektCheck") {
+    group = "verification"
+    description = "Runs detekt on Kotlin production sources."
+    classpath = detekt
+    mainClass.set("io.gitlab.arturbosch.detekt.cli.Main")
+    args(
+        "--build-upon-default-config",
+        "--max-issues",
+        "999",
+        "--input",
+        "src/main/java/com/monkopedia/quickcalc/CalculatorExpressionEvaluator.kt," +
+            "src/main/java/com/monkopedia/quickcalc/CalculatorExpressionTokenizer.kt",
+        "--base-path",
+        projectDir.absolutePath
+    )
+}
+
+dependencyLocking {
+    lockAllConfigurations()
+    ignoredDependencies.add("org.jetbrains.kotlin:kotlin-stdlib-common")
+}
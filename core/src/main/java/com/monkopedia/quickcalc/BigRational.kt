@@ -0,0 +1,182 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.math.BigDecimal
+import java.math.BigInteger
+import java.math.MathContext
+import java.math.RoundingMode
+
+/**
+ * An exact rational number with [BigInteger] numerator and denominator.
+ *
+ * Results are not reduced after every operation. Computing a gcd on each step makes long chains
+ * of additions quadratic in practice, so a value is only reduced once its size crosses a threshold
+ * that grows with the size of the last reduced form. [reduced] always returns lowest terms.
+ */
+class BigRational private constructor(
+    val numerator: BigInteger,
+    val denominator: BigInteger,
+    /** Bit length of this value the last time it was reduced, used to pace reductions. */
+    private val reducedBitLength: Int
+) : Comparable<BigRational> {
+
+    val bitLength: Int
+        get() = maxOf(numerator.bitLength(), denominator.bitLength())
+
+    val isInteger: Boolean
+        get() = denominator == BigInteger.ONE || numerator.mod(denominator).signum() == 0
+
+    fun signum(): Int = numerator.signum()
+
+    operator fun plus(other: BigRational): BigRational = if (denominator == other.denominator) {
+        of(numerator + other.numerator, denominator, pacing(other))
+    } else {
+        of(
+            numerator * other.denominator + other.numerator * denominator,
+            denominator * other.denominator,
+            pacing(other)
+        )
+    }
+
+    operator fun minus(other: BigRational): BigRational = plus(-other)
+
+    operator fun times(other: BigRational): BigRational =
+        of(numerator * other.numerator, denominator * other.denominator, pacing(other))
+
+    operator fun div(other: BigRational): BigRational {
+        if (other.numerator.signum() == 0) {
+            throw ArithmeticException("Division by zero")
+        }
+        return of(numerator * other.denominator, denominator * other.numerator, pacing(other))
+    }
+
+    operator fun unaryMinus(): BigRational =
+        BigRational(numerator.negate(), denominator, reducedBitLength)
+
+    fun pow(exponent: Int): BigRational {
+        val base = reduced()
+        return if (exponent >= 0) {
+            BigRational(base.numerator.pow(exponent), base.denominator.pow(exponent), 0)
+        } else {
+            ONE / BigRational(base.numerator.pow(-exponent), base.denominator.pow(-exponent), 0)
+        }
+    }
+
+    /** Returns this value in lowest terms. */
+    fun reduced(): BigRational {
+        val gcd = numerator.gcd(denominator)
+        if (gcd == BigInteger.ONE) {
+            return BigRational(numerator, denominator, bitLength)
+        }
+        val numerator = numerator / gcd
+        val denominator = denominator / gcd
+        return BigRational(
+            numerator,
+            denominator,
+            maxOf(numerator.bitLength(), denominator.bitLength())
+        )
+    }
+
+    fun toBigDecimal(mathContext: MathContext): BigDecimal =
+        BigDecimal(numerator).divide(BigDecimal(denominator), mathContext)
+
+    /**
+     * Formats the value exactly when it is short enough: integers and terminating decimals in
+     * plain notation and everything else as `numerator/denominator`. Longer values are rounded to
+     * [maxDigits] significant digits.
+     */
+    fun toDisplayString(maxDigits: Int): String {
+        val value = reduced()
+        val exact = if (value.denominator == BigInteger.ONE) {
+            value.numerator.toString()
+        } else if (value.hasTerminatingDecimal()) {
+            BigDecimal(value.numerator).divide(BigDecimal(value.denominator)).toPlainString()
+        } else {
+            "${value.numerator}/${value.denominator}"
+        }
+        if (exact.length <= MAX_EXACT_DISPLAY_LENGTH) {
+            return exact
+        }
+        return formatDecimal(
+            value.toBigDecimal(MathContext(maxDigits + GUARD_DIGITS, RoundingMode.HALF_EVEN)),
+            maxDigits
+        )
+    }
+
+    override fun compareTo(other: BigRational): Int =
+        (numerator * other.denominator).compareTo(other.numerator * denominator)
+
+    override fun equals(other: Any?): Boolean = other is BigRational && compareTo(other) == 0
+
+    override fun hashCode(): Int {
+        val value = reduced()
+        return 31 * value.numerator.hashCode() + value.denominator.hashCode()
+    }
+
+    override fun toString(): String = "$numerator/$denominator"
+
+    private fun hasTerminatingDecimal(): Boolean {
+        var remaining = denominator
+        val twos = remaining.lowestSetBit
+        remaining = remaining.shiftRight(twos)
+        while (remaining.mod(FIVE).signum() == 0) {
+            remaining /= FIVE
+        }
+        return remaining == BigInteger.ONE
+    }
+
+    private fun pacing(other: BigRational): Int = maxOf(reducedBitLength, other.reducedBitLength)
+
+    companion object {
+        /** Values smaller than this many bits are never reduced eagerly. */
+        private const val REDUCE_THRESHOLD_BITS = 256
+        private const val MAX_EXACT_DISPLAY_LENGTH = 32
+        private const val GUARD_DIGITS = 3
+        private val FIVE: BigInteger = BigInteger.valueOf(5)
+
+        val ZERO = BigRational(BigInteger.ZERO, BigInteger.ONE, 0)
+        val ONE = BigRational(BigInteger.ONE, BigInteger.ONE, 0)
+
+        fun valueOf(value: BigDecimal): BigRational = if (value.scale() <= 0) {
+            BigRational(value.toBigIntegerExact(), BigInteger.ONE, 0)
+        } else {
+            of(value.unscaledValue(), BigInteger.TEN.pow(value.scale()), 0)
+        }
+
+        fun valueOf(value: Long): BigRational =
+            BigRational(BigInteger.valueOf(value), BigInteger.ONE, 0)
+
+        private fun of(
+            numerator: BigInteger,
+            denominator: BigInteger,
+            reducedBitLength: Int
+        ): BigRational {
+            val value = if (denominator.signum() < 0) {
+                BigRational(numerator.negate(), denominator.negate(), reducedBitLength)
+            } else {
+                BigRational(numerator, denominator, reducedBitLength)
+            }
+            // Reduce only when the value has grown well past its last reduced size.
+            return if (value.bitLength > maxOf(REDUCE_THRESHOLD_BITS, 2 * reducedBitLength)) {
+                value.reduced()
+            } else {
+                value
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.util.PriorityQueue
+
+/**
+ * Finds entries of a [CalculationHistoryLog] whose formula or result starts with a prefix.
+ *
+ * Formulas and results are indexed by their [normalize]d text, so a prefix typed in one
+ * spelling finds entries recorded in another. Keys are kept in a sorted array, searched by
+ * bisection, with the newest tape position of each key beside it and a tree of the newest
+ * position in each run of keys above that. New entries go to a small unsorted tail first, which
+ * is merged into the array once it fills. Most additions only append to the tail, but each merge
+ * rebuilds the array and tree, so an addition costs O(n / [TAIL_CAPACITY]) amortized.
+ *
+ * The keys starting with a prefix are one run of the array, so a search finds the newest of them
+ * by walking the tree, in O(log n) per match however many keys the prefix has.
+ */
+class CalculationHistoryIndex(private val normalize: (String) -> String) {
+
+    /** A matching entry, and whether it was its result rather than its formula that matched. */
+    data class Match(val position: Int, val matchesResult: Boolean)
+
+    private var keys = emptyArray<String>()
+
+    /** Tape position times two, plus one for results, of the newest entry with each key. */
+    private var values = IntArray(0)
+
+    /**
+     * A segment tree over [values]: element `keys.size + i` is `i`, and every element below that
+     * is whichever of its two children has the greater value.
+     */
+    private var newest = IntArray(0)
+
+    private val tailKeys = ArrayList<String>(TAIL_CAPACITY)
+    private val tailValues = IntArray(TAIL_CAPACITY)
+
+    /** Number of tape entries indexed, i.e. the position the next one must have. */
+    var size: Int = 0
+        private set
+
+    fun add(entry: CalculationHistoryLog.Entry) {
+        addKey(normalize(entry.formula), size * 2)
+        addKey(normalize(entry.result), size * 2 + 1)
+        size++
+    }
+
+    /**
+     * Returns up to [limit] entries, newest first, with a formula or result that starts with,
+     * but is not equal to, [prefix] once normalized.
+     */
+    fun search(prefix: String, limit: Int): List<Match> {
+        val normalized = normalize(prefix)
+        if (normalized.isEmpty() || limit <= 0) {
+            return emptyList()
+        }
+        // A key can be both in the array and, repeated since, in the tail; show it once.
+        val seenKeys = HashSet<String>()
+        val seenPositions = HashSet<Int>()
+        val matches = ArrayList<Match>(limit)
+        fun offer(key: String, value: Int): Boolean {
+            val position = value / 2
+            if (seenKeys.add(key) && seenPositions.add(position)) {
+                matches += Match(position, value % 2 == 1)
+            }
+            return matches.size == limit
+        }
+
+        // The tail holds every entry added since the last merge, so its matches are the newest.
+        val tailMatches = tailKeys.indices
+            .filter { tailKeys[it].completes(normalized) }
+            .sortedByDescending { tailValues[it] }
+        for (tailIndex in tailMatches) {
+            if (offer(tailKeys[tailIndex], tailValues[tailIndex])) {
+                return matches
+            }
+        }
+
+        var from = lowerBound(normalized)
+        if (from < keys.size && keys[from] == normalized) {
+            from++
+        }
+        val to = prefixEnd(normalized, from)
+        // Take the newest key of a run, then look for the next newest on either side of it.
+        val runs = PriorityQueue<Run>(compareByDescending { values[it.newest] })
+        if (from < to) {
+            runs += Run(from, to, newestIn(from, to))
+        }
+        while (runs.isNotEmpty()) {
+            val run = runs.poll()
+            if (offer(keys[run.newest], values[run.newest])) {
+                break
+            }
+            if (run.from < run.newest) {
+                runs += Run(run.from, run.newest, newestIn(run.from, run.newest))
+            }
+            if (run.newest + 1 < run.to) {
+                runs += Run(run.newest + 1, run.to, newestIn(run.newest + 1, run.to))
+            }
+        }
+        return matches
+    }
+
+    private fun addKey(key: String, value: Int) {
+        if (key.isEmpty()) {
+            return
+        }
+        tailValues[tailKeys.size] = value
+        tailKeys += key
+        if (tailKeys.size == TAIL_CAPACITY) {
+            merge()
+        }
+    }
+
+    /** Merges the tail into the sorted keys, keeping the newest value of each key. */
+    private fun merge() {
+        val tailOrder = tailKeys.indices.sortedWith(
+            compareBy<Int> { tailKeys[it] }.thenByDescending { tailValues[it] }
+        )
+        val mergedKeys = arrayOfNulls<String>(keys.size + tailOrder.size)
+        val mergedValues = IntArray(mergedKeys.size)
+        var size = 0
+        var sorted = 0
+        var tail = 0
+        while (sorted < keys.size || tail < tailOrder.size) {
+            val takeTail = sorted == keys.size ||
+                tail < tailOrder.size && tailKeys[tailOrder[tail]] <= keys[sorted]
+            val key: String
+            val value: Int
+            if (takeTail) {
+                key = tailKeys[tailOrder[tail]]
+                value = tailValues[tailOrder[tail]]
+                tail++
+            } else {
+                key = keys[sorted]
+                value = values[sorted]
+                sorted++
+            }
+            // Tail values are newer than sorted ones and come first among equal keys.
+            if (size > 0 && mergedKeys[size - 1] == key) {
+                continue
+            }
+            mergedKeys[size] = key
+            mergedValues[size] = value
+            size++
+        }
+        @Suppress("UNCHECKED_CAST")
+        keys = mergedKeys.copyOf(size) as Array<String>
+        values = mergedValues.copyOf(size)
+        newest = IntArray(size * 2)
+        for (index in 0 until size) {
+            newest[size + index] = index
+        }
+        for (node in size - 1 downTo 1) {
+            newest[node] = newer(newest[node * 2], newest[node * 2 + 1])
+        }
+        tailKeys.clear()
+    }
+
+    /** The index of the key in [from] until [to] with the newest value. */
+    private fun newestIn(from: Int, to: Int): Int {
+        var best = -1
+        var low = from + keys.size
+        var high = to + keys.size
+        while (low < high) {
+            if (low and 1 == 1) {
+                best = newer(best, newest[low++])
+            }
+            if (high and 1 == 1) {
+                best = newer(best, newest[--high])
+            }
+            low = low ushr 1
+            high = high ushr 1
+        }
+        return best
+    }
+
+    /** Whichever of the keys at [first] and [second] is newer; a negative [first] is none. */
+    private fun newer(first: Int, second: Int): Int =
+        if (first < 0 || values[second] > values[first]) second else first
+
+    private fun lowerBound(key: String): Int {
+        var low = 0
+        var high = keys.size
+        while (low < high) {
+            val middle = (low + high) ushr 1
+            if (keys[middle] < key) low = middle + 1 else high = middle
+        }
+        return low
+    }
+
+    /** Whether this key starts with, but is not equal to, [prefix]. */
+    private fun String.completes(prefix: String): Boolean =
+        length > prefix.length && startsWith(prefix)
+
+    /** The index of the first key after [from] that does not start with [prefix]. */
+    private fun prefixEnd(prefix: String, from: Int): Int {
+        var low = from
+        var high = keys.size
+        while (low < high) {
+            val middle = (low + high) ushr 1
+            if (keys[middle].startsWith(prefix)) low = middle + 1 else high = middle
+        }
+        return low
+    }
+
+    /** Keys [from] until [to], of which the key at [newest] has the newest value. */
+    private class Run(val from: Int, val to: Int, val newest: Int)
+
+    companion object {
+        /** Keys added before the tail is merged into the sorted array. */
+        private const val TAIL_CAPACITY = 512
+    }
+}
+
+/** A recorded calculation that completes what is being typed. */
+data class CalculationHistorySuggestion(
+    val entry: CalculationHistoryLog.Entry,
+    /** Whether the result, rather than the formula, is what completes the typed text. */
+    val matchesResult: Boolean
+) {
+    /** The text that replaces the formula when this suggestion is chosen. */
+    val recalledText: String
+        get() = if (matchesResult) entry.result else entry.formula
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.io.Closeable
+import java.io.File
+import java.io.IOException
+import java.io.RandomAccessFile
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.util.concurrent.ConcurrentHashMap
+import kotlinx.coroutines.flow.MutableStateFlow
+import kotlinx.coroutines.flow.StateFlow
+import kotlinx.coroutines.flow.asStateFlow
+
+/**
+ * The formulas evaluated with equals and their results, as an append-only tape on disk.
+ *
+ * Entries are appended to a log file as length-prefixed records, and the offset of each record
+ * is appended to a sidecar index of fixed-width longs. Appending writes one record and one
+ * offset, and reading a page of entries reads its offsets and then its records in one pass, so
+ * neither depends on how many entries the tape holds. Opening reads the two headers and checks
+ * only the newest records: a record or offset torn by a crash is dropped, and records the index
+ * is missing are indexed again.
+ *
+ * Once the log grows past `maxLogBytes`, the newest entries that fit in three quarters of it are
+ * copied to a new generation of the files, which replaces the old one. The index names the
+ * generation of the log it describes; if a crash leaves them apart, the index is rebuilt from
+ * the log the next time the tape is opened.
+ *
+ * Entries are numbered from the oldest retained one. Access is synchronized, but all of it does
+ * file I/O and belongs off the main thread.
+ *
+ * Several processes can share a tape. Every call holds a lock on a third file, which also names
+ * the current generation, and first picks up whatever other processes wrote since this one last
+ * looked: new records, or new files after they compacted or cleared the tape. [revision] only
+ * changes when this process calls in, so [refresh] is there to look without doing anything else.
+ */
+class CalculationHistoryLog(
+    private val directory: File,
+    private val maxLogBytes: Long = DEFAULT_MAX_LOG_BYTES
+) : Closeable {
+
+    data class Entry(val formula: String, val result: String)
+
+    /** Which generation of the files the tape is in and how many entries it holds. */
+    data class Revision(val generation: Long, val size: Int)
+
+    private lateinit var log: RandomAccessFile
+    private lateinit var index: RandomAccessFile
+    private val lockFile: RandomAccessFile
+    private val lockChannel: FileChannel
+    private val sharedGeneration = ByteBuffer.allocate(Long.SIZE_BYTES)
+
+    /** Shared by every tape on the same files in this process, since file locks are not. */
+    private val monitor: Any
+
+    private var generation = 0L
+    private var logLength = 0L
+    private var size = 0
+
+    private val mutableRevision: MutableStateFlow<Revision>
+
+    /**
+     * Changes after every append, compaction and clear, including those of other processes once
+     * this one has picked them up.
+     */
+    val revision: StateFlow<Revision>
+
+    init {
+        require(maxLogBytes > HEADER_BYTES + RECORD_PREFIX_BYTES) { "maxLogBytes too small" }
+        directory.mkdirs()
+        val lockPath = File(directory, LOCK_FILE_NAME)
+        lockFile = RandomAccessFile(lockPath, "rw")
+        lockChannel = lockFile.channel
+        monitor = monitors.computeIfAbsent(lockPath.canonicalPath) { Any() }
+        synchronized(monitor) {
+            val lock = lockChannel.lock()
+            try {
+                open()
+            } finally {
+                lock.release()
+            }
+        }
+        mutableRevision = MutableStateFlow(Revision(generation, size))
+        revision = mutableRevision.asStateFlow()
+    }
+
+    val entryCount: Int
+        get() = locked { size }
+
+    /** Bytes used by the log, excluding its index. */
+    val logBytes: Long
+        get() = locked { logLength }
+
+    /** Picks up the entries other processes have written, updating [revision] if there are any. */
+    fun refresh() {
+        locked { }
+    }
+
+    /** Appends an entry as the newest one, compacting the tape if it has outgrown its cap. */
+    fun append(formula: String, result: String) = locked {
+        val formulaBytes = formula.encodeToByteArray()
+        val resultBytes = result.encodeToByteArray()
+        val payloadLength = Int.SIZE_BYTES + formulaBytes.size + resultBytes.size
+        val record = ByteBuffer.allocate(RECORD_PREFIX_BYTES + payloadLength)
+            .putInt(payloadLength)
+            .putInt(formulaBytes.size)
+            .put(formulaBytes)
+            .put(resultBytes)
+            .array()
+        // The log is written first, so a crash in between leaves a record opening re-indexes.
+        log.seek(logLength)
+        log.write(record)
+        index.seek(HEADER_BYTES + size.toLong() * Long.SIZE_BYTES)
+        index.writeLong(logLength)
+        logLength += record.size
+        size++
+        if (logLength > maxLogBytes) {
+            compact(maxLogBytes * COMPACT_NUMERATOR / COMPACT_DENOMINATOR)
+        }
+        publish()
+    }
+
+    fun read(position: Int): Entry = read(position, position + 1).single()
+
+    /** Reads the entries from [from] until [to], oldest first. */
+    fun read(from: Int, to: Int): List<Entry> = locked {
+        if (from < 0 || to > size || from > to) {
+            throw IndexOutOfBoundsException("Range $from..$to out of bounds for size $size")
+        }
+        if (from == to) {
+            return@locked emptyList()
+        }
+        val offsets = LongArray(to - from + 1)
+        val offsetBytes = ByteArray((to - from) * Long.SIZE_BYTES)
+        index.seek(HEADER_BYTES + from.toLong() * Long.SIZE_BYTES)
+        index.readFully(offsetBytes)
+        val offsetBuffer = ByteBuffer.wrap(offsetBytes)
+        for (i in 0 until to - from) {
+            offsets[i] = offsetBuffer.getLong()
+        }
+        offsets[to - from] = if (to == size) logLength else offsetAt(to)
+
+        val records = ByteArray((offsets.last() - offsets.first()).toInt())
+        log.seek(offsets.first())
+        log.readFully(records)
+        val buffer = ByteBuffer.wrap(records)
+        List(to - from) { decode(buffer) }
+    }
+
+    /** Removes every entry. */
+    fun clear() = locked {
+        replaceWith(generation + 1, ByteArray(0), LongArray(0))
+        publish()
+    }
+
+    override fun close() {
+        synchronized(monitor) {
+            closeFiles()
+            lockFile.close()
+        }
+    }
+
+    /** Runs [block] holding the tape's lock, once caught up with other processes. */
+    private inline fun <T> locked(block: () -> T): T = synchronized(monitor) {
+        val lock = lockChannel.lock()
+        try {
+            catchUp()
+            block()
+        } finally {
+            lock.release()
+        }
+    }
+
+    /** Picks up what other processes wrote since this one last held the lock. */
+    private fun catchUp() {
+        when {
+            readSharedGeneration() != generation -> {
+                // The files were replaced, so the ones open here are no longer the tape's.
+                closeFiles()
+                open()
+            }
+
+            log.length() != logLength ||
+                index.length() != HEADER_BYTES + size.toLong() * Long.SIZE_BYTES -> load()
+
+            else -> return
+        }
+        publish()
+    }
+
+    private fun open() {
+        // A compaction that stopped before replacing the log left nothing that needs keeping.
+        File(directory, LOG_FILE_NAME + TEMP_SUFFIX).delete()
+        File(directory, INDEX_FILE_NAME + TEMP_SUFFIX).delete()
+        log = RandomAccessFile(File(directory, LOG_FILE_NAME), "rw")
+        index = RandomAccessFile(File(directory, INDEX_FILE_NAME), "rw")
+        load()
+    }
+
+    /** Reads the state of the open files, repairing what a crash may have left behind. */
+    private fun load() {
+        generation = readHeader(log) ?: run {
+            log.setLength(0)
+            writeHeader(log, INITIAL_GENERATION)
+            INITIAL_GENERATION
+        }
+        logLength = log.length()
+        if (readHeader(index) != generation) {
+            index.setLength(0)
+            writeHeader(index, generation)
+        }
+        size = ((index.length() - HEADER_BYTES) / Long.SIZE_BYTES).toInt()
+
+        // Drop offsets past the end of the log, e.g. from an index written for a longer one.
+        while (size > 0 && recordEnd(offsetAt(size - 1)) == null) {
+            size--
+        }
+        var end = if (size > 0) recordEnd(offsetAt(size - 1))!! else HEADER_BYTES.toLong()
+        // Index records the log has beyond the index, and drop a torn one at its end.
+        var recovered = recordEnd(end)
+        while (recovered != null) {
+            index.seek(HEADER_BYTES + size.toLong() * Long.SIZE_BYTES)
+            index.writeLong(end)
+            size++
+            end = recovered
+            recovered = recordEnd(end)
+        }
+        index.setLength(HEADER_BYTES + size.toLong() * Long.SIZE_BYTES)
+        if (end != logLength) {
+            log.setLength(end)
+            logLength = end
+        }
+        writeSharedGeneration()
+    }
+
+    private fun closeFiles() {
+        log.close()
+        index.close()
+    }
+
+    /** Names the current generation in the lock file, for other processes to compare against. */
+    private fun writeSharedGeneration() {
+        sharedGeneration.clear()
+        sharedGeneration.putLong(0, generation)
+        while (sharedGeneration.hasRemaining()) {
+            lockChannel.write(sharedGeneration, sharedGeneration.position().toLong())
+        }
+    }
+
+    /** The generation the lock file names, or `null` if it names none yet. */
+    private fun readSharedGeneration(): Long? {
+        sharedGeneration.clear()
+        while (sharedGeneration.hasRemaining()) {
+            if (lockChannel.read(sharedGeneration, sharedGeneration.position().toLong()) < 0) {
+                return null
+            }
+        }
+        return sharedGeneration.getLong(0)
+    }
+
+    /** The end of the complete record starting at [offset], or `null` if there is none. */
+    private fun recordEnd(offset: Long): Long? {
+        if (offset < HEADER_BYTES || offset + RECORD_PREFIX_BYTES > logLength) {
+            return null
+        }
+        log.seek(offset)
+        val payloadLength = log.readInt()
+        val end = offset + RECORD_PREFIX_BYTES + payloadLength
+        return if (payloadLength >= Int.SIZE_BYTES && end <= logLength) end else null
+    }
+
+    private fun offsetAt(position: Int): Long {
+        index.seek(HEADER_BYTES + position.toLong() * Long.SIZE_BYTES)
+        return index.readLong()
+    }
+
+    /** Keeps the newest entries whose records fit in [targetBytes] of log. */
+    private fun compact(targetBytes: Long) {
+        // Offsets increase with position, so the oldest entry to keep is found by bisection.
+        val keepFrom = logLength - (targetBytes - HEADER_BYTES)
+        var low = 0
+        var high = size
+        while (low < high) {
+            val middle = (low + high) ushr 1
+            if (offsetAt(middle) < keepFrom) low = middle + 1 else high = middle
+        }
+        val kept = size - low
+        if (kept == 0) {
+            replaceWith(generation + 1, ByteArray(0), LongArray(0))
+            return
+        }
+        val firstOffset = offsetAt(low)
+        val offsets = LongArray(kept)
+        val offsetBytes = ByteArray(kept * Long.SIZE_BYTES)
+        index.seek(HEADER_BYTES + low.toLong() * Long.SIZE_BYTES)
+        index.readFully(offsetBytes)
+        val offsetBuffer = ByteBuffer.wrap(offsetBytes)
+        for (i in 0 until kept) {
+            offsets[i] = offsetBuffer.getLong() - firstOffset + HEADER_BYTES
+        }
+        val records = ByteArray((logLength - firstOffset).toInt())
+        log.seek(firstOffset)
+        log.readFully(records)
+        replaceWith(generation + 1, records, offsets)
+    }
+
+    private fun replaceWith(newGeneration: Long, records: ByteArray, offsets: LongArray) {
+        val logFile = File(directory, LOG_FILE_NAME)
+        val indexFile = File(directory, INDEX_FILE_NAME)
+        val tempLogFile = File(directory, LOG_FILE_NAME + TEMP_SUFFIX)
+        val tempIndexFile = File(directory, INDEX_FILE_NAME + TEMP_SUFFIX)
+        RandomAccessFile(tempLogFile, "rw").use { file ->
+            file.setLength(0)
+            writeHeader(file, newGeneration)
+            file.write(records)
+            file.fd.sync()
+        }
+        RandomAccessFile(tempIndexFile, "rw").use { file ->
+            file.setLength(0)
+            writeHeader(file, newGeneration)
+            val buffer = ByteBuffer.allocate(offsets.size * Long.SIZE_BYTES)
+            offsets.forEach { buffer.putLong(it) }
+            file.write(buffer.array())
+        }
+        closeFiles()
+        // Once the log is replaced, an old index no longer matches its generation and is rebuilt.
+        if (!tempLogFile.renameTo(logFile) || !tempIndexFile.renameTo(indexFile)) {
+            throw IOException("Unable to replace calculation history in $directory")
+        }
+        log = RandomAccessFile(logFile, "rw")
+        index = RandomAccessFile(indexFile, "rw")
+        generation = newGeneration
+        logLength = HEADER_BYTES.toLong() + records.size
+        size = offsets.size
+        writeSharedGeneration()
+    }
+
+    private fun publish() {
+        mutableRevision.value = Revision(generation, size)
+    }
+
+    private fun decode(buffer: ByteBuffer): Entry {
+        val payloadLength = buffer.getInt()
+        val formulaLength = buffer.getInt()
+        val resultLength = payloadLength - Int.SIZE_BYTES - formulaLength
+        val formula = String(buffer.array(), buffer.position(), formulaLength, Charsets.UTF_8)
+        buffer.position(buffer.position() + formulaLength)
+        val result = String(buffer.array(), buffer.position(), resultLength, Charsets.UTF_8)
+        buffer.position(buffer.position() + resultLength)
+        return Entry(formula, result)
+    }
+
+    /** Returns the generation in the header of [file], or `null` if it has none. */
+    private fun readHeader(file: RandomAccessFile): Long? {
+        if (file.length() < HEADER_BYTES) {
+            return null
+        }
+        file.seek(0)
+        if (file.readInt() != MAGIC || file.readInt() != VERSION) {
+            return null
+        }
+        return file.readLong()
+    }
+
+    private fun writeHeader(file: RandomAccessFile, generation: Long) {
+        file.seek(0)
+        file.writeInt(MAGIC)
+        file.writeInt(VERSION)
+        file.writeLong(generation)
+    }
+
+    companion object {
+        /** Enough for the last hundred thousand or so typical calculations. */
+        const val DEFAULT_MAX_LOG_BYTES = 8L * 1024 * 1024
+
+        private const val LOG_FILE_NAME = "history.log"
+        private const val INDEX_FILE_NAME = "history.idx"
+        private const val LOCK_FILE_NAME = "history.lock"
+        private const val TEMP_SUFFIX = ".tmp"
+
+        /** "QCHT": QuickCalc history tape. */
+        private const val MAGIC = 0x51434854
+        private const val VERSION = 1
+        private const val INITIAL_GENERATION = 1L
+
+        /** Magic, version and generation. */
+        private const val HEADER_BYTES = 16
+
+        /** Payload length of a record. */
+        private const val RECORD_PREFIX_BYTES = Int.SIZE_BYTES
+
+        private const val COMPACT_NUMERATOR = 3L
+        private const val COMPACT_DENOMINATOR = 4L
+
+        private val monitors = ConcurrentHashMap<String, Any>()
+    }
+}
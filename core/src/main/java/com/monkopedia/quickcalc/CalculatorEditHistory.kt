@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+/**
+ * Immutable undo and redo stacks of [CalculatorUiState]s.
+ *
+ * Both stacks are persistent linked lists, so recording, undoing and redoing each allocate a
+ * single entry and share the rest with the previous history. Entries hold states as they were,
+ * including their preview results, and their formulas share all but the edited part of their
+ * text with each other (see [CalculatorFormula]), so an entry costs little more than the edit it
+ * undoes.
+ *
+ * The undo stack is bounded by the approximate bytes its entries retain rather than by their
+ * number, so the bound holds however long the formula gets.
+ */
+class CalculatorEditHistory private constructor(
+    private val undoEntries: Entry?,
+    private val redoEntries: Entry?
+) {
+    val canUndo: Boolean
+        get() = undoEntries != null
+
+    val canRedo: Boolean
+        get() = redoEntries != null
+
+    /** Number of states [undo] can step back through. */
+    val undoDepth: Int
+        get() = undoEntries?.count ?: 0
+
+    /** Approximate bytes retained by the states on both stacks. */
+    val retainedBytes: Long
+        get() = (undoEntries?.totalBytes ?: 0L) + (redoEntries?.totalBytes ?: 0L)
+
+    /**
+     * Returns this history with [previous] pushed for undo and nothing left to redo, dropping
+     * the oldest states once the undo stack retains more than [maxBytes].
+     */
+    internal fun record(previous: CalculatorUiState, maxBytes: Long): CalculatorEditHistory {
+        val recorded = Entry(previous, undoEntries)
+        val trimmed = if (recorded.totalBytes > maxBytes) {
+            // Trim well below the limit so the copy is paid once per many edits.
+            recorded.keepNewest(maxBytes * TRIM_NUMERATOR / TRIM_DENOMINATOR)
+        } else {
+            recorded
+        }
+        return CalculatorEditHistory(trimmed, null)
+    }
+
+    /** The state before [current], carrying the history to redo [current], or `null`. */
+    internal fun undo(current: CalculatorUiState): CalculatorUiState? {
+        val entry = undoEntries ?: return null
+        return entry.state.copy(
+            history = CalculatorEditHistory(entry.next, Entry(current, redoEntries))
+        )
+    }
+
+    /** The state [undo] left [current] from, carrying the history to undo it again, or `null`. */
+    internal fun redo(current: CalculatorUiState): CalculatorUiState? {
+        val entry = redoEntries ?: return null
+        return entry.state.copy(
+            history = CalculatorEditHistory(Entry(current, undoEntries), entry.next)
+        )
+    }
+
+    private class Entry private constructor(
+        val state: CalculatorUiState,
+        val bytes: Int,
+        val next: Entry?
+    ) {
+        val totalBytes: Long = bytes + (next?.totalBytes ?: 0L)
+        val count: Int = 1 + (next?.count ?: 0)
+
+        /** Records [state] without its own history or cached formula text. */
+        constructor(state: CalculatorUiState, next: Entry?) : this(
+            CalculatorUiState(state.formula.detached(), state.resultText, state.phase),
+            ENTRY_BYTES + state.formula.retainedBytes + Char.SIZE_BYTES * state.resultText.length,
+            next
+        )
+
+        /** Copies the newest entries that together retain at most [maxBytes]. */
+        fun keepNewest(maxBytes: Long): Entry? {
+            val kept = ArrayList<Entry>()
+            var bytes = 0L
+            var entry: Entry? = this
+            while (entry != null && bytes + entry.bytes <= maxBytes) {
+                kept += entry
+                bytes += entry.bytes
+                entry = entry.next
+            }
+            var copy: Entry? = null
+            for (index in kept.indices.reversed()) {
+                copy = Entry(kept[index].state, kept[index].bytes, copy)
+            }
+            return copy
+        }
+    }
+
+    companion object {
+        val EMPTY = CalculatorEditHistory(null, null)
+
+        /** An entry, its state and the state's formula wrapper, excluding the text they share. */
+        private const val ENTRY_BYTES = 96
+
+        private const val TRIM_NUMERATOR = 3L
+        private const val TRIM_DENOMINATOR = 4L
+    }
+}
@@ -0,0 +1,362 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import org.javia.arity.Symbols
+import org.javia.arity.SyntaxException
+import org.javia.arity.Util
+
+sealed interface EvaluationResult {
+    val normalizedExpression: String
+
+    data class Empty(override val normalizedExpression: String) : EvaluationResult
+    data class Success(override val normalizedExpression: String, val result: String) :
+        EvaluationResult
+
+    data class Error(override val normalizedExpression: String, val error: CalculatorError) :
+        EvaluationResult
+
+    /**
+     * The expression is too long or too deeply nested to evaluate without risking a stall,
+     * reported as [CalculatorError.TOO_COMPLEX].
+     */
+    data class TooComplex(override val normalizedExpression: String) : EvaluationResult
+}
+
+/**
+ * Why an expression has no result. Each is shown with a message that the UI looks up for it,
+ * so nothing here depends on how or in which language it is shown.
+ */
+enum class CalculatorError {
+    SYNTAX,
+
+    /** The result is not a number, e.g. `0/0`. */
+    NAN,
+
+    /** See [EvaluationResult.TooComplex]. */
+    TOO_COMPLEX
+}
+
+/**
+ * How [CalculatorExpressionEvaluator] computes results.
+ */
+enum class CalculatorEvaluationMode {
+    /** Evaluate with arity in double precision. */
+    STANDARD,
+
+    /**
+     * Evaluate with [java.math.BigDecimal] to as many digits as requested, falling back to
+     * [STANDARD] for expressions that have no exact decimal value (e.g. NaN or infinities).
+     */
+    PRECISE,
+
+    /**
+     * Evaluate with exact fractions so that e.g. `1/3*3` is exactly `1`, falling back to
+     * [STANDARD] for expressions with irrational values such as `π` or `√2`.
+     */
+    RATIONAL
+}
+
+class CalculatorExpressionEvaluator(
+    private val tokenizer: CalculatorExpressionTokenizer,
+    private val evaluationMode: CalculatorEvaluationMode = CalculatorEvaluationMode.STANDARD
+) {
+    /**
+     * The maximum number of significant digits to display.
+     */
+    private val maxDigits = 12
+
+    /**
+     * A [Double] has at least 17 significant digits, we show the first [maxDigits]
+     * and use the remaining digits as guard digits to hide floating point precision errors.
+     */
+    private val roundingDigits = maxOf(17 - maxDigits, 0)
+
+    private val symbols = Symbols()
+
+    private val parser = CalculatorExpressionParser()
+
+    private val preciseEvaluator = PreciseDecimalEvaluator(parser)
+
+    /**
+     * The last expression compiled in [CalculatorEvaluationMode.PRECISE], kept so that requests
+     * for more digits of the same expression reuse the approximations computed so far.
+     */
+    private var preciseExpression: PreciseExpression? = null
+    private var preciseDigits = maxDigits
+
+    private val rationalEvaluator = RationalExpressionEvaluator(parser)
+
+    /**
+     * Evaluates [CalculatorEvaluationMode.STANDARD] previews, re-parsing only what changed since
+     * the previous expression so that edits inside long formulas stay cheap.
+     */
+    private val incrementalEvaluator = IncrementalExpressionEvaluator(parser, symbols)
+
+    /**
+     * Evaluates [expression] as a preview, within about a frame. Exact results that take longer
+     * are shown in double precision instead.
+     */
+    fun evaluate(expression: String): EvaluationResult =
+        evaluateToDigits(
+            tokenizer.getNormalizedExpression(expression),
+            maxDigits,
+            PREVIEW_EVALUATION_NANOS
+        )
+
+    /** Evaluates an already tokenized formula, skipping the localized text altogether. */
+    internal fun evaluate(tokens: CalculatorTokenStream): EvaluationResult =
+        evaluateToDigits(
+            tokenizer.getNormalizedExpression(tokens),
+            maxDigits,
+            PREVIEW_EVALUATION_NANOS
+        )
+
+    /**
+     * Evaluates [expression] as the final result, allowing more time than [evaluate] gives a
+     * preview.
+     */
+    fun evaluateResult(expression: String): EvaluationResult =
+        evaluateToDigits(
+            tokenizer.getNormalizedExpression(expression),
+            maxDigits,
+            RESULT_EVALUATION_NANOS
+        )
+
+    /** See [evaluateResult]. */
+    internal fun evaluateResult(tokens: CalculatorTokenStream): EvaluationResult =
+        evaluateToDigits(
+            tokenizer.getNormalizedExpression(tokens),
+            maxDigits,
+            RESULT_EVALUATION_NANOS
+        )
+
+    /**
+     * Re-evaluates [expression] showing [maxDigits] more significant digits than the previous
+     * evaluation of the same expression. Only meaningful in [CalculatorEvaluationMode.PRECISE];
+     * in other modes this is the same as [evaluate].
+     */
+    fun evaluateWithMoreDigits(expression: String): EvaluationResult =
+        evaluateWithMoreDigitsNormalized(tokenizer.getNormalizedExpression(expression))
+
+    /** See [evaluateWithMoreDigits]. */
+    internal fun evaluateWithMoreDigits(tokens: CalculatorTokenStream): EvaluationResult =
+        evaluateWithMoreDigitsNormalized(tokenizer.getNormalizedExpression(tokens))
+
+    private fun evaluateWithMoreDigitsNormalized(normalized: String): EvaluationResult {
+        val digits = if (evaluationMode == CalculatorEvaluationMode.PRECISE) {
+            // An expression this evaluator has not seen yet is showing a preview's worth.
+            val expr = withoutTrailingOperators(normalized)
+            val shown = if (preciseExpression?.expression == expr) preciseDigits else maxDigits
+            minOf(shown + maxDigits, MAX_PRECISE_DIGITS)
+        } else {
+            maxDigits
+        }
+        return evaluateToDigits(normalized, digits, RESULT_EVALUATION_NANOS)
+    }
+
+    /**
+     * Evaluates the canonical expression [normalized], see [CalculatorExpressionTokenizer], within
+     * [maxWallTimeNanos] for all of the engines it tries.
+     */
+    private fun evaluateToDigits(
+        normalized: String,
+        digits: Int,
+        maxWallTimeNanos: Long
+    ): EvaluationResult = CalculatorTrace.section(CalculatorTrace.EVALUATE) {
+        evaluateNormalized(normalized, digits, maxWallTimeNanos)
+    }
+
+    private fun evaluateNormalized(
+        normalized: String,
+        digits: Int,
+        maxWallTimeNanos: Long
+    ): EvaluationResult {
+        val expr = withoutTrailingOperators(normalized)
+
+        if (expr.isEmpty() || expr.toDoubleOrNull() != null) {
+            return EvaluationResult.Empty(expr)
+        }
+
+        if (evaluationMode == CalculatorEvaluationMode.STANDARD) {
+            evaluateIncrementally(expr)?.let { return it }
+        }
+
+        if (isTooComplex(expr)) {
+            return EvaluationResult.TooComplex(expr)
+        }
+
+        // Steps are counted per engine, but the exact engines and the double-precision fallback
+        // all share this deadline.
+        val deadline = EvaluationBudget(Long.MAX_VALUE, maxWallTimeNanos = maxWallTimeNanos)
+
+        if (evaluationMode == CalculatorEvaluationMode.PRECISE) {
+            evaluatePrecise(expr, digits, deadline)?.let { result ->
+                return EvaluationResult.Success(expr, tokenizer.getLocalizedExpression(result))
+            }
+        }
+
+        if (evaluationMode == CalculatorEvaluationMode.RATIONAL) {
+            evaluateRational(expr, deadline)?.let { result ->
+                return EvaluationResult.Success(expr, tokenizer.getLocalizedExpression(result))
+            }
+        }
+
+        if (evaluationMode != CalculatorEvaluationMode.STANDARD) {
+            evaluateIncrementally(expr, deadline)?.let { return it }
+        }
+
+        return try {
+            doubleResult(expr, symbols.eval(expr))
+        } catch (_: SyntaxException) {
+            EvaluationResult.Error(expr, CalculatorError.SYNTAX)
+        } catch (_: IndexOutOfBoundsException) {
+            // arity evaluates on a fixed-size stack and overflows it on deep input that slipped
+            // past isTooComplex.
+            EvaluationResult.TooComplex(expr)
+        }
+    }
+
+    private fun withoutTrailingOperators(normalized: String): String =
+        normalized.trimEnd { "+-/*".indexOf(it) != -1 }
+
+    private fun doubleResult(expr: String, result: Double): EvaluationResult =
+        if (result.isNaN()) {
+            EvaluationResult.Error(expr, CalculatorError.NAN)
+        } else {
+            val resultString = tokenizer.getLocalizedExpression(
+                Util.doubleToString(result, maxDigits, roundingDigits)
+            )
+            EvaluationResult.Success(expr, resultString)
+        }
+
+    /**
+     * Evaluates [expr] with [incrementalEvaluator], or returns null to leave syntax errors for
+     * arity to report. Running past [deadline] makes the result [EvaluationResult.TooComplex],
+     * since arity could not be interrupted either.
+     *
+     * The incremental evaluator does all of its work in the depth-bounded parse tree, so it is
+     * safe on expressions up to [MAX_INCREMENTAL_EXPRESSION_LENGTH], well past what arity can
+     * be trusted with.
+     */
+    private fun evaluateIncrementally(
+        expr: String,
+        deadline: EvaluationBudget? = null
+    ): EvaluationResult? {
+        if (expr.length > MAX_INCREMENTAL_EXPRESSION_LENGTH) {
+            return null
+        }
+        val result = try {
+            incrementalEvaluator.evaluate(expr, deadline)
+        } catch (_: ExpressionTooDeepException) {
+            return EvaluationResult.TooComplex(expr)
+        } catch (_: EvaluationBudgetExceededException) {
+            return EvaluationResult.TooComplex(expr)
+        } catch (_: ExpressionParseException) {
+            return null
+        }
+        // NaN can also come from complex intermediate values that arity handles, e.g. (√-1)^2.
+        if (result.isNaN() && expr.length <= MAX_EXPRESSION_LENGTH) {
+            return null
+        }
+        return doubleResult(expr, result)
+    }
+
+    /**
+     * arity cannot be interrupted, so its work is bounded up front: input longer than
+     * [MAX_EXPRESSION_LENGTH] or nested deeper than the parser allows is rejected before it
+     * reaches any engine. The parser is depth-bounded, so this check is itself cheap and safe.
+     */
+    private fun isTooComplex(expr: String): Boolean {
+        if (expr.length > MAX_EXPRESSION_LENGTH) {
+            return true
+        }
+        return try {
+            parser.parse(expr)
+            false
+        } catch (_: ExpressionTooDeepException) {
+            true
+        } catch (_: ExpressionParseException) {
+            // Leave syntax errors for arity to report.
+            false
+        }
+    }
+
+    private fun evaluatePrecise(expr: String, digits: Int, deadline: EvaluationBudget): String? {
+        val compiled = preciseExpression?.takeIf { it.expression == expr } ?: try {
+            preciseEvaluator.compile(expr).also {
+                preciseExpression = it
+                preciseDigits = maxDigits
+            }
+        } catch (_: ExpressionParseException) {
+            return null
+        } catch (_: ArithmeticException) {
+            return null
+        }
+        return try {
+            compiled.toDigits(digits, deadline.withSteps(PRECISE_STEP_BUDGET)).also {
+                preciseDigits = digits
+            }
+        } catch (_: EvaluationBudgetExceededException) {
+            // Keep showing the digits we already had rather than dropping back to doubles.
+            if (digits > preciseDigits) evaluatePrecise(expr, preciseDigits, deadline) else null
+        } catch (_: ArithmeticException) {
+            null
+        }
+    }
+
+    private fun evaluateRational(expr: String, deadline: EvaluationBudget): String? = try {
+        rationalEvaluator.evaluate(expr, deadline.withSteps(RATIONAL_STEP_BUDGET))
+            .toDisplayString(maxDigits)
+    } catch (_: ExpressionParseException) {
+        null
+    } catch (_: EvaluationBudgetExceededException) {
+        null
+    } catch (_: ArithmeticException) {
+        null
+    }
+
+    private companion object {
+        /** Upper bound on the digits a precise result can be extended to. */
+        const val MAX_PRECISE_DIGITS = 1_000
+
+        /**
+         * Work allowed for a single precise evaluation. Evaluations run on every keystroke, so
+         * this is sized to stay within a frame for typical inputs; anything more expensive is
+         * shown in double precision instead.
+         */
+        const val PRECISE_STEP_BUDGET = 20_000L
+
+        /** Work allowed for a single rational evaluation, see [PRECISE_STEP_BUDGET]. */
+        const val RATIONAL_STEP_BUDGET = 20_000L
+
+        /** Longest normalized expression arity or the exact engines are asked to evaluate. */
+        const val MAX_EXPRESSION_LENGTH = 1_000
+
+        /** Longest normalized expression evaluated by the incremental evaluator. */
+        const val MAX_INCREMENTAL_EXPRESSION_LENGTH = 5_000
+
+        /**
+         * Wall-time limit for a preview. Previews are evaluated on the main thread on every
+         * keystroke, so this is a quarter of a 60 Hz frame.
+         */
+        const val PREVIEW_EVALUATION_NANOS = 4_000_000L
+
+        /** Wall-time limit for a result asked for with equals or for more digits. */
+        const val RESULT_EVALUATION_NANOS = 100_000_000L
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.math.BigDecimal
+
+/**
+ * Syntax tree for a normalized calculator expression. Every node records the [start] (inclusive)
+ * and [end] (exclusive) offsets of the source text it was parsed from.
+ */
+internal sealed interface ExpressionNode {
+    val start: Int
+    val end: Int
+
+    data class Number(val value: BigDecimal, override val start: Int, override val end: Int) :
+        ExpressionNode
+
+    data class Constant(
+        val constant: ExpressionConstant,
+        override val start: Int,
+        override val end: Int
+    ) : ExpressionNode
+
+    data class Unary(
+        val operator: UnaryOperator,
+        val operand: ExpressionNode,
+        override val start: Int,
+        override val end: Int
+    ) : ExpressionNode
+
+    data class Binary(
+        val operator: BinaryOperator,
+        val left: ExpressionNode,
+        val right: ExpressionNode,
+        override val start: Int,
+        override val end: Int
+    ) : ExpressionNode
+
+    data class Function(
+        val function: ExpressionFunction,
+        val argument: ExpressionNode,
+        override val start: Int,
+        override val end: Int
+    ) : ExpressionNode
+
+    /**
+     * A parenthesized sub-expression. [start] is the offset of the `(` and [end] is past the `)`,
+     * or the end of the text when the group is closed implicitly. [innerDepth] is the parser
+     * nesting depth [inner] was parsed at, so that it can be re-parsed on its own with
+     * [CalculatorExpressionParser.parse] and hit the same depth limit.
+     */
+    data class Group(
+        val inner: ExpressionNode,
+        val closed: Boolean,
+        val innerDepth: Int,
+        override val start: Int,
+        override val end: Int
+    ) : ExpressionNode
+}
+
+/**
+ * The percentage this sum takes relative to its left operand, or `null` if `%` here just divides
+ * by a hundred.
+ *
+ * Arity reads `a+b%` and `a-b%` as adding or subtracting b percent of `a`, but only when the whole
+ * right operand of the `+` or `-` is the percentage, possibly in parentheses: `50+10%` and
+ * `50+(10%)` are 55 while `50+10%*2` is 50.2 and `50*10%` is 5. The exact engines evaluate the
+ * returned node's operand as the percentage of [ExpressionNode.Binary.left].
+ */
+internal fun ExpressionNode.Binary.relativePercent(): ExpressionNode.Unary? {
+    if (operator != BinaryOperator.ADD && operator != BinaryOperator.SUBTRACT) return null
+    var percent = right
+    while (percent is ExpressionNode.Group) percent = percent.inner
+    return (percent as? ExpressionNode.Unary)?.takeIf { it.operator == UnaryOperator.PERCENT }
+}
+
+internal enum class ExpressionConstant { PI, E, INFINITY }
+
+internal enum class UnaryOperator { NEGATE, SQRT, FACTORIAL, PERCENT }
+
+internal enum class BinaryOperator { ADD, SUBTRACT, MULTIPLY, DIVIDE, POWER }
+
+internal enum class ExpressionFunction(val functionName: String) {
+    SIN("sin"),
+    COS("cos"),
+    TAN("tan"),
+    LN("ln"),
+    LOG("log")
+}
+
+internal open class ExpressionParseException(message: String, val position: Int) :
+    IllegalArgumentException("$message at $position")
+
+/** Raised when an expression nests deeper than the parser's depth limit. */
+internal class ExpressionTooDeepException(position: Int) :
+    ExpressionParseException("Expression nested too deeply", position)
+
+/**
+ * Recursive-descent parser for normalized calculator expressions.
+ *
+ * The grammar mirrors the arity evaluator used by [CalculatorExpressionEvaluator], including
+ * implicit multiplication (`2π`, `2(3)`), right-associative `^`, postfix `!` and `%`, and
+ * automatically closed trailing parentheses, so that alternate evaluation engines agree with the
+ * double-precision results on what an expression means. Inputs the parser does not understand
+ * raise [ExpressionParseException]; callers are expected to fall back to arity.
+ *
+ * Recursion is bounded by [maxDepth], so deeply nested input fails fast with
+ * [ExpressionTooDeepException] instead of overflowing the stack.
+ */
+internal class CalculatorExpressionParser(private val maxDepth: Int = DEFAULT_MAX_DEPTH) {
+
+    /**
+     * Parses [expression]. [depth] is the nesting already used by an enclosing expression when
+     * only part of it is parsed, see [ExpressionNode.Group.innerDepth].
+     */
+    fun parse(expression: String, depth: Int = 0): ExpressionNode {
+        val state = ParseState(expression, depth)
+        val node = state.parseAdditive()
+        if (state.position != expression.length) {
+            throw ExpressionParseException(
+                "Unexpected '${expression[state.position]}'",
+                state.position
+            )
+        }
+        return node
+    }
+
+    private inner class ParseState(private val text: String, private var depth: Int) {
+        var position = 0
+
+        fun parseAdditive(): ExpressionNode = nested {
+            var left = parseMultiplicative()
+            while (position < text.length) {
+                val operator = when (text[position]) {
+                    '+' -> BinaryOperator.ADD
+                    '-' -> BinaryOperator.SUBTRACT
+                    else -> break
+                }
+                position++
+                val right = parseMultiplicative()
+                left = ExpressionNode.Binary(operator, left, right, left.start, right.end)
+            }
+            left
+        }
+
+        private fun parseMultiplicative(): ExpressionNode {
+            var left = parseSigned()
+            while (position < text.length) {
+                val next = text[position]
+                val operator: BinaryOperator
+                val right: ExpressionNode
+                when {
+                    next == '*' || next == '/' -> {
+                        position++
+                        operator =
+                            if (next == '*') BinaryOperator.MULTIPLY else BinaryOperator.DIVIDE
+                        right = parseSigned()
+                    }
+
+                    startsOperand(next) -> {
+                        // Implicit multiplication, e.g. 2π or 2(3), binds like an explicit '*'.
+                        operator = BinaryOperator.MULTIPLY
+                        right = parsePower()
+                    }
+
+                    else -> break
+                }
+                left = ExpressionNode.Binary(operator, left, right, left.start, right.end)
+            }
+            return left
+        }
+
+        private fun parseSigned(): ExpressionNode = nested {
+            val start = position
+            when (text.getOrNull(position)) {
+                '-' -> {
+                    position++
+                    val operand = parseSigned()
+                    ExpressionNode.Unary(UnaryOperator.NEGATE, operand, start, operand.end)
+                }
+
+                '+' -> {
+                    position++
+                    parseSigned()
+                }
+
+                else -> parsePower()
+            }
+        }
+
+        private fun parsePower(): ExpressionNode {
+            val base = parsePostfix()
+            if (text.getOrNull(position) != '^') {
+                return base
+            }
+            position++
+            val exponent = parseSigned()
+            return ExpressionNode.Binary(
+                BinaryOperator.POWER,
+                base,
+                exponent,
+                base.start,
+                exponent.end
+            )
+        }
+
+        /**
+         * Like arity, a run of postfix operators goes through an operator stack on which `%`
+         * outranks `!`: `3!%` is `(3%)!` and `3!!%` is `((3!)%)!`.
+         */
+        private fun parsePostfix(): ExpressionNode {
+            var operand = parseRoot()
+            val pending = ArrayList<UnaryOperator>()
+            while (position < text.length) {
+                val operator = when (text[position]) {
+                    '!' -> UnaryOperator.FACTORIAL
+                    '%' -> UnaryOperator.PERCENT
+                    else -> break
+                }
+                // Pop everything that ranks at least as high as the incoming operator.
+                while (pending.isNotEmpty() &&
+                    (operator == UnaryOperator.FACTORIAL || pending.last() == UnaryOperator.PERCENT)
+                ) {
+                    val applied = pending.removeAt(pending.lastIndex)
+                    operand = ExpressionNode.Unary(applied, operand, operand.start, position)
+                }
+                pending += operator
+                position++
+            }
+            while (pending.isNotEmpty()) {
+                val applied = pending.removeAt(pending.lastIndex)
+                operand = ExpressionNode.Unary(applied, operand, operand.start, position)
+            }
+            return operand
+        }
+
+        private fun parseRoot(): ExpressionNode = nested {
+            val start = position
+            if (text.getOrNull(position) != '√') {
+                parsePrimary()
+            } else {
+                position++
+                val operand = parseRootOperand()
+                ExpressionNode.Unary(UnaryOperator.SQRT, operand, start, operand.end)
+            }
+        }
+
+        /**
+         * The operand of `√` binds tighter than `^` and `!`, except after a minus sign: like
+         * arity, `√-4^2` is `√(-(4^2))`.
+         */
+        private fun parseRootOperand(): ExpressionNode = nested {
+            val start = position
+            when (text.getOrNull(position)) {
+                '-' -> {
+                    position++
+                    val operand = parseSigned()
+                    ExpressionNode.Unary(UnaryOperator.NEGATE, operand, start, operand.end)
+                }
+
+                '+' -> {
+                    position++
+                    parseRootOperand()
+                }
+
+                else -> parseRoot()
+            }
+        }
+
+        private fun parsePrimary(): ExpressionNode {
+            val start = position
+            val next = text.getOrNull(position)
+                ?: throw ExpressionParseException("Unexpected end of expression", position)
+            return when {
+                next == '(' -> {
+                    position++
+                    val innerDepth = depth
+                    val inner = parseAdditive()
+                    // Unbalanced trailing parentheses are closed implicitly, as arity does.
+                    val closed = position < text.length
+                    if (closed) {
+                        if (text[position] != ')') {
+                            throw ExpressionParseException("Expected ')'", position)
+                        }
+                        position++
+                    }
+                    ExpressionNode.Group(inner, closed, innerDepth, start, position)
+                }
+
+                next == 'π' -> {
+                    position++
+                    ExpressionNode.Constant(ExpressionConstant.PI, start, position)
+                }
+
+                next.isDigit() || next == '.' -> parseNumber()
+                next.isLetter() -> parseIdentifier()
+                else -> throw ExpressionParseException("Unexpected '$next'", position)
+            }
+        }
+
+        private fun parseNumber(): ExpressionNode {
+            val start = position
+            while (position < text.length && (text[position].isDigit() || text[position] == '.')) {
+                position++
+            }
+            if (position < text.length && (text[position] == 'E' || text[position] == 'e')) {
+                position++
+                if (text.getOrNull(position) == '-') {
+                    position++
+                }
+                val exponentStart = position
+                while (position < text.length && text[position].isDigit()) {
+                    position++
+                }
+                // arity reads "1E2.5" and "1E2e" as one malformed number, not a product.
+                val next = text.getOrNull(position)
+                if (position == exponentStart || next == '.' || next == 'E' || next == 'e') {
+                    throw ExpressionParseException("Malformed exponent", position)
+                }
+            }
+            val literal = text.substring(start, position)
+            val value = try {
+                BigDecimal(literal)
+            } catch (_: NumberFormatException) {
+                throw ExpressionParseException("Malformed number '$literal'", start)
+            }
+            return ExpressionNode.Number(value, start, position)
+        }
+
+        private fun parseIdentifier(): ExpressionNode {
+            val start = position
+            while (position < text.length && isIdentifierChar(text[position])) {
+                position++
+            }
+            val name = text.substring(start, position)
+            val constant = when (name) {
+                "e" -> ExpressionConstant.E
+                "Infinity" -> ExpressionConstant.INFINITY
+                else -> null
+            }
+            if (constant != null) {
+                // arity reads a constant followed by '(' as a call to an unknown function.
+                if (text.getOrNull(position) == '(') {
+                    throw ExpressionParseException("Unexpected '(' after $name", position)
+                }
+                return ExpressionNode.Constant(constant, start, position)
+            }
+            val function = ExpressionFunction.entries.firstOrNull { it.functionName == name }
+                ?: throw ExpressionParseException("Unknown identifier '$name'", start)
+            if (text.getOrNull(position) != '(') {
+                throw ExpressionParseException("Expected '(' after $name", position)
+            }
+            val argument = parsePrimary()
+            return ExpressionNode.Function(function, argument, start, position)
+        }
+
+        private fun isIdentifierChar(char: Char): Boolean = char.isLetterOrDigit() && char != 'π'
+
+        private fun startsOperand(char: Char): Boolean =
+            char == '(' || char == '.' || char == 'π' || char == '√' || char.isLetterOrDigit()
+
+        private inline fun nested(block: () -> ExpressionNode): ExpressionNode {
+            if (++depth > maxDepth) {
+                throw ExpressionTooDeepException(position)
+            }
+            try {
+                return block()
+            } finally {
+                depth--
+            }
+        }
+    }
+
+    companion object {
+        const val DEFAULT_MAX_DEPTH = 256
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2014 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the 'License');
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an 'AS IS' BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+/**
+ * The localized spellings a [CalculatorExpressionTokenizer] reads and writes, e.g. from the
+ * resources and [java.text.DecimalFormatSymbols] of the current locale. The defaults are the
+ * canonical spellings, for which tokenizing changes nothing.
+ */
+data class CalculatorSymbols(
+    val zeroDigit: Char = '0',
+    val decimalSeparator: Char = '.',
+    val divide: String = "/",
+    val multiply: String = "*",
+    val subtract: String = "-",
+    val cos: String = "cos",
+    val ln: String = "ln",
+    val log: String = "log",
+    val sin: String = "sin",
+    val tan: String = "tan",
+    val infinity: String = "Infinity"
+)
+
+/**
+ * Converts formulas between the localized form shown to the user and the canonical form
+ * understood by the evaluators.
+ *
+ * Both directions read the formula into a [CalculatorTokenStream] with a [CalculatorTokenCodec]
+ * built from [symbols] and spell it out again, rather than replacing each localized symbol in
+ * turn.
+ */
+class CalculatorExpressionTokenizer(symbols: CalculatorSymbols = CalculatorSymbols()) {
+
+    private val codec = CalculatorTokenCodec(
+        zeroDigit = symbols.zeroDigit,
+        decimalSeparator = symbols.decimalSeparator,
+        localizedSpellings = mapOf(
+            CalculatorToken.DIVIDE to symbols.divide,
+            CalculatorToken.MULTIPLY to symbols.multiply,
+            CalculatorToken.SUBTRACT to symbols.subtract,
+            CalculatorToken.COS to symbols.cos,
+            CalculatorToken.LN to symbols.ln,
+            CalculatorToken.LOG to symbols.log,
+            CalculatorToken.SIN to symbols.sin,
+            CalculatorToken.TAN to symbols.tan,
+            CalculatorToken.INFINITY to symbols.infinity
+        )
+    )
+
+    fun getNormalizedExpression(expression: String): String =
+        codec.canonicalize(codec.tokenize(expression))
+
+    fun getLocalizedExpression(expression: String): String =
+        codec.localize(codec.tokenize(expression))
+
+    internal fun tokenize(expression: CharSequence): CalculatorTokenStream =
+        codec.tokenize(expression)
+
+    /** See [CalculatorTokenCodec.edit]. */
+    internal fun edit(
+        tokens: CalculatorTokenStream,
+        expression: CharSequence,
+        start: Int,
+        removed: Int,
+        inserted: Int
+    ): CalculatorTokenStream = codec.edit(tokens, expression, start, removed, inserted)
+
+    internal fun getNormalizedExpression(tokens: CalculatorTokenStream): String =
+        codec.canonicalize(tokens)
+
+    internal fun getLocalizedExpression(tokens: CalculatorTokenStream): String =
+        codec.localize(tokens)
+}
@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import kotlin.math.max
+
+/**
+ * Immutable formula text with a [cursor] position.
+ *
+ * The text is stored as a persistent rope of short chunks, so inserting or deleting at the
+ * cursor copies at most one chunk plus the path to it and shares everything else with the
+ * previous formula. Editing anywhere in a long formula therefore costs O(log n) instead of
+ * copying the whole string. Formulas compare by text and cursor, like the [String] they replace.
+ */
+class CalculatorFormula private constructor(
+    private val rope: Rope,
+    val cursor: Int,
+    /**
+     * Approximate bytes allocated for this formula that are not shared with the formula it was
+     * edited from, used to bound [CalculatorEditHistory].
+     */
+    internal val retainedBytes: Int
+) : CharSequence {
+
+    private val text: String by lazy(LazyThreadSafetyMode.PUBLICATION) {
+        StringBuilder(rope.length).also { rope.appendTo(it) }.toString()
+    }
+
+    override val length: Int
+        get() = rope.length
+
+    override fun get(index: Int): Char {
+        if (index !in 0 until length) {
+            throw IndexOutOfBoundsException("Index $index out of bounds for length $length")
+        }
+        return rope.charAt(index)
+    }
+
+    override fun subSequence(startIndex: Int, endIndex: Int): CharSequence =
+        text.subSequence(startIndex, endIndex)
+
+    override fun toString(): String = text
+
+    /** Inserts [insertion] at the cursor and moves the cursor past it. */
+    fun insert(insertion: String): CalculatorFormula {
+        if (insertion.isEmpty()) {
+            return this
+        }
+        val inserted = Rope.of(insertion)
+        val edited = if (cursor == length) {
+            Rope.concat(rope, inserted)
+        } else {
+            val (before, after) = rope.split(cursor)
+            Rope.concat(Rope.concat(before, inserted), after)
+        }
+        return CalculatorFormula(edited, cursor + insertion.length, editedBytes(edited))
+    }
+
+    /** Deletes the character before the cursor, if any. */
+    fun deleteBackward(): CalculatorFormula {
+        if (cursor == 0) {
+            return this
+        }
+        val edited = if (cursor == length) {
+            rope.split(cursor - 1).first
+        } else {
+            val (before, after) = rope.split(cursor)
+            Rope.concat(before.split(cursor - 1).first, after)
+        }
+        return CalculatorFormula(edited, cursor - 1, editedBytes(edited))
+    }
+
+    /** Returns this formula with the cursor at [position], clamped to the text. */
+    fun withCursor(position: Int): CalculatorFormula {
+        val clamped = position.coerceIn(0, length)
+        return if (clamped == cursor) this else CalculatorFormula(rope, clamped, FORMULA_BYTES)
+    }
+
+    /**
+     * A formula with the same text and cursor that has not cached its text as a [String], for
+     * keeping many versions of a long formula around.
+     */
+    internal fun detached(): CalculatorFormula = CalculatorFormula(rope, cursor, retainedBytes)
+
+    /** Whether [other] holds this formula's text without comparing it, e.g. after [withCursor]. */
+    internal fun sharesTextWith(other: CalculatorFormula): Boolean = rope === other.rope
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) {
+            return true
+        }
+        return other is CalculatorFormula &&
+            cursor == other.cursor &&
+            length == other.length &&
+            text == other.text
+    }
+
+    override fun hashCode(): Int = 31 * text.hashCode() + cursor
+
+    companion object {
+        val EMPTY = CalculatorFormula(Rope.EMPTY, 0, FORMULA_BYTES)
+
+        /** A formula holding [text] with the cursor at [cursor], by default at the end. */
+        fun of(text: String, cursor: Int = text.length): CalculatorFormula =
+            if (text.isEmpty()) {
+                EMPTY
+            } else {
+                val rope = Rope.of(text)
+                CalculatorFormula(
+                    rope,
+                    cursor.coerceIn(0, text.length),
+                    FORMULA_BYTES + Char.SIZE_BYTES * text.length + NODE_BYTES * 2 * rope.leafCount
+                )
+            }
+
+        /** An edit copies one leaf and the nodes above it; everything else is shared. */
+        private fun editedBytes(edited: Rope): Int =
+            FORMULA_BYTES + NODE_BYTES * (edited.depth + 1) + Char.SIZE_BYTES * Rope.MAX_LEAF
+
+        private const val FORMULA_BYTES = 32
+        private const val NODE_BYTES = 32
+    }
+
+    /** A persistent rope: leaves hold at most [MAX_LEAF] characters and are never mutated. */
+    private sealed class Rope {
+        abstract val length: Int
+        abstract val depth: Int
+        abstract val leafCount: Int
+
+        abstract fun charAt(index: Int): Char
+
+        abstract fun appendTo(builder: StringBuilder)
+
+        /** Splits into the first [index] characters and the rest, sharing unchanged subtrees. */
+        abstract fun split(index: Int): Pair<Rope, Rope>
+
+        class Leaf(val text: String) : Rope() {
+            override val length: Int
+                get() = text.length
+            override val depth: Int
+                get() = 0
+            override val leafCount: Int
+                get() = 1
+
+            override fun charAt(index: Int): Char = text[index]
+
+            override fun appendTo(builder: StringBuilder) {
+                builder.append(text)
+            }
+
+            override fun split(index: Int): Pair<Rope, Rope> = when (index) {
+                0 -> EMPTY to this
+                length -> this to EMPTY
+                else -> Leaf(text.substring(0, index)) to Leaf(text.substring(index))
+            }
+        }
+
+        class Concat(val left: Rope, val right: Rope) : Rope() {
+            override val length: Int = left.length + right.length
+            override val depth: Int = max(left.depth, right.depth) + 1
+            override val leafCount: Int = left.leafCount + right.leafCount
+
+            override fun charAt(index: Int): Char = if (index < left.length) {
+                left.charAt(index)
+            } else {
+                right.charAt(index - left.length)
+            }
+
+            override fun appendTo(builder: StringBuilder) {
+                left.appendTo(builder)
+                right.appendTo(builder)
+            }
+
+            override fun split(index: Int): Pair<Rope, Rope> = when {
+                index == 0 -> EMPTY to this
+                index == length -> this to EMPTY
+                index <= left.length -> {
+                    val (before, after) = left.split(index)
+                    before to concat(after, right)
+                }
+
+                else -> {
+                    val (before, after) = right.split(index - left.length)
+                    concat(left, before) to after
+                }
+            }
+        }
+
+        companion object {
+            const val MAX_LEAF = 64
+            val EMPTY: Rope = Leaf("")
+
+            fun of(text: String): Rope = if (text.length <= MAX_LEAF) {
+                Leaf(text)
+            } else {
+                balanced(text.chunked(MAX_LEAF).map(::Leaf))
+            }
+
+            fun concat(left: Rope, right: Rope): Rope {
+                if (left.length == 0) return right
+                if (right.length == 0) return left
+                if (left.length + right.length <= MAX_LEAF && left is Leaf && right is Leaf) {
+                    return Leaf(left.text + right.text)
+                }
+                // Typing appends one short leaf at a time; fold it into the neighbouring leaf.
+                if (left is Concat && right is Leaf) {
+                    val tail = left.right
+                    if (tail is Leaf && tail.length + right.length <= MAX_LEAF) {
+                        return concat(left.left, Leaf(tail.text + right.text))
+                    }
+                }
+                val joined = Concat(left, right)
+                return if (joined.depth > maxBalancedDepth(joined.leafCount)) {
+                    rebalance(joined)
+                } else {
+                    joined
+                }
+            }
+
+            /** Depth allowed before rebuilding; twice the optimum keeps rebuilds amortized. */
+            private fun maxBalancedDepth(leafCount: Int): Int =
+                2 * (Int.SIZE_BITS - Integer.numberOfLeadingZeros(leafCount)) + MIN_REBALANCE_DEPTH
+
+            private fun rebalance(rope: Rope): Rope {
+                val leaves = ArrayList<Leaf>(rope.leafCount)
+                collectLeaves(rope, leaves)
+                return balanced(leaves)
+            }
+
+            private fun collectLeaves(rope: Rope, leaves: MutableList<Leaf>) {
+                when (rope) {
+                    is Leaf -> if (rope.length > 0) leaves += rope
+                    is Concat -> {
+                        collectLeaves(rope.left, leaves)
+                        collectLeaves(rope.right, leaves)
+                    }
+                }
+            }
+
+            private fun balanced(leaves: List<Leaf>, from: Int = 0, to: Int = leaves.size): Rope =
+                when (to - from) {
+                    0 -> EMPTY
+                    1 -> leaves[from]
+                    else -> {
+                        val middle = (from + to) / 2
+                        Concat(balanced(leaves, from, middle), balanced(leaves, middle, to))
+                    }
+                }
+
+            private const val MIN_REBALANCE_DEPTH = 4
+        }
+    }
+}
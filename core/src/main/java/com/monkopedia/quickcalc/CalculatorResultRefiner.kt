@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.util.concurrent.atomic.AtomicBoolean
+import kotlinx.coroutines.CoroutineDispatcher
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+
+/**
+ * Computes more digits of a preview result off the main thread.
+ *
+ * Each request extends the result by another screenful of digits, up to a thousand, which can
+ * take far longer than a frame. Refinement therefore runs on [dispatcher] with an evaluator of its
+ * own, created there by [createEvaluator], and keeps that evaluator's compiled expression between
+ * requests so that every extension starts from the approximations computed for the last one. The
+ * [CalculatorUiEvent.RequestMoreResultDigits] event does the same work synchronously in
+ * [CalculatorUiReducer], for replays and tests.
+ *
+ * @param dispatcher must run one task at a time, since evaluators are not thread-safe.
+ */
+class CalculatorResultRefiner(
+    private val createEvaluator: () -> CalculatorExpressionEvaluator,
+    private val dispatcher: CoroutineDispatcher = Dispatchers.Default.limitedParallelism(1)
+) {
+    private var evaluator: CalculatorExpressionEvaluator? = null
+    private val refining = AtomicBoolean()
+
+    /**
+     * Computes more digits of the result [state] shows, or returns null if there are none, e.g.
+     * because [state] shows no preview. Requests made while another is being computed also
+     * return null: scrolling keeps asking for more, and the digits on their way answer it.
+     */
+    suspend fun refine(state: CalculatorUiState): RefinedResult? {
+        if (state.phase != CalculatorUiPhase.INPUT || state.resultText.isEmpty()) {
+            return null
+        }
+        if (!refining.compareAndSet(false, true)) {
+            return null
+        }
+        return try {
+            withContext(dispatcher) {
+                val evaluator = evaluator ?: createEvaluator().also { evaluator = it }
+                (evaluator.evaluateWithMoreDigits(state.formulaText) as? EvaluationResult.Success)
+                    ?.let { RefinedResult(state.formula, it.result) }
+            }
+        } finally {
+            refining.set(false)
+        }
+    }
+}
+
+/** More digits of the result of [formula], computed by [CalculatorResultRefiner]. */
+class RefinedResult internal constructor(
+    private val formula: CalculatorFormula,
+    val resultText: String
+) {
+    /**
+     * [state] showing these digits, or [state] itself if it no longer previews the formula they
+     * were computed for.
+     */
+    fun applyTo(state: CalculatorUiState): CalculatorUiState {
+        if (state.phase != CalculatorUiPhase.INPUT ||
+            !(state.formula.sharesTextWith(formula) || state.formulaText == formula.toString())
+        ) {
+            return state
+        }
+        return state.copy(resultText = resultText)
+    }
+}
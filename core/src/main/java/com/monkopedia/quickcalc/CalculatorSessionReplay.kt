@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+/** Nearest-rank percentiles of a set of latencies, in nanoseconds. */
+class LatencyPercentiles private constructor(private val sorted: LongArray) {
+
+    val count: Int
+        get() = sorted.size
+
+    val p50: Long
+        get() = percentile(50.0)
+
+    val p90: Long
+        get() = percentile(90.0)
+
+    val p99: Long
+        get() = percentile(99.0)
+
+    val max: Long
+        get() = sorted.lastOrNull() ?: 0L
+
+    /** The smallest sample at least [percent] percent of the samples are no greater than. */
+    fun percentile(percent: Double): Long {
+        require(percent in 0.0..100.0) { "percent out of range: $percent" }
+        if (sorted.isEmpty()) {
+            return 0L
+        }
+        val rank = kotlin.math.ceil(percent / 100.0 * sorted.size).toInt()
+        return sorted[(rank - 1).coerceIn(0, sorted.size - 1)]
+    }
+
+    override fun toString(): String =
+        "n=$count p50=${micros(p50)}µs p90=${micros(p90)}µs p99=${micros(p99)}µs " +
+            "max=${micros(max)}µs"
+
+    private fun micros(nanos: Long): String = "%.1f".format(nanos / 1_000.0)
+
+    companion object {
+        fun of(samples: LongArray): LatencyPercentiles =
+            LatencyPercentiles(samples.copyOf().apply { sort() })
+    }
+}
+
+/**
+ * What replaying sessions measured.
+ *
+ * @property latency the time each event took to reduce.
+ * @property latencyByEvent the same, by event type, e.g. `Append` or `Equals`.
+ * @property finalStates the state each session ended in, in the order they were replayed.
+ */
+class CalculatorReplayReport(
+    val latency: LatencyPercentiles,
+    val latencyByEvent: Map<String, LatencyPercentiles>,
+    val finalStates: List<CalculatorUiState>
+)
+
+/**
+ * Feeds recorded [CalculatorSession]s through a [CalculatorUiReducer] without any UI, as fast as
+ * it goes rather than at the recorded pace, and times each event.
+ *
+ * Reducing is deterministic, so a session replayed this way ends in the state it was recorded
+ * ending in; traces recorded in the field reproduce the inputs behind latency reports.
+ *
+ * @param reducerFor the reducer to replay a session recorded in an evaluation mode with.
+ */
+class CalculatorSessionReplay(
+    private val reducerFor: (CalculatorEvaluationMode) -> CalculatorUiReducer,
+    /** Monotonic time in nanoseconds. */
+    private val clock: () -> Long = System::nanoTime
+) {
+
+    fun replay(sessions: List<CalculatorSession>): CalculatorReplayReport {
+        val latencies = LongArray(sessions.sumOf { it.events.size })
+        val latenciesByEvent = HashMap<String, MutableList<Long>>()
+        val finalStates = ArrayList<CalculatorUiState>(sessions.size)
+        var sample = 0
+        for (session in sessions) {
+            val reducer = reducerFor(session.evaluationMode)
+            var state = session.initialState
+            for (recorded in session.events) {
+                val start = clock()
+                state = reducer.reduce(state, recorded.event)
+                val latency = clock() - start
+                latencies[sample++] = latency
+                latenciesByEvent.getOrPut(nameOf(recorded.event)) { ArrayList() } += latency
+            }
+            finalStates += state
+        }
+        return CalculatorReplayReport(
+            latency = LatencyPercentiles.of(latencies),
+            latencyByEvent = latenciesByEvent.mapValues { (_, samples) ->
+                LatencyPercentiles.of(samples.toLongArray())
+            },
+            finalStates = finalStates
+        )
+    }
+
+    private fun nameOf(event: CalculatorUiEvent): String = event::class.simpleName.orEmpty()
+}
@@ -0,0 +1,277 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+/**
+ * The events of one calculator session as the user entered them, and what they started from,
+ * so that the session can be replayed through a [CalculatorUiReducer] and end where it ended.
+ */
+data class CalculatorSession(
+    val evaluationMode: CalculatorEvaluationMode,
+    val initialState: CalculatorUiState,
+    val events: List<Event>
+) {
+    /** [event] as it arrived, [nanos] after the session started on a monotonic clock. */
+    data class Event(val nanos: Long, val event: CalculatorUiEvent)
+}
+
+/**
+ * Records a [CalculatorSession] in the trace format [CalculatorSessionTrace] reads.
+ *
+ * Events are encoded into memory as they arrive, a few bytes each, so recording costs next to
+ * nothing on the thread that handles input; [drain] hands the bytes over to be written elsewhere.
+ * Sessions drained into the same file one after another read back as a list of sessions.
+ */
+class CalculatorSessionRecorder(
+    evaluationMode: CalculatorEvaluationMode,
+    initialState: CalculatorUiState,
+    /** Monotonic time in nanoseconds. */
+    private val clock: () -> Long = System::nanoTime
+) {
+    private val buffer = CalculatorSessionTrace.Buffer()
+    private var lastNanos = clock()
+
+    init {
+        buffer.writeByte(CalculatorSessionTrace.TAG_SESSION)
+        buffer.writeInt(CalculatorSessionTrace.MAGIC)
+        buffer.writeByte(CalculatorSessionTrace.VERSION)
+        buffer.writeByte(evaluationMode.ordinal)
+        buffer.writeByte(initialState.phase.ordinal)
+        buffer.writeString(initialState.formulaText)
+        buffer.writeVarLong(initialState.formula.cursor.toLong())
+        buffer.writeString(initialState.resultText)
+    }
+
+    /** Bytes recorded and not yet drained. */
+    val pendingBytes: Int
+        @Synchronized get() = buffer.size
+
+    @Synchronized
+    fun record(event: CalculatorUiEvent) {
+        val now = clock().coerceAtLeast(lastNanos)
+        buffer.writeByte(CalculatorSessionTrace.tagOf(event))
+        buffer.writeVarLong(now - lastNanos)
+        lastNanos = now
+        when (event) {
+            is CalculatorUiEvent.Append -> buffer.writeString(event.token)
+            is CalculatorUiEvent.MoveCursor -> buffer.writeVarLong(event.position.toLong())
+            is CalculatorUiEvent.Recall -> buffer.writeString(event.formula)
+            else -> Unit
+        }
+    }
+
+    /** Returns the bytes recorded since the last call, to be appended to a trace. */
+    @Synchronized
+    fun drain(): ByteArray = buffer.toByteArray().also { buffer.clear() }
+}
+
+/**
+ * Reads the traces written by [CalculatorSessionRecorder].
+ *
+ * A trace is a sequence of records: a session header with the evaluation mode and initial state,
+ * then one record per event with its type, the nanoseconds since the previous event as a
+ * variable-length integer, and its text or position if it has one. Strings are UTF-8 prefixed
+ * with their length.
+ */
+object CalculatorSessionTrace {
+    internal const val TAG_SESSION = 0
+    private const val TAG_APPEND = 1
+    private const val TAG_APPEND_WITH_PARENTHESIS = 2
+    private const val TAG_DELETE = 3
+    private const val TAG_MOVE_CURSOR = 4
+    private const val TAG_CLEAR = 5
+    private const val TAG_RECALL = 6
+    private const val TAG_EQUALS = 7
+    private const val TAG_MORE_DIGITS = 8
+    private const val TAG_UNDO = 9
+    private const val TAG_REDO = 10
+
+    /** "QCSR": QuickCalc session recording. */
+    internal const val MAGIC = 0x51435352
+    internal const val VERSION = 1
+
+    internal fun tagOf(event: CalculatorUiEvent): Int = when (event) {
+        is CalculatorUiEvent.Append ->
+            if (event.appendLeftParenthesis) TAG_APPEND_WITH_PARENTHESIS else TAG_APPEND
+        CalculatorUiEvent.Delete -> TAG_DELETE
+        is CalculatorUiEvent.MoveCursor -> TAG_MOVE_CURSOR
+        CalculatorUiEvent.Clear -> TAG_CLEAR
+        is CalculatorUiEvent.Recall -> TAG_RECALL
+        CalculatorUiEvent.Equals -> TAG_EQUALS
+        CalculatorUiEvent.RequestMoreResultDigits -> TAG_MORE_DIGITS
+        CalculatorUiEvent.Undo -> TAG_UNDO
+        CalculatorUiEvent.Redo -> TAG_REDO
+    }
+
+    /**
+     * Reads the sessions in [bytes]. A record cut short, e.g. by the process dying mid-write, and
+     * anything after a record that cannot be read, are dropped.
+     */
+    fun read(bytes: ByteArray): List<CalculatorSession> {
+        val reader = Reader(bytes)
+        val sessions = ArrayList<CalculatorSession>()
+        var header: CalculatorSession? = null
+        var events = ArrayList<CalculatorSession.Event>()
+        var nanos = 0L
+        while (reader.hasMore) {
+            val tag = reader.readByte()
+            if (tag == TAG_SESSION) {
+                val next = reader.readSessionHeader() ?: break
+                header?.let { sessions += it.copy(events = events) }
+                header = next
+                events = ArrayList()
+                nanos = 0L
+                continue
+            }
+            if (header == null) {
+                break
+            }
+            val event = reader.readEvent(tag) ?: break
+            nanos += event.first
+            events += CalculatorSession.Event(nanos, event.second)
+        }
+        header?.let { sessions += it.copy(events = events) }
+        return sessions
+    }
+
+    private class Reader(private val bytes: ByteArray) {
+        private var position = 0
+
+        val hasMore: Boolean
+            get() = position < bytes.size
+
+        fun readByte(): Int = if (position < bytes.size) bytes[position++].toInt() and 0xFF else -1
+
+        fun readInt(): Int? {
+            if (position + Int.SIZE_BYTES > bytes.size) {
+                return null
+            }
+            var value = 0
+            repeat(Int.SIZE_BYTES) { value = value shl 8 or readByte() }
+            return value
+        }
+
+        fun readVarLong(): Long? {
+            var value = 0L
+            var shift = 0
+            while (shift < Long.SIZE_BITS) {
+                val byte = readByte()
+                if (byte < 0) {
+                    return null
+                }
+                value = value or ((byte and 0x7F).toLong() shl shift)
+                if (byte and 0x80 == 0) {
+                    return value
+                }
+                shift += 7
+            }
+            return null
+        }
+
+        fun readString(): String? {
+            val length = readVarLong()?.takeIf { it <= bytes.size - position }?.toInt()
+                ?: return null
+            return String(bytes, position, length, Charsets.UTF_8).also { position += length }
+        }
+
+        fun readSessionHeader(): CalculatorSession? {
+            if (readInt() != MAGIC || readByte() != VERSION) {
+                return null
+            }
+            val mode = CalculatorEvaluationMode.entries.getOrNull(readByte()) ?: return null
+            val phase = CalculatorUiPhase.entries.getOrNull(readByte()) ?: return null
+            val formula = readString() ?: return null
+            val cursor = readVarLong()?.takeIf { it <= formula.length }?.toInt() ?: return null
+            val result = readString() ?: return null
+            val state = CalculatorUiState(CalculatorFormula.of(formula, cursor), result, phase)
+            return CalculatorSession(mode, state, emptyList())
+        }
+
+        /** Reads the delay and event of a record with [tag], or `null` if it is cut short. */
+        fun readEvent(tag: Int): Pair<Long, CalculatorUiEvent>? {
+            val delay = readVarLong() ?: return null
+            val event = when (tag) {
+                TAG_APPEND -> CalculatorUiEvent.Append(readString() ?: return null)
+                TAG_APPEND_WITH_PARENTHESIS ->
+                    CalculatorUiEvent.Append(readString() ?: return null, true)
+                TAG_DELETE -> CalculatorUiEvent.Delete
+                TAG_MOVE_CURSOR ->
+                    CalculatorUiEvent.MoveCursor(readVarLong()?.toInt() ?: return null)
+                TAG_CLEAR -> CalculatorUiEvent.Clear
+                TAG_RECALL -> CalculatorUiEvent.Recall(readString() ?: return null)
+                TAG_EQUALS -> CalculatorUiEvent.Equals
+                TAG_MORE_DIGITS -> CalculatorUiEvent.RequestMoreResultDigits
+                TAG_UNDO -> CalculatorUiEvent.Undo
+                TAG_REDO -> CalculatorUiEvent.Redo
+                else -> return null
+            }
+            return delay to event
+        }
+    }
+
+    /** A growable byte array with the trace's encodings. */
+    internal class Buffer {
+        private var bytes = ByteArray(INITIAL_CAPACITY)
+
+        var size = 0
+            private set
+
+        fun writeByte(value: Int) {
+            ensureCapacity(1)
+            bytes[size++] = value.toByte()
+        }
+
+        fun writeInt(value: Int) {
+            for (shift in Int.SIZE_BITS - Byte.SIZE_BITS downTo 0 step Byte.SIZE_BITS) {
+                writeByte(value ushr shift)
+            }
+        }
+
+        fun writeVarLong(value: Long) {
+            var remaining = value
+            while (remaining and 0x7FL.inv() != 0L) {
+                writeByte((remaining and 0x7F).toInt() or 0x80)
+                remaining = remaining ushr 7
+            }
+            writeByte(remaining.toInt())
+        }
+
+        fun writeString(value: String) {
+            val encoded = value.encodeToByteArray()
+            writeVarLong(encoded.size.toLong())
+            ensureCapacity(encoded.size)
+            encoded.copyInto(bytes, size)
+            size += encoded.size
+        }
+
+        fun toByteArray(): ByteArray = bytes.copyOf(size)
+
+        fun clear() {
+            size = 0
+        }
+
+        private fun ensureCapacity(extra: Int) {
+            if (size + extra > bytes.size) {
+                bytes = bytes.copyOf(maxOf(bytes.size * 2, size + extra))
+            }
+        }
+
+        private companion object {
+            const val INITIAL_CAPACITY = 256
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+/**
+ * Reads [CalculatorTokenStream]s from formula text and spells them out again, for one locale.
+ *
+ * Text is read in a single left-to-right pass. At each position the longest localized or
+ * canonical spelling of a token wins, so formulas mixing both, e.g. `×` from the pad and `*`
+ * from a hardware keyboard, read the same. Runs of localized or canonical digits and decimal
+ * separators become one [CalculatorToken.NUMBER], and anything else a
+ * [CalculatorToken.CHARACTER].
+ *
+ * @param localizedSpellings spellings of token codes that differ from the canonical one.
+ */
+internal class CalculatorTokenCodec(
+    private val zeroDigit: Char = '0',
+    private val decimalSeparator: Char = '.',
+    localizedSpellings: Map<Int, String> = emptyMap()
+) {
+    private val spellings = Array(CalculatorToken.COUNT) { code ->
+        localizedSpellings[code] ?: CalculatorToken.canonicalSpelling(code)
+    }
+
+    /** Spellings of named tokens by their first character, longest first. */
+    private val spellingsByFirstChar: Map<Char, Array<Spelling>>
+
+    /** Localized to canonical mapping for spellings that are a single character. */
+    private val charNormalizationMap = HashMap<Char, Char>()
+
+    /**
+     * How far before an edit the tokens may change: a spelling that started further back ends
+     * before the edit and cannot be extended by it.
+     */
+    private val maxSpellingLength: Int
+
+    init {
+        val byFirstChar = HashMap<Char, MutableList<Spelling>>()
+        for (code in CalculatorToken.CHARACTER + 1 until CalculatorToken.COUNT) {
+            val canonical = CalculatorToken.canonicalSpelling(code)
+            for (spelling in setOf(spellings[code], canonical)) {
+                byFirstChar.getOrPut(spelling[0]) { ArrayList() } += Spelling(spelling, code)
+            }
+            if (spellings[code].length == 1 && canonical.length == 1) {
+                charNormalizationMap[spellings[code][0]] = canonical[0]
+            }
+        }
+        spellingsByFirstChar = byFirstChar.mapValues { (_, candidates) ->
+            candidates.sortedByDescending { it.text.length }.toTypedArray()
+        }
+        maxSpellingLength = byFirstChar.values.maxOf { candidates ->
+            candidates.maxOf { it.text.length }
+        }
+    }
+
+    fun tokenize(text: CharSequence): CalculatorTokenStream {
+        val builder = CalculatorTokenStream.Builder(text.length)
+        var position = 0
+        while (position < text.length) {
+            position = readToken(text, position, builder)
+        }
+        return builder.build()
+    }
+
+    /**
+     * Returns the tokens of [text], given that [tokens] are those of the text before an edit
+     * that replaced [removed] characters at [start] with the [inserted] characters now there.
+     *
+     * Only the tokens around the edit are read again: from the first token that could have
+     * been extended by it, until the text after the edit is read in step with the old tokens,
+     * which are then reused as they are.
+     */
+    fun edit(
+        tokens: CalculatorTokenStream,
+        text: CharSequence,
+        start: Int,
+        removed: Int,
+        inserted: Int
+    ): CalculatorTokenStream {
+        val lookBehind = maxOf(start - maxSpellingLength, 0)
+        var first = 0
+        var firstStart = 0
+        while (first < tokens.size) {
+            val end = firstStart + textLength(tokens, first)
+            if (end > lookBehind) {
+                break
+            }
+            firstStart = end
+            first++
+        }
+
+        val builder = CalculatorTokenStream.Builder(tokens.size + inserted + 1)
+            .addAll(tokens, 0, first)
+        val delta = inserted - removed
+        val editEnd = start + inserted
+        var oldIndex = first
+        var oldPosition = firstStart
+        var position = firstStart
+        while (position < text.length) {
+            if (position >= editEnd) {
+                val target = position - delta
+                while (oldIndex < tokens.size && oldPosition < target) {
+                    oldPosition += textLength(tokens, oldIndex)
+                    oldIndex++
+                }
+                if (oldPosition == target) {
+                    return builder.addAll(tokens, oldIndex).build()
+                }
+            }
+            position = readToken(text, position, builder)
+        }
+        return builder.build()
+    }
+
+    /** Spells out [tokens] as the parser and arity expect them. */
+    fun canonicalize(tokens: CalculatorTokenStream): String =
+        StringBuilder(tokens.size).also { tokens.appendCanonicalTo(it) }.toString()
+
+    /** Spells out [tokens] for display in this codec's locale. */
+    fun localize(tokens: CalculatorTokenStream): String {
+        val builder = StringBuilder(tokens.size)
+        for (index in 0 until tokens.size) {
+            val code = tokens.code(index)
+            val literal = tokens.literal(index)
+            when (code) {
+                CalculatorToken.NUMBER -> for (char in literal!!) {
+                    builder.append(if (char == '.') decimalSeparator else zeroDigit + (char - '0'))
+                }
+
+                CalculatorToken.CHARACTER -> builder.append(literal)
+                else -> builder.append(spellings[code])
+            }
+        }
+        return builder.toString()
+    }
+
+    /**
+     * Normalizes a single character of a localized expression, e.g. a localized digit or
+     * operator. Characters that are part of longer localized tokens are returned unchanged.
+     */
+    fun normalizeChar(char: Char): Char = when {
+        char in zeroDigit..zeroDigit + 9 -> '0' + (char - zeroDigit)
+        char == decimalSeparator -> '.'
+        else -> charNormalizationMap[char] ?: char
+    }
+
+    private fun readToken(
+        text: CharSequence,
+        start: Int,
+        builder: CalculatorTokenStream.Builder
+    ): Int {
+        val first = text[start]
+        spellingsByFirstChar[first]?.let { candidates ->
+            for (candidate in candidates) {
+                if (text.regionMatches(start, candidate.text)) {
+                    val localized = candidate.text == spellings[candidate.code]
+                    builder.add(candidate.code, if (localized) null else candidate.text)
+                    return start + candidate.text.length
+                }
+            }
+        }
+        if (!isNumeric(first)) {
+            builder.add(CalculatorToken.CHARACTER, first.toString())
+            return start + 1
+        }
+        val literal = StringBuilder()
+        var end = start
+        while (end < text.length && isNumeric(text[end])) {
+            literal.append(normalizeChar(text[end]))
+            end++
+        }
+        builder.add(CalculatorToken.NUMBER, literal.toString())
+        return end
+    }
+
+    private fun isNumeric(char: Char): Boolean = char in '0'..'9' ||
+        char == '.' ||
+        char in zeroDigit..zeroDigit + 9 ||
+        char == decimalSeparator
+
+    private fun CharSequence.regionMatches(start: Int, spelling: String): Boolean {
+        if (start + spelling.length > length) {
+            return false
+        }
+        for (index in spelling.indices) {
+            if (this[start + index] != spelling[index]) {
+                return false
+            }
+        }
+        return true
+    }
+
+    /** Length of the text the token at [index] was read from. */
+    private fun textLength(tokens: CalculatorTokenStream, index: Int): Int =
+        tokens.literal(index)?.length ?: spellings[tokens.code(index)].length
+
+    private class Spelling(val text: String, val code: Int)
+}
@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+/** Codes of the tokens in a [CalculatorTokenStream]. */
+internal object CalculatorToken {
+    /** A number; its canonical digits and decimal points are the token's literal. */
+    const val NUMBER = 0
+
+    /** Any other single character, which is the token's literal. */
+    const val CHARACTER = 1
+
+    const val ADD = 2
+    const val SUBTRACT = 3
+    const val MULTIPLY = 4
+    const val DIVIDE = 5
+    const val POWER = 6
+    const val FACTORIAL = 7
+    const val PERCENT = 8
+    const val SQUARE_ROOT = 9
+    const val LEFT_PARENTHESIS = 10
+    const val RIGHT_PARENTHESIS = 11
+    const val SIN = 12
+    const val COS = 13
+    const val TAN = 14
+    const val LN = 15
+    const val LOG = 16
+    const val PI = 17
+    const val E = 18
+    const val INFINITY = 19
+
+    const val COUNT = 20
+
+    private val canonicalSpellings = arrayOf(
+        "",
+        "",
+        "+",
+        "-",
+        "*",
+        "/",
+        "^",
+        "!",
+        "%",
+        "√",
+        "(",
+        ")",
+        "sin",
+        "cos",
+        "tan",
+        "ln",
+        "log",
+        "π",
+        "e",
+        "Infinity"
+    )
+
+    /**
+     * The spelling of [code] understood by [CalculatorExpressionParser] and arity, or an empty
+     * string for [NUMBER] and [CHARACTER], which are spelled by their literal.
+     */
+    fun canonicalSpelling(code: Int): String = canonicalSpellings[code]
+}
+
+/**
+ * A formula as a sequence of [CalculatorToken] codes.
+ *
+ * Codes are kept in an [IntArray] with a side array of literals: the canonical digits of each
+ * [CalculatorToken.NUMBER], the character of each [CalculatorToken.CHARACTER], and for other
+ * tokens the text they were read from if it is not their localized spelling, e.g. `*` typed on
+ * a hardware keyboard. The literal is `null` otherwise. [CalculatorTokenCodec] reads streams
+ * from text and spells them out again.
+ */
+internal class CalculatorTokenStream private constructor(
+    private val codes: IntArray,
+    private val literals: Array<String?>,
+    val size: Int
+) {
+    fun code(index: Int): Int {
+        checkIndex(index)
+        return codes[index]
+    }
+
+    /** The literal of the token at [index], or `null` if its localized spelling is used. */
+    fun literal(index: Int): String? {
+        checkIndex(index)
+        return literals[index]
+    }
+
+    /** Appends the canonical spelling of every token to [builder]. */
+    fun appendCanonicalTo(builder: StringBuilder) {
+        for (index in 0 until size) {
+            val code = codes[index]
+            if (code == CalculatorToken.NUMBER || code == CalculatorToken.CHARACTER) {
+                builder.append(literals[index])
+            } else {
+                builder.append(CalculatorToken.canonicalSpelling(code))
+            }
+        }
+    }
+
+    override fun equals(other: Any?): Boolean {
+        if (this === other) {
+            return true
+        }
+        if (other !is CalculatorTokenStream || size != other.size) {
+            return false
+        }
+        for (index in 0 until size) {
+            if (codes[index] != other.codes[index] || literals[index] != other.literals[index]) {
+                return false
+            }
+        }
+        return true
+    }
+
+    override fun hashCode(): Int {
+        var hash = size
+        for (index in 0 until size) {
+            hash = 31 * hash + codes[index]
+            hash = 31 * hash + literals[index].hashCode()
+        }
+        return hash
+    }
+
+    override fun toString(): String = buildString { appendCanonicalTo(this) }
+
+    private fun checkIndex(index: Int) {
+        if (index !in 0 until size) {
+            throw IndexOutOfBoundsException("Index $index out of bounds for size $size")
+        }
+    }
+
+    /**
+     * Accumulates tokens, usually copying runs of an existing stream around new ones. The built
+     * stream takes over the builder's arrays, so a builder builds a single stream.
+     */
+    class Builder(capacity: Int = DEFAULT_CAPACITY) {
+        private var codes = IntArray(maxOf(capacity, 1))
+        private var literals = arrayOfNulls<String>(codes.size)
+        private var size = 0
+
+        fun add(code: Int, literal: String? = null): Builder {
+            ensureCapacity(size + 1)
+            codes[size] = code
+            literals[size] = literal
+            size++
+            return this
+        }
+
+        /** Adds the tokens of [stream] from [from] until [to]. */
+        fun addAll(
+            stream: CalculatorTokenStream,
+            from: Int = 0,
+            to: Int = stream.size
+        ): Builder {
+            val count = to - from
+            ensureCapacity(size + count)
+            stream.codes.copyInto(codes, size, from, to)
+            stream.literals.copyInto(literals, size, from, to)
+            size += count
+            return this
+        }
+
+        fun build(): CalculatorTokenStream =
+            if (size == 0) EMPTY else CalculatorTokenStream(codes, literals, size)
+
+        private fun ensureCapacity(capacity: Int) {
+            if (capacity > codes.size) {
+                val grown = maxOf(capacity, codes.size * 2)
+                codes = codes.copyOf(grown)
+                literals = literals.copyOf(grown)
+            }
+        }
+    }
+
+    companion object {
+        val EMPTY = CalculatorTokenStream(IntArray(0), emptyArray(), 0)
+
+        private const val DEFAULT_CAPACITY = 16
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.util.concurrent.atomic.AtomicInteger
+
+/** Records the sections [CalculatorTrace] marks, e.g. into the platform's system trace. */
+interface CalculatorTracer {
+    /** Whether a trace is being recorded; sections are skipped entirely while it is not. */
+    val isEnabled: Boolean
+
+    fun beginSection(name: String)
+
+    fun endSection()
+
+    fun beginAsyncSection(name: String, cookie: Int)
+
+    fun endAsyncSection(name: String, cookie: Int)
+}
+
+/**
+ * Named sections of the calculator's and tile's hot paths for profiling with system traces.
+ *
+ * The names are read by trace analysis scripts, so keep them stable: rename a section only
+ * together with the scripts that query it. Until the app installs a [tracer], and while that
+ * tracer is not recording, a section costs a volatile read and a null check.
+ */
+object CalculatorTrace {
+    /** Handling a tap on the Quick Settings tile. */
+    const val TILE_CLICK = "QuickCalc:tileClick"
+
+    /** Async: from a tap on the tile to its dialog showing. */
+    const val TILE_OPEN = "QuickCalc:tileOpen"
+
+    /** Creating and showing the tile's dialog. */
+    const val SHOW_DIALOG = "QuickCalc:showDialog"
+
+    /** Setting up the tile's dialog once it shows. */
+    const val DIALOG_SHOWN = "QuickCalc:dialogShown"
+
+    /** Tearing down the tile's dialog once it is dismissed. */
+    const val DIALOG_DISMISSED = "QuickCalc:dialogDismissed"
+
+    /** Async: from the tile's dialog showing to its dismissal. */
+    const val DIALOG_VISIBLE = "QuickCalc:dialogVisible"
+
+    /** [CalculatorUiReducer.reduce]. */
+    const val REDUCE = "QuickCalc:reduce"
+
+    /** One evaluation in [CalculatorExpressionEvaluator]. */
+    const val EVALUATE = "QuickCalc:evaluate"
+
+    /** Async: writing the tile dialog's state to settings, which may hop threads. */
+    const val AUTOSAVE = "QuickCalc:autosave"
+
+    /** Applying the tile dialog's window background and blur. */
+    const val APPLY_WINDOW_EFFECT = "QuickCalc:applyWindowEffect"
+
+    /** Every section name, for checking they stay stable. */
+    val SECTION_NAMES: List<String> = listOf(
+        TILE_CLICK,
+        TILE_OPEN,
+        SHOW_DIALOG,
+        DIALOG_SHOWN,
+        DIALOG_DISMISSED,
+        DIALOG_VISIBLE,
+        REDUCE,
+        EVALUATE,
+        AUTOSAVE,
+        APPLY_WINDOW_EFFECT
+    )
+
+    @Volatile
+    var tracer: CalculatorTracer? = null
+
+    private val nextCookie = AtomicInteger()
+
+    /** Runs [block] inside the section [name]. The section must begin and end on one thread. */
+    inline fun <T> section(name: String, block: () -> T): T {
+        val tracer = tracer
+        if (tracer == null || !tracer.isEnabled) {
+            return block()
+        }
+        tracer.beginSection(name)
+        try {
+            return block()
+        } finally {
+            tracer.endSection()
+        }
+    }
+
+    /**
+     * Begins the async section [name], which may end on another thread, and returns the cookie
+     * to end it with, or 0 if it was not begun.
+     */
+    fun beginAsync(name: String): Int {
+        val tracer = tracer
+        if (tracer == null || !tracer.isEnabled) {
+            return 0
+        }
+        // Zero means "not begun", so skip it when the counter wraps.
+        val cookie = nextCookie.incrementAndGet().takeIf { it != 0 } ?: nextCookie.incrementAndGet()
+        tracer.beginAsyncSection(name, cookie)
+        return cookie
+    }
+
+    /** Ends the async section [name] that [beginAsync] returned [cookie] for. */
+    fun endAsync(name: String, cookie: Int) {
+        if (cookie == 0) {
+            return
+        }
+        tracer?.endAsyncSection(name, cookie)
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+/** Times the evaluations a [CalculatorUiReducer] runs, apart from the rest of reducing. */
+interface CalculatorEvaluationTimer {
+    /** A start time to pass to [onEvaluated], or 0 to leave this evaluation untimed. */
+    fun start(): Long
+
+    /** Called once the evaluation begun at [startNanos] returned. */
+    fun onEvaluated(startNanos: Long)
+}
+
+/**
+ * Turns [CalculatorUiEvent]s into the next [CalculatorUiState].
+ *
+ * @param errorText the message shown in place of the result for each [CalculatorError].
+ */
+class CalculatorUiReducer(
+    private val evaluator: CalculatorExpressionEvaluator,
+    private val tokenizer: CalculatorExpressionTokenizer,
+    private val errorText: (CalculatorError) -> String,
+    /** Bound on the bytes retained by each state's undo history. */
+    private val maxHistoryBytes: Long = DEFAULT_MAX_HISTORY_BYTES,
+    private val evaluationTimer: CalculatorEvaluationTimer? = null
+) {
+
+    /**
+     * The last formula this reducer evaluated and its tokens. Edits to it re-read only the
+     * tokens around the cursor, and evaluation works from the tokens rather than the text.
+     */
+    private var tokenizedFormula: CalculatorFormula? = null
+    private var formulaTokens = CalculatorTokenStream.EMPTY
+
+    fun initialState(initialFormula: String, evaluateAsResult: Boolean): CalculatorUiState {
+        if (initialFormula.isBlank()) {
+            return CalculatorUiState()
+        }
+        val formula = CalculatorFormula.of(initialFormula)
+        val evaluatedInputState = evaluateForInput(formula, tokenizer.tokenize(formula))
+        return if (evaluateAsResult) {
+            evaluateForEquals(evaluatedInputState)
+        } else {
+            evaluatedInputState
+        }
+    }
+
+    fun reduce(previous: CalculatorUiState, event: CalculatorUiEvent): CalculatorUiState =
+        CalculatorTrace.section(CalculatorTrace.REDUCE) {
+            val next = reduceEvent(previous, event)
+            if (next === previous) previous else next.copy(sequence = previous.sequence + 1)
+        }
+
+    private fun reduceEvent(
+        previous: CalculatorUiState,
+        event: CalculatorUiEvent
+    ): CalculatorUiState = when (event) {
+        is CalculatorUiEvent.Append -> {
+            val suffix = if (event.appendLeftParenthesis) "(" else ""
+            val insertion = event.token + suffix
+            val formula = previous.formula.insert(insertion)
+            val tokens = tokenizer.edit(
+                tokensOf(previous.formula),
+                formula,
+                start = previous.formula.cursor,
+                removed = 0,
+                inserted = insertion.length
+            )
+            recorded(previous, evaluateForInput(formula, tokens))
+        }
+
+        CalculatorUiEvent.Delete -> {
+            if (previous.formula.cursor == 0) {
+                previous
+            } else {
+                val formula = previous.formula.deleteBackward()
+                val tokens = tokenizer.edit(
+                    tokensOf(previous.formula),
+                    formula,
+                    start = formula.cursor,
+                    removed = 1,
+                    inserted = 0
+                )
+                recorded(previous, evaluateForInput(formula, tokens))
+            }
+        }
+
+        is CalculatorUiEvent.MoveCursor -> {
+            if (previous.phase != CalculatorUiPhase.INPUT) {
+                previous
+            } else {
+                previous.copy(formula = previous.formula.withCursor(event.position))
+            }
+        }
+
+        CalculatorUiEvent.Clear -> {
+            if (previous.formula.isEmpty()) {
+                previous
+            } else {
+                recorded(previous, CalculatorUiState())
+            }
+        }
+
+        is CalculatorUiEvent.Recall -> {
+            val formula = CalculatorFormula.of(event.formula)
+            recorded(previous, evaluateForInput(formula, tokenizer.tokenize(formula)))
+        }
+
+        CalculatorUiEvent.Equals -> recorded(previous, evaluateForEquals(previous))
+
+        CalculatorUiEvent.RequestMoreResultDigits -> {
+            if (previous.phase != CalculatorUiPhase.INPUT || previous.resultText.isEmpty()) {
+                previous
+            } else {
+                val result = evaluator.evaluateWithMoreDigits(tokensOf(previous.formula))
+                (result as? EvaluationResult.Success)
+                    ?.let { previous.copy(resultText = it.result) }
+                    ?: previous
+            }
+        }
+
+        // Restored states keep the preview result they were recorded with.
+        CalculatorUiEvent.Undo -> previous.history.undo(previous) ?: previous
+        CalculatorUiEvent.Redo -> previous.history.redo(previous) ?: previous
+    }
+
+    /** [next] with [previous] recorded for undo, unless the event changed nothing visible. */
+    private fun recorded(previous: CalculatorUiState, next: CalculatorUiState): CalculatorUiState =
+        when {
+            next === previous -> previous
+            next.showsSameAs(previous) -> next.copy(history = previous.history)
+            else -> next.copy(history = previous.history.record(previous, maxHistoryBytes))
+        }
+
+    private fun tokensOf(formula: CalculatorFormula): CalculatorTokenStream {
+        val tokenized = tokenizedFormula
+        if (tokenized != null && formula.sharesTextWith(tokenized)) {
+            return formulaTokens
+        }
+        return tokenizer.tokenize(formula).also {
+            tokenizedFormula = formula
+            formulaTokens = it
+        }
+    }
+
+    private fun evaluateForInput(
+        formula: CalculatorFormula,
+        tokens: CalculatorTokenStream
+    ): CalculatorUiState {
+        tokenizedFormula = formula
+        formulaTokens = tokens
+        val result = timed { evaluator.evaluate(tokens) }
+        return CalculatorUiState(
+            formula = formula,
+            resultText = (result as? EvaluationResult.Success)?.result.orEmpty(),
+            phase = CalculatorUiPhase.INPUT
+        )
+    }
+
+    private fun evaluateForEquals(previous: CalculatorUiState): CalculatorUiState {
+        if (previous.phase != CalculatorUiPhase.INPUT) {
+            return previous
+        }
+
+        val tokens = tokensOf(previous.formula)
+        return when (val result = timed { evaluator.evaluateResult(tokens) }) {
+            is EvaluationResult.Error -> CalculatorUiState(
+                formula = previous.formula,
+                resultText = errorText(result.error),
+                phase = CalculatorUiPhase.ERROR
+            )
+
+            is EvaluationResult.TooComplex -> CalculatorUiState(
+                formula = previous.formula,
+                resultText = errorText(CalculatorError.TOO_COMPLEX),
+                phase = CalculatorUiPhase.ERROR
+            )
+
+            is EvaluationResult.Success -> CalculatorUiState(
+                formulaText = result.result,
+                resultText = result.result,
+                phase = CalculatorUiPhase.RESULT
+            )
+
+            is EvaluationResult.Empty -> CalculatorUiState(
+                formula = previous.formula,
+                resultText = "",
+                phase = CalculatorUiPhase.INPUT
+            )
+        }
+    }
+
+    private inline fun timed(evaluate: () -> EvaluationResult): EvaluationResult {
+        val timer = evaluationTimer ?: return evaluate()
+        val startNanos = timer.start()
+        return evaluate().also { timer.onEvaluated(startNanos) }
+    }
+
+    companion object {
+        /** Enough for thousands of keystrokes into a long formula. */
+        const val DEFAULT_MAX_HISTORY_BYTES = 512L * 1024
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+enum class CalculatorUiPhase {
+    INPUT,
+    EVALUATE,
+    RESULT,
+    ERROR
+}
+
+data class CalculatorUiState(
+    val formula: CalculatorFormula = CalculatorFormula.EMPTY,
+    val resultText: String = "",
+    val phase: CalculatorUiPhase = CalculatorUiPhase.INPUT,
+    /** The states undo and redo return to. Not part of equality. */
+    val history: CalculatorEditHistory = CalculatorEditHistory.EMPTY,
+    /**
+     * Counts the reductions that led here: [CalculatorUiReducer.reduce] numbers each state it
+     * changes one past the state it reduced, so that a drawn state can be matched to the
+     * keystrokes before it even after something else replaced it. Not part of equality.
+     */
+    val sequence: Long = 0L
+) {
+    /** Creates a state for [formulaText] with the cursor at its end. */
+    constructor(
+        formulaText: String,
+        resultText: String = "",
+        phase: CalculatorUiPhase = CalculatorUiPhase.INPUT
+    ) : this(CalculatorFormula.of(formulaText), resultText, phase)
+
+    val formulaText: String
+        get() = formula.toString()
+
+    val showsClearButton: Boolean
+        get() = phase == CalculatorUiPhase.RESULT || phase == CalculatorUiPhase.ERROR
+
+    val hasError: Boolean
+        get() = phase == CalculatorUiPhase.ERROR
+
+    /** Whether this state shows the same as [other], without comparing formula text. */
+    internal fun showsSameAs(other: CalculatorUiState): Boolean =
+        formula.sharesTextWith(other.formula) &&
+            formula.cursor == other.formula.cursor &&
+            resultText == other.resultText &&
+            phase == other.phase
+
+    override fun equals(other: Any?): Boolean = this === other ||
+        other is CalculatorUiState &&
+        formula == other.formula &&
+        resultText == other.resultText &&
+        phase == other.phase
+
+    override fun hashCode(): Int = (formula.hashCode() * 31 + resultText.hashCode()) * 31 +
+        phase.hashCode()
+}
+
+sealed interface CalculatorUiEvent {
+    data class Append(val token: String, val appendLeftParenthesis: Boolean = false) :
+        CalculatorUiEvent
+
+    /** Deletes the character before the cursor. */
+    data object Delete : CalculatorUiEvent
+
+    /** Moves the formula cursor to [position]; later appends and deletes happen there. */
+    data class MoveCursor(val position: Int) : CalculatorUiEvent
+
+    data object Clear : CalculatorUiEvent
+
+    /** Replaces the formula with [formula], e.g. one recalled from the calculation history. */
+    data class Recall(val formula: String) : CalculatorUiEvent
+
+    data object Equals : CalculatorUiEvent
+
+    /**
+     * The user scrolled to the end of the preview result and wants more digits. The reducer
+     * computes them synchronously; the app uses [CalculatorResultRefiner] to keep that work off
+     * the main thread.
+     */
+    data object RequestMoreResultDigits : CalculatorUiEvent
+
+    /** Returns to the state before the last edit, clear or equals. */
+    data object Undo : CalculatorUiEvent
+
+    /** Returns to the state the last [Undo] left. */
+    data object Redo : CalculatorUiEvent
+}
@@ -0,0 +1,444 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.util.EnumMap
+import org.javia.arity.ContextFunction
+import org.javia.arity.EvalContext
+import org.javia.arity.Symbols
+
+/**
+ * Evaluates normalized expressions in double precision, reusing work from the previous call.
+ *
+ * The parse tree of the last expression is kept together with the value of every subtree. When
+ * the next expression differs from it in a single span, as it does after typing or deleting at
+ * the cursor, only the smallest number or parenthesized group around that span is parsed again
+ * and only its ancestors are re-evaluated; every other subtree keeps its cached value. Nodes store
+ * their offset relative to their parent, so text after the edit never needs renumbering.
+ *
+ * Every operator is applied with a function compiled by arity, so results match evaluating the
+ * whole expression with [Symbols.eval], including percentages taken relative to the left operand
+ * as described at [relativePercent]. The exception is input that arity evaluates through complex
+ * intermediate values, such as `(√-1)^2`, which comes out as NaN here.
+ *
+ * Not thread-safe, like [CalculatorExpressionEvaluator].
+ */
+internal class IncrementalExpressionEvaluator(
+    private val parser: CalculatorExpressionParser = CalculatorExpressionParser(),
+    symbols: Symbols = Symbols()
+) {
+    private val context = EvalContext()
+    private val unaryArgument = DoubleArray(1)
+    private val binaryArguments = DoubleArray(2)
+
+    private val unaryOperators = UnaryOperator.entries.associateWithTo(
+        EnumMap(UnaryOperator::class.java)
+    ) { operator ->
+        val source = when (operator) {
+            UnaryOperator.NEGATE -> "-x"
+            UnaryOperator.SQRT -> "√x"
+            UnaryOperator.FACTORIAL -> "x!"
+            UnaryOperator.PERCENT -> "x%"
+        }
+        symbols.compile(source) as ContextFunction
+    }
+
+    private val power = symbols.compile("x^y") as ContextFunction
+
+    private val functions = ExpressionFunction.entries.associateWithTo(
+        EnumMap(ExpressionFunction::class.java)
+    ) { function -> symbols.compile("${function.functionName}(x)") as ContextFunction }
+
+    private val constants = ExpressionConstant.entries.associateWithTo(
+        EnumMap(ExpressionConstant::class.java)
+    ) { constant ->
+        when (constant) {
+            ExpressionConstant.PI -> symbols.eval("π")
+            ExpressionConstant.E -> symbols.eval("e")
+            ExpressionConstant.INFINITY -> symbols.eval("Infinity")
+        }
+    }
+
+    private var text = ""
+    private var root: Node? = null
+    private var budget: EvaluationBudget? = null
+
+    /** Number of characters parsed by the last call to [evaluate]. */
+    var lastParsedLength = 0
+        private set
+
+    /**
+     * Evaluates [expression], re-parsing only what changed since the previous call. Every node
+     * evaluated consumes a step of [budget], if given.
+     *
+     * @throws ExpressionParseException if the expression is not understood.
+     * @throws EvaluationBudgetExceededException if [budget] runs out.
+     * In both cases the previous expression stays cached, so the next edit is still compared
+     * against it.
+     */
+    fun evaluate(expression: String, budget: EvaluationBudget? = null): Double {
+        this.budget = budget
+        try {
+            val previous = root
+            val updated = when {
+                previous == null -> parseAll(expression)
+                expression == text -> {
+                    lastParsedLength = 0
+                    previous
+                }
+
+                else -> update(previous, expression)
+            }
+            text = expression
+            root = updated
+            return updated.value
+        } finally {
+            this.budget = null
+        }
+    }
+
+    private fun parseAll(expression: String): Node {
+        lastParsedLength = expression.length
+        return convert(parser.parse(expression), parentStart = 0)
+    }
+
+    private fun update(previous: Node, expression: String): Node {
+        // The edit is the span between the longest common prefix and suffix.
+        val common = minOf(text.length, expression.length)
+        var prefix = 0
+        while (prefix < common && text[prefix] == expression[prefix]) {
+            prefix++
+        }
+        var suffix = 0
+        while (suffix < common - prefix &&
+            text[text.length - 1 - suffix] == expression[expression.length - 1 - suffix]
+        ) {
+            suffix++
+        }
+        val edit = Edit(prefix, text.length - suffix, expression.length - text.length, expression)
+
+        // Walk down to the deepest node whose span contains the whole edit.
+        val path = ArrayList<Node>()
+        var node: Node? = previous
+        var start = 0
+        while (node != null) {
+            path += node
+            start += node.offset
+            val nodeStart = start
+            node = node.children.firstOrNull { child ->
+                val childStart = nodeStart + child.offset
+                childStart <= edit.start && edit.end <= childStart + child.length
+            }
+        }
+
+        // Try the smallest candidates first; starts are recovered on the way back up.
+        for (index in path.indices.reversed()) {
+            val candidate = path[index]
+            val replacement = when (candidate.source) {
+                is ExpressionNode.Number -> reparseNumber(candidate, start, edit)
+                is ExpressionNode.Group -> reparseGroup(candidate, start, edit)
+                else -> null
+            }
+            if (replacement != null) {
+                return rebuildPath(path, index, replacement, edit.delta)
+            }
+            start -= candidate.offset
+        }
+        return reparseTerms(previous, 0, 0, text.length, depth = 0, edit)
+            ?: parseAll(expression)
+    }
+
+    /** Replaces a number that was edited in place, if it is still a single number. */
+    private fun reparseNumber(node: Node, start: Int, edit: Edit): Node? {
+        val length = node.length + edit.delta
+        if (edit.start < start || edit.end > start + node.length || length <= 0) {
+            return null
+        }
+        val expression = edit.expression
+        // Characters next to the number must not join it into a longer token, as in "1e.5".
+        if (isNumberCharacter(expression.getOrNull(start - 1)) ||
+            isNumberCharacter(expression.getOrNull(start + length))
+        ) {
+            return null
+        }
+        val number = try {
+            parser.parse(expression.substring(start, start + length))
+        } catch (_: ExpressionParseException) {
+            return null
+        }
+        if (number !is ExpressionNode.Number || number.start != 0) {
+            return null
+        }
+        lastParsedLength = length
+        return Node(number, node.offset, length, NO_CHILDREN, number.value.toDouble())
+    }
+
+    private fun isNumberCharacter(char: Char?): Boolean =
+        char != null && char != 'π' && (char.isLetterOrDigit() || char == '.')
+
+    /**
+     * Re-parses the part of a group's content around the edit, if the group still has the same
+     * parentheses. Parse errors in the content are errors of the whole expression and are not
+     * caught.
+     */
+    private fun reparseGroup(node: Node, start: Int, edit: Edit): Node? {
+        val group = node.source as ExpressionNode.Group
+        val contentEnd = start + node.length - if (group.closed) 1 else 0
+        if (edit.start <= start || edit.end > contentEnd) {
+            return null
+        }
+        val chain = node.children[0]
+        val inner = reparseTerms(chain, start, start + 1, contentEnd, group.innerDepth, edit)
+            ?: run {
+                val content = edit.expression.substring(start + 1, contentEnd + edit.delta)
+                if (!isBalanced(content, allowUnclosed = !group.closed)) {
+                    return null
+                }
+                lastParsedLength = content.length
+                // Content positions are relative to the character after the '('.
+                convert(parser.parse(content, group.innerDepth), parentStart = -1)
+            }
+        return Node(group, node.offset, node.length + edit.delta, arrayOf(inner), inner.value)
+    }
+
+    /**
+     * Re-parses only the terms of the `+`/`-` chain [top] that the edit touches, keeping the
+     * others. [top] is all of the text from [contentStart] to [contentEnd] and its offset is
+     * relative to [ownerStart]; so is the offset of the returned chain.
+     *
+     * Terms are split at `+` and `-` operators, which never belong to a complete term, so a
+     * stretch of terms that parses on its own parses the same way inside the chain. The chain is
+     * rebuilt left-deep, so sums are still evaluated in the same order as arity.
+     */
+    private fun reparseTerms(
+        top: Node,
+        ownerStart: Int,
+        contentStart: Int,
+        contentEnd: Int,
+        depth: Int,
+        edit: Edit
+    ): Node? {
+        val chainStart = ownerStart + top.offset
+        // links[j] joins the first m - j terms to term m - j, where m is the last term's index.
+        val links = ArrayList<Node>()
+        var firstTerm = top
+        while (firstTerm.isAdditive) {
+            links += firstTerm
+            firstTerm = firstTerm.children[0]
+        }
+        val lastIndex = links.size
+        fun link(term: Int) = links[lastIndex - term]
+        fun termStart(term: Int) =
+            if (term == 0) contentStart else chainStart + link(term).children[0].length + 1
+        fun termEnd(term: Int) = if (term == lastIndex) contentEnd else termStart(term + 1) - 1
+
+        var first = 0
+        while (first < lastIndex && termEnd(first) < edit.start) {
+            first++
+        }
+        var last = lastIndex
+        while (last > first && termStart(last) > edit.end) {
+            last--
+        }
+        val regionStart = termStart(first)
+        val regionEnd = termEnd(last) + edit.delta
+        if (regionEnd <= regionStart) {
+            return null
+        }
+        val region = edit.expression.substring(regionStart, regionEnd)
+        if (!isBalanced(region, allowUnclosed = regionEnd == edit.expression.length)) {
+            return null
+        }
+        val parsed = try {
+            parser.parse(region, depth)
+        } catch (_: ExpressionParseException) {
+            // The terms may only make sense together with their neighbours, as in "2*" and "-3".
+            return null
+        }
+        lastParsedLength = region.length
+
+        val parsedTerms = ArrayList<ExpressionNode>()
+        var parsedLink = parsed
+        while (parsedLink is ExpressionNode.Binary && parsedLink.isAdditive) {
+            parsedTerms += parsedLink
+            parsedLink = parsedLink.left
+        }
+        parsedTerms += parsedLink
+        parsedTerms.reverse()
+
+        val newStart = if (first == 0) regionStart + parsedLink.start else chainStart
+        var chain = if (first == 0) null else if (first == 1) firstTerm else link(first - 1)
+        // Links only need their source for the operator, so existing ones are reused.
+        fun append(operator: ExpressionNode?, term: Node) {
+            val left = chain
+            chain = if (left == null || operator == null) {
+                term
+            } else {
+                val children = arrayOf(left, term)
+                Node(operator, 0, term.offset + term.length, children, compute(operator, children))
+            }
+        }
+        for ((index, term) in parsedTerms.withIndex()) {
+            val operator = when {
+                index > 0 -> term
+                first > 0 -> link(first).source
+                else -> null
+            }
+            val operand = if (index > 0) (term as ExpressionNode.Binary).right else term
+            append(operator, convert(operand, parentStart = newStart - regionStart))
+        }
+        for (term in last + 1..lastIndex) {
+            val old = link(term)
+            val right = old.children[1]
+            append(old.source, right.withOffset(chainStart + right.offset + edit.delta - newStart))
+        }
+        return chain?.withOffset(newStart - ownerStart)
+    }
+
+    /**
+     * Whether every parenthesis in [content] pairs up within it, so that it cannot change which
+     * parenthesis closes an enclosing group. Unclosed groups are fine at the end of the text.
+     */
+    private fun isBalanced(content: String, allowUnclosed: Boolean): Boolean {
+        var depth = 0
+        for (char in content) {
+            when (char) {
+                '(' -> depth++
+                ')' -> if (--depth < 0) return false
+            }
+        }
+        return depth == 0 || allowUnclosed
+    }
+
+    /** Swaps [replacement] in for `path[index]` and re-evaluates its ancestors. */
+    private fun rebuildPath(path: List<Node>, index: Int, replacement: Node, delta: Int): Node {
+        var replaced = replacement
+        for (ancestor in index - 1 downTo 0) {
+            val parent = path[ancestor]
+            val children = parent.children.copyOf()
+            val childIndex = children.indexOfFirst { it === path[ancestor + 1] }
+            children[childIndex] = replaced
+            for (sibling in childIndex + 1 until children.size) {
+                children[sibling] = children[sibling].let { it.withOffset(it.offset + delta) }
+            }
+            replaced = Node(
+                parent.source,
+                parent.offset,
+                parent.length + delta,
+                children,
+                compute(parent.source, children)
+            )
+        }
+        return replaced
+    }
+
+    private fun convert(node: ExpressionNode, parentStart: Int): Node {
+        val children = when (node) {
+            is ExpressionNode.Number, is ExpressionNode.Constant -> NO_CHILDREN
+            is ExpressionNode.Unary -> arrayOf(convert(node.operand, node.start))
+            is ExpressionNode.Binary ->
+                arrayOf(convert(node.left, node.start), convert(node.right, node.start))
+
+            is ExpressionNode.Function -> arrayOf(convert(node.argument, node.start))
+            is ExpressionNode.Group -> arrayOf(convert(node.inner, node.start))
+        }
+        return Node(
+            node,
+            node.start - parentStart,
+            node.end - node.start,
+            children,
+            compute(node, children)
+        )
+    }
+
+    private fun compute(source: ExpressionNode, children: Array<Node>): Double {
+        budget?.consume()
+        return valueOf(source, children)
+    }
+
+    private fun valueOf(source: ExpressionNode, children: Array<Node>): Double = when (source) {
+        is ExpressionNode.Number -> source.value.toDouble()
+        is ExpressionNode.Constant -> constants.getValue(source.constant)
+        is ExpressionNode.Unary -> unary(unaryOperators.getValue(source.operator), children[0])
+        is ExpressionNode.Binary -> {
+            val left = children[0].value
+            // arity adds `left * (b%)` for `left+b%`, so the sum comes out bit for bit the same.
+            val right = children[1].value.let {
+                if (source.isAdditive && children[1].isPercent) left * it else it
+            }
+            // Plain IEEE arithmetic, exactly what arity does for these; only ^ needs arity.
+            when (source.operator) {
+                BinaryOperator.ADD -> left + right
+                BinaryOperator.SUBTRACT -> left - right
+                BinaryOperator.MULTIPLY -> left * right
+                BinaryOperator.DIVIDE -> left / right
+                BinaryOperator.POWER -> {
+                    binaryArguments[0] = left
+                    binaryArguments[1] = right
+                    power.eval(binaryArguments, context)
+                }
+            }
+        }
+
+        is ExpressionNode.Function -> unary(functions.getValue(source.function), children[0])
+        is ExpressionNode.Group -> children[0].value
+    }
+
+    private fun unary(function: ContextFunction, operand: Node): Double {
+        unaryArgument[0] = operand.value
+        return function.eval(unaryArgument, context)
+    }
+
+    /**
+     * A parsed subtree and its value. [source] supplies the operator; its own offsets refer to
+     * the text it was parsed from and are not used after conversion.
+     */
+    private class Node(
+        val source: ExpressionNode,
+        /** Start relative to the parent's start, or to the text for the root. */
+        val offset: Int,
+        val length: Int,
+        val children: Array<Node>,
+        val value: Double
+    ) {
+        val isAdditive: Boolean
+            get() = source is ExpressionNode.Binary && source.isAdditive
+
+        /**
+         * Whether this is a percentage, possibly in parentheses. Groups are checked through their
+         * children because a re-parsed group keeps its old [source].
+         */
+        val isPercent: Boolean
+            get() = when (source) {
+                is ExpressionNode.Unary -> source.operator == UnaryOperator.PERCENT
+                is ExpressionNode.Group -> children[0].isPercent
+                else -> false
+            }
+
+        fun withOffset(offset: Int) = Node(source, offset, length, children, value)
+    }
+
+    /** A replacement of [start] until [end] of the previous text that produced [expression]. */
+    private class Edit(val start: Int, val end: Int, val delta: Int, val expression: String)
+
+    private companion object {
+        val NO_CHILDREN = emptyArray<Node>()
+
+        val ExpressionNode.Binary.isAdditive: Boolean
+            get() = operator == BinaryOperator.ADD || operator == BinaryOperator.SUBTRACT
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.util.concurrent.atomic.AtomicLongArray
+
+/**
+ * Counts of latency samples in fixed buckets, recorded from any thread without locking.
+ *
+ * Unlike [LatencyRingBuffer], a histogram keeps every sample recorded since it was created or
+ * cleared, at the cost of only knowing each one to within its bucket. Bucket `i` holds samples no
+ * greater than `upperBoundsNanos[i]` and greater than the bound before it; a last, unbounded
+ * bucket holds the rest.
+ */
+class LatencyHistogram(upperBoundsNanos: LongArray = FRAME_BOUNDS_NANOS) {
+    private val upperBoundsNanos = upperBoundsNanos.copyOf()
+
+    init {
+        require(this.upperBoundsNanos.isNotEmpty()) { "upperBoundsNanos must not be empty" }
+        for (i in 1 until this.upperBoundsNanos.size) {
+            require(this.upperBoundsNanos[i] > this.upperBoundsNanos[i - 1]) {
+                "upperBoundsNanos must increase: ${this.upperBoundsNanos.toList()}"
+            }
+        }
+    }
+
+    private val counts = AtomicLongArray(this.upperBoundsNanos.size + 1)
+
+    fun record(nanos: Long) {
+        val found = upperBoundsNanos.binarySearch(nanos)
+        counts.incrementAndGet(if (found >= 0) found else -found - 1)
+    }
+
+    fun snapshot(): Snapshot =
+        Snapshot(upperBoundsNanos, LongArray(counts.length()) { counts.get(it) })
+
+    fun clear() {
+        for (i in 0 until counts.length()) {
+            counts.set(i, 0)
+        }
+    }
+
+    /** The counts a [LatencyHistogram] held at one point. */
+    class Snapshot internal constructor(
+        private val upperBoundsNanos: LongArray,
+        private val counts: LongArray
+    ) {
+        val bucketCount: Int
+            get() = counts.size
+
+        val total: Long = counts.sum()
+
+        fun count(bucket: Int): Long = counts[bucket]
+
+        /** The largest sample [bucket] holds, or [Long.MAX_VALUE] for the unbounded last bucket. */
+        fun upperBoundNanos(bucket: Int): Long =
+            upperBoundsNanos.getOrElse(bucket) { Long.MAX_VALUE }
+
+        /** The bucket holding the sample at [percent] percent, or -1 when there are none. */
+        fun percentileBucket(percent: Double): Int {
+            require(percent in 0.0..100.0) { "percent out of range: $percent" }
+            if (total == 0L) {
+                return -1
+            }
+            val rank = kotlin.math.ceil(percent / 100.0 * total).toLong().coerceAtLeast(1)
+            var seen = 0L
+            for (bucket in counts.indices) {
+                seen += counts[bucket]
+                if (seen >= rank) {
+                    return bucket
+                }
+            }
+            return counts.lastIndex
+        }
+
+        /**
+         * The upper bound of [percentileBucket], so that at least [percent] percent of samples
+         * are no greater than it; 0 when there are none.
+         */
+        fun percentileUpperBoundNanos(percent: Double): Long {
+            val bucket = percentileBucket(percent)
+            return if (bucket < 0) 0L else upperBoundNanos(bucket)
+        }
+
+        /** The counts as `≤4ms:3 ≤8ms:10 … >500ms:0`. */
+        override fun toString(): String = counts.indices.joinToString(" ") { bucket ->
+            val label = if (bucket < upperBoundsNanos.size) {
+                "≤${millis(upperBoundsNanos[bucket])}ms"
+            } else {
+                ">${millis(upperBoundsNanos.last())}ms"
+            }
+            "$label:${counts[bucket]}"
+        }
+
+        private fun millis(nanos: Long): String =
+            if (nanos % 1_000_000L == 0L) "${nanos / 1_000_000L}" else "%.1f".format(nanos / 1e6)
+    }
+
+    companion object {
+        /** Bounds around whole frames at 60 and 120 Hz, then coarser up to half a second. */
+        val FRAME_BOUNDS_NANOS: LongArray =
+            longArrayOf(4, 8, 12, 16, 20, 25, 33, 50, 67, 100, 150, 250, 500)
+                .map { it * 1_000_000L }
+                .toLongArray()
+    }
+}
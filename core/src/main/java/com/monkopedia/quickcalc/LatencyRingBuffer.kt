@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.util.concurrent.atomic.AtomicLong
+import java.util.concurrent.atomic.AtomicLongArray
+
+/**
+ * The last [capacity] latency samples, recorded from any thread without locking.
+ *
+ * Recording claims a ticket with one atomic increment, writes the sample to the ticket's slot,
+ * then publishes the ticket beside it, overwriting the oldest sample once the buffer is full. A
+ * [snapshot] only takes slots that hold the ticket it expects there, so a sample still being
+ * written, or one recorded before [clear], is left out rather than read as zero or stale. A slot
+ * being overwritten as it is read may give the newer sample, which is fine for the diagnostics
+ * this feeds.
+ */
+class LatencyRingBuffer(val capacity: Int) {
+    init {
+        require(capacity > 0) { "capacity must be positive: $capacity" }
+    }
+
+    private val samples = AtomicLongArray(capacity)
+
+    /** One more than the ticket of the sample last written to each slot; 0 for none. */
+    private val published = AtomicLongArray(capacity)
+    private val tickets = AtomicLong()
+
+    /** The first ticket since the last [clear]; tickets are never reused. */
+    private val cleared = AtomicLong()
+
+    /** How many samples have been recorded since the buffer was created or cleared. */
+    val recordedCount: Long
+        get() {
+            val first = cleared.get()
+            return tickets.get() - first
+        }
+
+    fun record(nanos: Long) {
+        val ticket = tickets.getAndIncrement()
+        val slot = (ticket % capacity).toInt()
+        samples.set(slot, nanos)
+        published.set(slot, ticket + 1)
+    }
+
+    /** The samples still held, oldest first. */
+    fun snapshot(): LongArray {
+        val end = tickets.get()
+        val start = maxOf(end - capacity, cleared.get())
+        val snapshot = LongArray((end - start).coerceAtLeast(0).toInt())
+        var count = 0
+        for (ticket in start until end) {
+            val slot = (ticket % capacity).toInt()
+            if (published.get(slot) != ticket + 1) {
+                continue
+            }
+            val sample = samples.get(slot)
+            // A writer that took the slot over since may have replaced the sample; skip it if it
+            // has also published, and otherwise the sample is at worst the newer one.
+            if (published.get(slot) == ticket + 1) {
+                snapshot[count++] = sample
+            }
+        }
+        return if (count == snapshot.size) snapshot else snapshot.copyOf(count)
+    }
+
+    fun percentiles(): LatencyPercentiles = LatencyPercentiles.of(snapshot())
+
+    fun clear() {
+        cleared.accumulateAndGet(tickets.get(), ::maxOf)
+    }
+}
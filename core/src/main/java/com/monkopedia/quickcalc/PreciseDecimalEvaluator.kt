@@ -0,0 +1,912 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.math.BigDecimal
+import java.math.BigInteger
+import java.math.MathContext
+import java.math.RoundingMode
+import kotlin.math.ceil
+import kotlin.math.log10
+
+/**
+ * Bounds the work a single evaluation may do, so that pathological input cannot stall the thread
+ * it runs on.
+ *
+ * Every series term, Newton iteration and factorial step consumes one step, and recursive walks
+ * over the expression tree run inside [nested]. Evaluation is abandoned with
+ * [EvaluationBudgetExceededException] once [maxSteps] or [maxDepth] is exceeded, once
+ * [maxWallTimeNanos] has elapsed, or when the evaluating thread is interrupted. Time and
+ * interruption are checked every [CHECK_INTERVAL] steps, which makes evaluation cooperatively
+ * cancellable.
+ */
+internal class EvaluationBudget(
+    private val maxSteps: Long,
+    private val maxDepth: Int = DEFAULT_MAX_DEPTH,
+    private val maxWallTimeNanos: Long = Long.MAX_VALUE,
+    private val startNanos: Long = System.nanoTime()
+) {
+    private var steps = 0L
+    private var stepsSinceCheck = 0
+    private var depth = 0
+
+    val consumedSteps: Long
+        get() = steps
+
+    fun consume(count: Int = 1) {
+        steps += count
+        if (steps > maxSteps) {
+            throw EvaluationBudgetExceededException("Evaluation exceeded $maxSteps steps")
+        }
+        stepsSinceCheck += count
+        if (stepsSinceCheck >= CHECK_INTERVAL) {
+            stepsSinceCheck = 0
+            checkpoint()
+        }
+    }
+
+    /** A budget of [maxSteps] fresh steps that runs out of time together with this one. */
+    fun withSteps(maxSteps: Long) =
+        EvaluationBudget(maxSteps, maxDepth, maxWallTimeNanos, startNanos)
+
+    /** Abandons the evaluation if it has run out of time or its thread was interrupted. */
+    fun checkpoint() {
+        if (Thread.currentThread().isInterrupted) {
+            throw EvaluationBudgetExceededException("Evaluation was cancelled")
+        }
+        if (System.nanoTime() - startNanos > maxWallTimeNanos) {
+            throw EvaluationBudgetExceededException(
+                "Evaluation exceeded ${maxWallTimeNanos / NANOS_PER_MILLI} ms"
+            )
+        }
+    }
+
+    fun <T> nested(block: () -> T): T {
+        if (++depth > maxDepth) {
+            depth--
+            throw EvaluationBudgetExceededException("Evaluation exceeded depth $maxDepth")
+        }
+        try {
+            return block()
+        } finally {
+            depth--
+        }
+    }
+
+    companion object {
+        const val DEFAULT_MAX_DEPTH = 512
+        private const val CHECK_INTERVAL = 64
+        private const val NANOS_PER_MILLI = 1_000_000L
+    }
+}
+
+internal class EvaluationBudgetExceededException(message: String) : RuntimeException(message)
+
+/** Raised for values the precise engine cannot represent, such as NaN or infinities. */
+internal class UnsupportedPreciseOperationException(message: String) : ArithmeticException(message)
+
+/**
+ * Evaluates calculator expressions with [BigDecimal] arithmetic.
+ *
+ * Expressions are compiled into a tree of [PreciseValue] nodes. Each node produces
+ * approximations to a requested absolute precision and remembers its best approximation, so
+ * asking a compiled [PreciseExpression] for more digits only refines the parts of the tree that
+ * were not already precise enough.
+ */
+internal class PreciseDecimalEvaluator(
+    private val parser: CalculatorExpressionParser = CalculatorExpressionParser()
+) {
+
+    /**
+     * Parses and compiles [expression].
+     *
+     * @throws ExpressionParseException if the expression is not understood.
+     * @throws UnsupportedPreciseOperationException if it cannot be evaluated precisely.
+     */
+    fun compile(expression: String): PreciseExpression =
+        PreciseExpression(expression, compileNode(parser.parse(expression)))
+
+    private fun compileNode(node: ExpressionNode): PreciseValue = when (node) {
+        is ExpressionNode.Number -> PreciseValue.Literal(node.value)
+        is ExpressionNode.Constant -> when (node.constant) {
+            ExpressionConstant.PI -> PreciseValue.Pi()
+            ExpressionConstant.E -> PreciseValue.Exp(PreciseValue.Literal(BigDecimal.ONE))
+            ExpressionConstant.INFINITY ->
+                throw UnsupportedPreciseOperationException("Infinity is not a decimal")
+        }
+
+        is ExpressionNode.Unary -> {
+            val operand = compileNode(node.operand)
+            when (node.operator) {
+                UnaryOperator.NEGATE -> PreciseValue.Negate(operand)
+                UnaryOperator.SQRT -> PreciseValue.Sqrt(operand)
+                UnaryOperator.FACTORIAL -> PreciseValue.Factorial(operand)
+                UnaryOperator.PERCENT -> PreciseValue.Percent(operand)
+            }
+        }
+
+        is ExpressionNode.Binary -> {
+            val left = compileNode(node.left)
+            // The left node is shared, so its approximations are computed once for both uses.
+            val right = node.relativePercent()?.let {
+                PreciseValue.Multiply(left, PreciseValue.Percent(compileNode(it.operand)))
+            } ?: compileNode(node.right)
+            when (node.operator) {
+                BinaryOperator.ADD -> PreciseValue.Add(left, right, negateRight = false)
+                BinaryOperator.SUBTRACT -> PreciseValue.Add(left, right, negateRight = true)
+                BinaryOperator.MULTIPLY -> PreciseValue.Multiply(left, right)
+                BinaryOperator.DIVIDE -> PreciseValue.Divide(left, right)
+                BinaryOperator.POWER -> compilePower(left, right)
+            }
+        }
+
+        is ExpressionNode.Function -> {
+            val argument = compileNode(node.argument)
+            when (node.function) {
+                ExpressionFunction.SIN -> PreciseValue.Sin(argument)
+                ExpressionFunction.COS -> PreciseValue.Cos(argument)
+                ExpressionFunction.TAN ->
+                    PreciseValue.Divide(PreciseValue.Sin(argument), PreciseValue.Cos(argument))
+                ExpressionFunction.LN -> PreciseValue.Ln(argument)
+                ExpressionFunction.LOG ->
+                    PreciseValue.Divide(PreciseValue.Ln(argument), PreciseValue.Ln10())
+            }
+        }
+
+        is ExpressionNode.Group -> compileNode(node.inner)
+    }
+
+    private fun compilePower(base: PreciseValue, exponent: PreciseValue): PreciseValue {
+        val integerExponent = exponent.exactValue?.let(::toIntegerOrNull)
+        return when {
+            integerExponent == null -> PreciseValue.Exp(
+                PreciseValue.Multiply(exponent, PreciseValue.Ln(base))
+            )
+
+            integerExponent < 0 -> PreciseValue.Divide(
+                PreciseValue.Literal(BigDecimal.ONE),
+                PreciseValue.IntegerPower(base, -integerExponent)
+            )
+
+            else -> PreciseValue.IntegerPower(base, integerExponent)
+        }
+    }
+
+    companion object {
+        private const val MAX_INTEGER_EXPONENT = 100_000
+
+        private fun toIntegerOrNull(value: BigDecimal): Int? {
+            val stripped = value.stripTrailingZeros()
+            if (stripped.scale() > 0 || stripped.abs() > BigDecimal(MAX_INTEGER_EXPONENT)) {
+                return null
+            }
+            return stripped.intValueExact()
+        }
+    }
+}
+
+/** A compiled expression that can be rendered to any number of significant digits. */
+internal class PreciseExpression(val expression: String, private val root: PreciseValue) {
+
+    /** The largest scale the root has been approximated to so far. */
+    private var refinedScale = 0
+
+    /**
+     * Renders the value rounded to [digits] significant digits. Work done for earlier calls is
+     * reused, and whenever more precision is needed it grows geometrically, so repeatedly asking
+     * for a few more digits stays amortized.
+     */
+    fun toDigits(digits: Int, budget: EvaluationBudget): String =
+        formatDecimal(approximateSignificant(digits, budget), digits)
+
+    private fun approximateSignificant(digits: Int, budget: EvaluationBudget): BigDecimal {
+        root.exactValue?.let { return it }
+        var scale = digits + GUARD_DIGITS
+        while (true) {
+            if (scale > refinedScale && refinedScale > 0) {
+                scale = maxOf(scale, refinedScale + refinedScale / 2)
+            }
+            val value = root.approximate(scale, budget)
+            refinedScale = maxOf(refinedScale, scale)
+            if (value.signum() != 0) {
+                val requiredScale = digits - exponentOf(value) + GUARD_DIGITS
+                if (scale >= requiredScale) {
+                    return value
+                }
+                scale = requiredScale
+            } else if (scale >= digits + MAX_ZERO_SCALE) {
+                // Indistinguishable from zero at any reasonable precision, e.g. sin(π).
+                return BigDecimal.ZERO
+            } else {
+                scale = minOf(scale * 2, digits + MAX_ZERO_SCALE)
+            }
+        }
+    }
+
+    private companion object {
+        const val GUARD_DIGITS = 3
+        const val MAX_ZERO_SCALE = 200
+    }
+}
+
+/**
+ * Formats [value] rounded to [digits] significant digits, using plain notation for moderate
+ * magnitudes and arity's `E` notation otherwise.
+ */
+internal fun formatDecimal(value: BigDecimal, digits: Int): String {
+    val rounded = value.round(MathContext(digits, RoundingMode.HALF_EVEN)).stripTrailingZeros()
+    if (rounded.signum() == 0) {
+        return "0"
+    }
+    val exponent = exponentOf(rounded)
+    return if (exponent >= MIN_PLAIN_EXPONENT && exponent < digits) {
+        rounded.toPlainString()
+    } else {
+        rounded.movePointLeft(exponent).toPlainString() + "E" + exponent
+    }
+}
+
+private const val MIN_PLAIN_EXPONENT = -6
+
+/** Returns floor(log10(|value|)) for a non-zero [value]. */
+internal fun exponentOf(value: BigDecimal): Int = value.precision() - value.scale() - 1
+
+/**
+ * A node of a compiled precise expression.
+ *
+ * [approximate] returns a value within `10^-scale` of the exact result. Approximations are
+ * cached per node, so refining an expression only recomputes the nodes whose cached value is not
+ * precise enough. Nodes compute exactly the scale they are asked for; growing it on every level
+ * would compound with the depth of the tree.
+ */
+internal sealed class PreciseValue {
+    private var cachedValue: BigDecimal? = null
+    private var cachedScale = Int.MIN_VALUE
+
+    /** The exact value when it is a terminating decimal that is cheap to compute, else null. */
+    val exactValue: BigDecimal? by lazy(LazyThreadSafetyMode.NONE) { computeExactValue() }
+
+    protected open fun computeExactValue(): BigDecimal? = null
+
+    fun approximate(scale: Int, budget: EvaluationBudget): BigDecimal {
+        val cached = cachedValue
+        if (cached != null && cachedScale >= scale) {
+            return cached
+        }
+        if (scale > MAX_WORKING_SCALE) {
+            // Nested operations can each demand more precision of their operands; stop before a
+            // single big-number operation grows too large to be interrupted.
+            throw EvaluationBudgetExceededException("Evaluation needs more than $scale digits")
+        }
+        val value = exactValue
+            ?: budget.nested { compute(scale, cached, cachedScale, budget) }
+        cachedValue = value
+        cachedScale = scale
+        return value
+    }
+
+    /**
+     * Computes an approximation within `10^-scale`. [previous] is the last cached approximation
+     * (accurate to [previousScale]) and may be used as a starting point.
+     */
+    protected abstract fun compute(
+        scale: Int,
+        previous: BigDecimal?,
+        previousScale: Int,
+        budget: EvaluationBudget
+    ): BigDecimal
+
+    /** Returns an exponent `e` with `|value| < 10^e`. */
+    protected fun PreciseValue.upperExponent(budget: EvaluationBudget): Int {
+        val estimate = approximate(0, budget).abs() + BigDecimal.ONE
+        return exponentOf(estimate) + 1
+    }
+
+    /**
+     * Returns an exponent `e` with `|value| >= 10^e`, refining the approximation until the
+     * value is distinguishable from zero. A value that is exactly zero runs out of budget.
+     */
+    protected fun PreciseValue.lowerExponent(budget: EvaluationBudget): Int {
+        exactValue?.let {
+            if (it.signum() == 0) {
+                throw UnsupportedPreciseOperationException("Division by zero")
+            }
+            return exponentOf(it)
+        }
+        var scale = 0
+        while (true) {
+            val value = approximate(scale, budget).abs()
+            val error = BigDecimal.ONE.movePointLeft(scale)
+            if (value > error.multiply(TWO)) {
+                return exponentOf(value - error)
+            }
+            budget.consume()
+            scale = if (scale == 0) INITIAL_ZERO_SCALE else scale * 2
+        }
+    }
+
+    class Literal(private val value: BigDecimal) : PreciseValue() {
+        override fun computeExactValue(): BigDecimal = value
+
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal = value
+    }
+
+    class Negate(private val operand: PreciseValue) : PreciseValue() {
+        override fun computeExactValue(): BigDecimal? = operand.exactValue?.negate()
+
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal = operand.approximate(scale, budget).negate()
+    }
+
+    class Percent(private val operand: PreciseValue) : PreciseValue() {
+        override fun computeExactValue(): BigDecimal? = operand.exactValue?.movePointLeft(2)
+
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal = operand.approximate(scale - 2, budget).movePointLeft(2)
+    }
+
+    class Add(
+        private val left: PreciseValue,
+        private val right: PreciseValue,
+        private val negateRight: Boolean
+    ) : PreciseValue() {
+        override fun computeExactValue(): BigDecimal? {
+            val l = left.exactValue ?: return null
+            val r = right.exactValue ?: return null
+            return if (negateRight) l - r else l + r
+        }
+
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal {
+            val l = left.approximate(scale + 1, budget)
+            val r = right.approximate(scale + 1, budget)
+            return (if (negateRight) l - r else l + r).setScale(scale + 1, RoundingMode.HALF_EVEN)
+        }
+    }
+
+    class Multiply(private val left: PreciseValue, private val right: PreciseValue) :
+        PreciseValue() {
+        override fun computeExactValue(): BigDecimal? {
+            val l = left.exactValue ?: return null
+            val r = right.exactValue ?: return null
+            return if (l.precision() + r.precision() <= MAX_EXACT_DIGITS) l.multiply(r) else null
+        }
+
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal {
+            val leftExponent = left.upperExponent(budget)
+            val rightExponent = right.upperExponent(budget)
+            val l = left.approximate(scale + rightExponent + 1, budget)
+            val r = right.approximate(scale + leftExponent + 1, budget)
+            return l.multiply(r).setScale(scale + 2, RoundingMode.HALF_EVEN)
+        }
+    }
+
+    class Divide(private val left: PreciseValue, private val right: PreciseValue) :
+        PreciseValue() {
+        override fun computeExactValue(): BigDecimal? {
+            val l = left.exactValue ?: return null
+            val r = right.exactValue ?: return null
+            if (r.signum() == 0) {
+                throw UnsupportedPreciseOperationException("Division by zero")
+            }
+            return try {
+                l.divide(r)
+            } catch (_: ArithmeticException) {
+                // Non-terminating quotient.
+                null
+            }
+        }
+
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal {
+            val divisorExponent = right.lowerExponent(budget)
+            val dividendExponent = left.upperExponent(budget)
+            val l = left.approximate(scale - divisorExponent + 2, budget)
+            val r = right.approximate(
+                maxOf(
+                    scale + dividendExponent - 2 * divisorExponent + 2,
+                    -divisorExponent + 2
+                ),
+                budget
+            )
+            return l.divide(r, maxOf(scale + 2, 0), RoundingMode.HALF_EVEN)
+        }
+    }
+
+    class IntegerPower(private val base: PreciseValue, private val exponent: Int) :
+        PreciseValue() {
+        override fun computeExactValue(): BigDecimal? {
+            val b = base.exactValue ?: return null
+            if (exponent == 0) return BigDecimal.ONE
+            return if (b.precision().toLong() * exponent <= MAX_EXACT_DIGITS) {
+                b.pow(exponent)
+            } else {
+                null
+            }
+        }
+
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal {
+            if (exponent == 0) {
+                return BigDecimal.ONE
+            }
+            // log10 of an upper bound on |b|, good enough to size the working precision.
+            val baseMagnitude = log10(
+                base.approximate(MAGNITUDE_SCALE, budget).abs().toDouble() +
+                    MAGNITUDE_EPSILON
+            )
+            val resultExponent = ceil(baseMagnitude * exponent).toLong() + 1
+            if (resultExponent > MAX_RESULT_EXPONENT) {
+                throw UnsupportedPreciseOperationException("Power overflows")
+            }
+            // d(b^n) = n * b^(n - 1) * db
+            val extraDigits = ceil(maxOf(baseMagnitude, 0.0) * (exponent - 1)).toInt() +
+                exponent.toString().length + 2
+            val b = base.approximate(scale + extraDigits, budget)
+            val precision = (scale + resultExponent + 2).toInt()
+            if (precision <= 0) {
+                return BigDecimal.ZERO
+            }
+            // Repeated squaring multiplies numbers of `precision` digits log2(exponent) times,
+            // and each multiplication gets superlinearly slower once operands are large.
+            val squarings = Int.SIZE_BITS - Integer.numberOfLeadingZeros(exponent)
+            val steps = precision.toLong() * squarings / DIGITS_PER_STEP *
+                maxOf(1, precision / SCHOOLBOOK_DIGITS)
+            budget.consume(steps.coerceIn(1L, Int.MAX_VALUE.toLong()).toInt())
+            return b.pow(exponent, MathContext(precision, RoundingMode.HALF_EVEN))
+        }
+    }
+
+    class Factorial(private val operand: PreciseValue) : PreciseValue() {
+        override fun computeExactValue(): BigDecimal? {
+            val n = operand.exactValue?.let(::factorialArgument) ?: return null
+            return if (n <= MAX_EXACT_FACTORIAL) BigDecimal(factorial(n, budget = null)) else null
+        }
+
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal {
+            val n = operand.exactValue?.let(::factorialArgument)
+                ?: throw UnsupportedPreciseOperationException("Factorial of a non-integer")
+            return BigDecimal(factorial(n, budget))
+        }
+
+        private fun factorialArgument(value: BigDecimal): Int? {
+            val stripped = value.stripTrailingZeros()
+            if (stripped.signum() < 0 ||
+                stripped.scale() > 0 ||
+                stripped > BigDecimal(MAX_FACTORIAL)
+            ) {
+                return null
+            }
+            return stripped.intValueExact()
+        }
+
+        private fun factorial(n: Int, budget: EvaluationBudget?): BigInteger {
+            var product = BigInteger.ONE
+            for (i in 2..n) {
+                budget?.consume()
+                product = product.multiply(BigInteger.valueOf(i.toLong()))
+            }
+            return product
+        }
+    }
+
+    /**
+     * Square root by Newton's method. Refinements restart from the previous cached root, so each
+     * extra chunk of digits only costs a couple of iterations.
+     */
+    class Sqrt(private val operand: PreciseValue) : PreciseValue() {
+        override fun computeExactValue(): BigDecimal? {
+            val value = operand.exactValue ?: return null
+            if (value.signum() < 0 || value.precision() > MAX_EXACT_DIGITS) {
+                return null
+            }
+            val evenScale = if (value.scale() % 2 == 0) value else value.setScale(value.scale() + 1)
+            val radicand = evenScale.unscaledValue()
+            val root = integerSqrt(radicand, guess = null, budget = null)
+            return if (root.multiply(root) == radicand) {
+                BigDecimal(root, evenScale.scale() / 2)
+            } else {
+                null
+            }
+        }
+
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal {
+            val workingScale = maxOf(scale + 1, 0)
+            val value = operand.approximate(operandScale(workingScale, budget), budget)
+            if (value.signum() < 0) {
+                if (value.abs() > BigDecimal.ONE.movePointLeft(2 * workingScale)) {
+                    throw UnsupportedPreciseOperationException("Square root of a negative value")
+                }
+                return BigDecimal.ZERO
+            }
+            val radicand = value.setScale(2 * workingScale, RoundingMode.DOWN).unscaledValue()
+            val guess = previous?.takeIf { it.signum() > 0 }
+                ?.setScale(workingScale, RoundingMode.DOWN)
+                ?.unscaledValue()
+            return BigDecimal(integerSqrt(radicand, guess, budget), workingScale)
+        }
+
+        /**
+         * |sqrt(a) - sqrt(b)| <= |a - b| / sqrt(a), so an operand known to be at least 10^-2k
+         * only needs k extra digits. Near zero fall back to |sqrt(a) - sqrt(b)| <= sqrt(|a - b|),
+         * which doubles the scale; using that everywhere makes nested roots exponential.
+         */
+        private fun operandScale(workingScale: Int, budget: EvaluationBudget): Int {
+            val estimate = operand.approximate(MAGNITUDE_SCALE, budget)
+            if (estimate.signum() <= 0 || exponentOf(estimate) < -MAGNITUDE_SCALE / 2) {
+                return 2 * workingScale
+            }
+            // The estimate is within 10^-MAGNITUDE_SCALE, so a lower bound on a is half of it.
+            val lowerExponent = exponentOf(estimate) - 1
+            return workingScale + maxOf(0, (1 - lowerExponent) / 2) + 1
+        }
+    }
+
+    class Exp(private val operand: PreciseValue) : PreciseValue() {
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal {
+            val estimate = operand.approximate(0, budget)
+            if (estimate > MAX_EXP_ARGUMENT) {
+                throw UnsupportedPreciseOperationException("Exponential overflows")
+            }
+            // d(e^x) = e^x * dx, and e^x < 10^resultExponent.
+            val resultExponent = maxOf(estimate.toInt() * 10 / 23 + 2, 0)
+            val x = operand.approximate(scale + resultExponent + 2, budget)
+            return expDecimal(x, maxOf(scale + 2, 0), budget)
+        }
+    }
+
+    class Ln(private val operand: PreciseValue) : PreciseValue() {
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal {
+            // d(ln x) = dx / x
+            val lowerExponent = operand.lowerExponent(budget)
+            val x = operand.approximate(scale - lowerExponent + 2, budget)
+            if (x.signum() <= 0) {
+                throw UnsupportedPreciseOperationException("Logarithm of a non-positive value")
+            }
+            return lnDecimal(x, maxOf(scale + 2, 0), budget)
+        }
+    }
+
+    class Sin(private val operand: PreciseValue) : PreciseValue() {
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal {
+            val workingScale = maxOf(scale + 2, 0)
+            return sinDecimal(operand.approximate(workingScale, budget), workingScale, budget)
+        }
+    }
+
+    class Cos(private val operand: PreciseValue) : PreciseValue() {
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal {
+            val workingScale = maxOf(scale + 2, 0)
+            return cosDecimal(operand.approximate(workingScale, budget), workingScale, budget)
+        }
+    }
+
+    class Pi : PreciseValue() {
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal = PreciseConstants.pi(scale, budget)
+    }
+
+    class Ln10 : PreciseValue() {
+        override fun compute(
+            scale: Int,
+            previous: BigDecimal?,
+            previousScale: Int,
+            budget: EvaluationBudget
+        ): BigDecimal = PreciseConstants.ln10(scale, budget)
+    }
+
+    private companion object {
+        val TWO: BigDecimal = BigDecimal.valueOf(2)
+        val MAX_EXP_ARGUMENT: BigDecimal = BigDecimal.valueOf(100_000)
+        const val INITIAL_ZERO_SCALE = 8
+        const val MAX_EXACT_DIGITS = 10_000
+        const val MAX_RESULT_EXPONENT = 100_000L
+        const val MAX_FACTORIAL = 5_000
+        const val MAX_EXACT_FACTORIAL = 100
+        const val DIGITS_PER_STEP = 64
+        const val SCHOOLBOOK_DIGITS = 1_000
+        const val MAX_WORKING_SCALE = 50_000
+        const val MAGNITUDE_SCALE = 10
+        const val MAGNITUDE_EPSILON = 1e-10
+    }
+}
+
+/**
+ * Process-wide cache of the constants the precise engine needs. Each constant keeps its most
+ * precise value and is only recomputed, at double the previous precision, when a caller needs
+ * more digits.
+ */
+internal object PreciseConstants {
+    private val pi = CachedConstant { scale, budget ->
+        // Machin: π = 16 atan(1/5) - 4 atan(1/239)
+        arctanInverse(5, scale, budget, hyperbolic = false).shiftLeft(4) -
+            arctanInverse(239, scale, budget, hyperbolic = false).shiftLeft(2)
+    }
+    private val ln2 = CachedConstant { scale, budget ->
+        // ln 2 = 2 atanh(1/3)
+        arctanInverse(3, scale, budget, hyperbolic = true).shiftLeft(1)
+    }
+    private val ln10 = CachedConstant { scale, budget ->
+        // ln 10 = 3 ln 2 + ln(5/4) = 3 ln 2 + 2 atanh(1/9)
+        ln2.get(scale, budget).setScale(scale, RoundingMode.HALF_EVEN).unscaledValue()
+            .multiply(BigInteger.valueOf(3)) +
+            arctanInverse(9, scale, budget, hyperbolic = true).shiftLeft(1)
+    }
+
+    fun pi(scale: Int, budget: EvaluationBudget): BigDecimal = pi.get(scale, budget)
+
+    fun ln2(scale: Int, budget: EvaluationBudget): BigDecimal = ln2.get(scale, budget)
+
+    fun ln10(scale: Int, budget: EvaluationBudget): BigDecimal = ln10.get(scale, budget)
+
+    private class CachedConstant(
+        private val computeFixedPoint: (scale: Int, budget: EvaluationBudget) -> BigInteger
+    ) {
+        private var value: BigDecimal = BigDecimal.ZERO
+        private var scale = -1
+
+        @Synchronized
+        fun get(requestedScale: Int, budget: EvaluationBudget): BigDecimal {
+            if (requestedScale > scale) {
+                val targetScale = maxOf(requestedScale, scale * 2, MIN_SCALE)
+                val workingScale = targetScale + GUARD_DIGITS
+                value = BigDecimal(computeFixedPoint(workingScale, budget), workingScale)
+                    .setScale(targetScale, RoundingMode.HALF_EVEN)
+                scale = targetScale
+            }
+            return value
+        }
+    }
+
+    /**
+     * Computes `atan(1/x)` (or `atanh(1/x)` when [hyperbolic]) as a fixed-point integer scaled by
+     * `10^scale`.
+     */
+    private fun arctanInverse(
+        x: Int,
+        scale: Int,
+        budget: EvaluationBudget,
+        hyperbolic: Boolean
+    ): BigInteger {
+        val xSquared = BigInteger.valueOf(x.toLong() * x)
+        var power = BigInteger.TEN.pow(scale).divide(BigInteger.valueOf(x.toLong()))
+        var sum = power
+        var divisor = 1L
+        var subtract = !hyperbolic
+        while (power.signum() != 0) {
+            budget.consume()
+            power = power.divide(xSquared)
+            divisor += 2
+            val term = power.divide(BigInteger.valueOf(divisor))
+            sum = if (subtract) sum - term else sum + term
+            if (!hyperbolic) {
+                subtract = !subtract
+            }
+        }
+        return sum
+    }
+
+    private const val GUARD_DIGITS = 5
+    private const val MIN_SCALE = 32
+}
+
+/** Floor square root of [n], starting Newton's method from [guess] when one is available. */
+internal fun integerSqrt(
+    n: BigInteger,
+    guess: BigInteger?,
+    budget: EvaluationBudget?
+): BigInteger {
+    if (n.signum() == 0) {
+        return BigInteger.ZERO
+    }
+    var x = guess?.takeIf { it.signum() > 0 } ?: BigInteger.ONE.shiftLeft((n.bitLength() + 1) / 2)
+    // After one step the iterate is at or above the root, then it decreases monotonically.
+    x = (x + n.divide(x)).shiftRight(1)
+    while (true) {
+        budget?.consume()
+        val next = (x + n.divide(x)).shiftRight(1)
+        if (next >= x) {
+            return x
+        }
+        x = next
+    }
+}
+
+/** e^x to within `10^-scale`. */
+private fun expDecimal(x: BigDecimal, scale: Int, budget: EvaluationBudget): BigDecimal {
+    if (x.signum() < 0) {
+        // e^x = 1 / e^-x and e^-x >= 1, so the reciprocal is no less accurate.
+        val reciprocal = expDecimal(x.negate(), scale + 1, budget)
+        return BigDecimal.ONE.divide(reciprocal, scale + 1, RoundingMode.HALF_EVEN)
+    }
+    // Reduce to r = x / 2^k < 1/2, then square k times.
+    val halvings = x.toBigInteger().bitLength() + 1
+    val resultDigits = maxOf(exponentOf(x.add(BigDecimal.ONE)) + 1, 0) + x.toInt() * 10 / 23 + 1
+    val precision = scale + resultDigits + halvings / 3 + 4
+    val mathContext = MathContext(precision, RoundingMode.HALF_EVEN)
+    val reduced = x.divide(BigDecimal(BigInteger.ONE.shiftLeft(halvings)), mathContext)
+    var term = BigDecimal.ONE
+    var sum = BigDecimal.ONE
+    var n = 1
+    val epsilon = BigDecimal.ONE.movePointLeft(precision + 1)
+    while (term.abs() > epsilon) {
+        budget.consume()
+        term = term.multiply(reduced).divide(BigDecimal.valueOf(n.toLong()), mathContext)
+        sum = sum.add(term, mathContext)
+        n++
+    }
+    repeat(halvings) {
+        budget.consume()
+        sum = sum.multiply(sum, mathContext)
+    }
+    return sum.setScale(scale, RoundingMode.HALF_EVEN)
+}
+
+/** ln(x) for a positive [x] to within `10^-scale`. */
+private fun lnDecimal(x: BigDecimal, scale: Int, budget: EvaluationBudget): BigDecimal {
+    val workingScale = scale + 4
+    // x = m * 10^k * 2^j with m close to 1.
+    val decimalExponent = exponentOf(x)
+    var mantissa = x.movePointLeft(decimalExponent)
+    var binaryExponent = 0
+    while (mantissa > LN_REDUCTION_UPPER) {
+        mantissa = mantissa.divide(BigDecimal.valueOf(2))
+        binaryExponent++
+    }
+    val constantScale = workingScale + maxOf(decimalExponent.toString().length, 2)
+    var result = PreciseConstants.ln10(constantScale, budget)
+        .multiply(BigDecimal.valueOf(decimalExponent.toLong()))
+        .add(
+            PreciseConstants.ln2(constantScale, budget)
+                .multiply(BigDecimal.valueOf(binaryExponent.toLong()))
+        )
+    // ln(m) = 2 atanh(z) with z = (m - 1) / (m + 1)
+    val z = (mantissa - BigDecimal.ONE)
+        .divide(mantissa + BigDecimal.ONE, workingScale, RoundingMode.HALF_EVEN)
+    val zSquared = z.multiply(z).setScale(workingScale, RoundingMode.HALF_EVEN)
+    var power = z
+    var series = z
+    var divisor = 1L
+    while (power.signum() != 0) {
+        budget.consume()
+        power = power.multiply(zSquared).setScale(workingScale, RoundingMode.HALF_EVEN)
+        divisor += 2
+        series += power.divide(BigDecimal.valueOf(divisor), workingScale, RoundingMode.HALF_EVEN)
+    }
+    result += series.multiply(BigDecimal.valueOf(2))
+    return result.setScale(scale, RoundingMode.HALF_EVEN)
+}
+
+/** sin(x) to within `10^-scale`. */
+private fun sinDecimal(x: BigDecimal, scale: Int, budget: EvaluationBudget): BigDecimal {
+    val workingScale = scale + 4
+    val reduced = reduceAngle(x, workingScale, budget)
+    return taylorSeries(reduced, BigDecimal.ZERO, firstPower = 1, workingScale, budget)
+        .setScale(scale, RoundingMode.HALF_EVEN)
+}
+
+/** cos(x) to within `10^-scale`. */
+private fun cosDecimal(x: BigDecimal, scale: Int, budget: EvaluationBudget): BigDecimal {
+    val workingScale = scale + 4
+    val reduced = reduceAngle(x, workingScale, budget)
+    return taylorSeries(reduced, BigDecimal.ONE, firstPower = 2, workingScale, budget)
+        .setScale(scale, RoundingMode.HALF_EVEN)
+}
+
+/** Reduces [x] into `[-π, π]`. */
+private fun reduceAngle(x: BigDecimal, scale: Int, budget: EvaluationBudget): BigDecimal {
+    val magnitude = maxOf(exponentOf(x.abs() + BigDecimal.ONE) + 1, 0)
+    val twoPi = PreciseConstants.pi(scale + magnitude + 2, budget).multiply(BigDecimal.valueOf(2))
+    val turns = x.divide(twoPi, 0, RoundingMode.HALF_EVEN)
+    return (x - twoPi.multiply(turns)).setScale(scale, RoundingMode.HALF_EVEN)
+}
+
+/**
+ * Sums the alternating series `start ± x^p/p! ∓ x^(p+2)/(p+2)! ...` used for sine
+ * (`start = 0, p = 1`) and cosine (`start = 1, p = 2`).
+ */
+private fun taylorSeries(
+    x: BigDecimal,
+    start: BigDecimal,
+    firstPower: Int,
+    scale: Int,
+    budget: EvaluationBudget
+): BigDecimal {
+    val xSquared = x.multiply(x).setScale(scale, RoundingMode.HALF_EVEN)
+    var term = if (firstPower == 1) {
+        x
+    } else {
+        xSquared.divide(BigDecimal.valueOf(2), scale, RoundingMode.HALF_EVEN).negate()
+    }
+    var sum = start + term
+    var n = firstPower.toLong()
+    while (term.signum() != 0) {
+        budget.consume()
+        term = term.multiply(xSquared)
+            .divide(BigDecimal.valueOf((n + 1) * (n + 2)), scale, RoundingMode.HALF_EVEN)
+            .negate()
+        sum += term
+        n += 2
+    }
+    return sum
+}
+
+private val LN_REDUCTION_UPPER: BigDecimal = BigDecimal("1.5")
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2026 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.math.BigInteger
+
+/**
+ * Evaluates calculator expressions exactly with [BigRational] arithmetic.
+ *
+ * Only operations that keep rational inputs rational are supported: `+ - * /`, `%`, integer
+ * powers, factorials of integers and square roots of perfect squares. Anything irrational (`π`,
+ * `sin`, `ln`, fractional powers) raises [UnsupportedPreciseOperationException] so the caller can
+ * fall back to double precision.
+ */
+internal class RationalExpressionEvaluator(
+    private val parser: CalculatorExpressionParser = CalculatorExpressionParser()
+) {
+
+    fun evaluate(expression: String, budget: EvaluationBudget): BigRational =
+        evaluate(parser.parse(expression), budget)
+
+    private fun evaluate(node: ExpressionNode, budget: EvaluationBudget): BigRational =
+        budget.nested { evaluateNode(node, budget) }
+
+    private fun evaluateNode(node: ExpressionNode, budget: EvaluationBudget): BigRational {
+        budget.consume()
+        return when (node) {
+            is ExpressionNode.Number -> BigRational.valueOf(node.value)
+            is ExpressionNode.Constant ->
+                throw UnsupportedPreciseOperationException("${node.constant} is irrational")
+
+            is ExpressionNode.Unary -> {
+                val operand = evaluate(node.operand, budget)
+                when (node.operator) {
+                    UnaryOperator.NEGATE -> -operand
+                    UnaryOperator.PERCENT -> operand / HUNDRED
+                    UnaryOperator.FACTORIAL -> factorial(operand, budget)
+                    UnaryOperator.SQRT -> sqrt(operand)
+                }
+            }
+
+            is ExpressionNode.Binary -> {
+                val left = evaluate(node.left, budget)
+                val right = node.relativePercent()?.let {
+                    left * evaluate(it.operand, budget) / HUNDRED
+                } ?: evaluate(node.right, budget)
+                // Charge for the size of the operands so huge intermediate values run out of
+                // budget instead of stalling.
+                budget.consume(maxOf(left.bitLength, right.bitLength) / BITS_PER_STEP)
+                when (node.operator) {
+                    BinaryOperator.ADD -> left + right
+                    BinaryOperator.SUBTRACT -> left - right
+                    BinaryOperator.MULTIPLY -> left * right
+                    BinaryOperator.DIVIDE -> left / right
+                    BinaryOperator.POWER -> power(left, right, budget)
+                }
+            }
+
+            is ExpressionNode.Function ->
+                throw UnsupportedPreciseOperationException("${node.function} is irrational")
+
+            is ExpressionNode.Group -> evaluate(node.inner, budget)
+        }
+    }
+
+    private fun power(
+        base: BigRational,
+        exponent: BigRational,
+        budget: EvaluationBudget
+    ): BigRational {
+        if (!exponent.isInteger) {
+            throw UnsupportedPreciseOperationException("Fractional powers are irrational")
+        }
+        val integerExponent = exponent.reduced().numerator
+        if (integerExponent.signum() < 0 && base.signum() == 0) {
+            throw ArithmeticException("Division by zero")
+        }
+        val resultBits = integerExponent.abs().toBigDecimal() * base.bitLength.toBigDecimal()
+        if (resultBits > MAX_RESULT_BITS.toBigDecimal()) {
+            throw UnsupportedPreciseOperationException("Power is too large")
+        }
+        budget.consume(resultBits.toInt() / BITS_PER_STEP)
+        return base.pow(integerExponent.toInt())
+    }
+
+    private fun factorial(operand: BigRational, budget: EvaluationBudget): BigRational {
+        if (!operand.isInteger || operand.signum() < 0) {
+            throw UnsupportedPreciseOperationException("Factorial of a non-integer")
+        }
+        val n = operand.reduced().numerator
+        if (n > MAX_FACTORIAL) {
+            throw UnsupportedPreciseOperationException("Factorial is too large")
+        }
+        var product = BigInteger.ONE
+        for (i in 2..n.toInt()) {
+            budget.consume()
+            product *= BigInteger.valueOf(i.toLong())
+        }
+        return BigRational.valueOf(product.toBigDecimal())
+    }
+
+    private fun sqrt(operand: BigRational): BigRational {
+        if (operand.signum() < 0) {
+            throw UnsupportedPreciseOperationException("Square root of a negative value")
+        }
+        val value = operand.reduced()
+        val numeratorRoot = integerSqrt(value.numerator, guess = null, budget = null)
+        val denominatorRoot = integerSqrt(value.denominator, guess = null, budget = null)
+        if (numeratorRoot * numeratorRoot != value.numerator ||
+            denominatorRoot * denominatorRoot != value.denominator
+        ) {
+            throw UnsupportedPreciseOperationException("Square root is irrational")
+        }
+        return BigRational.valueOf(numeratorRoot.toBigDecimal()) /
+            BigRational.valueOf(denominatorRoot.toBigDecimal())
+    }
+
+    private companion object {
+        val HUNDRED = BigRational.valueOf(100)
+        val MAX_FACTORIAL: BigInteger = BigInteger.valueOf(2_000)
+        const val MAX_RESULT_BITS = 1L shl 17
+        const val BITS_PER_STEP = 256
+    }
+}
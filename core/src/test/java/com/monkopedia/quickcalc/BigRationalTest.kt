@@ -0,0 +1,103 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.math.BigDecimal
+import java.math.BigInteger
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+
+class BigRationalTest {
+
+    private val evaluator = RationalExpressionEvaluator()
+
+    @Test
+    fun keepsSmallValuesUnreducedUntilDisplayed() {
+        val half = BigRational.ONE / BigRational.valueOf(2)
+        val quarter = BigRational.ONE / BigRational.valueOf(4)
+        val sum = half + quarter
+
+        assertEquals(BigInteger.valueOf(8), sum.denominator)
+        assertEquals(BigRational.valueOf(BigDecimal("0.75")), sum)
+        assertEquals("0.75", sum.toDisplayString(12))
+    }
+
+    @Test
+    fun reducesOnceValuesGrowPastThreshold() {
+        var sum = BigRational.ZERO
+        for (i in 1..500) {
+            sum += BigRational.ONE / BigRational.valueOf(i.toLong())
+        }
+        val reduced = sum.reduced()
+
+        // Lazy reduction may leave some common factors, but never lets the size run away from
+        // the lowest-terms representation.
+        assertTrue(sum.bitLength <= 2 * maxOf(reduced.bitLength, 256) + 64)
+        assertEquals(reduced, sum)
+    }
+
+    @Test
+    fun formatsExactFractionsAndTerminatingDecimals() {
+        assertEquals("1/3", evaluate("1/3"))
+        assertEquals("0.3", evaluate("0.1+0.2"))
+        assertEquals("0.125", evaluate("1/8"))
+        assertEquals("-7/6", evaluate("-1/2-2/3"))
+        assertEquals("1267650600228229401496703205376", evaluate("2^100"))
+        assertEquals("1.60693804426E60", evaluate("2^200"))
+        assertEquals("3.33333333333E-51", evaluate("1/(3*10^50)"))
+    }
+
+    @Test
+    fun evaluatesRationalOperationsExactly() {
+        assertEquals("1", evaluate("1/3*3"))
+        assertEquals("1/9", evaluate("3^-2"))
+        assertEquals("2/3", evaluate("√(4/9)"))
+        assertEquals("1/3", evaluate("(100/3)%"))
+        assertEquals("3628800", evaluate("10!"))
+        assertEquals(
+            BigRational.valueOf(BigDecimal("0.75")),
+            evaluator.evaluate("3/4", EvaluationBudget(100))
+        )
+    }
+
+    @Test
+    fun reportsIrrationalValuesAsUnsupported() {
+        for (expression in listOf("π", "e", "√2", "2^(1/2)", "sin(1)", "ln(2)", "1.5!", "1/0")) {
+            try {
+                evaluator.evaluate(expression, EvaluationBudget(100_000))
+                fail("Expected $expression to be unsupported")
+            } catch (_: ArithmeticException) {
+                // Expected, the caller falls back to double precision.
+            }
+        }
+    }
+
+    @Test
+    fun abandonsLargePowersWhenBudgetIsExhausted() {
+        try {
+            evaluator.evaluate("7^40000", EvaluationBudget(maxSteps = 100))
+            fail("Expected the budget to be exceeded")
+        } catch (_: EvaluationBudgetExceededException) {
+            // Expected.
+        }
+    }
+
+    private fun evaluate(expression: String): String =
+        evaluator.evaluate(expression, EvaluationBudget(100_000)).toDisplayString(12)
+}
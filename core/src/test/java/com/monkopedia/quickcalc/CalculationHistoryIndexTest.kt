@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.util.Random
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class CalculationHistoryIndexTest {
+
+    private fun index(vararg entries: Pair<String, String>): CalculationHistoryIndex =
+        CalculationHistoryIndex { it.replace('×', '*') }.apply {
+            for ((formula, result) in entries) {
+                add(CalculationHistoryLog.Entry(formula, result))
+            }
+        }
+
+    @Test
+    fun findsFormulasAndResultsByPrefixNewestFirst() {
+        val index = index("12+3" to "15", "12×4" to "48", "7+8" to "15", "1+1" to "2")
+
+        assertEquals(
+            listOf(
+                CalculationHistoryIndex.Match(3, matchesResult = false),
+                CalculationHistoryIndex.Match(2, matchesResult = true),
+                CalculationHistoryIndex.Match(1, matchesResult = false)
+            ),
+            index.search("1", 3)
+        )
+        assertEquals(listOf(CalculationHistoryIndex.Match(1, false)), index.search("12*", 3))
+        // Typing an entry out in full no longer suggests it.
+        assertEquals(emptyList<CalculationHistoryIndex.Match>(), index.search("7+8", 3))
+        assertEquals(emptyList<CalculationHistoryIndex.Match>(), index.search("", 3))
+    }
+
+    @Test
+    fun repeatedCalculationsAreSuggestedOnceAsTheNewest() {
+        val index = index("2+2" to "4")
+        repeat(1_000) { index.add(CalculationHistoryLog.Entry("9×$it", "${9 * it}")) }
+        index.add(CalculationHistoryLog.Entry("2+2", "4"))
+
+        assertEquals(listOf(CalculationHistoryIndex.Match(1_001, false)), index.search("2+", 3))
+    }
+
+    @Test
+    fun findsTheNewestMatchBehindManyOlderOnes() {
+        // Hundreds of older keys sort ahead of the newest one, and all are merged out of the tail.
+        val entries = List(300) { CalculationHistoryLog.Entry("5×1$it", "x$it") } +
+            CalculationHistoryLog.Entry("5×2", "10") +
+            List(600) { CalculationHistoryLog.Entry("9×$it", "y$it") }
+        val index = CalculationHistoryIndex { it.replace('×', '*') }
+        entries.forEach(index::add)
+
+        assertEquals(CalculationHistoryIndex.Match(300, false), index.search("5*", 3).first())
+        assertEquals(scan(entries, "5*"), index.search("5*", 3))
+    }
+
+    @Test
+    fun searchesMatchAScanOfEveryEntry() {
+        val random = Random(20260418L)
+        val entries = List(20_000) {
+            val formula = "${random.nextInt(5_000)}×${random.nextInt(50)}"
+            CalculationHistoryLog.Entry(formula, "${random.nextInt(100_000)}")
+        }
+        val index = CalculationHistoryIndex { it.replace('×', '*') }
+
+        entries.forEachIndexed { count, entry ->
+            index.add(entry)
+            if (count % 997 == 0) {
+                val prefix = "${random.nextInt(5_000)}*"
+                val expected = scan(entries.subList(0, count + 1), prefix)
+                assertEquals(prefix, expected, index.search(prefix, 3))
+            }
+        }
+    }
+
+    /** The newest three entries with a distinct formula or result that completes [prefix]. */
+    private fun scan(
+        entries: List<CalculationHistoryLog.Entry>,
+        prefix: String
+    ): List<CalculationHistoryIndex.Match> {
+        val seen = HashSet<String>()
+        val matches = ArrayList<CalculationHistoryIndex.Match>()
+        for (position in entries.indices.reversed()) {
+            val formula = entries[position].formula.replace('×', '*')
+            val result = entries[position].result
+            val matchesResult = result.length > prefix.length && result.startsWith(prefix)
+            val matchesFormula = formula.length > prefix.length && formula.startsWith(prefix)
+            val key = when {
+                matchesResult && seen.add(result) -> true
+                matchesFormula && seen.add(formula) -> false
+                else -> null
+            } ?: continue
+            matches += CalculationHistoryIndex.Match(position, key)
+            if (matches.size == 3) {
+                break
+            }
+        }
+        return matches
+    }
+}
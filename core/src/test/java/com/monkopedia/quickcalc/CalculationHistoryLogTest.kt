@@ -0,0 +1,222 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.io.File
+import java.io.RandomAccessFile
+import java.nio.file.Files
+import kotlin.concurrent.thread
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class CalculationHistoryLogTest {
+
+    private val directory: File = Files.createTempDirectory("history").toFile()
+
+    @After
+    fun tearDown() {
+        directory.deleteRecursively()
+    }
+
+    @Test
+    fun entriesSurviveReopening() {
+        CalculationHistoryLog(directory).use { history ->
+            history.append("1+2", "3")
+            history.append("√4×π", "6.2831853")
+            history.append("", "")
+        }
+
+        CalculationHistoryLog(directory).use { history ->
+            assertEquals(3, history.entryCount)
+            assertEquals(
+                listOf(
+                    CalculationHistoryLog.Entry("1+2", "3"),
+                    CalculationHistoryLog.Entry("√4×π", "6.2831853"),
+                    CalculationHistoryLog.Entry("", "")
+                ),
+                history.read(0, 3)
+            )
+            assertEquals(CalculationHistoryLog.Entry("√4×π", "6.2831853"), history.read(1))
+        }
+    }
+
+    @Test
+    fun hundredThousandEntriesPageFromAnywhere() {
+        CalculationHistoryLog(directory).use { history ->
+            repeat(100_000) { history.append("$it+1", "${it + 1}") }
+        }
+
+        CalculationHistoryLog(directory).use { history ->
+            assertEquals(100_000, history.entryCount)
+            for (from in listOf(0, 4_321, 99_950)) {
+                val page = history.read(from, from + 50)
+                assertEquals(50, page.size)
+                page.forEachIndexed { offset, entry ->
+                    assertEquals("${from + offset}+1", entry.formula)
+                    assertEquals("${from + offset + 1}", entry.result)
+                }
+            }
+            history.append("2+2", "4")
+            assertEquals(CalculationHistoryLog.Entry("2+2", "4"), history.read(100_000))
+        }
+    }
+
+    @Test
+    fun tornWritesAreDroppedOrReindexedOnOpen() {
+        CalculationHistoryLog(directory).use { history ->
+            repeat(10) { history.append("$it", "$it") }
+        }
+        // The last entry lost its offset and a further record lost its end.
+        val index = File(directory, "history.idx")
+        RandomAccessFile(index, "rw").use { it.setLength(it.length() - 5) }
+        RandomAccessFile(File(directory, "history.log"), "rw").use { log ->
+            log.seek(log.length())
+            log.writeInt(100)
+            log.write(byteArrayOf(0, 0, 0, 1))
+        }
+
+        CalculationHistoryLog(directory).use { history ->
+            assertEquals(10, history.entryCount)
+            assertEquals(CalculationHistoryLog.Entry("9", "9"), history.read(9))
+            history.append("10", "10")
+            assertEquals(CalculationHistoryLog.Entry("10", "10"), history.read(10))
+        }
+        CalculationHistoryLog(directory).use { history ->
+            assertEquals(11, history.entryCount)
+        }
+    }
+
+    @Test
+    fun compactionKeepsNewestEntriesWithinTheCap() {
+        val maxBytes = 4L * 1024
+        CalculationHistoryLog(directory, maxBytes).use { history ->
+            repeat(1_000) { index ->
+                history.append("$index×2", "${index * 2}")
+                assertTrue(history.logBytes <= maxBytes)
+            }
+            val count = history.entryCount
+            assertTrue("$count", count in 100 until 1_000)
+            assertEquals(CalculationHistoryLog.Entry("999×2", "1998"), history.read(count - 1))
+            val oldest = history.read(0).formula.substringBefore('×').toInt()
+            assertEquals(1_000 - count, oldest)
+        }
+
+        CalculationHistoryLog(directory, maxBytes).use { history ->
+            val newest = history.read(history.entryCount - 1)
+            assertEquals(CalculationHistoryLog.Entry("999×2", "1998"), newest)
+        }
+    }
+
+    @Test
+    fun indexOfAnotherGenerationIsRebuilt() {
+        CalculationHistoryLog(directory).use { history ->
+            repeat(5) { history.append("$it", "$it") }
+        }
+        // As if a compaction replaced the log but not its index.
+        File(directory, "history.idx").writeBytes(ByteArray(0))
+
+        CalculationHistoryLog(directory).use { history ->
+            assertEquals(5, history.entryCount)
+            assertEquals(CalculationHistoryLog.Entry("3", "3"), history.read(3))
+            history.clear()
+            assertEquals(0, history.entryCount)
+        }
+        CalculationHistoryLog(directory).use { history ->
+            assertEquals(0, history.entryCount)
+        }
+    }
+
+    @Test
+    fun tapesOnTheSameFilesPickUpEachOthersWrites() {
+        val maxBytes = 4L * 1024
+        CalculationHistoryLog(directory, maxBytes).use { main ->
+            CalculationHistoryLog(directory, maxBytes).use { tile ->
+                tile.append("1+2", "3")
+                main.refresh()
+                assertEquals(1, main.revision.value.size)
+                assertEquals(CalculationHistoryLog.Entry("1+2", "3"), main.read(0))
+
+                // Compacting replaces the files under the other tape.
+                repeat(1_000) { tile.append("$it×2", "${it * 2}") }
+                main.append("7×6", "42")
+                assertEquals(main.entryCount, tile.entryCount)
+                assertEquals(
+                    CalculationHistoryLog.Entry("7×6", "42"),
+                    tile.read(tile.entryCount - 1)
+                )
+
+                tile.clear()
+                assertEquals(0, main.entryCount)
+            }
+        }
+    }
+
+    @Test
+    fun concurrentAppendsToTapesOnTheSameFilesAreAllKept() {
+        val tapes = List(2) { CalculationHistoryLog(directory) }
+        tapes.mapIndexed { writer, tape ->
+            thread { repeat(500) { tape.append("$writer", "$it") } }
+        }.forEach(Thread::join)
+
+        val entries = tapes[0].read(0, tapes[0].entryCount)
+        tapes.forEach(CalculationHistoryLog::close)
+        assertEquals(1_000, entries.size)
+        for (writer in 0..1) {
+            val results = entries.filter { it.formula == "$writer" }.map { it.result.toInt() }
+            assertEquals((0 until 500).toList(), results)
+        }
+    }
+
+    @Test
+    fun appendsFromOtherProcessesAreAllKept() {
+        val writers = List(2) { writer ->
+            ProcessBuilder(
+                File(System.getProperty("java.home"), "bin/java").path,
+                "-cp",
+                System.getProperty("java.class.path"),
+                HistoryWriterProcess::class.java.name,
+                directory.path,
+                "$writer"
+            ).inheritIO().start()
+        }
+        CalculationHistoryLog(directory).use { tape ->
+            repeat(HistoryWriterProcess.APPENDS) { tape.append("main", "$it") }
+        }
+        writers.forEach { assertEquals(0, it.waitFor()) }
+
+        val entries = CalculationHistoryLog(directory).use { it.read(0, it.entryCount) }
+        assertEquals(3 * HistoryWriterProcess.APPENDS, entries.size)
+        for (writer in listOf("main", "0", "1")) {
+            val results = entries.filter { it.formula == writer }.map { it.result.toInt() }
+            assertEquals((0 until HistoryWriterProcess.APPENDS).toList(), results)
+        }
+    }
+}
+
+/** Appends to the tape in the directory it is given from a process of its own. */
+object HistoryWriterProcess {
+    const val APPENDS = 300
+
+    @JvmStatic
+    fun main(args: Array<String>) {
+        CalculationHistoryLog(File(args[0])).use { tape ->
+            repeat(APPENDS) { tape.append(args[1], "$it") }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertFalse
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class CalculatorEditHistoryTest {
+
+    @Test
+    fun undoAndRedoStepThroughRecordedStates() {
+        val first = CalculatorUiState(formulaText = "1", resultText = "")
+        val second = edit(first, "+2", resultText = "3")
+        val third = edit(second, "*3", resultText = "7")
+
+        val undone = third.history.undo(third)!!
+        assertEquals(second, undone)
+        assertEquals("3", undone.resultText)
+        assertEquals(first, undone.history.undo(undone))
+
+        val redone = undone.history.redo(undone)!!
+        assertEquals(third, redone)
+        assertFalse(redone.history.canRedo)
+        assertEquals(2, redone.history.undoDepth)
+    }
+
+    @Test
+    fun recordingDropsWhatCouldBeRedone() {
+        val first = CalculatorUiState(formulaText = "1")
+        val second = edit(first, "2")
+        val undone = second.history.undo(second)!!
+        assertTrue(undone.history.canRedo)
+
+        val branched = edit(undone, "3")
+        assertFalse(branched.history.canRedo)
+        assertNull(branched.history.redo(branched))
+        assertEquals(first, branched.history.undo(branched))
+    }
+
+    @Test
+    fun restoredFormulasShareTextWithTheRecordedOnes() {
+        val first = CalculatorUiState(formulaText = "1+2")
+        val second = edit(first, "3")
+
+        val undone = second.history.undo(second)!!
+        assertTrue(undone.formula.sharesTextWith(first.formula))
+        assertFalse(undone.history.canUndo)
+    }
+
+    @Test
+    fun historyAfterTenThousandEditsStaysWithinItsByteBound() {
+        val maxBytes = 256L * 1024
+        var state = CalculatorUiState(formulaText = "1")
+        repeat(10_000) { index ->
+            val formula = if (index % 5 == 4) {
+                state.formula.deleteBackward()
+            } else {
+                state.formula.insert("${index % 10}+")
+            }
+            state = CalculatorUiState(formula, resultText = "$index").copy(
+                history = state.history.record(state, maxBytes)
+            )
+            assertTrue(state.history.retainedBytes <= maxBytes)
+        }
+
+        // Typing into a formula this long copies only the edited end of it per step.
+        assertTrue(state.formula.length > 10_000)
+        assertTrue("${state.history.undoDepth}", state.history.undoDepth > 200)
+
+        var undone = state
+        repeat(state.history.undoDepth) {
+            undone = undone.history.undo(undone)!!
+        }
+        assertFalse(undone.history.canUndo)
+        assertTrue(undone.history.retainedBytes <= 2 * maxBytes)
+    }
+
+    private fun edit(
+        state: CalculatorUiState,
+        insertion: String,
+        resultText: String = ""
+    ): CalculatorUiState = CalculatorUiState(state.formula.insert(insertion), resultText).copy(
+        history = state.history.record(state, Long.MAX_VALUE)
+    )
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class CalculatorEngineTest {
+
+    private val symbols = CalculatorSymbols(
+        decimalSeparator = ',',
+        divide = "÷",
+        multiply = "×",
+        subtract = "−",
+        infinity = "∞"
+    )
+    private val tokenizer = CalculatorExpressionTokenizer(symbols)
+    private val reducer = CalculatorUiReducer(
+        evaluator = CalculatorExpressionEvaluator(tokenizer),
+        tokenizer = tokenizer,
+        errorText = { error -> "error:$error" }
+    )
+
+    @Test
+    fun defaultSymbolsAreCanonical() {
+        val canonical = CalculatorExpressionTokenizer()
+
+        assertEquals("1.5*2-3/4", canonical.getNormalizedExpression("1.5*2-3/4"))
+        assertEquals("1.5*2-3/4", canonical.getLocalizedExpression("1.5*2-3/4"))
+    }
+
+    @Test
+    fun injectedSymbolsAreReadAndWritten() {
+        assertEquals("1.5*2-3/4", tokenizer.getNormalizedExpression("1,5×2−3÷4"))
+        assertEquals("1,5×2−3÷4", tokenizer.getLocalizedExpression("1.5*2-3/4"))
+        assertEquals("-∞", tokenizer.getLocalizedExpression("-Infinity").replace('−', '-'))
+    }
+
+    @Test
+    fun reducerEvaluatesWithTheInjectedSymbols() {
+        val input = reducer.reduce(CalculatorUiState(), CalculatorUiEvent.Append("1,5×3"))
+        assertEquals("4,5", input.resultText)
+
+        val result = reducer.reduce(input, CalculatorUiEvent.Equals)
+        assertEquals(CalculatorUiPhase.RESULT, result.phase)
+        assertEquals("4,5", result.formulaText)
+    }
+
+    @Test
+    fun reducerShowsErrorsWithTheGivenText() {
+        val input = reducer.reduce(CalculatorUiState(), CalculatorUiEvent.Append("0÷0"))
+
+        val error = reducer.reduce(input, CalculatorUiEvent.Equals)
+        assertEquals(CalculatorUiPhase.ERROR, error.phase)
+        assertEquals("error:NAN", error.resultText)
+        assertEquals("0÷0", error.formulaText)
+    }
+
+    @Test
+    fun reducerTimesOnlyTheEvaluations() {
+        var evaluations = 0
+        val timedReducer = CalculatorUiReducer(
+            evaluator = CalculatorExpressionEvaluator(tokenizer),
+            tokenizer = tokenizer,
+            errorText = { error -> "error:$error" },
+            evaluationTimer = object : CalculatorEvaluationTimer {
+                override fun start(): Long = 1L
+
+                override fun onEvaluated(startNanos: Long) {
+                    assertEquals(1L, startNanos)
+                    evaluations++
+                }
+            }
+        )
+
+        var state = timedReducer.reduce(CalculatorUiState(), CalculatorUiEvent.Append("1+2"))
+        state = timedReducer.reduce(state, CalculatorUiEvent.Delete)
+        assertEquals(2, evaluations)
+
+        // Moving the cursor and undoing edit the formula without evaluating it.
+        state = timedReducer.reduce(state, CalculatorUiEvent.MoveCursor(1))
+        state = timedReducer.reduce(state, CalculatorUiEvent.Undo)
+        assertEquals(2, evaluations)
+
+        timedReducer.reduce(state, CalculatorUiEvent.Equals)
+        assertEquals(3, evaluations)
+    }
+
+    @Test
+    fun reducedStatesCountUpFromTheStateTheyReplace() {
+        val first = reducer.reduce(CalculatorUiState(), CalculatorUiEvent.Append("1"))
+        val second = reducer.reduce(first, CalculatorUiEvent.Append("2"))
+        val undone = reducer.reduce(second, CalculatorUiEvent.Undo)
+
+        assertEquals(listOf(1L, 2L, 3L), listOf(first.sequence, second.sequence, undone.sequence))
+        // Events that change nothing keep the state, and with it its number.
+        val withoutHistory = CalculatorUiState(formulaText = "5").copy(sequence = 7L)
+        assertEquals(7L, reducer.reduce(withoutHistory, CalculatorUiEvent.Undo).sequence)
+    }
+}
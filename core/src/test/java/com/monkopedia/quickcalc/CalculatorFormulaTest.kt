@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNotEquals
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class CalculatorFormulaTest {
+
+    @Test
+    fun insertsAndDeletesAtTheCursor() {
+        var formula = CalculatorFormula.of("1+3")
+        formula = formula.withCursor(2).insert("2*")
+
+        assertEquals("1+2*3", formula.toString())
+        assertEquals(4, formula.cursor)
+
+        formula = formula.deleteBackward().deleteBackward()
+        assertEquals("1+3", formula.toString())
+        assertEquals(2, formula.cursor)
+
+        val atStart = formula.withCursor(0)
+        assertSame(atStart, atStart.deleteBackward())
+        assertEquals(3, formula.withCursor(99).cursor)
+    }
+
+    @Test
+    fun earlierVersionsAreUnchangedByEdits() {
+        val long = CalculatorFormula.of("12345+".repeat(100))
+        val edited = long.withCursor(300).insert("(").withCursor(0).insert("-")
+
+        assertEquals("12345+".repeat(100), long.toString())
+        assertEquals(
+            "-" + "12345+".repeat(50) + "(" + "12345+".repeat(50),
+            edited.toString()
+        )
+        assertEquals('(', edited[301])
+    }
+
+    @Test
+    fun comparesByTextAndCursor() {
+        val typed = CalculatorFormula.EMPTY.insert("1").insert("+").insert("2")
+
+        assertEquals(CalculatorFormula.of("1+2"), typed)
+        assertEquals(CalculatorFormula.of("1+2").hashCode(), typed.hashCode())
+        assertNotEquals(CalculatorFormula.of("1+2", cursor = 1), typed)
+    }
+
+    @Test
+    fun matchesStringModelUnderRandomEdits() {
+        val random = java.util.Random(20260301L)
+        var formula = CalculatorFormula.EMPTY
+        val expected = StringBuilder()
+        var cursor = 0
+        repeat(5_000) {
+            when (random.nextInt(4)) {
+                0 -> {
+                    cursor = random.nextInt(expected.length + 1)
+                    formula = formula.withCursor(cursor)
+                }
+
+                1 -> if (cursor > 0) {
+                    expected.deleteCharAt(--cursor)
+                    formula = formula.deleteBackward()
+                }
+
+                else -> {
+                    val token = listOf("1", "23", "+", "sin(", "√")[random.nextInt(5)]
+                    expected.insert(cursor, token)
+                    cursor += token.length
+                    formula = formula.insert(token)
+                }
+            }
+        }
+        assertEquals(expected.toString(), formula.toString())
+        assertEquals(cursor, formula.cursor)
+        for (index in expected.indices step 7) {
+            assertEquals(expected[index], formula[index])
+        }
+    }
+
+    @Test
+    fun typingCostStaysFlatForLongFormulas() {
+        var formula = CalculatorFormula.EMPTY
+        val batch = 1_000
+        val batchNanos = mutableListOf<Long>()
+        repeat(20) {
+            val startNanos = System.nanoTime()
+            repeat(batch) { formula = formula.insert("7") }
+            batchNanos += System.nanoTime() - startNanos
+        }
+        // Editing in the middle of a 20k character formula stays cheap as well.
+        formula = formula.withCursor(formula.length / 2)
+        val middleStart = System.nanoTime()
+        repeat(batch) { formula = formula.insert("+").deleteBackward() }
+        val middleNanos = System.nanoTime() - middleStart
+
+        val early = batchNanos.subList(2, 6).average()
+        val late = batchNanos.takeLast(4).average()
+        assertEquals(20 * batch, formula.length)
+        assertTrue("Append cost grew from $early to $late ns per batch", late < early * 4)
+        assertTrue("Middle edits took $middleNanos ns per batch", middleNanos < late * 20)
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import kotlinx.coroutines.runBlocking
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class CalculatorResultRefinerTest {
+
+    private val tokenizer = CalculatorExpressionTokenizer()
+    private val reducer = CalculatorUiReducer(
+        evaluator = CalculatorExpressionEvaluator(tokenizer, CalculatorEvaluationMode.PRECISE),
+        tokenizer = tokenizer,
+        errorText = { error -> "error:$error" }
+    )
+    private var evaluatorThread: Thread? = null
+    private val refiner = CalculatorResultRefiner(
+        createEvaluator = {
+            evaluatorThread = Thread.currentThread()
+            CalculatorExpressionEvaluator(tokenizer, CalculatorEvaluationMode.PRECISE)
+        }
+    )
+
+    @Test
+    fun extendsThePreviewAwayFromTheCallingThread() = runBlocking {
+        val preview = reducer.initialState("π", evaluateAsResult = false)
+        assertEquals("3.14159265359", preview.resultText)
+
+        val first = refiner.refine(preview)!!.applyTo(preview)
+        assertEquals("3.14159265358979323846264", first.resultText)
+        assertTrue(evaluatorThread !== Thread.currentThread())
+
+        // Each request extends the digits the last one showed.
+        val second = refiner.refine(first)!!.applyTo(first)
+        assertEquals(first.resultText.length + 12, second.resultText.length)
+        assertTrue(second.resultText.startsWith(first.resultText.dropLast(1)))
+    }
+
+    @Test
+    fun dropsDigitsForAFormulaThatHasSinceChanged() = runBlocking {
+        val preview = reducer.initialState("π", evaluateAsResult = false)
+        val refined = refiner.refine(preview)!!
+
+        val edited = reducer.reduce(preview, CalculatorUiEvent.Append("2"))
+        assertSame(edited, refined.applyTo(edited))
+        val result = reducer.reduce(preview, CalculatorUiEvent.Equals)
+        assertSame(result, refined.applyTo(result))
+    }
+
+    @Test
+    fun leavesStatesWithoutAPreviewAlone() = runBlocking {
+        assertNull(refiner.refine(CalculatorUiState()))
+        val result = reducer.reduce(
+            reducer.initialState("π", evaluateAsResult = false),
+            CalculatorUiEvent.Equals
+        )
+        assertNull(refiner.refine(result))
+    }
+}
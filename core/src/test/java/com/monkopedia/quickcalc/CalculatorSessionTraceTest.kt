@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class CalculatorSessionTraceTest {
+
+    private val tokenizer = CalculatorExpressionTokenizer(
+        CalculatorSymbols(divide = "÷", multiply = "×", subtract = "−")
+    )
+
+    private fun reducer(mode: CalculatorEvaluationMode) = CalculatorUiReducer(
+        evaluator = CalculatorExpressionEvaluator(tokenizer, mode),
+        tokenizer = tokenizer,
+        errorText = { it.name }
+    )
+
+    /** A clock that advances by [step] nanoseconds each time it is read. */
+    private fun steppingClock(step: Long): () -> Long {
+        var now = 0L
+        return { now.also { now += step } }
+    }
+
+    @Test
+    fun sessionsRoundTripWithTheirTiming() {
+        val initial = CalculatorUiState(CalculatorFormula.of("12×3", 2), "36")
+        val events = listOf(
+            CalculatorUiEvent.Append("4"),
+            CalculatorUiEvent.Append("sin", appendLeftParenthesis = true),
+            CalculatorUiEvent.MoveCursor(300),
+            CalculatorUiEvent.Delete,
+            CalculatorUiEvent.Recall("√2×π"),
+            CalculatorUiEvent.Equals,
+            CalculatorUiEvent.RequestMoreResultDigits,
+            CalculatorUiEvent.Undo,
+            CalculatorUiEvent.Redo,
+            CalculatorUiEvent.Clear
+        )
+        val first = CalculatorSessionRecorder(
+            CalculatorEvaluationMode.PRECISE,
+            initial,
+            steppingClock(1_000_000_000L)
+        )
+        events.forEach(first::record)
+        val second = CalculatorSessionRecorder(
+            CalculatorEvaluationMode.STANDARD,
+            CalculatorUiState(),
+            steppingClock(7L)
+        )
+        second.record(CalculatorUiEvent.Append("1"))
+
+        val sessions = CalculatorSessionTrace.read(first.drain() + second.drain())
+
+        assertEquals(2, sessions.size)
+        assertEquals(CalculatorEvaluationMode.PRECISE, sessions[0].evaluationMode)
+        assertEquals(initial, sessions[0].initialState)
+        assertEquals(events, sessions[0].events.map { it.event })
+        assertEquals(
+            List(events.size) { (it + 1) * 1_000_000_000L },
+            sessions[0].events.map { it.nanos }
+        )
+        assertEquals(
+            listOf(CalculatorSession.Event(7L, CalculatorUiEvent.Append("1"))),
+            sessions[1].events
+        )
+        assertEquals(0, first.pendingBytes)
+    }
+
+    @Test
+    fun eventsAreEncodedCompactly() {
+        val recorder = CalculatorSessionRecorder(
+            CalculatorEvaluationMode.STANDARD,
+            CalculatorUiState(),
+            steppingClock(50_000_000L)
+        )
+        recorder.drain()
+        repeat(100) { recorder.record(CalculatorUiEvent.Append("${it % 10}")) }
+
+        // Tag, a four-byte delay of 50 ms and a one-byte token with its length.
+        assertEquals(100 * 7, recorder.pendingBytes)
+    }
+
+    @Test
+    fun tornTailIsDropped() {
+        val recorder = CalculatorSessionRecorder(
+            CalculatorEvaluationMode.STANDARD,
+            CalculatorUiState(),
+            steppingClock(1L)
+        )
+        recorder.record(CalculatorUiEvent.Append("12"))
+        recorder.record(CalculatorUiEvent.Recall("1+2+3"))
+        val bytes = recorder.drain()
+
+        val sessions = CalculatorSessionTrace.read(bytes.copyOf(bytes.size - 2))
+
+        val events = sessions.single().events.map { it.event }
+        assertEquals(listOf(CalculatorUiEvent.Append("12")), events)
+        assertEquals(emptyList<CalculatorSession>(), CalculatorSessionTrace.read(byteArrayOf(0, 1)))
+    }
+
+    @Test
+    fun replayReproducesTheRecordedSession() {
+        val reducer = reducer(CalculatorEvaluationMode.STANDARD)
+        val recorder = CalculatorSessionRecorder(
+            CalculatorEvaluationMode.STANDARD,
+            CalculatorUiState(),
+            steppingClock(1L)
+        )
+        var state = CalculatorUiState()
+        val typed = listOf("1", "2", "×", "3", "−", "4", "÷", "0", "+", "5")
+        val events = typed.map { CalculatorUiEvent.Append(it) } +
+            listOf(CalculatorUiEvent.Delete, CalculatorUiEvent.Undo, CalculatorUiEvent.Equals)
+        for (event in events) {
+            recorder.record(event)
+            state = reducer.reduce(state, event)
+        }
+
+        val sessions = CalculatorSessionTrace.read(recorder.drain())
+        val report = CalculatorSessionReplay(::reducer).replay(sessions)
+
+        assertEquals(listOf(state), report.finalStates)
+        assertEquals(events.size, report.latency.count)
+        assertEquals(typed.size, report.latencyByEvent.getValue("Append").count)
+        assertEquals(1, report.latencyByEvent.getValue("Equals").count)
+        assertTrue(report.latency.p50 <= report.latency.p99)
+        assertTrue(report.latency.p99 <= report.latency.max)
+    }
+
+    @Test
+    fun percentilesUseNearestRank() {
+        val percentiles = LatencyPercentiles.of(LongArray(100) { 100L - it })
+
+        assertEquals(50L, percentiles.p50)
+        assertEquals(90L, percentiles.p90)
+        assertEquals(99L, percentiles.p99)
+        assertEquals(100L, percentiles.max)
+        assertEquals(1L, percentiles.percentile(0.0))
+        assertEquals(0L, LatencyPercentiles.of(LongArray(0)).p99)
+    }
+}
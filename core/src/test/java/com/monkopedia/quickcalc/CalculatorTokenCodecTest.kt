@@ -0,0 +1,121 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.util.Random
+import org.junit.Assert.assertEquals
+import org.junit.Test
+
+class CalculatorTokenCodecTest {
+
+    private val codec = CalculatorTokenCodec(
+        localizedSpellings = mapOf(
+            CalculatorToken.DIVIDE to "÷",
+            CalculatorToken.MULTIPLY to "×",
+            CalculatorToken.SUBTRACT to "−",
+            CalculatorToken.INFINITY to "∞"
+        )
+    )
+
+    @Test
+    fun readsLocalizedAndCanonicalSpellingsAlike() {
+        val tokens = codec.tokenize("12×3−sin(4.5)*2")
+
+        assertEquals(
+            listOf(
+                CalculatorToken.NUMBER,
+                CalculatorToken.MULTIPLY,
+                CalculatorToken.NUMBER,
+                CalculatorToken.SUBTRACT,
+                CalculatorToken.SIN,
+                CalculatorToken.LEFT_PARENTHESIS,
+                CalculatorToken.NUMBER,
+                CalculatorToken.RIGHT_PARENTHESIS,
+                CalculatorToken.MULTIPLY,
+                CalculatorToken.NUMBER
+            ),
+            List(tokens.size) { tokens.code(it) }
+        )
+        assertEquals("4.5", tokens.literal(6))
+        assertEquals("12*3-sin(4.5)*2", codec.canonicalize(tokens))
+        assertEquals("12×3−sin(4.5)×2", codec.localize(tokens))
+    }
+
+    @Test
+    fun unknownCharactersAreKeptAsTheyAre() {
+        val tokens = codec.tokenize("2x+si")
+
+        assertEquals(CalculatorToken.CHARACTER, tokens.code(1))
+        assertEquals("x", tokens.literal(1))
+        assertEquals("2x+si", codec.canonicalize(tokens))
+    }
+
+    @Test
+    fun localizesNumbersDigitByDigit() {
+        val persian = CalculatorTokenCodec(zeroDigit = '۰', decimalSeparator = '٫')
+        val tokens = persian.tokenize("۱۲٫۵+3.5")
+
+        assertEquals("12.5+3.5", persian.canonicalize(tokens))
+        assertEquals("۱۲٫۵+۳٫۵", persian.localize(tokens))
+        assertEquals('7', persian.normalizeChar('۷'))
+        assertEquals('.', persian.normalizeChar('٫'))
+    }
+
+    @Test
+    fun longestSpellingWins() {
+        val localized = CalculatorTokenCodec(
+            decimalSeparator = ',',
+            localizedSpellings = mapOf(
+                CalculatorToken.LN to "In",
+                CalculatorToken.SIN to "sine"
+            )
+        )
+
+        assertEquals("ln(2)+Infinity", localized.canonicalize(localized.tokenize("In(2)+Infinity")))
+        assertEquals("sin(1.5)", localized.canonicalize(localized.tokenize("sine(1,5)")))
+        assertEquals("sine(1,5)", localized.localize(localized.tokenize("sin(1.5)")))
+    }
+
+    @Test
+    fun editsMatchTokenizingFromScratch() {
+        val random = Random(20260405L)
+        val pieces = listOf(
+            "1", "2", "9", ".", "+", "−", "-", "×", "÷", "(", ")", "√", "^", "!", "π", "e",
+            "s", "i", "n", "l", "o", "g", "sin(", "ln(", "∞", "Infinity", "I", "f"
+        )
+        var text = ""
+        var tokens = CalculatorTokenStream.EMPTY
+
+        repeat(20_000) {
+            val start = random.nextInt(text.length + 1)
+            val removed = if (random.nextBoolean()) 0 else random.nextInt(text.length - start + 1)
+            val insertion = if (removed > 0 && random.nextBoolean()) {
+                ""
+            } else {
+                pieces[random.nextInt(pieces.size)]
+            }
+            text = text.substring(0, start) + insertion + text.substring(start + removed)
+            tokens = codec.edit(tokens, text, start, removed, insertion.length)
+
+            assertEquals(text, codec.tokenize(text), tokens)
+            if (text.length > 200) {
+                text = ""
+                tokens = CalculatorTokenStream.EMPTY
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import org.junit.After
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class CalculatorTraceTest {
+
+    private class RecordingTracer(override var isEnabled: Boolean = true) : CalculatorTracer {
+        val events = ArrayList<String>()
+
+        override fun beginSection(name: String) {
+            events += "begin $name"
+        }
+
+        override fun endSection() {
+            events += "end"
+        }
+
+        override fun beginAsyncSection(name: String, cookie: Int) {
+            events += "beginAsync $name"
+        }
+
+        override fun endAsyncSection(name: String, cookie: Int) {
+            events += "endAsync $name"
+        }
+    }
+
+    @After
+    fun tearDown() {
+        CalculatorTrace.tracer = null
+    }
+
+    /** Trace analysis scripts query these names; change them only together with the scripts. */
+    @Test
+    fun sectionNamesAreStable() {
+        assertEquals(
+            listOf(
+                "QuickCalc:tileClick",
+                "QuickCalc:tileOpen",
+                "QuickCalc:showDialog",
+                "QuickCalc:dialogShown",
+                "QuickCalc:dialogDismissed",
+                "QuickCalc:dialogVisible",
+                "QuickCalc:reduce",
+                "QuickCalc:evaluate",
+                "QuickCalc:autosave",
+                "QuickCalc:applyWindowEffect"
+            ),
+            CalculatorTrace.SECTION_NAMES
+        )
+    }
+
+    @Test
+    fun sectionNamesFitTheSystemTraceLimit() {
+        // android.os.Trace rejects names longer than 127 characters.
+        assertTrue(CalculatorTrace.SECTION_NAMES.all { it.length <= 127 })
+    }
+
+    @Test
+    fun reducingAKeyPressTracesReduceAndEvaluate() {
+        val tracer = RecordingTracer()
+        CalculatorTrace.tracer = tracer
+        val tokenizer = CalculatorExpressionTokenizer()
+        val reducer = CalculatorUiReducer(
+            evaluator = CalculatorExpressionEvaluator(tokenizer),
+            tokenizer = tokenizer,
+            errorText = { error -> "error:$error" }
+        )
+
+        reducer.reduce(CalculatorUiState(CalculatorFormula.of("1+")), CalculatorUiEvent.Append("2"))
+
+        assertEquals("begin ${CalculatorTrace.REDUCE}", tracer.events.first())
+        assertTrue(tracer.events.contains("begin ${CalculatorTrace.EVALUATE}"))
+        assertEquals(
+            tracer.events.count { it.startsWith("begin") },
+            tracer.events.count { it == "end" }
+        )
+    }
+
+    @Test
+    fun recordsNothingWhileTheTracerIsOff() {
+        val tracer = RecordingTracer(isEnabled = false)
+        CalculatorTrace.tracer = tracer
+
+        val result = CalculatorTrace.section(CalculatorTrace.REDUCE) { 42 }
+        val cookie = CalculatorTrace.beginAsync(CalculatorTrace.AUTOSAVE)
+        CalculatorTrace.endAsync(CalculatorTrace.AUTOSAVE, cookie)
+
+        assertEquals(42, result)
+        assertEquals(0, cookie)
+        assertEquals(emptyList<String>(), tracer.events)
+    }
+
+    @Test
+    fun asyncSectionsPairUpByCookie() {
+        val tracer = RecordingTracer()
+        CalculatorTrace.tracer = tracer
+
+        val cookie = CalculatorTrace.beginAsync(CalculatorTrace.AUTOSAVE)
+        CalculatorTrace.endAsync(CalculatorTrace.AUTOSAVE, cookie)
+
+        assertTrue(cookie != 0)
+        assertEquals(
+            listOf(
+                "beginAsync ${CalculatorTrace.AUTOSAVE}",
+                "endAsync ${CalculatorTrace.AUTOSAVE}"
+            ),
+            tracer.events
+        )
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import java.util.Random
+import org.javia.arity.Symbols
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+
+class IncrementalExpressionEvaluatorTest {
+
+    private val evaluator = IncrementalExpressionEvaluator()
+
+    @Test
+    fun matchesFreshEvaluationAndArityUnderRandomEdits() {
+        val random = Random(20260402L)
+        val symbols = Symbols()
+        var expression = randomExpression(random, depth = 0)
+
+        repeat(10_000) {
+            expression = when (random.nextInt(4)) {
+                0 -> randomExpression(random, depth = 0)
+                1 -> {
+                    val position = random.nextInt(expression.length + 1)
+                    val insertion = EDIT_ALPHABET[random.nextInt(EDIT_ALPHABET.length)]
+                    expression.substring(0, position) + insertion + expression.substring(position)
+                }
+
+                2 -> if (expression.isEmpty()) {
+                    expression
+                } else {
+                    expression.removeRange(random.nextInt(expression.length).let { it..it })
+                }
+
+                else -> {
+                    val position = random.nextInt(expression.length + 1)
+                    expression.substring(0, position) + randomExpression(random, depth = 3) +
+                        expression.substring(position)
+                }
+            }
+            if (expression.length > 300) {
+                expression = randomExpression(random, depth = 0)
+            }
+
+            val fresh = evaluateOrNull(IncrementalExpressionEvaluator(), expression)
+            val incremental = evaluateOrNull(evaluator, expression)
+            assertEquals(expression, fresh?.toRawBits(), incremental?.toRawBits())
+            if (incremental == null || incremental.isNaN()) {
+                return@repeat
+            }
+            assertEquals(expression, symbols.eval(expression).toRawBits(), incremental.toRawBits())
+        }
+    }
+
+    @Test
+    fun editsInsideLongExpressionsReparseOnlyTheChangedSpan() {
+        val terms = List(400) { "(${it % 9 + 1}*${it % 7 + 2})" }
+        val expression = terms.joinToString("+")
+        evaluator.evaluate(expression)
+        assertEquals(expression.length, evaluator.lastParsedLength)
+
+        // A digit typed inside a group in the middle re-parses that group only.
+        val middle = expression.length / 2
+        val groupEnd = expression.indexOf(')', middle)
+        val inGroup = expression.substring(0, groupEnd) + "5" + expression.substring(groupEnd)
+        assertEquals(Symbols().eval(inGroup), evaluator.evaluate(inGroup), 0.0)
+        assertTrue("${evaluator.lastParsedLength}", evaluator.lastParsedLength <= 8)
+
+        // Appending a term re-parses the last term and the new one.
+        val appended = "$inGroup+7"
+        assertEquals(Symbols().eval(appended), evaluator.evaluate(appended), 0.0)
+        assertTrue("${evaluator.lastParsedLength}", evaluator.lastParsedLength <= 10)
+
+        // Changing an operator between two terms re-parses just those terms.
+        val operator = inGroup.indexOf('+', middle)
+        val replaced = appended.substring(0, operator) + "-" + appended.substring(operator + 1)
+        assertEquals(Symbols().eval(replaced), evaluator.evaluate(replaced), 1e-9)
+        assertTrue("${evaluator.lastParsedLength}", evaluator.lastParsedLength <= 20)
+
+        // Extending a number re-parses just the number.
+        val number = replaced.lastIndexOf('7')
+        val extended = replaced.substring(0, number) + "12" + replaced.substring(number)
+        assertEquals(Symbols().eval(extended), evaluator.evaluate(extended), 1e-9)
+        assertTrue("${evaluator.lastParsedLength}", evaluator.lastParsedLength <= 4)
+    }
+
+    @Test
+    fun runningOutOfTimeKeepsThePreviousExpressionCached() {
+        val expression = List(200) { "(1+$it)" }.joinToString("*")
+        evaluator.evaluate(expression)
+
+        val expired = EvaluationBudget(Long.MAX_VALUE, maxWallTimeNanos = 0)
+        Thread.sleep(1)
+        val slow = List(200) { "(2+$it)" }.joinToString("*")
+        try {
+            evaluator.evaluate(slow, expired)
+            fail("Expected the deadline to be exceeded")
+        } catch (_: EvaluationBudgetExceededException) {
+            // Expected.
+        }
+
+        val edited = expression.replaceFirst("(1+0)", "(1+9)")
+        assertEquals(Symbols().eval(edited), evaluator.evaluate(edited), 0.0)
+        assertTrue("${evaluator.lastParsedLength}", evaluator.lastParsedLength <= 8)
+    }
+
+    @Test
+    fun parseErrorsKeepThePreviousExpressionCached() {
+        val expression = List(200) { "(1+$it)" }.joinToString("*")
+        evaluator.evaluate(expression)
+
+        val broken = expression.replaceFirst("(1+0)", "(1+*0)")
+        try {
+            evaluator.evaluate(broken)
+            fail("Expected $broken to be rejected")
+        } catch (_: ExpressionParseException) {
+            // Expected.
+        }
+
+        val fixed = expression.replaceFirst("(1+0)", "(1+9)")
+        assertEquals(Symbols().eval(fixed), evaluator.evaluate(fixed), 0.0)
+        assertTrue("${evaluator.lastParsedLength}", evaluator.lastParsedLength <= 8)
+    }
+
+    @Test
+    fun followsAritySyntax() {
+        val symbols = Symbols()
+        val roots = listOf("√--4^2", "√--2^3!", "-√4^2", "2^-√4")
+        val postfix = listOf("3!%", "3!!%", "3%!%", "50+10!%", "√4!%")
+        val percentages = listOf("50+10%", "50-(10%)", "50*10%", "1+2+10%", "50+10%*2", "50+-10%")
+        for (expression in roots + postfix + percentages) {
+            assertEquals(
+                expression,
+                symbols.eval(expression).toRawBits(),
+                evaluator.evaluate(expression).toRawBits()
+            )
+        }
+        for (expression in listOf("e(2)", "Infinity(2)", "1E2.5", "1E2e")) {
+            try {
+                IncrementalExpressionEvaluator().evaluate(expression)
+                fail("Expected $expression to be rejected")
+            } catch (_: ExpressionParseException) {
+                // Expected.
+            }
+        }
+    }
+
+    @Test
+    fun nestingTypedOneGroupAtATimeHitsTheParserDepthLimit() {
+        var depth = 0
+        try {
+            while (depth < 2 * CalculatorExpressionParser.DEFAULT_MAX_DEPTH) {
+                evaluator.evaluate("(".repeat(depth + 1) + "1")
+                depth++
+            }
+            fail("Expected nesting to become too deep")
+        } catch (_: ExpressionTooDeepException) {
+            // Expected.
+        }
+
+        // The limit is where a fresh parse of the whole expression would hit it.
+        val parser = CalculatorExpressionParser()
+        parser.parse("(".repeat(depth) + "1")
+        try {
+            parser.parse("(".repeat(depth + 1) + "1")
+            fail("Expected a fresh parse at depth ${depth + 1} to be too deep as well")
+        } catch (_: ExpressionTooDeepException) {
+            // Expected.
+        }
+    }
+
+    @Test
+    fun editCostDoesNotGrowWithExpressionLength() {
+        val terms = List(380) { "sin(${it % 10}.5)*${it % 9 + 1}" }
+        var expression = terms.joinToString("+")
+        assertTrue(expression.length in 4_000..4_500)
+        evaluator.evaluate(expression)
+
+        // Type a digit after a random decimal point, one keystroke at a time.
+        val random = Random(7L)
+        fun typeDigit() {
+            val position = expression.indexOf('.', random.nextInt(expression.length - 10)) + 1
+            expression = expression.substring(0, position) + "7" + expression.substring(position)
+            evaluator.evaluate(expression)
+        }
+        repeat(200) { typeDigit() }
+        val startNanos = System.nanoTime()
+        repeat(300) { typeDigit() }
+        val averageMicros = (System.nanoTime() - startNanos) / 300 / 1_000.0
+        assertTrue("Average edit took $averageMicros µs", averageMicros < 1_000.0)
+    }
+
+    private fun evaluateOrNull(evaluator: IncrementalExpressionEvaluator, expression: String) =
+        try {
+            evaluator.evaluate(expression)
+        } catch (_: ExpressionParseException) {
+            null
+        }
+
+    private fun randomExpression(random: Random, depth: Int): String {
+        if (depth > 4 || random.nextInt(4) == 0) {
+            return when (random.nextInt(5)) {
+                0 -> "π"
+                1 -> "e"
+                2 -> "${random.nextInt(100)}.${random.nextInt(10)}"
+                else -> random.nextInt(20).toString()
+            }
+        }
+        val next = depth + 1
+        return when (random.nextInt(11)) {
+            0 -> randomExpression(random, next) + "+" + randomExpression(random, next)
+            1 -> randomExpression(random, next) + "-" + randomExpression(random, next)
+            2 -> randomExpression(random, next) + "*" + randomExpression(random, next)
+            3 -> randomExpression(random, next) + "/" + randomExpression(random, next)
+            4 -> randomExpression(random, next) + "^" + randomExpression(random, next)
+            5 -> "(" + randomExpression(random, next) + ")"
+            6 -> "√" + randomExpression(random, next)
+            7 -> randomExpression(random, next) + "!"
+            8 -> FUNCTIONS[random.nextInt(FUNCTIONS.size)] + "(" +
+                randomExpression(random, next) + ")"
+
+            9 -> randomExpression(random, next) + "%"
+            else -> randomExpression(random, next) + randomExpression(random, next)
+        }
+    }
+
+    private companion object {
+        const val EDIT_ALPHABET = "0123456789+-*/().√^!%πe"
+        val FUNCTIONS = listOf("sin", "cos", "tan", "ln", "log")
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import kotlin.concurrent.thread
+import org.junit.Assert.assertEquals
+import org.junit.Assert.fail
+import org.junit.Test
+
+class LatencyHistogramTest {
+
+    private fun millis(value: Long) = value * 1_000_000L
+
+    @Test
+    fun countsSamplesIntoTheBucketAtOrAboveThem() {
+        val histogram = LatencyHistogram(longArrayOf(millis(8), millis(16), millis(33)))
+        histogram.record(millis(3))
+        histogram.record(millis(8))
+        histogram.record(millis(8) + 1)
+        histogram.record(millis(40))
+
+        val snapshot = histogram.snapshot()
+
+        assertEquals(4, snapshot.bucketCount)
+        assertEquals(listOf(2L, 1L, 0L, 1L), (0 until 4).map(snapshot::count))
+        assertEquals(4L, snapshot.total)
+        assertEquals("≤8ms:2 ≤16ms:1 ≤33ms:0 >33ms:1", snapshot.toString())
+    }
+
+    @Test
+    fun percentilesAreTheUpperBoundOfTheirBucket() {
+        val histogram = LatencyHistogram(longArrayOf(millis(8), millis(16), millis(33)))
+        repeat(90) { histogram.record(millis(5)) }
+        repeat(6) { histogram.record(millis(12)) }
+        repeat(4) { histogram.record(millis(100)) }
+
+        val snapshot = histogram.snapshot()
+
+        assertEquals(millis(8), snapshot.percentileUpperBoundNanos(50.0))
+        assertEquals(millis(8), snapshot.percentileUpperBoundNanos(90.0))
+        assertEquals(millis(16), snapshot.percentileUpperBoundNanos(95.0))
+        assertEquals(Long.MAX_VALUE, snapshot.percentileUpperBoundNanos(99.0))
+        assertEquals(3, snapshot.percentileBucket(99.0))
+        assertEquals(-1, LatencyHistogram().snapshot().percentileBucket(50.0))
+        assertEquals(0L, LatencyHistogram().snapshot().percentileUpperBoundNanos(95.0))
+    }
+
+    @Test
+    fun clearDropsEverySample() {
+        val histogram = LatencyHistogram()
+        repeat(10) { histogram.record(millis(it.toLong())) }
+
+        histogram.clear()
+        histogram.record(millis(20))
+
+        assertEquals(1L, histogram.snapshot().total)
+        assertEquals(millis(20), histogram.snapshot().percentileUpperBoundNanos(100.0))
+    }
+
+    @Test
+    fun rejectsBoundsThatDoNotIncrease() {
+        try {
+            LatencyHistogram(longArrayOf(millis(16), millis(8)))
+            fail("Expected decreasing bounds to be rejected")
+        } catch (_: IllegalArgumentException) {
+            // Expected.
+        }
+    }
+
+    @Test
+    fun concurrentRecordingLosesNoSamples() {
+        val histogram = LatencyHistogram()
+        val threads = (1..4).map { writer ->
+            thread { repeat(10_000) { histogram.record(millis(writer * 10L)) } }
+        }
+        threads.forEach(Thread::join)
+
+        assertEquals(40_000L, histogram.snapshot().total)
+    }
+}
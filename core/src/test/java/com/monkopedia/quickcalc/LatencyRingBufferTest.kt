@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import kotlin.concurrent.thread
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+class LatencyRingBufferTest {
+
+    @Test
+    fun keepsSamplesInOrderUntilFull() {
+        val buffer = LatencyRingBuffer(4)
+        buffer.record(10)
+        buffer.record(20)
+
+        assertEquals(listOf(10L, 20L), buffer.snapshot().toList())
+    }
+
+    @Test
+    fun overwritesTheOldestSamplesOnceFull() {
+        val buffer = LatencyRingBuffer(4)
+        (1L..10L).forEach(buffer::record)
+
+        assertEquals(listOf(7L, 8L, 9L, 10L), buffer.snapshot().toList())
+        assertEquals(10L, buffer.recordedCount)
+        assertEquals(10L, buffer.percentiles().max)
+    }
+
+    @Test
+    fun clearDropsEverySample() {
+        val buffer = LatencyRingBuffer(4)
+        (1L..6L).forEach(buffer::record)
+
+        buffer.clear()
+        buffer.record(42)
+
+        assertEquals(listOf(42L), buffer.snapshot().toList())
+    }
+
+    @Test
+    fun concurrentRecordingLosesNoSlots() {
+        val buffer = LatencyRingBuffer(256)
+        val threads = (1..4).map { writer ->
+            thread { repeat(10_000) { buffer.record(writer.toLong()) } }
+        }
+        threads.forEach(Thread::join)
+
+        assertEquals(40_000L, buffer.recordedCount)
+        val samples = buffer.snapshot()
+        assertEquals(256, samples.size)
+        assertTrue(samples.all { it in 1L..4L })
+    }
+
+    @Test
+    fun snapshotsWhileRecordingSeeNoUnwrittenSlots() {
+        repeat(200) {
+            // Roomy enough that every slot a snapshot reads was claimed on the first lap.
+            val buffer = LatencyRingBuffer(4_096)
+            val writers = (1..2).map { writer ->
+                thread { repeat(2_000) { buffer.record(writer.toLong()) } }
+            }
+            while (writers.any(Thread::isAlive)) {
+                val samples = buffer.snapshot()
+                assertTrue(samples.joinToString(), samples.all { it in 1L..2L })
+            }
+            writers.forEach(Thread::join)
+            assertEquals(4_000, buffer.snapshot().size)
+        }
+    }
+}
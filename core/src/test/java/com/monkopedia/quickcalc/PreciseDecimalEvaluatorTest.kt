@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2026 The QuickCalc Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.monkopedia.quickcalc
+
+import org.javia.arity.Symbols
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Assert.fail
+import org.junit.Test
+
+class PreciseDecimalEvaluatorTest {
+
+    private val evaluator = PreciseDecimalEvaluator()
+
+    @Test
+    fun matchesArityGrammarForImplicitMultiplicationAndPostfixOperators() {
+        val symbols = Symbols()
+        val expressions = listOf(
+            "2π",
+            "π2",
+            "2(3)",
+            "1/2π",
+            "2^3^2",
+            "-2^2",
+            "2^3!",
+            "2^3(2)",
+            "4/2(1+1)",
+            "√2^2",
+            "50%+1",
+            "5%2",
+            "3%%",
+            "--2",
+            "((((1",
+            "ln(e)(2)"
+        )
+        for (expression in expressions) {
+            val precise = evaluate(expression, digits = 12).toDouble()
+            assertEquals(expression, symbols.eval(expression), precise, 1e-9)
+        }
+    }
+
+    @Test
+    fun rejectsSyntaxArityRejects() {
+        for (expression in listOf("sinπ", "e2", "2e", "1.5.5", "()", "2^", "1E+2", "log 100")) {
+            try {
+                evaluator.compile(expression)
+                fail("Expected $expression to be rejected")
+            } catch (_: ExpressionParseException) {
+                // Expected.
+            }
+        }
+    }
+
+    @Test
+    fun computesConstantsToManyDigits() {
+        assertEquals(
+            "3.141592653589793238462643383279502884197",
+            evaluate("π", digits = 40)
+        )
+        assertEquals(
+            "2.718281828459045235360287471352662497757",
+            evaluate("e", digits = 40)
+        )
+        assertEquals(
+            "1.414213562373095048801688724209698078570",
+            evaluate("√2", digits = 40).padEnd(41, '0')
+        )
+    }
+
+    @Test
+    fun keepsExactDecimalArithmeticExact() {
+        assertEquals("0.3", evaluate("0.1+0.2", digits = 30))
+        assertEquals("1267650600228229401496703205376", evaluate("2^100", digits = 40))
+        assertEquals("1.26765060023E30", evaluate("2^100", digits = 12))
+        assertEquals("3628800", evaluate("10!", digits = 12))
+    }
+
+    @Test
+    fun showsZeroForValuesIndistinguishableFromZero() {
+        assertEquals("0", evaluate("sin(π)", digits = 30))
+        assertEquals("-1", evaluate("cos(π)", digits = 30))
+    }
+
+    @Test
+    fun extendingDigitsReusesPreviousWork() {
+        val budget = EvaluationBudget(Long.MAX_VALUE)
+        val compiled = evaluator.compile("√3+ln(2)")
+        compiled.toDigits(200, budget)
+        compiled.toDigits(212, budget)
+        val stepsAfterFirstExtension = budget.consumedSteps
+
+        // Refinement grows precision geometrically, so the next few scroll requests are served
+        // entirely from the cached approximations.
+        var extended = ""
+        for (digits in 224..296 step 12) {
+            extended = compiled.toDigits(digits, budget)
+        }
+
+        assertEquals(stepsAfterFirstExtension, budget.consumedSteps)
+        assertTrue(extended.startsWith("2.42519798812882"))
+        assertEquals(296, extended.length - 1)
+    }
+
+    @Test
+    fun abandonsEvaluationWhenBudgetIsExhausted() {
+        val compiled = evaluator.compile("e^π")
+        try {
+            compiled.toDigits(1_000, EvaluationBudget(maxSteps = 10))
+            fail("Expected the budget to be exceeded")
+        } catch (_: EvaluationBudgetExceededException) {
+            // Expected.
+        }
+    }
+
+    @Test
+    fun abandonsEvaluationWhenOutOfTimeOrCancelled() {
+        val expired = EvaluationBudget(Long.MAX_VALUE, maxWallTimeNanos = 0)
+        Thread.sleep(1)
+        try {
+            evaluator.compile("e^π").toDigits(1_000, expired)
+            fail("Expected the deadline to be exceeded")
+        } catch (_: EvaluationBudgetExceededException) {
+            // Expected.
+        }
+        try {
+            // Fresh steps do not buy more time.
+            evaluator.compile("e^π").toDigits(1_000, expired.withSteps(Long.MAX_VALUE))
+            fail("Expected the shared deadline to be exceeded")
+        } catch (_: EvaluationBudgetExceededException) {
+            // Expected.
+        }
+
+        Thread.currentThread().interrupt()
+        try {
+            evaluator.compile("e^π").toDigits(1_000, EvaluationBudget(Long.MAX_VALUE))
+            fail("Expected the interrupted evaluation to stop")
+        } catch (_: EvaluationBudgetExceededException) {
+            // Expected.
+        } finally {
+            Thread.interrupted()
+        }
+    }
+
+    @Test
+    fun boundsParserAndEvaluationDepth() {
+        try {
+            evaluator.compile("(".repeat(100_000) + "1")
+            fail("Expected deep nesting to be rejected")
+        } catch (_: ExpressionTooDeepException) {
+            // Expected, without overflowing the stack.
+        }
+        try {
+            evaluator.compile("√".repeat(20) + "2")
+                .toDigits(12, EvaluationBudget(Long.MAX_VALUE, maxDepth = 10))
+            fail("Expected the depth budget to be exceeded")
+        } catch (_: EvaluationBudgetExceededException) {
+            // Expected.
+        }
+    }
+
+    @Test
+    fun nestedRootsNeedOnlyLinearlyMorePrecision() {
+        val budget = EvaluationBudget(100_000)
+        val compiled = evaluator.compile("√".repeat(30) + "2")
+        assertEquals("1.00000000065", compiled.toDigits(12, budget))
+        assertTrue(budget.consumedSteps < 2_000)
+    }
+
+    @Test
+    fun reportsUnsupportedValues() {
+        for (expression in listOf("1/0", "√-4", "(-8)^(1/3)", "Infinity", "2.5!")) {
+            try {
+                evaluator.compile(expression).toDigits(12, EvaluationBudget(100_000))
+                fail("Expected $expression to be unsupported")
+            } catch (_: ArithmeticException) {
+                // Expected, the caller falls back to double precision.
+            }
+        }
+    }
+
+    private fun evaluate(expression: String, digits: Int): String =
+        evaluator.compile(expression).toDigits(digits, EvaluationBudget(1_000_000))
+}
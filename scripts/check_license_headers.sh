@@ -26,6 +26,7 @@ mapfile -t candidate_files < <(
   {
     find upstream/aosp-calculator/src -type f \( -name "*.java" -o -name "*.kt" \) 2>/dev/null || true
     find app/src -type f \( -name "*.java" -o -name "*.kt" \) 2>/dev/null || true
+    find core/src -type f \( -name "*.java" -o -name "*.kt" \) 2>/dev/null || true
     find src -type f \( -name "*.java" -o -name "*.kt" \) 2>/dev/null || true
   } | sort -u
 )
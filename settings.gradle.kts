@@ -16,3 +16,4 @@ dependencyResolutionManagement {
 
 rootProject.name = "QuickCalc"
 include(":app")
+include(":core")